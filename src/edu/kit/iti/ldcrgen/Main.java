@@ -1,6 +1,6 @@
 package edu.kit.iti.ldcrgen;
 
-import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -12,6 +12,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import edu.kit.iti.ldcrgen.control.Generator;
 import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
@@ -42,6 +48,16 @@ public class Main
 	private static String preRenderedDateTime = null;
 	private static String preRenderedTime = null;
 
+	// prefix of the messages of a worker thread, see runConcurrently
+	private static final ThreadLocal<String> RUN_LABEL = new ThreadLocal<String>()
+	{
+		@Override
+		protected String initialValue()
+		{
+			return "";
+		}
+	};
+
 
 	/**
 	 * Starts the generator.
@@ -137,85 +153,264 @@ public class Main
 		 * write the resulting time series to the corresponding output
 		 * file.
 		 */
-		int counter = 0;
-		for (final CommandLineArguments parsedArgs : parsedArguments)
+		final int threads = parseThreadCount(topLevelArguments);
+		if (threads > 1 && parsedArguments.size() > 1)
+		{
+			Main.runConcurrently(parsedArguments, threads);
+		}
+		else
 		{
-			for (int i = 0; i < parsedArgs.numRuns; ++i)
+			for (int i = 0; i < parsedArguments.size(); ++i)
+			{
+				Main.runArgumentSet(parsedArguments.get(i), i + 1, parsedArguments.size(), false);
+			}
+		}
+	}
+
+	/*
+	 * Runs the generator for the given argument set as often as requested
+	 * and writes the output file. Returns false, without writing anything,
+	 * as soon as one of the runs fails. Sequential runs collect the garbage
+	 * of the previous run so that it does not distort the next run's
+	 * timings; concurrent runs leave this to the JVM, as a forced collection
+	 * would stop all the other runs.
+	 */
+	private static boolean runArgumentSet(final CommandLineArguments parsedArgs,
+		final int number, final int total, final boolean concurrent)
+	{
+		for (int i = 0; i < parsedArgs.numRuns; ++i)
+		{
+			Main.logAndPrintInfo("~~~~~~~~~~~~~~~~~~~~~~~Argument Set No. " + number + "/"
+				+ total + "~~~~~~~~~~~~~~~~~~~~~~~~", VerbosityLevel.LEVEL_1);
+			Main.logAndPrintInfo("Started at: " + Main.getDateTime(), VerbosityLevel.LEVEL_1);
+			Main.logAndPrintInfo("Starting generation process with parameters:",
+				VerbosityLevel.LEVEL_1);
+			Main.logAndPrintInfo(parsedArgs.toString(), VerbosityLevel.LEVEL_1);
+
+			final long seed = parsedArgs.getSeedOfRun(i);
+			final Generator generator = new Generator(parsedArgs, seed);
+			try
+			{
+
+				if (1 < parsedArgs.numRuns)
+				{
+					System.out.println("TIMING MODE: run number " + i + " out of "
+						+ parsedArgs.numRuns + " (seed=" + seed + ")");
+				}
+				generator.run();
+			}
+			catch (final Exception e)
+			{
+				Main.logAndPrintErr("Generation FAILED for argument set No. " + number + "/"
+					+ total + " (seed=" + seed + "): " + e);
+				e.printStackTrace();
+				return false;
+			}
+
+			final DCRGraph graph = generator.getGraph();
+			final GraphJournal gJournal = graph.getGraphJournal();
+			final ClusteringJournal clJournal = graph.getClusteringJournal();
+
+			if (null != generator.getRolloverWriter())
+			{
+				Main.logAndPrintInfo("Segments have been listed in '"
+					+ generator.getRolloverWriter().getManifestFile().getAbsolutePath()
+					+ "'.", VerbosityLevel.LEVEL_1);
+			}
+			else if (parsedArgs.binary)
 			{
-				Main.logAndPrintInfo("~~~~~~~~~~~~~~~~~~~~~~~Argument Set No. " + (++counter) + "/"
-					+ parsedArguments.size() + "~~~~~~~~~~~~~~~~~~~~~~~~", VerbosityLevel.LEVEL_1);
-				Main.logAndPrintInfo("Started at: " + Main.getDateTime(), VerbosityLevel.LEVEL_1);
-				Main.logAndPrintInfo("Starting generation process with parameters:",
-					VerbosityLevel.LEVEL_1);
-				Main.logAndPrintInfo(parsedArgs.toString(), VerbosityLevel.LEVEL_1);
-
-				final Generator generator = new Generator(parsedArgs);
 				try
 				{
+					Main.logAndPrintInfo(
+						"Writing to file '" + parsedArgs.output.getAbsolutePath()
+							+ "'...", VerbosityLevel.LEVEL_1);
+					final long timeBeforeWriting = System.currentTimeMillis();
+					GraphJWriter.writeFile(gJournal, clJournal, parsedArgs.output, parsedArgs);
+					Main.logAndPrintInfo("Writing DONE!", VerbosityLevel.LEVEL_1);
 
 					if (1 < parsedArgs.numRuns)
 					{
-						System.out.println("TIMING MODE: run number " + i + " out of "
-							+ parsedArgs.numRuns);
+						reportWriteTiming(parsedArgs, System.currentTimeMillis()
+							- timeBeforeWriting);
 					}
-					generator.run();
+
+				}
+				catch (final FileNotFoundException fnfex)
+				{
+					Main.logAndPrintErr("Writing FAILED!");
+					fnfex.printStackTrace();
+				}
+				catch (final IOException ioex)
+				{
+					Main.logAndPrintErr("Writing FAILED!");
+					ioex.printStackTrace();
+				}
+			}
+			else
+			{
+				Main.logAndPrintInfo("Creating no output file!", VerbosityLevel.LEVEL_1);
+			}
+
+			Main.logAndPrintInfo("Finished at: " + Main.getDateTime(), VerbosityLevel.LEVEL_1);
+
+			if (!concurrent)
+			{
+				System.gc();
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Runs the argument sets on a pool of worker threads. The repetitions
+	 * of an argument set (timing mode) are not run concurrently, so that
+	 * they do not distort each other's timings. A summary of the failed
+	 * argument sets is reported at the end.
+	 */
+	private static void runConcurrently(final List<CommandLineArguments> parsedArguments,
+		final int threads)
+	{
+		Main.logAndPrintInfo("Running " + parsedArguments.size() + " argument sets on "
+			+ threads + " threads.", VerbosityLevel.LEVEL_1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+			new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(final Runnable runnable)
+				{
+					return new Thread(runnable, "ldcrgen-run");
+				}
+			});
+
+		final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(
+			parsedArguments.size());
+		for (int i = 0; i < parsedArguments.size(); ++i)
+		{
+			final CommandLineArguments parsedArgs = parsedArguments.get(i);
+			final int number = i + 1;
+			final int total = parsedArguments.size();
+			results.add(executor.submit(new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call()
+				{
+					RUN_LABEL.set("[" + number + "/" + total + "] ");
+					return Main.runArgumentSet(parsedArgs, number, total, true);
 				}
-				catch (final Exception e)
+			}));
+		}
+		executor.shutdown();
+
+		int failures = 0;
+		for (final Future<Boolean> result : results)
+		{
+			try
+			{
+				if (!result.get())
 				{
-					e.printStackTrace();
+					++failures;
 				}
+			}
+			catch (final ExecutionException ex)
+			{
+				++failures;
+				Main.logAndPrintErr("Run FAILED!");
+				ex.getCause().printStackTrace();
+			}
+			catch (final InterruptedException ex)
+			{
+				Main.logAndPrintErr("Interrupted while waiting for the runs.");
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
 
-				final DCRGraph graph = generator.getGraph();
-				final GraphJournal gJournal = graph.getGraphJournal();
-				final ClusteringJournal clJournal = graph.getClusteringJournal();
+		if (0 == failures)
+		{
+			Main.logAndPrintInfo("All " + results.size() + " argument sets finished.",
+				VerbosityLevel.LEVEL_1);
+		}
+		else
+		{
+			Main.logAndPrintErr(failures + " of " + results.size() + " argument sets FAILED!");
+		}
+	}
 
-				if (parsedArgs.binary)
+	/*
+	 * Returns the number of worker threads requested by -j: all available
+	 * processors if no number is given, 1 if -j is missing.
+	 */
+	private static int parseThreadCount(final Map<String, String> topLevelArguments)
+	{
+		if (!topLevelArguments.containsKey("-j"))
+		{
+			return 1;
+		}
+		final String value = topLevelArguments.get("-j");
+		if (null == value)
+		{
+			return Runtime.getRuntime().availableProcessors();
+		}
+		try
+		{
+			final int threads = Integer.parseInt(value);
+			if (threads > 0)
+			{
+				return threads;
+			}
+		}
+		catch (final NumberFormatException ex)
+		{
+			// reported below
+		}
+		Main.logAndPrintErr("FAILED. Reason: -j requires a positive number of threads: " + value);
+		System.exit(1);
+		return 1;
+	}
+
+	/*
+	 * Prints the time and throughput of writing the output file and
+	 * appends them as comment to the timings file.
+	 */
+	private static void reportWriteTiming(final CommandLineArguments args, final long millis)
+	{
+		final double seconds = millis / 1000.0;
+		final double megabytes = args.output.length() / (double) (1 << 20);
+		final boolean plain = !args.compact && 0 == args.stepsPerBlock;
+		final String format = (args.stepsPerBlock > 0 ? "blocks, " : "")
+			+ (args.deflate ? "deflate, " : (args.compact ? "compact, " : ""));
+		final String target = args.asyncWrite ? "async" : (plain ? "channel" : "buffered");
+		final String line = "write (" + format + target + "): "
+			+ seconds + " sec - " + megabytes + " MB - " + megabytes / Math.max(seconds, 0.001)
+			+ " MB/s";
+		System.out.println("Time for " + line);
+
+		if (null != args.timingsOutputFile)
+		{
+			FileOutputStream stream = null;
+			try
+			{
+				stream = new FileOutputStream(new File(args.timingsOutputFile), true);
+				stream.write(("# " + line + "\n").getBytes());
+			}
+			catch (final IOException ex)
+			{
+				ex.printStackTrace();
+			}
+			finally
+			{
+				if (null != stream)
 				{
-					BufferedOutputStream stream = null;
 					try
 					{
-						Main.logAndPrintInfo(
-							"Writing to file '" + parsedArgs.output.getAbsolutePath()
-								+ "'...", VerbosityLevel.LEVEL_1);
-						stream = new BufferedOutputStream(new FileOutputStream(parsedArgs.output));
-						GraphJWriter.writeGraph(gJournal, stream);
-						GraphJWriter.writeClustering(clJournal, stream);
 						stream.close();
-						Main.logAndPrintInfo("Writing DONE!", VerbosityLevel.LEVEL_1);
-
-					}
-					catch (final FileNotFoundException fnfex)
-					{
-						Main.logAndPrintErr("Writing FAILED!");
-						fnfex.printStackTrace();
 					}
-					catch (final IOException ioex)
+					catch (final IOException ex)
 					{
-						Main.logAndPrintErr("Writing FAILED!");
-						ioex.printStackTrace();
+						ex.printStackTrace();
 					}
-					finally
-					{
-						if (null != stream)
-						{
-							try
-							{
-								stream.close();
-							}
-							catch (final IOException ioex)
-							{
-								Main.logAndPrintErr("Closing stream failed.");
-								ioex.printStackTrace();
-							}
-						}
-					}
-				}
-				else
-				{
-					Main.logAndPrintInfo("Creating no output file!", VerbosityLevel.LEVEL_1);
 				}
-
-				Main.logAndPrintInfo("Finished at: " + Main.getDateTime(), VerbosityLevel.LEVEL_1);
 			}
 		}
 	}
@@ -265,13 +460,13 @@ public class Main
 		return keyValueMap;
 	}
 
-	private static String getDateTime()
+	private static synchronized String getDateTime()
 	{
 		updateTime();
 		return preRenderedDateTime;
 	}
 
-	private static String getTime()
+	private static synchronized String getTime()
 	{
 		updateTime();
 		return preRenderedTime;
@@ -291,45 +486,49 @@ public class Main
 		}
 	}
 
-	public static void logAndPrintInfo(final String message, final VerbosityLevel level)
+	public static synchronized void logAndPrintInfo(final String message,
+		final VerbosityLevel level)
 	{
 		Main.printInfo(message, level);
 		Main.logInfo(message);
 	}
 
-	public static void logInfo(final String message)
+	public static synchronized void logInfo(final String message)
 	{
 		if (loggingEnabled)
 		{
 			Main.logStream.print(Main.getTime());
 			Main.logStream.print(" ");
+			Main.logStream.print(RUN_LABEL.get());
 			Main.logStream.println(message);
 		}
 	}
 
-	public static void printInfo(final String string, final VerbosityLevel level)
+	public static synchronized void printInfo(final String string, final VerbosityLevel level)
 	{
 		if (level.getLevel() <= Main.getVerbosityLevel().getLevel())
 		{
 			System.out.print(Main.getTime());
 			System.out.print(" ");
+			System.out.print(RUN_LABEL.get());
 			System.out.println(string);
 		}
 	}
 
-	public static void logAndPrintErr(final String message)
+	public static synchronized void logAndPrintErr(final String message)
 	{
+		System.err.print(RUN_LABEL.get());
 		System.err.println(message);
 		Main.logError(message);
 	}
 
-	public static void logError(final String message)
+	public static synchronized void logError(final String message)
 	{
 		if (loggingEnabled)
 		{
 			Main.logStream.print("ERROR");
 			Main.logStream.print(Main.getTime());
-			Main.logStream.println(" " + message);
+			Main.logStream.println(" " + RUN_LABEL.get() + message);
 		}
 	}
 
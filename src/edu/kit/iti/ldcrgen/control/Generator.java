@@ -4,13 +4,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import edu.kit.iti.ldcrgen.Main;
 import edu.kit.iti.ldcrgen.VerbosityLevel;
 import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
-import edu.kit.iti.ldcrgen.data_structures.JavaUtilRandomProvider;
 import edu.kit.iti.ldcrgen.data_structures.RandomProvider;
+import edu.kit.iti.ldcrgen.data_structures.XoroshiroRandomProvider;
 import edu.kit.iti.ldcrgen.io.CommandLineArguments;
+import edu.kit.iti.ldcrgen.io.RolloverWriter;
+import edu.kit.iti.ldcrgen.io.journaling.JournalSpill;
+import edu.kit.iti.ldcrgen.io.journaling.NetDeltaCompactor;
 
 /**
  * The generator is stears the whole generation process.
@@ -26,9 +32,13 @@ public class Generator
 	private static final int STEPPING = 50;
 	private int currentProgress = 0;
 
+	// root of all random streams, seeded with this.seed
+	private final RandomProvider rootRandom;
 	private final RandomProvider random;
 	private final CommandLineArguments args;
+	private final long seed;
 	private DCRGraph graph;
+	private RolloverWriter rolloverWriter;
 
 	/**
 	 * Configures a new generator with the given command line arguments.
@@ -37,10 +47,27 @@ public class Generator
 	 *            the arguments
 	 */
 	public Generator(final CommandLineArguments args)
+	{
+		this(args, args.seed);
+	}
+
+	/**
+	 * Configures a new generator with the given command line arguments and
+	 * a seed which replaces the one of the arguments.
+	 *
+	 * @param args
+	 *            the arguments
+	 * @param seed
+	 *            the seed of all random decisions
+	 */
+	public Generator(final CommandLineArguments args, final long seed)
 	{
 		this.args = args;
+		this.seed = seed;
 		this.graph = null;
-		this.random = new JavaUtilRandomProvider();
+		this.rolloverWriter = null;
+		this.rootRandom = new XoroshiroRandomProvider(seed);
+		this.random = this.rootRandom.split();
 	}
 
 	/**
@@ -60,15 +87,37 @@ public class Generator
 			+ " p_in=" + args.p_in_list //
 			+ " p_out" + args.p_out //
 			+ " p_in_new: " + args.p_in_new //
-			+ " theta: " + args.theta, VerbosityLevel.LEVEL_2);
+			+ " theta: " + args.theta //
+			+ " seed: " + this.seed, VerbosityLevel.LEVEL_2);
 
 		timeBeforeStart = System.currentTimeMillis();
 
-		graph = new DCRGraph(args.p_out, args.theta, args.p_in_new, args.useTreeMapInsteadOfHashMap);
-		graph.initAsErdosRenyi(args.cl_sizes, args.p_in_list, args.p_out);
+		graph = new DCRGraph(args.p_out, args.theta, args.p_in_new, args.shuffleMapType,
+			this.rootRandom.split());
+		if (args.binary && args.isRolloverEnabled())
+		{
+			this.enableRollover();
+		}
+		else if (args.binary && args.spillThreshold > 0)
+		{
+			this.enableSpilling();
+		}
+		if (args.netDelta)
+		{
+			graph.getGraphJournal().enableNetDeltaCompaction(new NetDeltaCompactor());
+		}
+		graph.initAsErdosRenyi(args.cl_sizes, args.p_in_list, args.p_out, args.initThreads);
 
 		timeAfterInit = System.currentTimeMillis();
 
+		final TimeStepPlanner planner = args.planSteps //
+			? new TimeStepPlanner(args.p_chi, args.p_nu, this.random)
+			: null;
+		final boolean batchIntraClusterOps = args.stepThreads > 0;
+		final ExecutorService stepExecutor = args.stepThreads > 1 //
+			? createStepExecutor(args.stepThreads)
+			: null;
+
 		/*
 		 * Iteration over time
 		 */
@@ -76,6 +125,7 @@ public class Generator
 		{
 			this.logAndPrintProgres(time);
 			graph.nextTimeStep();
+			this.rollIfNecessary(false);
 
 			/*
 			 * Large-scale operations
@@ -95,44 +145,44 @@ public class Generator
 
 			/*
 			 * Small-scale operations
+			 * If enabled, the runs of edge operations are planned (see
+			 * TimeStepPlanner) and consecutive intra-cluster edge
+			 * operations are collected and performed in parallel (see
+			 * DCRGraph.beginIntraClusterBatch).
 			 */
-			int opsDuringStep = 0;
-			while (opsDuringStep < args.eta)
+			if (batchIntraClusterOps)
 			{
-				// edge operation
-				if (nextDoubleInUnitRange() < args.p_chi)
-				{
-					++opsDuringStep;
-
-					if (graph.shallDoEdgeInsertion()) // weighted selection
-					{
-						graph.addEdge();
-					}
-					else
-					{
-						graph.removeEdge();
-					}
-				}
-				else
-				// node operation
-				{
-					if (nextDoubleInUnitRange() < args.p_nu)
-					// node insertion
-					{
-						opsDuringStep += graph.addAndConnectNode();
-					}
-					else
-					// node deletion
-					{
-						opsDuringStep += graph.removeNode();
-					}
-				}
-
+				graph.beginIntraClusterBatch(stepExecutor);
+			}
+			if (null != planner)
+			{
+				planner.performSmallScaleOperations(graph, args.eta);
+			}
+			else
+			{
+				this.performSmallScaleOperations();
+			}
+			if (batchIntraClusterOps)
+			{
+				graph.endIntraClusterBatch();
 			}
 			graph.checkClusterOperationsForCompleteness();
 
 		} // for: time steps
 
+		if (null != stepExecutor)
+		{
+			stepExecutor.shutdown();
+		}
+
+		final NetDeltaCompactor compactor = graph.getGraphJournal().getNetDeltaCompactor();
+		if (null != compactor)
+		{
+			graph.getGraphJournal().compactCurrentStep();
+			Main.logAndPrintInfo(compactor.toString(), VerbosityLevel.LEVEL_1);
+		}
+		this.rollIfNecessary(true);
+
 		final StringBuilder builder = new StringBuilder();
 		builder.append("Generation complete!");
 		builder.append("\n\tNode/Edge operations:\t" + graph.getSmallScaleOpCount());
@@ -184,7 +234,47 @@ public class Generator
 				}
 			}
 		}
-		System.gc();
+	}
+
+	/*
+	 * Performs small-scale operations until their cost reaches eta,
+	 * deciding the kind of each operation separately.
+	 */
+	private void performSmallScaleOperations()
+	{
+		int opsDuringStep = 0;
+		while (opsDuringStep < args.eta)
+		{
+			// edge operation
+			if (nextDoubleInUnitRange() < args.p_chi)
+			{
+				++opsDuringStep;
+
+				if (graph.shallDoEdgeInsertion()) // weighted selection
+				{
+					graph.addEdge();
+				}
+				else
+				{
+					graph.removeEdge();
+				}
+			}
+			else
+			// node operation
+			{
+				if (nextDoubleInUnitRange() < args.p_nu)
+				// node insertion
+				{
+					opsDuringStep += graph.addAndConnectNode();
+				}
+				else
+				// node deletion
+				{
+					opsDuringStep += graph.removeNode();
+				}
+			}
+
+		}
 	}
 
 	private void logAndPrintProgres(final int time)
@@ -210,6 +300,102 @@ public class Generator
 		return this.graph;
 	}
 
+	/**
+	 * Returns the writer of the segment files, which is <code>null</code>
+	 * if the output is not split into segments.
+	 *
+	 * @return the writer
+	 */
+	public RolloverWriter getRolloverWriter()
+	{
+		return this.rolloverWriter;
+	}
+
+	private static ExecutorService createStepExecutor(final int threads)
+	{
+		return Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(final Runnable runnable)
+			{
+				final Thread thread = new Thread(runnable, "ldcrgen-step");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/*
+	 * Writes the journals to segment files while generating. This bounds
+	 * the memory consumption as well, so the journals are never spilled.
+	 */
+	private void enableRollover()
+	{
+		try
+		{
+			this.rolloverWriter = new RolloverWriter(args);
+		}
+		catch (final IOException ex)
+		{
+			Main.logAndPrintErr("Cannot create the manifest, writing a single output file.");
+			ex.printStackTrace();
+			if (args.spillThreshold > 0)
+			{
+				this.enableSpilling();
+			}
+		}
+	}
+
+	/*
+	 * Writes the current segment if it is complete or if this is the end
+	 * of the generation.
+	 */
+	private void rollIfNecessary(final boolean isLast)
+	{
+		if (null == this.rolloverWriter)
+		{
+			return;
+		}
+		try
+		{
+			if (isLast)
+			{
+				this.rolloverWriter.finish(graph);
+				Main.logAndPrintInfo("Wrote " + this.rolloverWriter.getSegmentCount()
+					+ " segments.", VerbosityLevel.LEVEL_1);
+			}
+			else
+			{
+				this.rolloverWriter.rollIfNecessary(graph);
+			}
+		}
+		catch (final IOException ex)
+		{
+			throw new IllegalStateException("Writing a segment failed.", ex);
+		}
+	}
+
+	/*
+	 * Lets both journals spill their completed time steps to temporary
+	 * files next to the output file.
+	 */
+	private void enableSpilling()
+	{
+		try
+		{
+			final File directory = args.output.getAbsoluteFile().getParentFile();
+			graph.getGraphJournal().enableSpilling(//
+				new JournalSpill(directory, "ldcr_graph_", args.asyncWrite), args.spillThreshold);
+			graph.getClusteringJournal().enableSpilling(//
+				new JournalSpill(directory, "ldcr_clustering_", args.asyncWrite), args.spillThreshold);
+		}
+		catch (final IOException ex)
+		{
+			Main.logAndPrintErr("Cannot create spill files, keeping the journals in memory.");
+			ex.printStackTrace();
+		}
+	}
+
 	/*
 	 * Returns a double in the range of 0 to 1
 	 */
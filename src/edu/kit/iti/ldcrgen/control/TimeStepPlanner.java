@@ -0,0 +1,141 @@
+package edu.kit.iti.ldcrgen.control;
+
+import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
+import edu.kit.iti.ldcrgen.data_structures.RandomProvider;
+
+/**
+ * <p>
+ * Performs the small-scale operations of a time step by planning the
+ * runs of edge operations instead of deciding the kind of each operation
+ * separately.
+ * </p>
+ * <p>
+ * The generator performs operations until their cost reaches eta. Each
+ * operation is an edge operation (cost 1) with probability p_chi and a
+ * node operation otherwise, which is a node insertion with probability
+ * p_nu (cost: number of created edges) or a node deletion (cost: number
+ * of removed edges).
+ * </p>
+ * <p>
+ * The planner draws the number of edge operations before the next node
+ * operation at once, which is geometrically distributed with parameter
+ * 1 - p_chi. If it reaches the remaining budget, the time step ends with
+ * this number of edge operations. Otherwise, the edge operations are
+ * followed by a single node operation whose cost is only known
+ * afterwards. Each edge operation of a run is still chosen by the
+ * weighted selection of {@link DCRGraph#shallDoEdgeInsertion()}, so the
+ * planner samples the same process as the sequential loop, merely from
+ * fewer random numbers.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+class TimeStepPlanner
+{
+	private final RandomProvider random;
+	private final double pNu;
+	// log(p_chi), NaN if every or no operation is an edge operation
+	private final double logPChi;
+	private final boolean edgeOpsOnly;
+
+	/**
+	 * Creates a planner for the given probabilities.
+	 *
+	 * @param pChi
+	 *            the probability of an edge operation
+	 * @param pNu
+	 *            the probability of a node insertion among node operations
+	 * @param random
+	 *            the source of randomness
+	 */
+	TimeStepPlanner(final double pChi, final double pNu, final RandomProvider random)
+	{
+		if (pChi < 0.0 || pChi > 1.0 || pNu < 0.0 || pNu > 1.0)
+		{
+			throw new IllegalArgumentException("Invalid probabilities: p_chi=" + pChi + " p_nu="
+				+ pNu);
+		}
+		this.random = random;
+		this.pNu = pNu;
+		this.edgeOpsOnly = 1.0 == pChi;
+		this.logPChi = pChi > 0.0 && pChi < 1.0 ? Math.log(pChi) : Double.NaN;
+	}
+
+	/**
+	 * Performs small-scale operations on the given graph until their cost
+	 * reaches eta.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param eta
+	 *            the minimum cost of the operations
+	 * @return the cost of the operations
+	 */
+	int performSmallScaleOperations(final DCRGraph graph, final int eta)
+	{
+		int opsDuringStep = 0;
+		while (opsDuringStep < eta)
+		{
+			final long run = this.nextEdgeRunLength();
+			final int remaining = eta - opsDuringStep;
+			if (run >= remaining)
+			{
+				this.performEdgeOperations(graph, remaining);
+				opsDuringStep = eta;
+			}
+			else
+			{
+				this.performEdgeOperations(graph, (int) run);
+				opsDuringStep += run;
+
+				if (this.random.nextDouble() < this.pNu)
+				{
+					opsDuringStep += graph.addAndConnectNode();
+				}
+				else
+				{
+					opsDuringStep += graph.removeNode();
+				}
+			}
+		}
+		return opsDuringStep;
+	}
+
+	/**
+	 * Returns the number of edge operations before the next node
+	 * operation, which is {@link Long#MAX_VALUE} if there are no node
+	 * operations.
+	 */
+	long nextEdgeRunLength()
+	{
+		if (this.edgeOpsOnly)
+		{
+			return Long.MAX_VALUE;
+		}
+		else if (Double.isNaN(this.logPChi)) // p_chi = 0
+		{
+			return 0;
+		}
+		else
+		{
+			final double length = Math.floor(Math.log(1 - this.random.nextDouble())
+				/ this.logPChi);
+			return length >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) length;
+		}
+	}
+
+	private void performEdgeOperations(final DCRGraph graph, final int count)
+	{
+		for (int i = 0; i < count; ++i)
+		{
+			if (graph.shallDoEdgeInsertion()) // weighted selection
+			{
+				graph.addEdge();
+			}
+			else
+			{
+				graph.removeEdge();
+			}
+		}
+	}
+}
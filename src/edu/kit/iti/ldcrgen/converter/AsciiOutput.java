@@ -0,0 +1,181 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Buffered output of ASCII text with hand-rolled formatting of ints, which
+ * avoids the temporary strings of {@link java.io.PrintStream}.
+ * </p>
+ * <p>
+ * Either the buffer is flushed to a stream whenever it is full, or, if no
+ * stream is given, the buffer grows and its content is retrieved with
+ * {@link #toByteArray()}.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class AsciiOutput
+{
+	static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	// the longest int: -2147483648
+	private static final int MAX_INT_LENGTH = 11;
+	private static final byte[] MIN_VALUE = { '-', '2', '1', '4', '7', '4', '8', '3', '6', '4',
+		'8' };
+
+	private final OutputStream target;
+	private byte[] buffer;
+	private int position;
+
+	/**
+	 * Creates an output which writes to the given stream.
+	 */
+	AsciiOutput(final OutputStream target)
+	{
+		this.target = target;
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Creates an output which collects the text in memory.
+	 */
+	AsciiOutput(final int initialCapacity)
+	{
+		this.target = null;
+		this.buffer = new byte[Math.max(initialCapacity, MAX_INT_LENGTH)];
+	}
+
+	AsciiOutput write(final char c) throws IOException
+	{
+		this.ensureRemaining(1);
+		this.buffer[this.position++] = (byte) c;
+		return this;
+	}
+
+	/**
+	 * Writes the given string, which must only consist of ASCII characters.
+	 */
+	AsciiOutput write(final String text) throws IOException
+	{
+		final int length = text.length();
+		this.ensureRemaining(length);
+		for (int i = 0; i < length; ++i)
+		{
+			this.buffer[this.position++] = (byte) text.charAt(i);
+		}
+		return this;
+	}
+
+	AsciiOutput write(final byte[] bytes) throws IOException
+	{
+		if (null != this.target && bytes.length > this.buffer.length >> 1)
+		{
+			// large blocks of preformatted text bypass the buffer
+			this.target.write(this.buffer, 0, this.position);
+			this.position = 0;
+			this.target.write(bytes);
+			return this;
+		}
+
+		this.ensureRemaining(bytes.length);
+		System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+		this.position += bytes.length;
+		return this;
+	}
+
+	/**
+	 * Writes the decimal representation of the given int.
+	 */
+	AsciiOutput write(final int value) throws IOException
+	{
+		this.ensureRemaining(MAX_INT_LENGTH);
+		if (Integer.MIN_VALUE == value)
+		{
+			for (int i = 0; i < MIN_VALUE.length; ++i)
+			{
+				this.buffer[this.position++] = MIN_VALUE[i];
+			}
+			return this;
+		}
+
+		int remainder = value;
+		if (remainder < 0)
+		{
+			this.buffer[this.position++] = '-';
+			remainder = -remainder;
+		}
+
+		final int end = this.position + digitCount(remainder);
+		int index = end;
+		do
+		{
+			this.buffer[--index] = (byte) ('0' + remainder % 10);
+			remainder /= 10;
+		} while (remainder != 0);
+		this.position = end;
+		return this;
+	}
+
+	AsciiOutput newLine() throws IOException
+	{
+		return this.write('\n');
+	}
+
+	/**
+	 * Returns the collected text of an in-memory output.
+	 */
+	byte[] toByteArray()
+	{
+		assert null == this.target : "Output is not collected in memory";
+		return Arrays.copyOf(this.buffer, this.position);
+	}
+
+	/**
+	 * Writes the buffered text to the stream and flushes the stream.
+	 */
+	void flush() throws IOException
+	{
+		if (null != this.target)
+		{
+			this.target.write(this.buffer, 0, this.position);
+			this.position = 0;
+			this.target.flush();
+		}
+	}
+
+	private void ensureRemaining(final int length) throws IOException
+	{
+		if (this.buffer.length - this.position >= length)
+		{
+			return;
+		}
+
+		if (null == this.target)
+		{
+			this.buffer = Arrays.copyOf(this.buffer,
+				Math.max(this.buffer.length << 1, this.position + length));
+		}
+		else
+		{
+			this.target.write(this.buffer, 0, this.position);
+			this.position = 0;
+			if (length > this.buffer.length)
+			{
+				this.buffer = new byte[length];
+			}
+		}
+	}
+
+	private static int digitCount(final int nonNegative)
+	{
+		int count = 1;
+		for (int bound = 10; count < 10 && nonNegative >= bound; bound *= 10)
+		{
+			++count;
+		}
+		return count;
+	}
+}
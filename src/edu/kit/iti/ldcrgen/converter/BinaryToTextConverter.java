@@ -1,85 +1,482 @@
 package edu.kit.iti.ldcrgen.converter;
 
-import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import edu.kit.iti.ldcrgen.io.BlockContainerReader;
 import edu.kit.iti.ldcrgen.io.GraphJReader;
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
-import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
-import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+import edu.kit.iti.ldcrgen.replay.GraphState;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
 
 
 /**
- * Converts the binary GraphJ format into an informal textual
- * representation.
+ * <p>
+ * Converts the binary GraphJ format into several textual formats:
+ * </p>
+ * <ul>
+ * <li><code>journal</code> (default): an informal listing of all
+ * operations</li>
+ * <li><code>edges</code>: the edges which are created (<code>t + u v</code>)
+ * or removed (<code>t - u v</code>) in each time step t</li>
+ * <li><code>metis</code>: the graph at the selected time steps in the METIS
+ * format</li>
+ * <li><code>membership</code>: the ground truth and reference cluster of
+ * each node at the selected time steps as CSV</li>
+ * </ul>
+ * <p>
+ * The text is written through a large buffer without intermediate strings.
+ * Operation-based formats can be formatted in parallel; the order of the
+ * output is preserved.
+ * </p>
  *
  * @author Roland Kluge
  *
  */
 public class BinaryToTextConverter
 {
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private enum Format
+	{
+		JOURNAL, EDGES, METIS, MEMBERSHIP
+	}
+
+	/*
+	 * Formats one chunk of the output.
+	 */
+	private interface ChunkTask
+	{
+		void format(AsciiOutput out) throws IOException;
+	}
 
 	/**
 	 * Converts the given binary file (first argument) into a textual
 	 * representation.
 	 *
 	 * @param args
-	 *            must be of length 1 and contains the filename of the
-	 *            binary file
+	 *            the filename of the binary file, optionally followed by
+	 *            <code>format=journal|edges|metis|membership</code>,
+	 *            <code>steps=t1,t2,...</code> (the time steps of METIS and
+	 *            membership output, default: last step/all steps),
+	 *            <code>threads=n</code> and <code>output=file</code>
+	 *            (default: standard output; METIS graphs are written to
+	 *            file_t.graph)
 	 */
 	public static void main(final String[] args)
 	{
-		if (args.length != 1)
+		if (args.length < 1)
 		{
 			System.out.println("First argument: GraphJ file");
+			System.out.println("Optional: format=journal|edges|metis|membership, "
+				+ "steps=t1,t2,..., threads=n, output=file");
 			System.exit(1);
 		}
 
-		BufferedInputStream fstream = null;
+		Format format = Format.JOURNAL;
+		int[] steps = null;
+		int threads = 1;
+		String output = null;
 		try
 		{
-			fstream = new BufferedInputStream(new FileInputStream(args[0]));
+			for (int i = 1; i < args.length; ++i)
+			{
+				final int separator = args[i].indexOf('=');
+				final String key = separator < 0 ? args[i] : args[i].substring(0, separator);
+				final String value = args[i].substring(separator + 1);
+				if ("format".equals(key))
+				{
+					format = Format.valueOf(value.toUpperCase());
+				}
+				else if ("steps".equals(key))
+				{
+					final String[] parts = value.split(",");
+					steps = new int[parts.length];
+					for (int j = 0; j < parts.length; ++j)
+					{
+						steps[j] = Integer.parseInt(parts[j].trim());
+					}
+				}
+				else if ("threads".equals(key))
+				{
+					threads = Integer.parseInt(value);
+				}
+				else if ("output".equals(key))
+				{
+					output = value;
+				}
+				else
+				{
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+				}
+			}
+			if (threads <= 0)
+			{
+				throw new IllegalArgumentException("Number of threads must be positive: "
+					+ threads);
+			}
 		}
-		catch (final FileNotFoundException e)
+		catch (final IllegalArgumentException e)
 		{
-			e.printStackTrace();
+			System.out.println(e.getMessage());
+			System.exit(1);
 		}
 
-		final GraphJournal gJournal = GraphJReader.readGraphJournal(fstream);
-		final ClusteringJournal clJournal = GraphJReader.readClusteringJournal(fstream);
-
-		if (null != fstream)
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		final File file = new File(args[0]);
+		if (isBlockContainer(file))
 		{
 			try
 			{
-				fstream.close();
+				final BlockContainerReader reader = new BlockContainerReader(file);
+				try
+				{
+					gJournal = reader.readGraphJournal();
+					clJournal = reader.readClusteringJournal();
+				}
+				finally
+				{
+					reader.close();
+				}
 			}
 			catch (final IOException e)
 			{
 				e.printStackTrace();
+				System.exit(1);
+				return;
+			}
+		}
+		else
+		{
+			FileChannel channel = null;
+			try
+			{
+				channel = new FileInputStream(file).getChannel();
+			}
+			catch (final FileNotFoundException e)
+			{
+				e.printStackTrace();
+			}
+
+			gJournal = GraphJReader.readGraphJournal(channel);
+			clJournal = GraphJReader.readClusteringJournal(channel);
+
+			if (null != channel)
+			{
+				try
+				{
+					channel.close();
+				}
+				catch (final IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+
+		try
+		{
+			if (Format.JOURNAL == format || Format.EDGES == format)
+			{
+				writeOperations(gJournal, clJournal, format, threads, output);
+			}
+			else
+			{
+				writeStates(new ReplayEngine(gJournal, clJournal), format, steps, output);
+			}
+		}
+		catch (final IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+		catch (final IllegalArgumentException e)
+		{
+			System.out.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static void writeOperations(final GraphJournal gJournal,
+		final ClusteringJournal clJournal, final Format format, final int threads,
+		final String output) throws IOException
+	{
+		final OutputStream stream = openOutput(output);
+		try
+		{
+			final AsciiOutput out = new AsciiOutput(stream);
+			if (Format.JOURNAL == format)
+			{
+				writeJournals(gJournal, clJournal, threads, out);
+			}
+			else
+			{
+				writeEdgeDeltas(gJournal, threads, out);
+			}
+			out.flush();
+		}
+		finally
+		{
+			closeOutput(stream);
+		}
+	}
+
+	private static void writeJournals(final GraphJournal gJournal,
+		final ClusteringJournal clJournal, final int threads, final AsciiOutput out)
+		throws IOException
+	{
+		final List<ChunkTask> tasks = new ArrayList<ChunkTask>();
+		for (final JournalFormatter.Chunk chunk : JournalFormatter.splitGraphJournal(
+			gJournal.opCodes, CHUNK_SIZE))
+		{
+			tasks.add(new ChunkTask()
+			{
+				@Override
+				public void format(final AsciiOutput chunkOut) throws IOException
+				{
+					JournalFormatter.formatGraphOperations(gJournal.opCodes, gJournal.arguments,
+						chunk, chunkOut);
+				}
+			});
+		}
+		out.write("Graph Journal:").newLine();
+		writeChunks(tasks, threads, out);
+
+		tasks.clear();
+		for (final JournalFormatter.Chunk chunk : JournalFormatter.splitClusteringJournal(
+			clJournal.opCodes, CHUNK_SIZE))
+		{
+			tasks.add(new ChunkTask()
+			{
+				@Override
+				public void format(final AsciiOutput chunkOut) throws IOException
+				{
+					JournalFormatter.formatClusteringOperations(clJournal.opCodes,
+						clJournal.intArgs, chunk, chunkOut);
+				}
+			});
+		}
+		out.write("Clustering Journal:").newLine();
+		writeChunks(tasks, threads, out);
+	}
+
+	private static void writeEdgeDeltas(final GraphJournal gJournal, final int threads,
+		final AsciiOutput out) throws IOException
+	{
+		final List<ChunkTask> tasks = new ArrayList<ChunkTask>();
+		for (final JournalFormatter.Chunk chunk : JournalFormatter.splitGraphJournal(
+			gJournal.opCodes, CHUNK_SIZE))
+		{
+			tasks.add(new ChunkTask()
+			{
+				@Override
+				public void format(final AsciiOutput chunkOut) throws IOException
+				{
+					JournalFormatter.formatEdgeDeltas(gJournal.opCodes, gJournal.arguments,
+						chunk, chunkOut);
+				}
+			});
+		}
+		out.write("# time step, created (+) or removed (-), node u, node v").newLine();
+		writeChunks(tasks, threads, out);
+	}
+
+	/*
+	 * The states are replayed in the order of the given time steps.
+	 */
+	private static void writeStates(final ReplayEngine engine, final Format format,
+		final int[] steps, final String output) throws IOException
+	{
+		final int lastTimeStep = engine.getLastTimeStep();
+		final int[] timeSteps;
+		if (null != steps)
+		{
+			timeSteps = steps;
+		}
+		else if (Format.METIS == format)
+		{
+			timeSteps = new int[] { lastTimeStep };
+		}
+		else
+		{
+			timeSteps = new int[lastTimeStep + 1];
+			for (int timeStep = 0; timeStep <= lastTimeStep; ++timeStep)
+			{
+				timeSteps[timeStep] = timeStep;
 			}
 		}
 
-		/*
-		 * Print journals to console
-		 */
-		System.out.println("Graph Journal:");
-		int graphOpCounter = 1;
-		for (final GraphOperation op : gJournal)
+		if (Format.METIS == format && null != output)
 		{
-			System.out.println("#" + graphOpCounter + ": " + op.type + " " + op.arg0 + " " + op.arg1 + " " + op.arg2 + "\t\t" + op.type.documentation);
-			graphOpCounter++;
+			for (final int timeStep : timeSteps)
+			{
+				final GraphState state = engine.seek(timeStep);
+				final OutputStream stream = openOutput(output + "_" + timeStep + ".graph");
+				try
+				{
+					final AsciiOutput out = new AsciiOutput(stream);
+					StateFormatter.formatMetis(state, out);
+					out.flush();
+				}
+				finally
+				{
+					closeOutput(stream);
+				}
+			}
+			return;
 		}
 
-		System.out.println("Clustering Journal:");
-		int clusterOpCounter = 1;
-		for (final ClusteringOperation op : clJournal)
+		final OutputStream stream = openOutput(output);
+		try
+		{
+			final AsciiOutput out = new AsciiOutput(stream);
+			if (Format.MEMBERSHIP == format)
+			{
+				out.write(StateFormatter.MEMBERSHIP_HEADER).newLine();
+			}
+			for (final int timeStep : timeSteps)
+			{
+				final GraphState state = engine.seek(timeStep);
+				if (Format.METIS == format)
+				{
+					StateFormatter.formatMetis(state, out);
+				}
+				else
+				{
+					StateFormatter.formatMembership(state, out);
+				}
+			}
+			out.flush();
+		}
+		finally
+		{
+			closeOutput(stream);
+		}
+	}
+
+	/*
+	 * Formats the chunks in parallel (if more than one thread is given) and
+	 * writes them in order. At most two chunks per thread are kept in memory.
+	 */
+	private static void writeChunks(final List<ChunkTask> tasks, final int threads,
+		final AsciiOutput out) throws IOException
+	{
+		if (1 == threads || tasks.size() <= 1)
+		{
+			for (final ChunkTask task : tasks)
+			{
+				task.format(out);
+			}
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+			new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(final Runnable runnable)
+				{
+					final Thread thread = new Thread(runnable, "ldcrgen-formatter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		try
+		{
+			final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+			for (final ChunkTask task : tasks)
+			{
+				if (pending.size() == 2 * threads)
+				{
+					out.write(getResult(pending.poll()));
+				}
+				pending.add(executor.submit(new Callable<byte[]>()
+				{
+					@Override
+					public byte[] call() throws IOException
+					{
+						final AsciiOutput chunkOut = new AsciiOutput(AsciiOutput.DEFAULT_BUFFER_SIZE);
+						task.format(chunkOut);
+						return chunkOut.toByteArray();
+					}
+				}));
+			}
+			while (!pending.isEmpty())
+			{
+				out.write(getResult(pending.poll()));
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static byte[] getResult(final Future<byte[]> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while formatting.");
+		}
+		catch (final ExecutionException ex)
+		{
+			if (ex.getCause() instanceof IOException)
+			{
+				throw (IOException) ex.getCause();
+			}
+			throw new IllegalStateException("Formatting failed.", ex.getCause());
+		}
+	}
+
+	private static OutputStream openOutput(final String output) throws IOException
+	{
+		return null == output ? System.out : new FileOutputStream(output);
+	}
+
+	private static void closeOutput(final OutputStream stream) throws IOException
+	{
+		if (System.out != stream)
+		{
+			stream.close();
+		}
+	}
+
+	/*
+	 * Returns whether the file is a block container. Other files and
+	 * unreadable files are handled by the plain reader.
+	 */
+	private static boolean isBlockContainer(final File file)
+	{
+		try
+		{
+			return BlockContainerReader.isContainer(file);
+		}
+		catch (final IOException e)
 		{
-			System.out.println("#" + clusterOpCounter + ": " + op.type + " " + op.arg0 + " " + op.arg1 + " " + op.arg2 + "\t\t" + op.type.documentation);
-			clusterOpCounter++;
+			return false;
 		}
 	}
 }
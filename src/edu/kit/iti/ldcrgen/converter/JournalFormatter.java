@@ -0,0 +1,210 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+
+/**
+ * <p>
+ * Formats consecutive ranges ("chunks") of a journal as text. Chunks are
+ * independent of each other, so that they can be formatted in parallel and
+ * concatenated afterwards.
+ * </p>
+ * <p>
+ * Two formats are supported: the listing of all operations and the
+ * per-step edge list deltas, which contain one line
+ * <code>t + u v</code> or <code>t - u v</code> for each edge which is
+ * created or removed in time step t.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class JournalFormatter
+{
+	/**
+	 * A range of operations together with the position of its first
+	 * argument and the time step of its first operation.
+	 */
+	static final class Chunk
+	{
+		final int opFrom;
+		final int opTo;
+		final int argFrom;
+		final int firstStep;
+
+		Chunk(final int opFrom, final int opTo, final int argFrom, final int firstStep)
+		{
+			this.opFrom = opFrom;
+			this.opTo = opTo;
+			this.argFrom = argFrom;
+			this.firstStep = firstStep;
+		}
+	}
+
+	private static final byte[][] GRAPH_PREFIXES = new byte[8][];
+	private static final byte[][] GRAPH_SUFFIXES = new byte[8][];
+	private static final int[] GRAPH_ARGUMENT_COUNTS = new int[8];
+	private static final byte[][] CLUSTERING_PREFIXES = new byte[5][];
+	private static final byte[][] CLUSTERING_SUFFIXES = new byte[5][];
+	private static final int[] CLUSTERING_ARGUMENT_COUNTS = new int[5];
+	static
+	{
+		for (final GraphOperation.OpType type : GraphOperation.OpType.values())
+		{
+			GRAPH_PREFIXES[type.opcode] = ascii(": " + type.label);
+			GRAPH_SUFFIXES[type.opcode] = ascii("\t\t" + type.documentation + "\n");
+			GRAPH_ARGUMENT_COUNTS[type.opcode] = type.argumentCount;
+		}
+		for (final ClusteringOperation.OpType type : ClusteringOperation.OpType.values())
+		{
+			CLUSTERING_PREFIXES[type.opcode] = ascii(": " + type.label);
+			CLUSTERING_SUFFIXES[type.opcode] = ascii("\t\t" + type.documentation + "\n");
+			CLUSTERING_ARGUMENT_COUNTS[type.opcode] = type.argumentCount;
+		}
+	}
+
+	private JournalFormatter()
+	{
+		// utility class -> hidden constructor
+	}
+
+	static List<Chunk> splitGraphJournal(final ByteChunkList opCodes, final int chunkSize)
+	{
+		return split(opCodes, GRAPH_ARGUMENT_COUNTS, GraphOperation.OpType.NextStep.opcode,
+			chunkSize);
+	}
+
+	static List<Chunk> splitClusteringJournal(final ByteChunkList opCodes, final int chunkSize)
+	{
+		return split(opCodes, CLUSTERING_ARGUMENT_COUNTS,
+			ClusteringOperation.OpType.NextStep.opcode, chunkSize);
+	}
+
+	/**
+	 * Writes one line per graph operation:
+	 * <code>#index: LABEL arg0 arg1 arg2\t\tdocumentation</code>. Unused
+	 * arguments are printed as 0.
+	 */
+	static void formatGraphOperations(final ByteChunkList opCodes, final IntChunkList args,
+		final Chunk chunk, final AsciiOutput out) throws IOException
+	{
+		formatOperations(opCodes, args, chunk, out, GRAPH_PREFIXES, GRAPH_SUFFIXES,
+			GRAPH_ARGUMENT_COUNTS, 3);
+	}
+
+	/**
+	 * Writes one line per clustering operation, see
+	 * {@link #formatGraphOperations(ByteChunkList, IntChunkList, Chunk, AsciiOutput)}
+	 * .
+	 */
+	static void formatClusteringOperations(final ByteChunkList opCodes, final IntChunkList args,
+		final Chunk chunk, final AsciiOutput out) throws IOException
+	{
+		formatOperations(opCodes, args, chunk, out, CLUSTERING_PREFIXES, CLUSTERING_SUFFIXES,
+			CLUSTERING_ARGUMENT_COUNTS, 3);
+	}
+
+	/**
+	 * Writes the created and removed edges of the graph journal.
+	 */
+	static void formatEdgeDeltas(final ByteChunkList opCodes, final IntChunkList args,
+		final Chunk chunk, final AsciiOutput out) throws IOException
+	{
+		final byte createEdge = GraphOperation.OpType.CreateEdge.opcode;
+		final byte removeEdge = GraphOperation.OpType.RemoveEdge.opcode;
+		final byte nextStep = GraphOperation.OpType.NextStep.opcode;
+
+		int step = chunk.firstStep;
+		int arg = chunk.argFrom;
+		for (int op = chunk.opFrom; op < chunk.opTo; ++op)
+		{
+			final byte opCode = opCodes.get(op);
+			if (opCode == nextStep)
+			{
+				++step;
+			}
+			else if (opCode == createEdge || opCode == removeEdge)
+			{
+				out.write(step).write(opCode == createEdge ? " + " : " - ");
+				out.write(args.get(arg)).write(' ').write(args.get(arg + 1)).newLine();
+			}
+			arg += GRAPH_ARGUMENT_COUNTS[opCode];
+		}
+	}
+
+	private static void formatOperations(final ByteChunkList opCodes, final IntChunkList args,
+		final Chunk chunk, final AsciiOutput out, final byte[][] prefixes,
+		final byte[][] suffixes, final int[] argumentCounts, final int printedArguments)
+		throws IOException
+	{
+		int arg = chunk.argFrom;
+		for (int op = chunk.opFrom; op < chunk.opTo; ++op)
+		{
+			final byte opCode = opCodes.get(op);
+			out.write('#').write(op + 1).write(prefixes[opCode]);
+			final int argumentCount = argumentCounts[opCode];
+			for (int i = 0; i < printedArguments; ++i)
+			{
+				out.write(' ').write(i < argumentCount ? args.get(arg + i) : 0);
+			}
+			out.write(suffixes[opCode]);
+			arg += argumentCount;
+		}
+	}
+
+	private static List<Chunk> split(final ByteChunkList opCodes, final int[] argumentCounts,
+		final byte nextStep, final int chunkSize)
+	{
+		assert chunkSize > 0 : "Chunk size must be positive: " + chunkSize;
+
+		final List<Chunk> result = new ArrayList<Chunk>();
+		int opFrom = 0;
+		int argFrom = 0;
+		int firstStep = 0;
+		int step = 0;
+		int arg = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			if (op - opFrom == chunkSize)
+			{
+				result.add(new Chunk(opFrom, op, argFrom, firstStep));
+				opFrom = op;
+				argFrom = arg;
+				firstStep = step;
+			}
+
+			final byte opCode = opCodes.get(op);
+			if (opCode < 0 || opCode >= argumentCounts.length
+				|| (0 == argumentCounts[opCode] && opCode != nextStep))
+			{
+				throw new IllegalArgumentException("Invalid opcode " + opCode + " at position "
+					+ op);
+			}
+			if (opCode == nextStep)
+			{
+				++step;
+			}
+			arg += argumentCounts[opCode];
+		}
+		if (opFrom < opCodes.size())
+		{
+			result.add(new Chunk(opFrom, opCodes.size(), argFrom, firstStep));
+		}
+		return result;
+	}
+
+	private static byte[] ascii(final String text)
+	{
+		final byte[] result = new byte[text.length()];
+		for (int i = 0; i < result.length; ++i)
+		{
+			result[i] = (byte) text.charAt(i);
+		}
+		return result;
+	}
+}
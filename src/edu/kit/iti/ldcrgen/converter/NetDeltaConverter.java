@@ -0,0 +1,110 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import edu.kit.iti.ldcrgen.io.BlockContainerReader;
+import edu.kit.iti.ldcrgen.io.GraphJReader;
+import edu.kit.iti.ldcrgen.io.GraphJWriter;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.NetDeltaCompactor;
+
+/**
+ * Reduces each time step of the graph journal of a GraphJ file to its net
+ * effect (see {@link NetDeltaCompactor}) and writes the result to another
+ * file. The clustering journal is copied unchanged.
+ *
+ * @author Roland Kluge
+ *
+ */
+public class NetDeltaConverter
+{
+	/**
+	 * Arguments: input file, output file and optionally
+	 * <code>compact</code>, which writes the output in the compact GraphJ
+	 * v2 format.
+	 *
+	 * @param args
+	 *            the arguments as described above
+	 */
+	public static void main(final String[] args)
+	{
+		if (args.length < 2 || args.length > 3 || (3 == args.length && !"compact".equals(args[2])))
+		{
+			System.out.println("First argument: GraphJ file");
+			System.out.println("Second argument: output file");
+			System.out.println("Third argument (optional): compact");
+			System.exit(1);
+		}
+
+		try
+		{
+			final File input = new File(args[0]);
+			final GraphJournal gJournal;
+			final ClusteringJournal clJournal;
+			if (BlockContainerReader.isContainer(input))
+			{
+				final BlockContainerReader reader = new BlockContainerReader(input);
+				try
+				{
+					gJournal = reader.readGraphJournal();
+					clJournal = reader.readClusteringJournal();
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			else
+			{
+				final InputStream in = new BufferedInputStream(new FileInputStream(input));
+				try
+				{
+					gJournal = GraphJReader.readGraphJournal(in);
+					clJournal = GraphJReader.readClusteringJournal(in);
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+
+			final NetDeltaCompactor compactor = new NetDeltaCompactor();
+			final GraphJournal compacted = compactor.compact(gJournal);
+
+			final OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]),
+				1 << 16);
+			try
+			{
+				if (3 == args.length)
+				{
+					GraphJWriter.writeCompactGraph(compacted, out, false);
+					GraphJWriter.writeCompactClustering(clJournal, out, false);
+				}
+				else
+				{
+					GraphJWriter.writeGraph(compacted, out);
+					GraphJWriter.writeClustering(clJournal, out);
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+
+			System.out.println(compactor);
+		}
+		catch (final IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.kit.iti.ldcrgen.replay.GraphState;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
+
+/**
+ * Prints the graph and the clusterings at a given time step of a GraphJ
+ * file in an informal textual representation.
+ *
+ * @author Roland Kluge
+ *
+ */
+public class SnapshotConverter
+{
+	private static final int DEFAULT_INTERVAL = 100;
+
+	/**
+	 * Arguments: GraphJ file, time step and optionally a checkpoint file and
+	 * the checkpoint interval. If the checkpoint file does not exist, it is
+	 * created with the given interval (default: 100) and can be reused for
+	 * further queries.
+	 *
+	 * @param args
+	 *            the arguments as described above
+	 */
+	public static void main(final String[] args)
+	{
+		if (args.length < 2 || args.length > 4)
+		{
+			System.out.println("First argument: GraphJ file");
+			System.out.println("Second argument: time step");
+			System.out.println("Third argument (optional): checkpoint file");
+			System.out.println("Fourth argument (optional): checkpoint interval, default: "
+				+ DEFAULT_INTERVAL);
+			System.exit(1);
+		}
+
+		final int timeStep;
+		final int interval;
+		try
+		{
+			timeStep = Integer.parseInt(args[1]);
+			interval = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_INTERVAL;
+		}
+		catch (final NumberFormatException e)
+		{
+			System.out.println("Invalid number: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		try
+		{
+			final ReplayEngine engine = ReplayEngine.open(new File(args[0]));
+			try
+			{
+				if (timeStep < 0 || timeStep > engine.getLastTimeStep())
+				{
+					System.out.println("Time step must be between 0 and "
+						+ engine.getLastTimeStep());
+					System.exit(1);
+				}
+
+				if (args.length > 2)
+				{
+					final File checkpointFile = new File(args[2]);
+					if (!checkpointFile.exists())
+					{
+						engine.writeCheckpoints(checkpointFile, interval);
+					}
+					engine.useCheckpoints(checkpointFile);
+				}
+
+				print(engine.seek(timeStep), engine.getLastTimeStep());
+			}
+			finally
+			{
+				engine.close();
+			}
+		}
+		catch (final IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private static void print(final GraphState state, final int lastTimeStep)
+	{
+		System.out.println("Time step " + state.getTimeStep() + " of " + lastTimeStep);
+		System.out.println("Ongoing merges: " + state.getOngoingMergeCount()
+			+ ", ongoing splits: " + state.getOngoingSplitCount());
+
+		System.out.println("Nodes (" + state.getNodeCount()
+			+ "):\t\tnode, cluster C, cluster Cref");
+		for (int node = 1; node <= state.getMaxNodeId(); ++node)
+		{
+			if (state.isAlive(node))
+			{
+				System.out.println(node + " " + state.getCluster(node) + " "
+					+ state.getReferenceCluster(node));
+			}
+		}
+
+		System.out.println("Edges (" + state.getEdgeCount() + "):");
+		for (final long edge : state.getEdges())
+		{
+			System.out.println(GraphState.edgeSource(edge) + " " + GraphState.edgeTarget(edge));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.IOException;
+
+import edu.kit.iti.ldcrgen.replay.GraphState;
+
+/**
+ * Formats replayed states (see {@link GraphState}) as text.
+ *
+ * @author Roland Kluge
+ */
+final class StateFormatter
+{
+	static final String MEMBERSHIP_HEADER = "time_step,node,cluster,reference_cluster";
+
+	private StateFormatter()
+	{
+		// utility class -> hidden constructor
+	}
+
+	/**
+	 * <p>
+	 * Writes the graph in the METIS format: a header line with the number of
+	 * nodes and edges, followed by one line per node which lists its
+	 * neighbors.
+	 * </p>
+	 * <p>
+	 * METIS requires the nodes to be numbered from 1 to n. Therefore, the
+	 * living nodes are renumbered in ascending order of their journal ids.
+	 * The membership CSV of the same time step lists the living nodes in
+	 * the same order.
+	 * </p>
+	 */
+	static void formatMetis(final GraphState state, final AsciiOutput out) throws IOException
+	{
+		final int maxNodeId = state.getMaxNodeId();
+		final int[] metisIds = new int[maxNodeId + 1];
+		int nodeCount = 0;
+		for (int node = 1; node <= maxNodeId; ++node)
+		{
+			if (state.isAlive(node))
+			{
+				metisIds[node] = ++nodeCount;
+			}
+		}
+
+		/*
+		 * Compressed adjacency lists. As the edges are sorted and each edge
+		 * is stored with its smaller node first, the neighbors of each node
+		 * arrive in ascending order.
+		 */
+		final long[] edges = state.getEdges();
+		final int[] offsets = new int[nodeCount + 2];
+		for (final long edge : edges)
+		{
+			++offsets[metisIds[GraphState.edgeSource(edge)] + 1];
+			++offsets[metisIds[GraphState.edgeTarget(edge)] + 1];
+		}
+		for (int i = 1; i < offsets.length; ++i)
+		{
+			offsets[i] += offsets[i - 1];
+		}
+		final int[] neighbors = new int[2 * edges.length];
+		final int[] fill = new int[nodeCount + 1];
+		for (final long edge : edges)
+		{
+			final int u = metisIds[GraphState.edgeSource(edge)];
+			final int v = metisIds[GraphState.edgeTarget(edge)];
+			neighbors[offsets[u] + fill[u]++] = v;
+			neighbors[offsets[v] + fill[v]++] = u;
+		}
+
+		out.write("% time step ").write(state.getTimeStep()).newLine();
+		out.write(nodeCount).write(' ').write(edges.length).newLine();
+		for (int metisId = 1; metisId <= nodeCount; ++metisId)
+		{
+			for (int i = offsets[metisId]; i < offsets[metisId + 1]; ++i)
+			{
+				if (i > offsets[metisId])
+				{
+					out.write(' ');
+				}
+				out.write(neighbors[i]);
+			}
+			out.newLine();
+		}
+	}
+
+	/**
+	 * Writes one CSV line per living node, see {@link #MEMBERSHIP_HEADER}.
+	 */
+	static void formatMembership(final GraphState state, final AsciiOutput out)
+		throws IOException
+	{
+		final int timeStep = state.getTimeStep();
+		for (int node = 1; node <= state.getMaxNodeId(); ++node)
+		{
+			if (state.isAlive(node))
+			{
+				out.write(timeStep).write(',').write(node).write(',');
+				out.write(state.getCluster(node)).write(',');
+				out.write(state.getReferenceCluster(node)).newLine();
+			}
+		}
+	}
+}
@@ -2,7 +2,7 @@ package edu.kit.iti.ldcrgen.data_structures;
 
 import java.util.Iterator;
 
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.TreeNode;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.Weightable;
 import edu.kit.iti.ldcrgen.util.Pair;
 
@@ -33,10 +33,10 @@ public abstract class AbstractCluster
 	protected final DCRGraph graph;
 
 	private double insWeightValue;
-	private TreeNode insTreeNode;
+	private int insTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
 
 	private double delWeightValue;
-	private TreeNode delTreeNode;
+	private int delTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
 
 	AbstractCluster(final DCRGraph graph)
 	{
@@ -44,7 +44,8 @@ public abstract class AbstractCluster
 			throw new IllegalArgumentException("Graph must not be null!");
 
 		this.graph = graph;
-		this.shuffle = new FisherYatesShuffle(0, graph.isUsingTreemapInsteadOfHashmap());
+		this.shuffle = new FisherYatesShuffle(0, graph.getShuffleMapType(), true,
+			graph.createRandomStream());
 	}
 
 	/*
@@ -301,23 +302,23 @@ public abstract class AbstractCluster
 		};
 	}
 
-	void setInsertionTreeNode(final TreeNode node)
+	void setInsertionTreeHandle(final int handle)
 	{
-		if (null == node)
-			throw new IllegalArgumentException("Tree node must not be null!");
+		if (ArrayBinarySelectionTree.INVALID_HANDLE == handle)
+			throw new IllegalArgumentException("Tree handle must be valid!");
 
-		this.insTreeNode = node;
+		this.insTreeHandle = handle;
 	}
 
 
-	void clearInsertionTreeNode()
+	void clearInsertionTreeHandle()
 	{
-		this.insTreeNode = null;
+		this.insTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
 	}
 
-	TreeNode getInsertionTreeNode()
+	int getInsertionTreeHandle()
 	{
-		return this.insTreeNode;
+		return this.insTreeHandle;
 	}
 
 	protected void updateInsertionWeight(final double value)
@@ -326,9 +327,9 @@ public abstract class AbstractCluster
 			throw new IllegalArgumentException("Tree weights must be positive but was: " + value);
 
 		this.insWeightValue = value;
-		if (null != this.insTreeNode)
+		if (ArrayBinarySelectionTree.INVALID_HANDLE != this.insTreeHandle)
 		{
-			this.insTreeNode.fireWeightChanged();
+			this.graph.getInsertionTree().updateWeight(this.insTreeHandle);
 		}
 	}
 
@@ -356,22 +357,22 @@ public abstract class AbstractCluster
 		};
 	}
 
-	void setDeletionTreeNode(final TreeNode node)
+	void setDeletionTreeHandle(final int handle)
 	{
-		if (null == node)
-			throw new IllegalArgumentException("Tree node must not be null!");
+		if (ArrayBinarySelectionTree.INVALID_HANDLE == handle)
+			throw new IllegalArgumentException("Tree handle must be valid!");
 
-		this.delTreeNode = node;
+		this.delTreeHandle = handle;
 	}
 
-	void clearDeletionTreeNode()
+	void clearDeletionTreeHandle()
 	{
-		this.delTreeNode = null;
+		this.delTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
 	}
 
-	TreeNode getDeletionTreeNode()
+	int getDeletionTreeHandle()
 	{
-		return this.delTreeNode;
+		return this.delTreeHandle;
 	}
 
 	protected void updateDeletionWeight(final double value)
@@ -380,9 +381,9 @@ public abstract class AbstractCluster
 			throw new IllegalArgumentException("Tree weights must be positive but was: " + value);
 
 		this.delWeightValue = value;
-		if (null != this.delTreeNode)
+		if (ArrayBinarySelectionTree.INVALID_HANDLE != this.delTreeHandle)
 		{
-			this.delTreeNode.fireWeightChanged();
+			this.graph.getDeletionTree().updateWeight(this.delTreeHandle);
 		}
 	}
 }
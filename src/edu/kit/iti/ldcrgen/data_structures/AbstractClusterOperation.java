@@ -33,9 +33,6 @@ package edu.kit.iti.ldcrgen.data_structures;
 public abstract class AbstractClusterOperation
 {
 	public static final int INVALID_OP_INDEX = 0;
-	private static final int INITIAL_INDEX = 1;
-
-	private static int counter = INITIAL_INDEX;
 
 	protected final DCRGraph graph;
 
@@ -51,7 +48,7 @@ public abstract class AbstractClusterOperation
 
 	protected AbstractClusterOperation(final DCRGraph graph)
 	{
-		this.globalIndex = counter++;
+		this.globalIndex = graph.getIdAllocator().nextOperationIndex();
 		this.graph = graph;
 	}
 
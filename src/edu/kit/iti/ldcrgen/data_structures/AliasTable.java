@@ -0,0 +1,127 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * <p>
+ * Walker's alias table, built with Vose's method.
+ * </p>
+ * <p>
+ * The table allows to draw an index i from {0,...,n-1} with a probability
+ * proportional to a given weight w_i in constant time. Building the table
+ * takes time O(n), the weights cannot be changed afterwards. Therefore,
+ * the table is only suitable if many selections are made between two
+ * changes of the weights.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class AliasTable
+{
+	private final double[] probability;
+	private final int[] alias;
+
+	/**
+	 * Builds the table for the given weights.
+	 *
+	 * @param weights
+	 *            the non-negative weights, at least one of which has to be
+	 *            positive
+	 */
+	public AliasTable(final double[] weights)
+	{
+		final int n = weights.length;
+		double totalWeight = 0.0;
+		for (final double weight : weights)
+		{
+			if (weight < 0.0)
+			{
+				throw new IllegalArgumentException("Weights must not be negative but was: " + weight);
+			}
+			totalWeight += weight;
+		}
+		if (!(totalWeight > 0.0))
+		{
+			throw new IllegalArgumentException("At least one weight must be positive.");
+		}
+
+		this.probability = new double[n];
+		this.alias = new int[n];
+
+		/*
+		 * Scale the weights so that their average is 1. Each column is
+		 * then filled up by exactly one of the 'large' entries.
+		 */
+		final double[] scaled = new double[n];
+		final int[] small = new int[n];
+		final int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		for (int i = 0; i < n; ++i)
+		{
+			scaled[i] = weights[i] * n / totalWeight;
+			if (scaled[i] < 1.0)
+			{
+				small[smallCount++] = i;
+			}
+			else
+			{
+				large[largeCount++] = i;
+			}
+		}
+
+		while (smallCount > 0 && largeCount > 0)
+		{
+			final int less = small[--smallCount];
+			final int more = large[--largeCount];
+
+			this.probability[less] = scaled[less];
+			this.alias[less] = more;
+
+			scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+			if (scaled[more] < 1.0)
+			{
+				small[smallCount++] = more;
+			}
+			else
+			{
+				large[largeCount++] = more;
+			}
+		}
+
+		// remaining entries are (up to rounding errors) exactly 1
+		while (largeCount > 0)
+		{
+			final int index = large[--largeCount];
+			this.probability[index] = 1.0;
+			this.alias[index] = index;
+		}
+		while (smallCount > 0)
+		{
+			final int index = small[--smallCount];
+			this.probability[index] = 1.0;
+			this.alias[index] = index;
+		}
+	}
+
+	/**
+	 * Draws an index with a probability proportional to its weight.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 * @return the drawn index
+	 */
+	public int sample(final RandomProvider random)
+	{
+		final int column = random.nextInt(this.probability.length);
+		return random.nextDouble() < this.probability[column] ? column : this.alias[column];
+	}
+
+	/**
+	 * Returns the number of indices the table draws from.
+	 *
+	 * @return the size of the table
+	 */
+	public int size()
+	{
+		return this.probability.length;
+	}
+}
@@ -0,0 +1,56 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.Map;
+
+/**
+ * Adapts a {@link java.util.Map} with boxed keys and values to the
+ * {@link LongLongMap} interface.
+ *
+ * @author Roland Kluge
+ */
+class BoxedLongLongMap implements LongLongMap
+{
+	private final Map<Long, Long> map;
+
+	BoxedLongLongMap(final Map<Long, Long> map)
+	{
+		this.map = map;
+	}
+
+	@Override
+	public boolean containsKey(final long key)
+	{
+		return this.map.containsKey(key);
+	}
+
+	@Override
+	public long get(final long key, final long defaultValue)
+	{
+		final Long value = this.map.get(key);
+		return null != value ? value : defaultValue;
+	}
+
+	@Override
+	public void put(final long key, final long value)
+	{
+		this.map.put(key, value);
+	}
+
+	@Override
+	public void remove(final long key)
+	{
+		this.map.remove(key);
+	}
+
+	@Override
+	public void clear()
+	{
+		this.map.clear();
+	}
+
+	@Override
+	public int size()
+	{
+		return this.map.size();
+	}
+}
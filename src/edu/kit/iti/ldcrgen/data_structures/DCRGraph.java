@@ -4,16 +4,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import edu.kit.iti.ldcrgen.Main;
 import edu.kit.iti.ldcrgen.VerbosityLevel;
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.BinarySelectionTree;
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.TreeNode;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
 import edu.kit.iti.ldcrgen.util.ListUtils;
 import edu.kit.iti.ldcrgen.util.Pair;
-import edu.kit.iti.ldcrgen.util.Sequences;
 
 /**
  * Represents a clustered, dynamic and random graph.
@@ -31,13 +30,16 @@ public class DCRGraph
 	private double theta;
 	private PInSampler pInSampler;
 	private double pOut;
+	// log(1 - pOut), cached for the geometric skip sampler
+	private double logQOut;
+	private final GeometricSkipSampler skipSampler;
 
 	private GroundTruth groundTruth;
 	private ReferenceClustering referenceClustering;
 	private PseudoCluster pseudoCluster;
 
-	private BinarySelectionTree insertionTree;
-	private BinarySelectionTree deletionTree;
+	private ArrayBinarySelectionTree insertionTree;
+	private ArrayBinarySelectionTree deletionTree;
 
 	private int currentTimeStep;
 
@@ -50,6 +52,11 @@ public class DCRGraph
 
 	private final GraphJournal gJournal = new GraphJournal();
 	private final ClusteringJournal clJournal = new ClusteringJournal();
+	private final IdAllocator ids = new IdAllocator();
+
+	// collects consecutive intra-cluster edge operations, if not null
+	private IntraClusterBatch intraClusterBatch;
+	private ExecutorService intraClusterExecutor;
 
 	private int smallScaleOperationCount;
 	private int largeScaleOperationCount;
@@ -57,51 +64,78 @@ public class DCRGraph
 	// stores the maximum-number of intra-cluster edges
 	private int maxIntraClusterEdgeCount;
 
-	private boolean useTreeMapInsteadOfHashMap;
+	private final ShuffleMapType shuffleMapType;
 
 	public DCRGraph()
+	{
+		this(-1.0, -1.0, null, ShuffleMapType.PRIMITIVE);
+	}
+
+	public DCRGraph(final double pOut, final double theta, final PInSampler sampler)
+	{
+		this(pOut, theta, sampler, ShuffleMapType.PRIMITIVE);
+	}
+
+	public DCRGraph(final double pOut, final double theta, final PInSampler sampler,
+		final ShuffleMapType shuffleMapType)
+	{
+		this(pOut, theta, sampler, shuffleMapType, new XoroshiroRandomProvider());
+	}
+
+	/**
+	 * Creates a graph which derives all of its randomness from the given
+	 * random provider. Given the same seeded provider and the same sequence
+	 * of operations, the graph evolves identically.
+	 *
+	 * @param pOut
+	 *            the inter-cluster edge probability
+	 * @param theta
+	 *            the threshold for considering cluster operations complete
+	 * @param sampler
+	 *            the sampler for the intra-cluster edge probabilities of
+	 *            new clusters
+	 * @param shuffleMapType
+	 *            the map type used by the Fisher-Yates shuffles
+	 * @param random
+	 *            the root of all random streams of the graph
+	 */
+	public DCRGraph(final double pOut, final double theta, final PInSampler sampler,
+		final ShuffleMapType shuffleMapType, final RandomProvider random)
 	{
 		this.smallScaleOperationCount = 0;
 		this.largeScaleOperationCount = 0;
 		this.maxIntraClusterEdgeCount = 0;
 
-		this.random = new JavaUtilRandomProvider();
+		// needs to be set before any cluster (and its shuffle) is created
+		this.shuffleMapType = shuffleMapType;
+
+		// needs to be set before any component derives its stream
+		this.random = random;
+		this.skipSampler = new GeometricSkipSampler(this.random);
 		this.runningOperations = new ArrayList<AbstractClusterOperation>();
 		this.indexOperationMapping = new HashMap<Integer, AbstractClusterOperation>();
 
-		this.groundTruth = new GroundTruth();
+		this.groundTruth = new GroundTruth(this.createRandomStream());
 		this.referenceClustering = new ReferenceClustering();
 		this.pseudoCluster = new PseudoCluster(this);
 		this.currentTimeStep = 0;
 
-		this.pOut = -1.0;
-		this.theta = -1.0;
+		this.setPOut(pOut);
+		this.theta = theta;
+		this.pInSampler = sampler;
 
-		this.insertionTree = new BinarySelectionTree();
-		this.deletionTree = new BinarySelectionTree();
+		this.insertionTree = new ArrayBinarySelectionTree(this.createRandomStream());
+		this.deletionTree = new ArrayBinarySelectionTree(this.createRandomStream());
+		// weights change several times per edge operation but are only read before selecting
+		this.insertionTree.setDeferredPropagation(true);
+		this.deletionTree.setDeferredPropagation(true);
 
-		this.pseudoCluster.setInsertionTreeNode(//
+		this.pseudoCluster.setInsertionTreeHandle(//
 			this.insertionTree.insert(this.pseudoCluster.getInsertionWeight()));
-		this.pseudoCluster.setDeletionTreeNode(//
+		this.pseudoCluster.setDeletionTreeHandle(//
 			this.deletionTree.insert(this.pseudoCluster.getDeletionWeight()));
 	}
 
-	public DCRGraph(final double pOut, final double theta, final PInSampler sampler)
-	{
-		this();
-		this.pOut = pOut;
-		this.theta = theta;
-		this.pInSampler = sampler;
-	}
-
-	public DCRGraph(final double pOut, final double theta, final PInSampler sampler,
-		final boolean useTreeMapInsteadOfHashMap)
-	{
-		this(pOut, theta, sampler);
-		this.useTreeMapInsteadOfHashMap = useTreeMapInsteadOfHashMap;
-		this.pseudoCluster = new PseudoCluster(this);
-	}
-
 	/**
 	 * Returns the inter-cluster edge probability.
 	 *
@@ -114,6 +148,15 @@ public class DCRGraph
 		return this.pOut;
 	}
 
+	/*
+	 * A negative value marks an uninitialized graph.
+	 */
+	private void setPOut(final double pOut)
+	{
+		this.pOut = pOut;
+		this.logQOut = pOut >= 0.0 ? GeometricSkipSampler.logQ(pOut) : Double.NaN;
+	}
+
 	public double getClusterOpThreshold()
 	{
 		return theta;
@@ -158,7 +201,40 @@ public class DCRGraph
 	public void initAsErdosRenyi(final List<Integer> clusterSizes, final List<Double> pInValues,
 		final double pOut)
 	{
-		this.pOut = pOut;
+		this.initAsErdosRenyi(clusterSizes, pInValues, pOut, 0);
+	}
+
+	/**
+	 * Initializes this graph as G(n,p_in,p_out) graph (see
+	 * {@link #initAsErdosRenyi(List, List, double)}).
+	 *
+	 * <p>
+	 * The edges of the clusters and of the cluster pairs are sampled from
+	 * independent random streams and inserted afterwards in a fixed order.
+	 * The streams are sampled by the given number of threads; 0 and 1 both
+	 * sample them in the calling thread. For a given random provider, the
+	 * resulting instance is the same for any number of threads.
+	 * </p>
+	 *
+	 * @param clusterSizes
+	 *            the size of each single cluster
+	 * @param pInValues
+	 *            the intra-cluster edge probabilities
+	 * @param pOut
+	 *            the inter-cluster edge probability
+	 * @param threads
+	 *            the number of threads for sampling the edges, 0 samples
+	 *            them in the calling thread
+	 */
+	public void initAsErdosRenyi(final List<Integer> clusterSizes, final List<Double> pInValues,
+		final double pOut, final int threads)
+	{
+		if (threads < 0)
+		{
+			throw new IllegalArgumentException("Thread count must not be negative: " + threads);
+		}
+
+		this.setPOut(pOut);
 		// node count
 		final int n = (int) ListUtils.sumUp(ListUtils.mapType(clusterSizes, Double.class));
 
@@ -185,7 +261,7 @@ public class DCRGraph
 		for (int c = 0; c < clusterCount; ++c)
 		{
 			final OrdinaryCluster home = this.groundTruth.getCluster(c);
-			final Node node = new Node();
+			final Node node = new Node(this);
 			this.addNode(node, home);
 		}
 
@@ -193,84 +269,114 @@ public class DCRGraph
 		for (int c = clusterCount; c < n; ++c)
 		{
 			final OrdinaryCluster home = this.groundTruth.proposeClusterForNewNode();
-			final Node node = new Node();
+			final Node node = new Node(this);
 			this.addNode(node, home);
 		}
 
 		/*
-		 * Create intra-cluster edges
-		 * using the geometric method
+		 * Inter-cluster edges are drawn from a single space of node pairs,
+		 * which is laid out as follows:
+		 *
+		 * Let all nodes be ordered by their cluster, P_c being the
+		 * position of the first node of cluster c. Each source node of
+		 * cluster c is paired with the B_c = n - P_(c+1) nodes of the
+		 * clusters with larger index. Hence, cluster c owns a block of
+		 * |c| * B_c consecutive pair indices. Within this block,
+		 * division by B_c yields the source node and the remainder
+		 * yields the position of the target node.
 		 */
+		final Node[] nodesInClusterOrder = new Node[n];
+		final long[] firstPosition = new long[clusterCount + 1];
+		final long[] firstPairIndex = new long[clusterCount + 1];
 		for (int c = 0; c < clusterCount; ++c)
 		{
 			final OrdinaryCluster cluster = this.groundTruth.getCluster(c);
-			final long maxEdgeCount = Edge.maxEdgeCount(cluster.getNodeCount());
+			final int clusterSize = cluster.getNodeCount();
+			for (int i = 0; i < clusterSize; ++i)
+			{
+				nodesInClusterOrder[(int) firstPosition[c] + i] = cluster.getNode(i);
+			}
+			firstPosition[c + 1] = firstPosition[c] + clusterSize;
+		}
+		for (int c = 0; c < clusterCount; ++c)
+		{
+			final long blockWidth = n - firstPosition[c + 1];
+			final long clusterSize = firstPosition[c + 1] - firstPosition[c];
+			firstPairIndex[c + 1] = firstPairIndex[c] + clusterSize * blockWidth;
+		}
 
-			final List<Long> edges = Sequences.binomialSequence(cluster.getPIn(), maxEdgeCount);
+		this.createEdges(Math.max(1, threads), nodesInClusterOrder, firstPosition,
+			firstPairIndex);
+	}
 
-			for (final long edge : edges)
-			{
-				final Pair<Integer> localNodeIDs = Edge.nodeIndices(edge);
-				final Pair<Node> nodes = cluster.getNodes(localNodeIDs);
+	/*
+	 * Samples the intra-cluster edges of each cluster and the inter-cluster
+	 * edges of each block of the pair space (see initAsErdosRenyi) as
+	 * independent ranges with own random streams. Afterwards, the edges
+	 * are inserted cluster by cluster and block by block, so that the
+	 * journal does not depend on the number of threads.
+	 */
+	private void createEdges(final int threads, final Node[] nodesInClusterOrder,
+		final long[] firstPosition, final long[] firstPairIndex)
+	{
+		final int clusterCount = this.getClusterCount();
+		final ParallelEdgeSampler sampler = new ParallelEdgeSampler(threads);
+		for (int c = 0; c < clusterCount; ++c)
+		{
+			final OrdinaryCluster cluster = this.groundTruth.getCluster(c);
+			sampler.addRange(cluster.getLogQIn(), Edge.maxEdgeCount(cluster.getNodeCount()));
+		}
+		for (int c = 0; c < clusterCount; ++c)
+		{
+			sampler.addRange(this.logQOut, firstPairIndex[c + 1] - firstPairIndex[c]);
+		}
+
+		final List<long[]> indices = sampler.sample(this.createRandomStream());
 
-				assert Edge.createEdge(nodes).isIntraClusterEdge() : "nodes: " + nodes;
-				this.addEdge(nodes);
+		for (int c = 0; c < clusterCount; ++c)
+		{
+			final OrdinaryCluster cluster = this.groundTruth.getCluster(c);
+			for (final long edge : indices.get(c))
+			{
+				this.addIntraClusterEdge(cluster, edge);
 			}
 		}
 
-		/*
-		 * Create inter-cluster edges
-		 * (also using geometric method)
-		 * The 'indices' of all edges are created at once.
-		 * Due to the irregular structure of inter-cluster edges,
-		 * these indices need to be transformed first.
-		 * We procede as follows:
-		 *
-		 * 1. iterate over all nodes (source node/source cluster)
-		 * 2. For each source node:
-		 * iterate over all nodes within clusters having a larger
-		 * cluster index than the source cluster (destination
-		 * node/destination
-		 * cluster)
-		 */
 		assert this.getInterClusterEdgeCount() == 0;
-
-		for (int srcClusterIdx = 0; srcClusterIdx < this.groundTruth.getClusterCount(); ++srcClusterIdx)
+		for (int c = 0; c < clusterCount; ++c)
 		{
-			final OrdinaryCluster srcCluster = this.groundTruth.getCluster(srcClusterIdx);
-			for (int targetClusterIdx = srcClusterIdx + 1; targetClusterIdx < this.groundTruth
-				.getClusterCount(); ++targetClusterIdx)
+			for (final long indexInBlock : indices.get(clusterCount + c))
 			{
-				final OrdinaryCluster targetCluster = this.groundTruth.getCluster(targetClusterIdx);
-				final int targetNodeCount = targetCluster.getNodeCount();
-				final int srcNodeCount = srcCluster.getNodeCount();
-				final long maxEdgeCount = srcNodeCount * targetNodeCount;
-
-				final List<Long> edgeIndices = Sequences.binomialSequence(pOut, maxEdgeCount);
-
-				for (final Long edge : edgeIndices)
-				{
-					long srcNodeIdx = 0;
-					long targetNodeIdx = edge;
-					while (!targetCluster.isValidNodeIndex(targetNodeIdx))
-					{
-						++srcNodeIdx;
-						targetNodeIdx = targetNodeIdx - targetNodeCount;
-					}
+				this.addInterClusterEdge(nodesInClusterOrder, firstPosition, c, indexInBlock);
+			}
+		}
+	}
 
-					assert srcCluster.isValidNodeIndex(srcNodeIdx);
+	private void addIntraClusterEdge(final OrdinaryCluster cluster, final long edge)
+	{
+		final Pair<Integer> localNodeIDs = Edge.nodeIndices(edge);
+		final Pair<Node> nodes = cluster.getNodes(localNodeIDs);
 
-					final Node srcNode = srcCluster.getNode((int) srcNodeIdx);
-					final Node otherNode = targetCluster.getNode((int)
-						targetNodeIdx);
+		assert Edge.createEdge(nodes).isIntraClusterEdge() : "nodes: " + nodes;
+		this.addEdge(nodes);
+	}
 
-					final Pair<Node> nonEdge = new Pair<Node>(srcNode, otherNode);
+	/*
+	 * Adds the inter-cluster edge with the given index within the block of
+	 * the given source cluster.
+	 */
+	private void addInterClusterEdge(final Node[] nodesInClusterOrder,
+		final long[] firstPosition, final int srcClusterIdx, final long indexInBlock)
+	{
+		final long blockWidth = nodesInClusterOrder.length - firstPosition[srcClusterIdx + 1];
+		final long srcPosition = firstPosition[srcClusterIdx] + indexInBlock / blockWidth;
+		final long targetPosition = firstPosition[srcClusterIdx + 1] + indexInBlock % blockWidth;
 
-					this.addEdge(nonEdge);
-				}
+		final Node srcNode = nodesInClusterOrder[(int) srcPosition];
+		final Node otherNode = nodesInClusterOrder[(int) targetPosition];
+		assert !srcNode.getGtCluster().equals(otherNode.getGtCluster());
 
-			}
-		}
+		this.addEdge(new Pair<Node>(srcNode, otherNode));
 	}
 
 	/**
@@ -339,8 +445,20 @@ public class DCRGraph
 	{
 		if (this.insertionTree.getWeight() > 0.0)
 		{
-			final TreeNode tNode = this.insertionTree.select();
-			final AbstractCluster cluster = (AbstractCluster) tNode.getElement().getObject();
+			final int handle = this.insertionTree.select();
+			final AbstractCluster cluster = //
+				(AbstractCluster) this.insertionTree.getElement(handle).getObject();
+			if (null != this.intraClusterBatch)
+			{
+				if (IntraClusterBatch.accepts(cluster))
+				{
+					this.intraClusterBatch.add((OrdinaryCluster) cluster, true);
+					((OrdinaryCluster) cluster).addPendingIntraClusterEdges(1);
+					this.pseudoCluster.addPendingEdges(1);
+					return;
+				}
+				this.performIntraClusterBatch();
+			}
 			final Pair<Node> nodes = cluster.findNonEdge();
 
 			this.addEdge(nodes);
@@ -394,8 +512,20 @@ public class DCRGraph
 	{
 		if (this.deletionTree.getWeight() > 0.0)
 		{
-			final TreeNode tNode = this.deletionTree.select();
-			final AbstractCluster cluster = (AbstractCluster) tNode.getElement().getObject();
+			final int handle = this.deletionTree.select();
+			final AbstractCluster cluster = //
+				(AbstractCluster) this.deletionTree.getElement(handle).getObject();
+			if (null != this.intraClusterBatch)
+			{
+				if (IntraClusterBatch.accepts(cluster))
+				{
+					this.intraClusterBatch.add((OrdinaryCluster) cluster, false);
+					((OrdinaryCluster) cluster).addPendingIntraClusterEdges(-1);
+					this.pseudoCluster.addPendingEdges(-1);
+					return;
+				}
+				this.performIntraClusterBatch();
+			}
 
 			final Edge edge = cluster.findEdge();
 
@@ -437,6 +567,117 @@ public class DCRGraph
 			edge.getTarget().getJournalIndex());
 	}
 
+	/**
+	 * Starts to collect intra-cluster edge operations (see
+	 * {@link IntraClusterBatch}).
+	 *
+	 * Until {@link #endIntraClusterBatch()} is called, {@link #addEdge()}
+	 * and {@link #removeEdge()} only select the cluster of the operation.
+	 * If it is a cluster of the ground truth which is not locked by a
+	 * cluster operation, the operation is deferred and only the weights of
+	 * the selection trees are updated. Any other operation first performs
+	 * the deferred operations, so the result is the same as without
+	 * batching. Until then, the edge counts of the graph do not include
+	 * the deferred operations.
+	 *
+	 * @param executor
+	 *            the executor for performing the deferred operations of
+	 *            different clusters in parallel or <code>null</code> for
+	 *            performing them in the calling thread
+	 * @throws IllegalStateException
+	 *             if a batch has already been started
+	 */
+	public void beginIntraClusterBatch(final ExecutorService executor)
+	{
+		if (null != this.intraClusterBatch)
+		{
+			throw new IllegalStateException("A batch has already been started.");
+		}
+		this.intraClusterBatch = new IntraClusterBatch();
+		this.intraClusterExecutor = executor;
+	}
+
+	/**
+	 * Performs the intra-cluster edge operations which are still deferred
+	 * and stops collecting them.
+	 *
+	 * @throws IllegalStateException
+	 *             if no batch has been started
+	 */
+	public void endIntraClusterBatch()
+	{
+		if (null == this.intraClusterBatch)
+		{
+			throw new IllegalStateException("No batch has been started.");
+		}
+		this.performIntraClusterBatch();
+		this.intraClusterBatch = null;
+		this.intraClusterExecutor = null;
+	}
+
+	/*
+	 * Performs the deferred intra-cluster edge operations, if a batch is
+	 * open, and starts a new batch. The operations of different clusters
+	 * are processed by the executor, their effects on the pseudo cluster
+	 * and the journal are applied afterwards in the order of selection.
+	 */
+	private void performIntraClusterBatch()
+	{
+		if (null == this.intraClusterBatch || this.intraClusterBatch.isEmpty())
+		{
+			return;
+		}
+		final IntraClusterBatch batch = this.intraClusterBatch;
+		this.intraClusterBatch = new IntraClusterBatch();
+
+		this.pseudoCluster.clearPendingEdges();
+		for (final IntraClusterBatch.ClusterOperations ops : batch
+			.execute(this.intraClusterExecutor))
+		{
+			final int i = ops.next();
+			final Edge edge = ops.getEdge(i);
+			if (null == edge)
+			{
+				if (ops.isInsertion(i))
+				{
+					this.logAndPrintNoEdgeInsertion();
+				}
+				else
+				{
+					this.logAndPrintNoEdgeDeletion();
+				}
+			}
+			else if (ops.isInsertion(i))
+			{
+				++this.smallScaleOperationCount;
+				this.logAndPrintEdgeInsertion(new Pair<Node>(edge.getSource(), edge.getTarget()));
+				assert !edge.isInvolvedInOperation();
+
+				this.pseudoCluster.addEdge(edge);
+				this.gJournal.createEdgeOp(//
+					edge.getSource().getJournalIndex(), //
+					edge.getTarget().getJournalIndex());
+			}
+			else
+			{
+				++this.smallScaleOperationCount;
+				this.logAndPrintEdgeDeletion(edge);
+				assert !edge.isInvolvedInOperation();
+
+				this.pseudoCluster.removeEdge(edge);
+				this.gJournal.removeEdgeOp(//
+					edge.getSource().getJournalIndex(), //
+					edge.getTarget().getJournalIndex());
+			}
+		}
+
+		for (final IntraClusterBatch.ClusterOperations ops : batch.getClusters())
+		{
+			ops.getCluster().clearPendingIntraClusterEdges();
+			ops.getCluster().updateTreeWeights();
+		}
+	}
+
 	/**
 	 * Removes all edges of a node.
 	 *
@@ -536,7 +777,8 @@ public class DCRGraph
 	 */
 	public void addNode()
 	{
-		final Node node = new Node();
+		this.performIntraClusterBatch();
+		final Node node = new Node(this);
 		final OrdinaryCluster cl = this.groundTruth.proposeClusterForNewNode();
 		addNode(node, cl);
 
@@ -553,7 +795,8 @@ public class DCRGraph
 	 */
 	public int addAndConnectNode()
 	{
-		final Node node = new Node();
+		this.performIntraClusterBatch();
+		final Node node = new Node(this);
 		final OrdinaryCluster cl = this.groundTruth.proposeClusterForNewNode();
 		addNode(node, cl);
 		return this.addExpectedEdges(node);
@@ -630,10 +873,11 @@ public class DCRGraph
 		/*
 		 * Intra-cluster edges
 		 */
-		final List<Long> intraClPartners =
-			Sequences.binomialSequence(cl.getPIn(), cl.getNodeCount() - 1);
-		for (final long index : intraClPartners)
+		final GeometricSkipSampler intraClPartners = this.skipSampler;
+		intraClPartners.reset(cl.getLogQIn(), cl.getNodeCount() - 1);
+		while (intraClPartners.hasNext())
 		{
+			final long index = intraClPartners.next();
 			// mind not to create self loops!
 			final Node other = cl.getNode(index >= node.getGtClIndex() ? (int) index + 1
 				: (int) index);
@@ -643,32 +887,12 @@ public class DCRGraph
 		/*
 		 * Inter-cluster edges
 		 */
-		final List<Long> interClPartners =
-			Sequences.binomialSequence(this.getPOut(), this.getNodeCount() - cl.getNodeCount());
-		int c = 0;
-		int previousBorder = 0;
-		for (final long index : interClPartners)
+		final GeometricSkipSampler interClPartners = this.skipSampler;
+		interClPartners.reset(this.logQOut, this.getNodeCount() - cl.getNodeCount());
+		assert this.groundTruth.getNodeCount() == this.getNodeCount();
+		while (interClPartners.hasNext())
 		{
-			long corrected = index - previousBorder;
-
-			AbstractCluster otherCluster = this.groundTruth.getCluster(c);
-			while (corrected >= otherCluster.getNodeCount() || otherCluster.equals(cl))
-			{
-				if (!otherCluster.equals(cl))
-				{
-					previousBorder += otherCluster.getNodeCount();
-
-					corrected -= otherCluster.getNodeCount();
-				}
-
-				++c;
-				assert c < this.groundTruth.getClusterCount();
-				otherCluster = this.groundTruth.getCluster(c);
-			}
-
-			assert 0 <= corrected && corrected < otherCluster.getNodeCount() : "idx: " + index;
-
-			final Node other = otherCluster.getNode((int) corrected);
+			final Node other = this.groundTruth.getNodeOutsideOf(cl, interClPartners.next());
 
 			assert !other.equals(node);
 
@@ -689,6 +913,7 @@ public class DCRGraph
 	 */
 	public int removeNode()
 	{
+		this.performIntraClusterBatch();
 		if (this.getNodeCount() > this.getClusterCount())
 		{
 			Node victim = null;
@@ -785,6 +1010,7 @@ public class DCRGraph
 	 */
 	public void split()
 	{
+		this.performIntraClusterBatch();
 		final OrdinaryCluster cluster = groundTruth.proposeClusterForSplit();
 
 		if (cluster != null)
@@ -834,6 +1060,7 @@ public class DCRGraph
 	 */
 	public void merge()
 	{
+		this.performIntraClusterBatch();
 		final Pair<OrdinaryCluster> clusters = groundTruth.proposeClustersForMerge();
 
 		if (null != clusters)
@@ -945,8 +1172,8 @@ public class DCRGraph
 
 		maxIntraClusterEdgeCount += Edge.maxEdgeCount(cluster.getNodeCount());
 
-		cluster.setInsertionTreeNode(this.insertionTree.insert(cluster.getInsertionWeight()));
-		cluster.setDeletionTreeNode(this.deletionTree.insert(cluster.getDeletionWeight()));
+		cluster.setInsertionTreeHandle(this.insertionTree.insert(cluster.getInsertionWeight()));
+		cluster.setDeletionTreeHandle(this.deletionTree.insert(cluster.getDeletionWeight()));
 	}
 
 	/*
@@ -991,16 +1218,21 @@ public class DCRGraph
 	 * *********************************************************************
 	 */
 
-	BinarySelectionTree getInsertionTree()
+	ArrayBinarySelectionTree getInsertionTree()
 	{
 		return this.insertionTree;
 	}
 
-	BinarySelectionTree getDeletionTree()
+	ArrayBinarySelectionTree getDeletionTree()
 	{
 		return this.deletionTree;
 	}
 
+	IdAllocator getIdAllocator()
+	{
+		return this.ids;
+	}
+
 	public GraphJournal getGraphJournal()
 	{
 		return this.gJournal;
@@ -1160,8 +1392,28 @@ public class DCRGraph
 		}
 	}
 
-	public boolean isUsingTreemapInsteadOfHashmap()
+	/**
+	 * Returns the type of map backing the Fisher-Yates shuffles of all
+	 * clusters of this graph.
+	 *
+	 * @return the map type
+	 */
+	public ShuffleMapType getShuffleMapType()
+	{
+		return this.shuffleMapType;
+	}
+
+	/**
+	 * Creates a new random stream for a component of this graph.
+	 *
+	 * The stream is split from the random provider of the graph, so that
+	 * components do not share their state but the whole graph remains
+	 * reproducible given the seed of the graph's provider.
+	 *
+	 * @return the new random stream
+	 */
+	RandomProvider createRandomStream()
 	{
-		return this.useTreeMapInsteadOfHashMap;
+		return this.random.split();
 	}
 }
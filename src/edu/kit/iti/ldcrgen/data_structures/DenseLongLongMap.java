@@ -0,0 +1,131 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * <p>
+ * Dense {@link LongLongMap} which stores the replace pointers of a
+ * {@link FisherYatesShuffle} as a plain permutation array.
+ * </p>
+ * <p>
+ * A key k is not contained if and only if table[k] = k, i.e. the map
+ * represents the identity for all keys which have not been put. Therefore,
+ * a key must never be mapped to itself - which is guaranteed by the
+ * shuffle as replace pointers always connect two different positions.
+ * </p>
+ * <p>
+ * The map can only hold keys below its capacity, which has to be adjusted
+ * by means of {@link #setCapacity(int)} whenever the range of the shuffle
+ * changes.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+class DenseLongLongMap implements LongLongMap
+{
+	private int[] table;
+	private int size;
+
+	DenseLongLongMap(final int capacity)
+	{
+		this.table = new int[0];
+		this.size = 0;
+		this.setCapacity(capacity);
+	}
+
+	@Override
+	public boolean containsKey(final long key)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+		return key < this.table.length && this.table[(int) key] != key;
+	}
+
+	@Override
+	public long get(final long key, final long defaultValue)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+		if (key < this.table.length)
+		{
+			final int value = this.table[(int) key];
+			return value != key ? value : defaultValue;
+		}
+		return defaultValue;
+	}
+
+	@Override
+	public void put(final long key, final long value)
+	{
+		assert 0 <= key && key < this.table.length : "Key out of range: " + key;
+		assert 0 <= value && value < this.table.length : "Value out of range: " + value;
+		assert key != value : "Cannot map a key to itself: " + key;
+
+		final int k = (int) key;
+		if (this.table[k] == k)
+		{
+			++this.size;
+		}
+		this.table[k] = (int) value;
+	}
+
+	@Override
+	public void remove(final long key)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+		if (key < this.table.length)
+		{
+			final int k = (int) key;
+			if (this.table[k] != k)
+			{
+				this.table[k] = k;
+				--this.size;
+			}
+		}
+	}
+
+	@Override
+	public void clear()
+	{
+		for (int i = 0; i < this.table.length; ++i)
+		{
+			this.table[i] = i;
+		}
+		this.size = 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of keys which may be stored.
+	 *
+	 * @return the capacity
+	 */
+	int capacity()
+	{
+		return this.table.length;
+	}
+
+	/**
+	 * Changes the number of keys which may be stored.
+	 *
+	 * When shrinking, all keys and values which are contained have to be
+	 * smaller than the new capacity.
+	 *
+	 * @param capacity
+	 *            the new capacity
+	 */
+	void setCapacity(final int capacity)
+	{
+		assert capacity >= 0;
+
+		final int[] oldTable = this.table;
+		final int copied = Math.min(capacity, oldTable.length);
+		this.table = new int[capacity];
+		System.arraycopy(oldTable, 0, this.table, 0, copied);
+		for (int i = copied; i < capacity; ++i)
+		{
+			this.table[i] = i;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * <p>
+ * Fenwick tree (binary indexed tree) over a growing and shrinking list of
+ * non-negative values.
+ * </p>
+ * <p>
+ * Setting a value, appending a value, computing a prefix sum and finding
+ * the index which contains a given position of the prefix sums all take
+ * time O(log n). Removing an element is only possible by moving the last
+ * element to its position - which mirrors the way in which the clusterings
+ * keep their lists of clusters compact.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+class FenwickTree
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] values;
+	/*
+	 * One-based: tree[j] holds the sum of values[j - lowbit(j), j).
+	 * Entries beyond the current size are stale and are recomputed as soon
+	 * as the respective position is appended again.
+	 */
+	private long[] tree;
+	private int size;
+
+	FenwickTree()
+	{
+		this.values = new long[INITIAL_CAPACITY];
+		this.tree = new long[INITIAL_CAPACITY + 1];
+		this.size = 0;
+	}
+
+	int size()
+	{
+		return this.size;
+	}
+
+	long get(final int index)
+	{
+		assert 0 <= index && index < this.size : "Index out of range: " + index;
+		return this.values[index];
+	}
+
+	/**
+	 * Appends a value to the end of the list.
+	 *
+	 * @param value
+	 *            the non-negative value
+	 */
+	void add(final long value)
+	{
+		assert value >= 0 : "Value must not be negative: " + value;
+
+		if (this.size == this.values.length)
+		{
+			this.grow();
+		}
+
+		final int j = this.size + 1;
+		this.values[this.size] = value;
+		this.tree[j] = value + this.prefixSum(this.size) - this.prefixSum(j - lowbit(j));
+		++this.size;
+	}
+
+	/**
+	 * Replaces the value at the given index.
+	 *
+	 * @param index
+	 *            the index in the range of 0 to size() (exclusive)
+	 * @param value
+	 *            the new non-negative value
+	 */
+	void set(final int index, final long value)
+	{
+		assert 0 <= index && index < this.size : "Index out of range: " + index;
+		assert value >= 0 : "Value must not be negative: " + value;
+
+		final long delta = value - this.values[index];
+		this.values[index] = value;
+		for (int j = index + 1; j <= this.size; j += lowbit(j))
+		{
+			this.tree[j] += delta;
+		}
+	}
+
+	/**
+	 * Moves the last value to the given index and removes the last
+	 * position afterwards.
+	 *
+	 * @param index
+	 *            the index in the range of 0 to size() (exclusive)
+	 */
+	void moveLastTo(final int index)
+	{
+		assert 0 <= index && index < this.size : "Index out of range: " + index;
+
+		this.set(index, this.values[this.size - 1]);
+		--this.size;
+	}
+
+	/**
+	 * Returns the sum of all values whose index is smaller than the given
+	 * one.
+	 *
+	 * @param end
+	 *            the exclusive end in the range of 0 to size() (inclusive)
+	 * @return the prefix sum
+	 */
+	long prefixSum(final int end)
+	{
+		assert 0 <= end && end <= this.size : "End out of range: " + end;
+
+		long sum = 0;
+		for (int j = end; j > 0; j -= lowbit(j))
+		{
+			sum += this.tree[j];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of all values.
+	 *
+	 * @return the total sum
+	 */
+	long total()
+	{
+		return this.prefixSum(this.size);
+	}
+
+	/**
+	 * Returns the index i with prefixSum(i) &lt;= position &lt;
+	 * prefixSum(i+1).
+	 *
+	 * If the values are regarded as lengths of consecutive intervals, this
+	 * is the index of the interval which contains the position.
+	 *
+	 * @param position
+	 *            the position in the range of 0 to total() (exclusive)
+	 * @return the index of the interval containing the position
+	 */
+	int findIndex(final long position)
+	{
+		assert 0 <= position && position < this.total() : "Position out of range: " + position;
+
+		int index = 0;
+		long remaining = position;
+		for (int step = Integer.highestOneBit(Math.max(this.size, 1)); step > 0; step >>= 1)
+		{
+			final int next = index + step;
+			if (next <= this.size && this.tree[next] <= remaining)
+			{
+				index = next;
+				remaining -= this.tree[next];
+			}
+		}
+		return index;
+	}
+
+	private void grow()
+	{
+		final int capacity = this.values.length << 1;
+		final long[] newValues = new long[capacity];
+		System.arraycopy(this.values, 0, newValues, 0, this.size);
+		this.values = newValues;
+
+		// linear time construction
+		this.tree = new long[capacity + 1];
+		for (int j = 1; j <= this.size; ++j)
+		{
+			this.tree[j] += this.values[j - 1];
+			final int parent = j + lowbit(j);
+			if (parent <= this.size)
+			{
+				this.tree[parent] += this.tree[j];
+			}
+		}
+	}
+
+	private static int lowbit(final int j)
+	{
+		return j & -j;
+	}
+}
@@ -1,10 +1,7 @@
 package edu.kit.iti.ldcrgen.data_structures;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * <p>
@@ -33,6 +30,19 @@ import java.util.TreeMap;
  * </p>
  * <p>
  * The memory consumption of the shuffle is linear in the number of
+ * selected elements. The replace pointers are stored in a map whose
+ * implementation can be chosen by means of {@link ShuffleMapType}; by
+ * default, a primitive open addressing map is used which neither boxes
+ * keys nor values.
+ * </p>
+ * <p>
+ * If maxNum is small or a large fraction of the elements is selected, the
+ * shuffle switches to a dense permutation array which needs no hashing at
+ * all (see {@link DenseLongLongMap}). The mode is chosen anew whenever
+ * the size of the shuffle changes or the number of selected elements
+ * crosses one of the thresholds below. The thresholds for entering and
+ * leaving the dense mode differ so that the shuffle does not alternate
+ * between both modes; each migration takes time linear in the number of
  * selected elements.
  * </p>
  *
@@ -50,11 +60,41 @@ import java.util.TreeMap;
 public class FisherYatesShuffle
 {
 
-	private RandomProvider random = new JavaUtilRandomProvider();
+	private final RandomProvider random;
+
+	/*
+	 * Shuffles of at most this size are always dense.
+	 */
+	private static final long ALWAYS_DENSE_MAX_NUM = 1L << 16;
+	/*
+	 * Shuffles larger than this are never dense.
+	 */
+	private static final long DENSE_MAX_NUM = 1L << 24;
+	/*
+	 * Sparse shuffles become dense if at least maxNum / 2^3 elements are
+	 * selected, dense shuffles become sparse if less than maxNum / 2^5
+	 * elements are selected.
+	 */
+	private static final int TO_DENSE_SHIFT = 3;
+	private static final int TO_SPARSE_SHIFT = 5;
 
 	private long borderIndex; // pseudo code: i
 	private long maxNum; // pseudo code: n
-	private Map<Long, Long> replace;
+	private LongLongMap replace;
+
+	private final ShuffleMapType mapType;
+	private final boolean denseModeAllowed;
+	/*
+	 * Refers to the same object as 'replace' if the shuffle is in dense
+	 * mode, is null otherwise.
+	 */
+	private DenseLongLongMap dense;
+	/*
+	 * The mode is reconsidered as soon as the border index reaches the
+	 * first or falls below the second value.
+	 */
+	private long toDenseBorderIndex;
+	private long toSparseBorderIndex;
 
 	/**
 	 * Initializes the Fisher-Yates shuffle with a given value for n.
@@ -63,24 +103,75 @@ public class FisherYatesShuffle
 	 *            the number of elements to choose from
 	 */
 	public FisherYatesShuffle(final long maxNum)
+	{
+		this(maxNum, ShuffleMapType.PRIMITIVE);
+	}
+
+	/**
+	 * Initializes the Fisher-Yates shuffle with a given value for n and
+	 * the given type of map for storing the replace pointers.
+	 *
+	 * @param maxNum
+	 *            the number of elements to choose from
+	 * @param mapType
+	 *            the map implementation to be used
+	 */
+	public FisherYatesShuffle(final long maxNum, final ShuffleMapType mapType)
+	{
+		this(maxNum, mapType, true);
+	}
+
+	/**
+	 * Initializes the Fisher-Yates shuffle with a given value for n and
+	 * the given type of map for storing the replace pointers. The dense
+	 * mode may be switched off, e.g., for comparing the map types.
+	 *
+	 * @param maxNum
+	 *            the number of elements to choose from
+	 * @param mapType
+	 *            the map implementation to be used in sparse mode
+	 * @param denseModeAllowed
+	 *            whether the shuffle may switch to dense mode
+	 */
+	public FisherYatesShuffle(final long maxNum, final ShuffleMapType mapType,
+		final boolean denseModeAllowed)
+	{
+		this(maxNum, mapType, denseModeAllowed, new XoroshiroRandomProvider());
+	}
+
+	/**
+	 * Initializes the Fisher-Yates shuffle which draws its random elements
+	 * from the given random provider.
+	 *
+	 * @param maxNum
+	 *            the number of elements to choose from
+	 * @param mapType
+	 *            the map implementation to be used in sparse mode
+	 * @param denseModeAllowed
+	 *            whether the shuffle may switch to dense mode
+	 * @param random
+	 *            the source of randomness
+	 */
+	public FisherYatesShuffle(final long maxNum, final ShuffleMapType mapType,
+		final boolean denseModeAllowed, final RandomProvider random)
 	{
 		if (maxNum < 0)
 		{
 			throw new IllegalArgumentException("Maximum number of elements must be positive but was: " + maxNum);
 		}
+		if (null == mapType)
+		{
+			throw new IllegalArgumentException("Map type must not be null.");
+		}
 
+		this.random = random;
 		this.maxNum = maxNum;
 		this.borderIndex = 0;
-		this.replace = new HashMap<Long, Long>(10000, 0.6f);
-	}
-
-	public FisherYatesShuffle(final long maxNum, final boolean useTreeMapInsteadOfHashMap)
-	{
-		this(maxNum);
-		if (useTreeMapInsteadOfHashMap)
-		{
-			this.replace = new TreeMap<Long, Long>();
-		}
+		this.mapType = mapType;
+		this.denseModeAllowed = denseModeAllowed;
+		this.replace = mapType.createMap();
+		this.dense = null;
+		this.updateMode();
 	}
 
 	/**
@@ -107,7 +198,7 @@ public class FisherYatesShuffle
 	{
 		final long drawnIndex = Math.abs(this.random.nextLong() % this.borderIndex);
 
-		return this.replace.containsKey(drawnIndex) ? this.replace.get(drawnIndex) : drawnIndex;
+		return this.replace.get(drawnIndex, drawnIndex);
 	}
 
 	/**
@@ -127,7 +218,7 @@ public class FisherYatesShuffle
 			{
 				throw new IllegalArgumentException("Element " + i + " cannot be deleted as it is not selected.");
 			}
-			deleteByIndex(this.replace.get(i));
+			deleteByIndex(this.replace.get(i, i));
 		}
 		else
 		{
@@ -162,12 +253,11 @@ public class FisherYatesShuffle
 	{
 		assert 0 <= index && index < this.borderIndex : "Index: " + index + " - Border: "
 				+ this.borderIndex + " - MaxNum: " + this.maxNum + " replace: "
-			+ this.replace.get(index);
+			+ this.replace.get(index, index);
 
 		final long preBorderIndex = this.borderIndex - 1;
-		final long preBorderElement = replace.containsKey(preBorderIndex) ? this.replace
-				.get(preBorderIndex) : preBorderIndex;
-		final long drawnElement = replace.containsKey(index) ? this.replace.get(index) : index;
+		final long preBorderElement = this.replace.get(preBorderIndex, preBorderIndex);
+		final long drawnElement = this.replace.get(index, index);
 
 		final long result = drawnElement;
 		if (preBorderIndex == index)
@@ -198,6 +288,11 @@ public class FisherYatesShuffle
 
 		--this.borderIndex;
 
+		if (this.borderIndex < this.toSparseBorderIndex)
+		{
+			this.updateMode();
+		}
+
 		return result;
 	}
 
@@ -216,7 +311,7 @@ public class FisherYatesShuffle
 		final long drawnIndex = this.borderIndex
 			+ Math.abs(this.random.nextLong() % (maxNum - this.borderIndex));
 
-		return this.replace.containsKey(drawnIndex) ? this.replace.get(drawnIndex) : drawnIndex;
+		return this.replace.get(drawnIndex, drawnIndex);
 	}
 
 	/**
@@ -240,7 +335,7 @@ public class FisherYatesShuffle
 		if (this.replace.containsKey(element))
 		{
 			assert 0 <= element && element < this.borderIndex;
-			selectByIndex(this.replace.get(element));
+			selectByIndex(this.replace.get(element, element));
 		}
 		else
 		{
@@ -277,9 +372,8 @@ public class FisherYatesShuffle
 		assert this.borderIndex <= index && index < this.maxNum : "idx: " + index + " i: "
 			+ borderIndex + " max: " + maxNum;
 
-		final long borderElement = replace.containsKey(borderIndex) ? this.replace.get(borderIndex)
-				: borderIndex;
-		final long drawnElement = replace.containsKey(index) ? this.replace.get(index) : index;
+		final long borderElement = this.replace.get(borderIndex, borderIndex);
+		final long drawnElement = this.replace.get(index, index);
 
 		final long result = drawnElement;
 		if (borderIndex == index) // Special case: i = j
@@ -309,6 +403,11 @@ public class FisherYatesShuffle
 
 		++this.borderIndex;
 
+		if (this.borderIndex >= this.toDenseBorderIndex)
+		{
+			this.updateMode();
+		}
+
 		return result;
 	}
 
@@ -386,7 +485,7 @@ public class FisherYatesShuffle
 
 		for (long i = 0; i < this.borderIndex; ++i)
 		{
-			final long element = this.replace.containsKey(i) ? this.replace.get(i) : i;
+			final long element = this.replace.get(i, i);
 			result.add(element);
 		}
 
@@ -408,7 +507,7 @@ public class FisherYatesShuffle
 
 		for (long i = this.borderIndex; i < this.maxNum; ++i)
 		{
-			final long element = this.replace.containsKey(i) ? this.replace.get(i) : i;
+			final long element = this.replace.get(i, i);
 			result.add(element);
 		}
 
@@ -458,6 +557,7 @@ public class FisherYatesShuffle
 			throw new IllegalArgumentException("Maximum number of elements must be positive but was: " + size);
 		}
 		this.maxNum = size;
+		this.updateMode();
 	}
 
 	/**
@@ -466,8 +566,128 @@ public class FisherYatesShuffle
 	 */
 	public void clear()
 	{
-		this.replace.clear();
 		this.borderIndex = 0;
+		if (null != this.dense && !this.shouldBeDense())
+		{
+			// no pointers left which would need to be migrated
+			this.migrateToSparse();
+		}
+		else
+		{
+			this.replace.clear();
+		}
+		this.updateMode();
+	}
+
+	/**
+	 * Returns whether the replace pointers are currently stored in a
+	 * dense permutation array.
+	 *
+	 * @return whether the shuffle is in dense mode
+	 */
+	boolean isDense()
+	{
+		return null != this.dense;
+	}
+
+	/*
+	 * Switches between dense and sparse mode if necessary, adjusts the
+	 * capacity of the dense array to maxNum and recalculates the border
+	 * indices at which the mode has to be checked again.
+	 */
+	private void updateMode()
+	{
+		final boolean shallBeDense = this.shouldBeDense();
+		if (shallBeDense && null == this.dense)
+		{
+			this.migrateToDense();
+		}
+		else if (!shallBeDense && null != this.dense)
+		{
+			this.migrateToSparse();
+		}
+		else if (null != this.dense)
+		{
+			final int capacity = this.dense.capacity();
+			if (this.maxNum > capacity)
+			{
+				this.dense.setCapacity((int) Math.min(DENSE_MAX_NUM,
+					Math.max(this.maxNum, capacity + capacity / 2)));
+			}
+			else if (capacity > 4 * this.maxNum && capacity > ALWAYS_DENSE_MAX_NUM)
+			{
+				// all pointers are smaller than maxNum, see fastResize()
+				this.dense.setCapacity((int) (2 * this.maxNum));
+			}
+		}
+
+		if (null == this.dense)
+		{
+			this.toDenseBorderIndex = this.denseModeAllowed && this.maxNum <= DENSE_MAX_NUM //
+				? this.maxNum >> TO_DENSE_SHIFT : Long.MAX_VALUE;
+			this.toSparseBorderIndex = -1;
+		}
+		else
+		{
+			this.toDenseBorderIndex = Long.MAX_VALUE;
+			this.toSparseBorderIndex = this.maxNum > ALWAYS_DENSE_MAX_NUM //
+				? this.maxNum >> TO_SPARSE_SHIFT : -1;
+		}
+	}
+
+	private boolean shouldBeDense()
+	{
+		if (!this.denseModeAllowed || this.maxNum > DENSE_MAX_NUM)
+		{
+			return false;
+		}
+		else if (this.maxNum <= ALWAYS_DENSE_MAX_NUM)
+		{
+			return true;
+		}
+		else if (null == this.dense)
+		{
+			return this.borderIndex >= this.maxNum >> TO_DENSE_SHIFT;
+		}
+		else
+		{
+			return this.borderIndex >= this.maxNum >> TO_SPARSE_SHIFT;
+		}
+	}
+
+	/*
+	 * Every replace pointer connects an index left of the border with one
+	 * on the right-hand side. Therefore, it suffices to inspect the
+	 * indices left of the border for copying all pointers.
+	 */
+	private void migrateToDense()
+	{
+		final DenseLongLongMap newMap = new DenseLongLongMap((int) this.maxNum);
+		copyPointers(this.replace, newMap, this.borderIndex);
+		this.replace = newMap;
+		this.dense = newMap;
+	}
+
+	private void migrateToSparse()
+	{
+		final LongLongMap newMap = this.mapType.createMap();
+		copyPointers(this.replace, newMap, this.borderIndex);
+		this.replace = newMap;
+		this.dense = null;
+	}
+
+	private static void copyPointers(final LongLongMap source, final LongLongMap target,
+		final long borderIndex)
+	{
+		for (long i = 0; i < borderIndex; ++i)
+		{
+			final long element = source.get(i, i);
+			if (element != i)
+			{
+				target.put(i, element);
+				target.put(element, i);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,127 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Streams a random subset of {0,...,max-1} which contains every element
+ * independently with probability p.
+ * </p>
+ * <p>
+ * Instead of flipping a coin for each element, the distance to the next
+ * element of the subset is drawn from a geometric distribution. Thus, the
+ * time needed is proportional to the size of the subset rather than to
+ * max. This is the same method as in
+ * {@link edu.kit.iti.ldcrgen.util.Sequences#binomialSequence(double, long)}
+ * but the indices are produced one by one and the sampler can be reused
+ * for any number of sequences without allocating anything.
+ * </p>
+ * <p>
+ * The probability is passed in the form of log(1-p) (see
+ * {@link #logQ(double)}) so that callers can cache this value, e.g., per
+ * cluster.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class GeometricSkipSampler implements LongIterator
+{
+	private final RandomProvider random;
+	private double logQ;
+	private long max;
+	private long current;
+
+	/**
+	 * Creates a sampler which draws its random numbers from the given
+	 * provider. Initially, the sampler is exhausted.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 */
+	public GeometricSkipSampler(final RandomProvider random)
+	{
+		if (null == random)
+		{
+			throw new IllegalArgumentException("Random provider must not be null!");
+		}
+		this.random = random;
+		this.logQ = 0.0;
+		this.max = 0;
+		this.current = 0;
+	}
+
+	/**
+	 * Returns the value log(1-p) which has to be passed to
+	 * {@link #reset(double, long)} for sampling with probability p.
+	 *
+	 * @param prob
+	 *            the probability with which each element is contained
+	 * @return the logarithm of the counter probability
+	 */
+	public static double logQ(final double prob)
+	{
+		if (prob < 0.0 || prob > 1.0)
+		{
+			throw new IllegalArgumentException("Probability must be in [0,1] but was: " + prob);
+		}
+		return Math.log1p(-prob);
+	}
+
+	/**
+	 * Starts a new sequence.
+	 *
+	 * @param logQ
+	 *            the value of {@link #logQ(double)} for the desired
+	 *            probability
+	 * @param max
+	 *            the exclusive upper bound of the sequence
+	 */
+	public void reset(final double logQ, final long max)
+	{
+		assert logQ <= 0.0 : "Invalid logQ: " + logQ;
+
+		this.logQ = logQ;
+		this.max = max;
+		this.current = -1;
+		this.advance();
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return this.current < this.max;
+	}
+
+	@Override
+	public long next()
+	{
+		if (!this.hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		final long result = this.current;
+		this.advance();
+		return result;
+	}
+
+	private void advance()
+	{
+		if (0.0 == this.logQ) // p = 0
+		{
+			this.current = this.max;
+		}
+		else
+		{
+			final double skip = Math.floor(Math.log(1 - this.random.nextDouble()) / this.logQ);
+			if (skip >= this.max - this.current - 1)
+			{
+				this.current = this.max;
+			}
+			else
+			{
+				this.current += 1 + (long) skip;
+			}
+		}
+	}
+}
@@ -3,7 +3,7 @@ package edu.kit.iti.ldcrgen.data_structures;
 import java.util.ArrayList;
 import java.util.List;
 
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.BinarySelectionTree;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.util.ListUtils;
 import edu.kit.iti.ldcrgen.util.Pair;
 
@@ -15,16 +15,49 @@ import edu.kit.iti.ldcrgen.util.Pair;
  */
 public class GroundTruth extends AbstractClustering
 {
-	final RandomProvider random = new JavaUtilRandomProvider();
-	private BinarySelectionTree clusterSelectionTree;
+	final RandomProvider random;
+	private ArrayBinarySelectionTree clusterSelectionTree;
+
+	/*
+	 * The expected sizes of the clusters only change when clusters are
+	 * added or removed. Between two such changes, new nodes are assigned
+	 * by means of an alias table in O(1). As building the table takes
+	 * O(k), it is only built after k selections without a change have
+	 * been made; before, the selection tree is used.
+	 */
+	private AliasTable clusterAliasTable;
+	private int selectionsSinceChange;
+
+	/*
+	 * Node counts of the clusters, indexed by their local index. Allows to
+	 * find the cluster of the i-th node in O(log k) if the nodes are
+	 * numbered consecutively in the order of the clusters.
+	 */
+	private final FenwickTree nodeCounts;
 
 	private final List<OrdinaryCluster> nonLockedClusters;
 	private int nodeCountOfClustersInNonLockedList;
 
 	public GroundTruth()
 	{
-		this.clusterSelectionTree = new BinarySelectionTree();
+		this(new XoroshiroRandomProvider());
+	}
+
+	/**
+	 * Creates an empty ground truth which draws its proposals from the
+	 * given random provider.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 */
+	public GroundTruth(final RandomProvider random)
+	{
+		this.random = random;
+		this.clusterSelectionTree = new ArrayBinarySelectionTree(random.split());
 		this.nonLockedClusters = new ArrayList<OrdinaryCluster>();
+		this.clusterAliasTable = null;
+		this.selectionsSinceChange = 0;
+		this.nodeCounts = new FenwickTree();
 	}
 
 	@Override
@@ -61,8 +94,10 @@ public class GroundTruth extends AbstractClustering
 	void add(final OrdinaryCluster cluster)
 	{
 		super.add(cluster);
-		cluster.setSelectionTreeNode(//
+		this.nodeCounts.add(cluster.getNodeCount());
+		cluster.setSelectionTreeHandle(//
 			this.clusterSelectionTree.insert(cluster.getExpectedSizeWeight()));
+		this.invalidateAliasTable();
 
 
 		addToNonLockedClusters(cluster);
@@ -71,9 +106,11 @@ public class GroundTruth extends AbstractClustering
 	@Override
 	void remove(final OrdinaryCluster cluster)
 	{
+		this.nodeCounts.moveLastTo(cluster.getGroundTruthIndex());
 		super.remove(cluster);
-		this.clusterSelectionTree.delete(cluster.getSelectionTreeNode());
-		cluster.clearSelectionTreeNode();
+		this.clusterSelectionTree.delete(cluster.getSelectionTreeHandle());
+		cluster.clearSelectionTreeHandle();
+		this.invalidateAliasTable();
 
 		assert cluster.getIndexInListOfNonLockedClusters() < this.nonLockedClusters.size() : "cl: "
 			+ cluster;
@@ -131,6 +168,62 @@ public class GroundTruth extends AbstractClustering
 		--this.nodeCountOfClustersInNonLockedList;
 	}
 
+	/**
+	 * Updates the node count of the given cluster.
+	 *
+	 * Has to be called by the cluster whenever a node is added to or
+	 * removed from it while it is contained in the ground truth.
+	 *
+	 * @param cluster
+	 *            the cluster whose node count has changed
+	 */
+	void notifyNodeCountChanged(final OrdinaryCluster cluster)
+	{
+		assert this.contains(cluster);
+
+		this.nodeCounts.set(cluster.getGroundTruthIndex(), cluster.getNodeCount());
+	}
+
+	/**
+	 * Returns the number of nodes in all clusters of the ground truth.
+	 *
+	 * @return the number of nodes
+	 */
+	long getNodeCount()
+	{
+		return this.nodeCounts.total();
+	}
+
+	/**
+	 * Returns the node at the given position if the nodes of all clusters
+	 * except the given one are numbered consecutively in the order of the
+	 * clusters.
+	 *
+	 * Runs in time O(log k) for k clusters.
+	 *
+	 * @param excludedCluster
+	 *            the cluster whose nodes are skipped
+	 * @param position
+	 *            the position in the range of 0 to getNodeCount() -
+	 *            excludedCluster.getNodeCount() (exclusive)
+	 * @return the node at the given position
+	 */
+	Node getNodeOutsideOf(final OrdinaryCluster excludedCluster, final long position)
+	{
+		assert this.contains(excludedCluster);
+
+		long globalPosition = position;
+		if (globalPosition >= this.nodeCounts.prefixSum(excludedCluster.getGroundTruthIndex()))
+		{
+			globalPosition += excludedCluster.getNodeCount();
+		}
+
+		final int c = this.nodeCounts.findIndex(globalPosition);
+		assert c != excludedCluster.getGroundTruthIndex();
+
+		return this.clusters.get(c).getNode((int) (globalPosition - this.nodeCounts.prefixSum(c)));
+	}
+
 	/**
 	 * Finds a cluster which is not involved in an operation.
 	 * If no such cluster exists the result will be <code>null</code>.
@@ -187,6 +280,42 @@ public class GroundTruth extends AbstractClustering
 	 */
 	OrdinaryCluster proposeClusterForNewNode()
 	{
-		return (OrdinaryCluster) this.clusterSelectionTree.select().getElement().getObject();
+		if (null == this.clusterAliasTable && this.selectionsSinceChange >= this.clusters.size()
+			&& this.clusterSelectionTree.getWeight() > 0.0)
+		{
+			this.buildAliasTable();
+		}
+
+		if (null != this.clusterAliasTable)
+		{
+			return this.clusters.get(this.clusterAliasTable.sample(this.random));
+		}
+		else
+		{
+			++this.selectionsSinceChange;
+			final int handle = this.clusterSelectionTree.select();
+			return (OrdinaryCluster) this.clusterSelectionTree.getElement(handle).getObject();
+		}
+	}
+
+	private void invalidateAliasTable()
+	{
+		this.clusterAliasTable = null;
+		this.selectionsSinceChange = 0;
+	}
+
+	/*
+	 * The indices of the table correspond to the indices of the clusters
+	 * in this clustering.
+	 */
+	private void buildAliasTable()
+	{
+		final List<Integer> expectedSizes = this.getExpectedSizes();
+		final double[] weights = new double[expectedSizes.size()];
+		for (int i = 0; i < weights.length; ++i)
+		{
+			weights[i] = expectedSizes.get(i);
+		}
+		this.clusterAliasTable = new AliasTable(weights);
 	}
 }
@@ -0,0 +1,58 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * <p>
+ * Allocates the global indices of the nodes, clusters and cluster
+ * operations of a single graph.
+ * </p>
+ * <p>
+ * Each graph owns an allocator, so that the indices of a graph - and
+ * therefore its journal - do not depend on other graphs which have been
+ * created before or concurrently in the same JVM. An allocator is not
+ * thread-safe; it is only used by the thread which builds its graph.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class IdAllocator
+{
+	// VERY IMPORTANT! Do not start with 0 or 1, because this will entail
+	// two edges with global index 0!
+	static final int FIRST_NODE_INDEX = 2;
+	static final int FIRST_CLUSTER_INDEX = 0;
+	static final int FIRST_OPERATION_INDEX = 1;
+
+	private int nextNodeIndex;
+	private int nextClusterIndex;
+	private int nextOperationIndex;
+
+	IdAllocator()
+	{
+		this.nextNodeIndex = FIRST_NODE_INDEX;
+		this.nextClusterIndex = FIRST_CLUSTER_INDEX;
+		this.nextOperationIndex = FIRST_OPERATION_INDEX;
+	}
+
+	int nextNodeIndex()
+	{
+		return this.nextNodeIndex++;
+	}
+
+	int nextClusterIndex()
+	{
+		return this.nextClusterIndex++;
+	}
+
+	int nextOperationIndex()
+	{
+		return this.nextOperationIndex++;
+	}
+
+	/**
+	 * Returns the global index which the next node will get.
+	 */
+	int peekNodeIndex()
+	{
+		return this.nextNodeIndex;
+	}
+}
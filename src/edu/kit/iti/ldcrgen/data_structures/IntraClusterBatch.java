@@ -0,0 +1,259 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import edu.kit.iti.ldcrgen.util.Pair;
+
+/**
+ * <p>
+ * Collects consecutive intra-cluster edge operations per cluster and
+ * executes the operations of different clusters in parallel.
+ * </p>
+ * <p>
+ * While a batch is open (see
+ * {@link DCRGraph#beginIntraClusterBatch(ExecutorService)}), the graph
+ * still selects the kind and the cluster of each edge operation but only
+ * records it if it is an intra-cluster operation on a cluster which is not
+ * locked by a cluster operation. The weights of the cluster and of the
+ * pseudo cluster in the selection trees are updated immediately (see
+ * {@link OrdinaryCluster#addPendingIntraClusterEdges(int)}), as only the
+ * number of edges and not the edge itself is needed for this. Thus, the
+ * kinds and the clusters are selected exactly as if the operations were
+ * performed one by one.
+ * </p>
+ * <p>
+ * When the batch is executed, each cluster draws the edges of its
+ * operations from its own shuffle and updates its adjacency list. These
+ * structures are disjoint for different clusters, so the clusters may be
+ * processed by several threads. Afterwards, the effects on the shared
+ * structures - the pseudo cluster and the journal - are applied by the
+ * calling thread in the order in which the operations have been selected.
+ * The graph executes the batch before any other operation, so each shuffle
+ * performs the same operations with the same random stream as without
+ * batching, and the result is the same for any number of threads.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class IntraClusterBatch
+{
+	/*
+	 * Smaller batches are executed in the calling thread, as handing them
+	 * over to the executor costs more than it saves.
+	 */
+	static final int MIN_PARALLEL_OPERATIONS = 64;
+
+	private final Map<OrdinaryCluster, ClusterOperations> operations;
+	// the cluster of each operation, in the order of selection
+	private final List<ClusterOperations> sequence;
+
+	IntraClusterBatch()
+	{
+		this.operations = new LinkedHashMap<OrdinaryCluster, ClusterOperations>();
+		this.sequence = new ArrayList<ClusterOperations>();
+	}
+
+	/**
+	 * Returns whether an edge operation on the given cluster may be
+	 * deferred to this batch.
+	 */
+	static boolean accepts(final AbstractCluster cluster)
+	{
+		return cluster instanceof OrdinaryCluster && !((OrdinaryCluster) cluster).isLocked();
+	}
+
+	/**
+	 * Records an edge operation on the given cluster.
+	 *
+	 * @param cluster
+	 *            the cluster, which has to be accepted by
+	 *            {@link #accepts(AbstractCluster)}
+	 * @param isInsertion
+	 *            whether an edge shall be inserted or deleted
+	 */
+	void add(final OrdinaryCluster cluster, final boolean isInsertion)
+	{
+		assert accepts(cluster);
+
+		ClusterOperations ops = this.operations.get(cluster);
+		if (null == ops)
+		{
+			ops = new ClusterOperations(cluster);
+			this.operations.put(cluster, ops);
+		}
+		ops.add(isInsertion);
+		this.sequence.add(ops);
+	}
+
+	/**
+	 * Returns whether no operation has been recorded.
+	 */
+	boolean isEmpty()
+	{
+		return this.sequence.isEmpty();
+	}
+
+	/**
+	 * Returns the clusters of the recorded operations in the order in
+	 * which the operations have been recorded.
+	 */
+	Collection<ClusterOperations> getClusters()
+	{
+		return this.operations.values();
+	}
+
+	/**
+	 * Performs the local part of all operations.
+	 *
+	 * @param executor
+	 *            the executor for processing the clusters or
+	 *            <code>null</code> for processing them in the calling
+	 *            thread
+	 * @return the cluster of each operation, in the order in which the
+	 *         operations have to be applied to the graph (see
+	 *         {@link ClusterOperations#next()})
+	 */
+	List<ClusterOperations> execute(final ExecutorService executor)
+	{
+		final Collection<ClusterOperations> clusters = this.operations.values();
+		if (null == executor || clusters.size() < 2
+			|| this.sequence.size() < MIN_PARALLEL_OPERATIONS)
+		{
+			for (final ClusterOperations ops : clusters)
+			{
+				ops.call();
+			}
+			return this.sequence;
+		}
+
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>(clusters.size());
+		for (final ClusterOperations ops : clusters)
+		{
+			futures.add(executor.submit(ops));
+		}
+		try
+		{
+			for (final Future<Void> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (final ExecutionException ex)
+		{
+			throw new IllegalStateException("Executing the intra-cluster operations failed.",
+				ex.getCause());
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+				"Interrupted while executing the intra-cluster operations.", ex);
+		}
+		return this.sequence;
+	}
+
+	/**
+	 * The operations of a single cluster.
+	 *
+	 * Before execution, only the kind of each operation is known. After
+	 * execution, {@link #getEdge(int)} returns the inserted or deleted edge
+	 * or <code>null</code> if there was no edge to insert or delete.
+	 * {@link #next()} walks through the operations while they are applied
+	 * to the graph.
+	 */
+	static final class ClusterOperations implements Callable<Void>
+	{
+		private final OrdinaryCluster cluster;
+		private boolean[] insertions;
+		private Edge[] edges;
+		private int size;
+		private int applied;
+
+		ClusterOperations(final OrdinaryCluster cluster)
+		{
+			this.cluster = cluster;
+			this.insertions = new boolean[4];
+			this.edges = null;
+			this.size = 0;
+			this.applied = 0;
+		}
+
+		void add(final boolean isInsertion)
+		{
+			if (this.size == this.insertions.length)
+			{
+				final boolean[] larger = new boolean[2 * this.size];
+				System.arraycopy(this.insertions, 0, larger, 0, this.size);
+				this.insertions = larger;
+			}
+			this.insertions[this.size++] = isInsertion;
+		}
+
+		OrdinaryCluster getCluster()
+		{
+			return this.cluster;
+		}
+
+		int size()
+		{
+			return this.size;
+		}
+
+		boolean isInsertion(final int index)
+		{
+			return this.insertions[index];
+		}
+
+		Edge getEdge(final int index)
+		{
+			return this.edges[index];
+		}
+
+		/*
+		 * Returns the index of the next operation which has to be applied
+		 * to the graph.
+		 */
+		int next()
+		{
+			assert this.applied < this.size;
+			return this.applied++;
+		}
+
+		/*
+		 * Only touches the adjacency list and the shuffle of the cluster.
+		 */
+		@Override
+		public Void call()
+		{
+			this.edges = new Edge[this.size];
+			for (int i = 0; i < this.size; ++i)
+			{
+				if (this.insertions[i])
+				{
+					final Pair<Node> nodes = this.cluster.findNonEdge();
+					if (null != nodes)
+					{
+						final Edge edge = Edge.createEdge(nodes);
+						this.cluster.addEdgeLocally(edge);
+						this.edges[i] = edge;
+					}
+				}
+				else if (this.cluster.getIntraClusterEdgeCount() > 0)
+				{
+					final Edge edge = this.cluster.findEdge();
+					this.cluster.removeIntraClusterEdgeLocally(edge);
+					this.edges[i] = edge;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -54,6 +54,12 @@ public class JavaUtilRandomProvider implements RandomProvider
 		return this.randomGenerator.nextLong();
 	}
 
+	@Override
+	public RandomProvider split()
+	{
+		return new JavaUtilRandomProvider(this.nextLong());
+	}
+
 	/**
 	 * Returns a pair of integers in the range of 0(inclusive) to
 	 * max(exclusive)
@@ -0,0 +1,25 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * Iterator over primitive long values which avoids boxing.
+ *
+ * @author Roland Kluge
+ */
+public interface LongIterator
+{
+	/**
+	 * Returns whether there are more values.
+	 *
+	 * @return whether {@link #next()} may be called
+	 */
+	boolean hasNext();
+
+	/**
+	 * Returns the next value.
+	 *
+	 * May only be called if {@link #hasNext()} returns true.
+	 *
+	 * @return the next value
+	 */
+	long next();
+}
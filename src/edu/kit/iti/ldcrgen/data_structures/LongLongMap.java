@@ -0,0 +1,66 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+/**
+ * Minimal map from non-negative long keys to long values.
+ *
+ * This is the storage of the replace pointers in the
+ * {@link FisherYatesShuffle}. Only the operations which are needed by the
+ * shuffle are offered so that primitive implementations do not need to
+ * box any of their keys or values.
+ *
+ * @author Roland Kluge
+ */
+interface LongLongMap
+{
+	/**
+	 * Returns whether the given key is mapped to some value.
+	 *
+	 * @param key
+	 *            the non-negative key
+	 * @return whether the key is contained
+	 */
+	boolean containsKey(final long key);
+
+	/**
+	 * Returns the value stored for the given key or the given default
+	 * value if the key is not contained.
+	 *
+	 * @param key
+	 *            the non-negative key
+	 * @param defaultValue
+	 *            the value to be returned for missing keys
+	 * @return the stored value or <code>defaultValue</code>
+	 */
+	long get(final long key, final long defaultValue);
+
+	/**
+	 * Maps the given key to the given value, overwriting any previous
+	 * value.
+	 *
+	 * @param key
+	 *            the non-negative key
+	 * @param value
+	 *            the value
+	 */
+	void put(final long key, final long value);
+
+	/**
+	 * Removes the given key. Has no effect if the key is not contained.
+	 *
+	 * @param key
+	 *            the non-negative key
+	 */
+	void remove(final long key);
+
+	/**
+	 * Removes all keys.
+	 */
+	void clear();
+
+	/**
+	 * Returns the number of stored keys.
+	 *
+	 * @return the number of keys
+	 */
+	int size();
+}
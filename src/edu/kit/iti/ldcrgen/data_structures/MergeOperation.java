@@ -3,9 +3,8 @@ package edu.kit.iti.ldcrgen.data_structures;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
 
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.BinarySelectionTree;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
 import edu.kit.iti.ldcrgen.util.ListUtils;
@@ -14,7 +13,7 @@ import edu.kit.iti.ldcrgen.util.Pair;
 public class MergeOperation extends AbstractClusterOperation
 {
 
-	private final RandomProvider random = new JavaUtilRandomProvider();
+	private final RandomProvider random;
 
 	private final OrdinaryCluster firstInitialCluster;
 	private final OrdinaryCluster secondInitialCluster;
@@ -29,6 +28,7 @@ public class MergeOperation extends AbstractClusterOperation
 	{
 		super(graph);
 
+		this.random = graph.createRandomStream();
 		this.firstInitialCluster = initialClusters.getFirst();
 		this.secondInitialCluster = initialClusters.getSecond();
 	}
@@ -95,7 +95,6 @@ public class MergeOperation extends AbstractClusterOperation
 		{
 			final double mean = ListUtils.arithmeticMean(pInValues);
 			final double stddev = Math.sqrt(ListUtils.variance(pInValues));
-			final Random random = new Random();
 			final double pOut = this.graph.getPOut();
 
 
@@ -285,22 +284,22 @@ public class MergeOperation extends AbstractClusterOperation
 	@Override
 	protected void applyUponTrees()
 	{
-		final BinarySelectionTree insTree = graph.getInsertionTree();
-		final BinarySelectionTree delTree = graph.getDeletionTree();
+		final ArrayBinarySelectionTree insTree = graph.getInsertionTree();
+		final ArrayBinarySelectionTree delTree = graph.getDeletionTree();
 
-		insTree.delete(firstInitialCluster.getInsertionTreeNode());
-		firstInitialCluster.clearInsertionTreeNode();
-		insTree.delete(secondInitialCluster.getInsertionTreeNode());
-		secondInitialCluster.clearInsertionTreeNode();
+		insTree.delete(firstInitialCluster.getInsertionTreeHandle());
+		firstInitialCluster.clearInsertionTreeHandle();
+		insTree.delete(secondInitialCluster.getInsertionTreeHandle());
+		secondInitialCluster.clearInsertionTreeHandle();
 
-		delTree.delete(firstInitialCluster.getDeletionTreeNode());
-		firstInitialCluster.clearDeletionTreeNode();
-		delTree.delete(secondInitialCluster.getDeletionTreeNode());
-		secondInitialCluster.clearDeletionTreeNode();
+		delTree.delete(firstInitialCluster.getDeletionTreeHandle());
+		firstInitialCluster.clearDeletionTreeHandle();
+		delTree.delete(secondInitialCluster.getDeletionTreeHandle());
+		secondInitialCluster.clearDeletionTreeHandle();
 
-		resultingCluster.setInsertionTreeNode(//
+		resultingCluster.setInsertionTreeHandle(//
 			insTree.insert(resultingCluster.getInsertionWeight()));
-		resultingCluster.setDeletionTreeNode(//
+		resultingCluster.setDeletionTreeHandle(//
 			delTree.insert(resultingCluster.getDeletionWeight()));
 	}
 
@@ -367,7 +366,7 @@ public class MergeOperation extends AbstractClusterOperation
 		assert isRunning();
 		final int totalSize = firstInitialCluster.getNodeCount()
 			+ secondInitialCluster.getNodeCount();
-		return Math.random() * totalSize < firstInitialCluster.getNodeCount() //
+		return random.nextDouble() * totalSize < firstInitialCluster.getNodeCount() //
 		? firstInitialCluster
 			: secondInitialCluster;
 	}
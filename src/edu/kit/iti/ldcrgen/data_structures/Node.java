@@ -4,12 +4,6 @@ public class Node
 {
 	public static final int INVALID_ID = -1;
 
-	private static final int INIT_COUNTER = 2;
-
-	// VERY IMPORTANT! Do not start with 0 or 1, because this will entail
-	// two edges with global index 0!
-	private static int counter = INIT_COUNTER;
-
 	private final int globalIndex;
 	private int localPsClIndex;
 	private int localGtClIndex;
@@ -21,9 +15,12 @@ public class Node
 	private OrdinaryCluster refClCluster;
 
 
-	Node()
+	/**
+	 * Creates a node whose global index is allocated by the given graph.
+	 */
+	Node(final DCRGraph graph)
 	{
-		this.globalIndex = counter++;
+		this.globalIndex = graph.getIdAllocator().nextNodeIndex();
 		this.localPsClIndex = INVALID_ID;
 
 		this.localGtClIndex = INVALID_ID;
@@ -173,7 +170,7 @@ public class Node
 
 	public int getJournalIndex()
 	{
-		return this.globalIndex - INIT_COUNTER + 1;
+		return this.globalIndex - IdAllocator.FIRST_NODE_INDEX + 1;
 	}
 
 }
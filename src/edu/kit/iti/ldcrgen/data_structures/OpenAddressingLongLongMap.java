@@ -0,0 +1,234 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Open addressing hash map from non-negative long keys to long values.
+ * </p>
+ * <p>
+ * Keys and values are stored interleaved in a single long[] table so that
+ * a lookup touches one cache line in the common case and no objects are
+ * allocated per entry. Collisions are resolved by linear probing; deletion
+ * shifts the following entries of the probe sequence backwards so that no
+ * tombstones are needed and lookup costs do not degrade over time.
+ * </p>
+ * <p>
+ * As the replace pointers of the {@link FisherYatesShuffle} are indices,
+ * negative keys are not supported. The value -1 marks free slots.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+class OpenAddressingLongLongMap implements LongLongMap
+{
+	private static final long FREE = -1L;
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 29;
+
+	/*
+	 * Capacity is always a power of 2. The key of slot s is stored at
+	 * table[2s], its value at table[2s+1].
+	 */
+	private long[] table;
+	private int mask;
+	private int shift;
+	private int size;
+	private int resizeThreshold;
+
+	OpenAddressingLongLongMap()
+	{
+		this.allocate(MIN_CAPACITY);
+	}
+
+	@Override
+	public boolean containsKey(final long key)
+	{
+		return this.findSlot(key) >= 0;
+	}
+
+	@Override
+	public long get(final long key, final long defaultValue)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+
+		int slot = this.idealSlot(key);
+		while (true)
+		{
+			final long current = this.table[slot << 1];
+			if (current == key)
+			{
+				return this.table[(slot << 1) + 1];
+			}
+			else if (current == FREE)
+			{
+				return defaultValue;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	@Override
+	public void put(final long key, final long value)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+
+		int slot = this.idealSlot(key);
+		while (true)
+		{
+			final long current = this.table[slot << 1];
+			if (current == key)
+			{
+				this.table[(slot << 1) + 1] = value;
+				return;
+			}
+			else if (current == FREE)
+			{
+				this.table[slot << 1] = key;
+				this.table[(slot << 1) + 1] = value;
+				++this.size;
+				if (this.size > this.resizeThreshold)
+				{
+					this.rehash((this.mask + 1) << 1);
+				}
+				return;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	@Override
+	public void remove(final long key)
+	{
+		int hole = this.findSlot(key);
+		if (hole < 0)
+		{
+			return;
+		}
+
+		/*
+		 * Backward shift deletion: Every entry in the remaining cluster
+		 * whose ideal slot is not located cyclically between the hole and
+		 * its own slot is moved into the hole.
+		 */
+		int slot = hole;
+		while (true)
+		{
+			slot = (slot + 1) & this.mask;
+			final long current = this.table[slot << 1];
+			if (current == FREE)
+			{
+				break;
+			}
+
+			final int ideal = this.idealSlot(current);
+			if (((slot - ideal) & this.mask) >= ((slot - hole) & this.mask))
+			{
+				this.table[hole << 1] = current;
+				this.table[(hole << 1) + 1] = this.table[(slot << 1) + 1];
+				hole = slot;
+			}
+		}
+
+		this.table[hole << 1] = FREE;
+		--this.size;
+	}
+
+	@Override
+	public void clear()
+	{
+		if (this.mask + 1 > MIN_CAPACITY)
+		{
+			this.allocate(MIN_CAPACITY);
+		}
+		else
+		{
+			Arrays.fill(this.table, FREE);
+		}
+		this.size = 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of slots in the table.
+	 *
+	 * @return the capacity
+	 */
+	int capacity()
+	{
+		return this.mask + 1;
+	}
+
+	/*
+	 * Returns the slot of the given key or -1 if the key is not contained.
+	 */
+	private int findSlot(final long key)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+
+		int slot = this.idealSlot(key);
+		while (true)
+		{
+			final long current = this.table[slot << 1];
+			if (current == key)
+			{
+				return slot;
+			}
+			else if (current == FREE)
+			{
+				return -1;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	/*
+	 * Fibonacci hashing: the upper bits of the product are well mixed
+	 * even for consecutive keys.
+	 */
+	private int idealSlot(final long key)
+	{
+		return (int) ((key * GOLDEN_RATIO) >>> this.shift);
+	}
+
+	private void allocate(final int capacity)
+	{
+		this.table = new long[capacity << 1];
+		Arrays.fill(this.table, FREE);
+		this.mask = capacity - 1;
+		this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		this.resizeThreshold = capacity == MAX_CAPACITY ? capacity - 1 : capacity / 2 + capacity / 8;
+	}
+
+	private void rehash(final int newCapacity)
+	{
+		if (newCapacity > MAX_CAPACITY)
+		{
+			throw new IllegalStateException("Map exceeds maximum capacity of " + MAX_CAPACITY + " entries.");
+		}
+
+		final long[] oldTable = this.table;
+		this.allocate(newCapacity);
+
+		for (int i = 0; i < oldTable.length; i += 2)
+		{
+			final long key = oldTable[i];
+			if (key != FREE)
+			{
+				int slot = this.idealSlot(key);
+				while (this.table[slot << 1] != FREE)
+				{
+					slot = (slot + 1) & this.mask;
+				}
+				this.table[slot << 1] = key;
+				this.table[(slot << 1) + 1] = oldTable[i + 1];
+			}
+		}
+	}
+}
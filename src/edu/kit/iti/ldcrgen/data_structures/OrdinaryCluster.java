@@ -2,7 +2,7 @@ package edu.kit.iti.ldcrgen.data_structures;
 
 import java.util.Iterator;
 
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.TreeNode;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.Weightable;
 import edu.kit.iti.ldcrgen.util.BooleanUtils;
 import edu.kit.iti.ldcrgen.util.Pair;
@@ -40,14 +40,13 @@ import edu.kit.iti.ldcrgen.util.Pair;
  */
 public class OrdinaryCluster extends AbstractCluster
 {
-	private static final int INITIAL_COUNTER = 0;
 	private static final int DEFAULT_EXPECTED_SIZE = 1;
 
-	private static int counter = INITIAL_COUNTER;
-
 	private int gtIndex;
 	private int refIndex;
 	private final double pIn;
+	// cached for the geometric skip sampler
+	private final double logQIn;
 
 	private AbstractClusterOperation currentOperation;
 	private int indexInListOfNonLockedClusters;
@@ -55,7 +54,9 @@ public class OrdinaryCluster extends AbstractCluster
 
 	private final int globalIndex;
 	private int expectedSize;
-	private TreeNode selectionTreeNode;
+	private int selectionTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
+	// edges inserted minus edges deleted by a pending IntraClusterBatch
+	private int pendingIntraClusterEdges;
 
 
 	/**
@@ -77,12 +78,13 @@ public class OrdinaryCluster extends AbstractCluster
 		if (pIn < pOut)
 			throw new IllegalArgumentException("Intra-cl probability " + pIn + " is smaller than inter-cl probability " + pOut);
 
-		this.globalIndex = counter++;
+		this.globalIndex = this.graph.getIdAllocator().nextClusterIndex();
 		this.gtIndex = INVALID_ID;
 		this.refIndex = INVALID_ID;
 		this.indexInListOfNonLockedClusters = INVALID_ID;
 
 		this.pIn = pIn;
+		this.logQIn = GeometricSkipSampler.logQ(pIn);
 		this.expectedSize = DEFAULT_EXPECTED_SIZE;
 		this.currentOperation = null;
 		this.adjacencyList = new ClusterAdjacencyList(this);
@@ -116,6 +118,17 @@ public class OrdinaryCluster extends AbstractCluster
 		return this.pIn;
 	}
 
+	/**
+	 * Returns log(1 - p_in), which is needed for sampling intra-cluster
+	 * edges with a {@link GeometricSkipSampler}.
+	 *
+	 * @return the logarithm of the intra-cluster non-edge probability
+	 */
+	double getLogQIn()
+	{
+		return this.logQIn;
+	}
+
 	int getGlobalIndex()
 	{
 		return this.globalIndex;
@@ -128,7 +141,7 @@ public class OrdinaryCluster extends AbstractCluster
 	 */
 	public int getJournalIndex()
 	{
-		return this.getGlobalIndex() - INITIAL_COUNTER + 1;
+		return this.getGlobalIndex() - IdAllocator.FIRST_CLUSTER_INDEX + 1;
 	}
 
 	int getExpectedSize()
@@ -190,6 +203,7 @@ public class OrdinaryCluster extends AbstractCluster
 			}
 
 			this.adjacencyList.removeNode(node);
+			this.graph.getGroundTruth().notifyNodeCountChanged(this);
 
 			// the last node has taken the place of the removed node
 			assert BooleanUtils.implies(!lastNode.equals(node),
@@ -264,6 +278,10 @@ public class OrdinaryCluster extends AbstractCluster
 	void addNodeLocally(final Node node)
 	{
 		this.adjacencyList.addNode(node);
+		if (this.isInGroundTruth())
+		{
+			this.graph.getGroundTruth().notifyNodeCountChanged(this);
+		}
 
 		this.shuffle.resize(Edge.maxEdgeCount(this.getNodeCount()));
 
@@ -406,10 +424,35 @@ public class OrdinaryCluster extends AbstractCluster
 	void updateTreeWeights()
 	{
 		this.updateInsertionWeight(//
-		this.getIntraClusterNonEdgeCount() * (this.pIn - this.graph.getPOut()));
+		(this.getIntraClusterNonEdgeCount() - this.pendingIntraClusterEdges)
+			* (this.pIn - this.graph.getPOut()));
 
 		this.updateDeletionWeight(//
-		this.getIntraClusterEdgeCount() * (1 - this.pIn));
+		(this.getIntraClusterEdgeCount() + this.pendingIntraClusterEdges) * (1 - this.pIn));
+	}
+
+	/**
+	 * Accounts for intra-cluster edges which have been inserted (positive
+	 * delta) or deleted (negative delta) by an {@link IntraClusterBatch}
+	 * but not yet performed. The tree weights are updated as if the edges
+	 * had already been inserted or deleted.
+	 *
+	 * @param delta
+	 *            the change of the number of pending intra-cluster edges
+	 */
+	void addPendingIntraClusterEdges(final int delta)
+	{
+		this.pendingIntraClusterEdges += delta;
+		this.updateTreeWeights();
+	}
+
+	/**
+	 * Forgets about the pending intra-cluster edges after they have been
+	 * performed. The tree weights are left untouched.
+	 */
+	void clearPendingIntraClusterEdges()
+	{
+		this.pendingIntraClusterEdges = 0;
 	}
 
 	@Override
@@ -481,6 +524,22 @@ public class OrdinaryCluster extends AbstractCluster
 		}
 	}
 
+	/**
+	 * Removes an intra-cluster edge from the adjacency list and the shuffle
+	 * of this cluster without affecting the pseudo cluster or the search
+	 * trees (see {@link IntraClusterBatch}).
+	 *
+	 * @param edge
+	 *            the intra-cluster edge to be removed
+	 */
+	void removeIntraClusterEdgeLocally(final Edge edge)
+	{
+		assert edge.isIntraClusterEdge() && this.equals(edge.getCluster());
+
+		this.removeEdgeLocally(edge);
+		this.shuffle.delete(edge.getLocalGtClusterIndex());
+	}
+
 	/**
 	 * This method removes all edges from the given cluster.
 	 *
@@ -732,19 +791,19 @@ public class OrdinaryCluster extends AbstractCluster
 		};
 	}
 
-	void setSelectionTreeNode(final TreeNode node)
+	void setSelectionTreeHandle(final int handle)
 	{
-		this.selectionTreeNode = node;
+		this.selectionTreeHandle = handle;
 	}
 
-	void clearSelectionTreeNode()
+	void clearSelectionTreeHandle()
 	{
-		this.selectionTreeNode = null;
+		this.selectionTreeHandle = ArrayBinarySelectionTree.INVALID_HANDLE;
 	}
 
-	TreeNode getSelectionTreeNode()
+	int getSelectionTreeHandle()
 	{
-		return this.selectionTreeNode;
+		return this.selectionTreeHandle;
 	}
 
 	/**
@@ -0,0 +1,171 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * Samples the edge indices of the initial instance on several threads.
+ * </p>
+ * <p>
+ * The index space of the edges is divided into independent ranges, each
+ * of which is sampled by a {@link GeometricSkipSampler} with its own
+ * random stream. All streams are derived from the given root stream
+ * before any range is sampled, in the order of the ranges. Hence, the
+ * sampled indices only depend on the root stream and not on the number
+ * of threads or on the order in which the ranges are processed.
+ * </p>
+ * <p>
+ * The sampler only deals with indices. It does not touch the graph, so
+ * that the sampled edges can be inserted and journaled afterwards by a
+ * single thread in a fixed order.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class ParallelEdgeSampler
+{
+	private final int threads;
+	private final List<Range> ranges;
+
+	/**
+	 * Creates a sampler which uses the given number of threads. A single
+	 * thread samples all ranges in the calling thread.
+	 *
+	 * @param threads
+	 *            the number of threads
+	 */
+	ParallelEdgeSampler(final int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("Thread count must be positive: " + threads);
+		}
+		this.threads = threads;
+		this.ranges = new ArrayList<Range>();
+	}
+
+	/**
+	 * Adds the range {0,...,max-1} which contains every index
+	 * independently with probability 1-exp(logQ).
+	 *
+	 * @param logQ
+	 *            see {@link GeometricSkipSampler#logQ(double)}
+	 * @param max
+	 *            the exclusive upper bound of the range
+	 */
+	void addRange(final double logQ, final long max)
+	{
+		this.ranges.add(new Range(logQ, max));
+	}
+
+	/**
+	 * Samples all ranges.
+	 *
+	 * @param random
+	 *            the root stream from which the streams of the ranges are
+	 *            derived
+	 * @return the sorted indices of each range, in the order in which the
+	 *         ranges have been added
+	 */
+	List<long[]> sample(final RandomProvider random)
+	{
+		for (final Range range : this.ranges)
+		{
+			range.random = random.split();
+		}
+
+		final List<long[]> result = new ArrayList<long[]>(this.ranges.size());
+		if (1 == this.threads)
+		{
+			for (final Range range : this.ranges)
+			{
+				result.add(range.call());
+			}
+			return result;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(this.threads,
+			new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(final Runnable runnable)
+				{
+					final Thread thread = new Thread(runnable, "ldcrgen-init");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		try
+		{
+			final List<Future<long[]>> futures = new ArrayList<Future<long[]>>(this.ranges.size());
+			for (final Range range : this.ranges)
+			{
+				futures.add(executor.submit(range));
+			}
+			for (final Future<long[]> future : futures)
+			{
+				result.add(future.get());
+			}
+			return result;
+		}
+		catch (final ExecutionException ex)
+		{
+			throw new IllegalStateException("Sampling the initial edges failed.", ex.getCause());
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while sampling the initial edges.", ex);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class Range implements Callable<long[]>
+	{
+		private final double logQ;
+		private final long max;
+		private RandomProvider random;
+
+		Range(final double logQ, final long max)
+		{
+			this.logQ = logQ;
+			this.max = max;
+		}
+
+		@Override
+		public long[] call()
+		{
+			final GeometricSkipSampler sampler = new GeometricSkipSampler(this.random);
+			sampler.reset(this.logQ, this.max);
+
+			// start with roughly the expected number of indices
+			final double expected = -Math.expm1(this.logQ) * this.max;
+			long[] indices = new long[(int) Math.min(Integer.MAX_VALUE - 8, 16 + 1.1 * expected)];
+			int size = 0;
+			while (sampler.hasNext())
+			{
+				if (size == indices.length)
+				{
+					final long[] larger = new long[2 * indices.length];
+					System.arraycopy(indices, 0, larger, 0, size);
+					indices = larger;
+				}
+				indices[size++] = sampler.next();
+			}
+
+			final long[] result = new long[size];
+			System.arraycopy(indices, 0, result, 0, size);
+			return result;
+		}
+	}
+}
@@ -38,13 +38,16 @@ import edu.kit.iti.ldcrgen.util.ListUtils;
  */
 public class PseudoCluster extends AbstractCluster
 {
-	private RandomProvider random = new JavaUtilRandomProvider();
+	private final RandomProvider random;
 	private ArrayList<Edge> interClusterEdges = new ArrayList<Edge>();
 	private ArrayList<Node> nodes = new ArrayList<Node>();
+	// edges inserted minus edges deleted by a pending IntraClusterBatch
+	private int pendingEdges;
 
 	public PseudoCluster(final DCRGraph graph)
 	{
 		super(graph);
+		this.random = graph.createRandomStream();
 	}
 
 	/*
@@ -292,9 +295,33 @@ public class PseudoCluster extends AbstractCluster
 	void updateTreeWeights()
 	{
 		this.updateInsertionWeight(//
-		this.getNonEdgeCount() * this.graph.getPOut());
+		(this.getNonEdgeCount() - this.pendingEdges) * this.graph.getPOut());
 
 		this.updateDeletionWeight(//
 		this.getInterClusterEdgeCount() * (1 - this.graph.getPOut()));
 	}
+
+	/**
+	 * Accounts for intra-cluster edges which have been inserted (positive
+	 * delta) or deleted (negative delta) by an {@link IntraClusterBatch}
+	 * but not yet performed (see
+	 * {@link OrdinaryCluster#addPendingIntraClusterEdges(int)}).
+	 *
+	 * @param delta
+	 *            the change of the number of pending edges
+	 */
+	void addPendingEdges(final int delta)
+	{
+		this.pendingEdges += delta;
+		this.updateTreeWeights();
+	}
+
+	/**
+	 * Forgets about the pending edges before they are performed. The tree
+	 * weights are left untouched.
+	 */
+	void clearPendingEdges()
+	{
+		this.pendingEdges = 0;
+	}
 }
@@ -11,4 +11,14 @@ public interface RandomProvider
 	public long nextLong();
 	public double nextDouble();
 	public double nextGaussian();
+
+	/**
+	 * Creates a new provider whose sequence is derived from, but
+	 * independent of the sequence of this provider.
+	 *
+	 * Advances the state of this provider.
+	 *
+	 * @return the new provider
+	 */
+	public RandomProvider split();
 }
@@ -0,0 +1,63 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Marker for declaring which map implementation shall back the replace
+ * pointers of the virtual {@link FisherYatesShuffle}.
+ *
+ * @author Roland Kluge
+ */
+public enum ShuffleMapType
+{
+	/**
+	 * Indicates usage of {@link HashMap} with boxed keys and
+	 * values.
+	 */
+	HASHMAP("hashmap"),
+	/**
+	 * Indicates usage of {@link TreeMap} with boxed keys and
+	 * values.
+	 */
+	TREEMAP("treemap"),
+	/**
+	 * Indicates usage of {@link OpenAddressingLongLongMap} which stores
+	 * keys and values in a flat long[] table. This is the default.
+	 */
+	PRIMITIVE("primitive");
+
+	private final String label;
+
+	private ShuffleMapType(final String label)
+	{
+		this.label = label;
+	}
+
+	/**
+	 * Creates an empty map of this type.
+	 *
+	 * @return the new map
+	 */
+	LongLongMap createMap()
+	{
+		switch (this)
+		{
+			case HASHMAP:
+				return new BoxedLongLongMap(new HashMap<Long, Long>(10000, 0.6f));
+			case TREEMAP:
+				return new BoxedLongLongMap(new TreeMap<Long, Long>());
+			default:
+				return new OpenAddressingLongLongMap();
+		}
+	}
+
+	/**
+	 * Returns the name of this map type as it is used on the command line.
+	 */
+	@Override
+	public String toString()
+	{
+		return this.label;
+	}
+}
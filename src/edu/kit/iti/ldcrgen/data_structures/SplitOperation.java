@@ -3,10 +3,8 @@ package edu.kit.iti.ldcrgen.data_structures;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
 
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.BinarySelectionTree;
-import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.TreeNode;
+import edu.kit.iti.ldcrgen.data_structures.binary_selection_tree.ArrayBinarySelectionTree;
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
 import edu.kit.iti.ldcrgen.util.ListUtils;
@@ -14,7 +12,7 @@ import edu.kit.iti.ldcrgen.util.Pair;
 
 public class SplitOperation extends AbstractClusterOperation
 {
-	private final RandomProvider random = new JavaUtilRandomProvider();
+	private final RandomProvider random;
 	private final OrdinaryCluster initialCluster;
 
 	private OrdinaryCluster firstResultingCluster;
@@ -29,6 +27,7 @@ public class SplitOperation extends AbstractClusterOperation
 	{
 		super(graph);
 
+		this.random = graph.createRandomStream();
 		this.pInSingleCluster = initialCluster.getPIn();
 		this.initialCluster = initialCluster;
 	}
@@ -133,8 +132,6 @@ public class SplitOperation extends AbstractClusterOperation
 			final double stddev = pInValues.size() > 1 //
 			? Math.sqrt(ListUtils.variance(pInValues)) //
 				: Math.abs(pInValues.get(0) - mean);
-			final Random random = new Random();
-
 			final double pOut = this.graph.getPOut();
 
 			do
@@ -314,36 +311,36 @@ public class SplitOperation extends AbstractClusterOperation
 	@Override
 	protected void applyUponTrees()
 	{
-		final BinarySelectionTree insTree = graph.getInsertionTree();
-		final BinarySelectionTree delTree = graph.getDeletionTree();
+		final ArrayBinarySelectionTree insTree = graph.getInsertionTree();
+		final ArrayBinarySelectionTree delTree = graph.getDeletionTree();
 
 		/*
 		 * Insertion tree
 		 */
-		insTree.delete(initialCluster.getInsertionTreeNode());
-		initialCluster.clearInsertionTreeNode();
+		insTree.delete(initialCluster.getInsertionTreeHandle());
+		initialCluster.clearInsertionTreeHandle();
 
-		final TreeNode firstNewInsNode =
+		final int firstNewInsHandle =
 				insTree.insert(firstResultingCluster.getInsertionWeight());
-		firstResultingCluster.setInsertionTreeNode(firstNewInsNode);
+		firstResultingCluster.setInsertionTreeHandle(firstNewInsHandle);
 
-		final TreeNode secondNewInsNode =
+		final int secondNewInsHandle =
 				insTree.insert(secondResultingCluster.getInsertionWeight());
-		secondResultingCluster.setInsertionTreeNode(secondNewInsNode);
+		secondResultingCluster.setInsertionTreeHandle(secondNewInsHandle);
 
 		/*
 		 * Insertion tree
 		 */
-		delTree.delete(initialCluster.getDeletionTreeNode());
-		initialCluster.clearDeletionTreeNode();
+		delTree.delete(initialCluster.getDeletionTreeHandle());
+		initialCluster.clearDeletionTreeHandle();
 
-		final TreeNode firstNewDelNode =
+		final int firstNewDelHandle =
 				delTree.insert(firstResultingCluster.getDeletionWeight());
-		firstResultingCluster.setDeletionTreeNode(firstNewDelNode);
+		firstResultingCluster.setDeletionTreeHandle(firstNewDelHandle);
 
-		final TreeNode secondNewDelNode =
+		final int secondNewDelHandle =
 				delTree.insert(secondResultingCluster.getDeletionWeight());
-		secondResultingCluster.setDeletionTreeNode(secondNewDelNode);
+		secondResultingCluster.setDeletionTreeHandle(secondNewDelHandle);
 	}
 
 	@Override
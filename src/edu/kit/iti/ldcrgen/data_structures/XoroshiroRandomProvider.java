@@ -0,0 +1,215 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.kit.iti.ldcrgen.util.Pair;
+
+/**
+ * <p>
+ * Random provider based on the xoroshiro128++ generator.
+ * </p>
+ * <p>
+ * In contrast to {@link java.util.Random}, the generator is not
+ * synchronized, its state consists of two longs only and each draw costs
+ * a handful of arithmetic operations. The seed is expanded to the state by
+ * means of SplitMix64 so that similar seeds yield unrelated sequences.
+ * </p>
+ * <p>
+ * {@link #split()} derives a new generator from the next output of this
+ * one. This allows to hand an own stream to each component while the whole
+ * generation process stays reproducible given the root seed.
+ * </p>
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class XoroshiroRandomProvider implements RandomProvider
+{
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+	// distinguishes unseeded generators which are created at the same time
+	private static final AtomicLong seedUniquifier = new AtomicLong();
+
+	private long s0;
+	private long s1;
+
+	private double nextGaussian;
+	private boolean haveNextGaussian;
+
+	/**
+	 * Creates a generator with a seed derived from the current time.
+	 */
+	public XoroshiroRandomProvider()
+	{
+		this(System.nanoTime() + seedUniquifier.getAndIncrement() * GOLDEN_GAMMA);
+	}
+
+	public XoroshiroRandomProvider(final long seed)
+	{
+		this.setSeed(seed);
+	}
+
+	@Override
+	public void setSeed(final long seed)
+	{
+		long z = seed;
+		this.s0 = mix64(z += GOLDEN_GAMMA);
+		this.s1 = mix64(z += GOLDEN_GAMMA);
+		if (0 == this.s0 && 0 == this.s1)
+		{
+			// the all-zero state is a fixpoint
+			this.s1 = GOLDEN_GAMMA;
+		}
+		this.haveNextGaussian = false;
+	}
+
+	@Override
+	public long nextLong()
+	{
+		final long s0 = this.s0;
+		long s1 = this.s1;
+		final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+		s1 ^= s0;
+		this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		this.s1 = Long.rotateLeft(s1, 28);
+
+		return result;
+	}
+
+	@Override
+	public int nextInt()
+	{
+		return (int) (this.nextLong() >>> 32);
+	}
+
+	/**
+	 * Returns an integer in the range of 0 to maxValue (exclusive).
+	 *
+	 * Uses Lemire's multiply-and-shift method, which only needs a division
+	 * in the rare case of a potentially biased draw.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if maxValue is not positive
+	 */
+	@Override
+	public int nextInt(final int maxValue)
+	{
+		if (maxValue <= 0)
+		{
+			throw new IllegalArgumentException("Maximum value must be positive: " + maxValue);
+		}
+
+		long product = (this.nextLong() >>> 32) * maxValue;
+		long low = product & 0xFFFFFFFFL;
+		if (low < maxValue)
+		{
+			final long threshold = (0x100000000L - maxValue) % maxValue;
+			while (low < threshold)
+			{
+				product = (this.nextLong() >>> 32) * maxValue;
+				low = product & 0xFFFFFFFFL;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+
+	@Override
+	public double nextDouble()
+	{
+		return (this.nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Marsaglia's polar method, as used by {@link java.util.Random}.
+	 */
+	@Override
+	public double nextGaussian()
+	{
+		if (this.haveNextGaussian)
+		{
+			this.haveNextGaussian = false;
+			return this.nextGaussian;
+		}
+
+		double v1;
+		double v2;
+		double s;
+		do
+		{
+			v1 = 2 * this.nextDouble() - 1;
+			v2 = 2 * this.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		}
+		while (s >= 1 || s == 0);
+
+		final double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		this.nextGaussian = v2 * multiplier;
+		this.haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	/**
+	 * Returns a pair of distinct integers in the range of 0 (inclusive) to
+	 * maxValue (exclusive).
+	 *
+	 * The second value is drawn from the remaining maxValue - 1 values,
+	 * so exactly two draws are needed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if maxValue is smaller than 2
+	 */
+	@Override
+	public Pair<Integer> nextUnequalInts(final int maxValue)
+	{
+		if (maxValue < 2)
+		{
+			throw new IllegalArgumentException("Given maximum Value is too small: " + maxValue);
+		}
+
+		final int first = this.nextInt(maxValue);
+		int second = this.nextInt(maxValue - 1);
+		if (second >= first)
+		{
+			++second;
+		}
+
+		return new Pair<Integer>(first, second);
+	}
+
+	@Override
+	public RandomProvider split()
+	{
+		return new XoroshiroRandomProvider(this.nextLong());
+	}
+
+	/**
+	 * Derives the seed of the given stream from a base seed. Different
+	 * indices yield unrelated seeds, as they are spaced by the SplitMix64
+	 * increment and mixed afterwards.
+	 *
+	 * @param seed
+	 *            the base seed
+	 * @param index
+	 *            the index of the stream
+	 * @return the derived seed
+	 */
+	public static long deriveSeed(final long seed, final long index)
+	{
+		return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	/*
+	 * Finalizer of SplitMix64 (variant 13 of Stafford's mixers).
+	 */
+	private static long mix64(final long value)
+	{
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
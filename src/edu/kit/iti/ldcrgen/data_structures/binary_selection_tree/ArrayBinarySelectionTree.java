@@ -0,0 +1,516 @@
+package edu.kit.iti.ldcrgen.data_structures.binary_selection_tree;
+
+import java.util.Arrays;
+
+import edu.kit.iti.ldcrgen.data_structures.RandomProvider;
+import edu.kit.iti.ldcrgen.data_structures.XoroshiroRandomProvider;
+
+/**
+ * <p>
+ * Array-based variant of the {@link BinarySelectionTree}.
+ * </p>
+ * <p>
+ * The tree is stored implicitly as a heap: the children of slot i are
+ * located at the slots 2i+1 and 2i+2. The own weight and the accumulated
+ * weight of every slot are kept in two flat double[] arrays, so
+ * {@link #select()} and {@link #updateWeight(int)} only touch contiguous
+ * primitive arrays instead of following references between tree node
+ * objects.
+ * </p>
+ * <p>
+ * Elements are identified by stable integer handles which are returned by
+ * {@link #insert(Weightable)}. A handle stays valid until its element is
+ * deleted, even if the element moves to another slot in the meantime.
+ * Handles of deleted elements are reused.
+ * </p>
+ * <p>
+ * The selection semantics are identical to {@link BinarySelectionTree}:
+ * Given the same sequence of random numbers, both trees select the same
+ * elements.
+ * </p>
+ * <p>
+ * In deferred mode (see {@link #setDeferredPropagation(boolean)}),
+ * {@link #updateWeight(int)} only marks the slot of the element as dirty.
+ * The accumulated weights are recalculated once for all dirty slots and
+ * their ancestors before the next {@link #select()} or
+ * {@link #getWeight()}. Slots are processed in descending order so that
+ * every accumulated weight is calculated from the final values of its
+ * children. The result is therefore bit-identical to immediate
+ * propagation, but a leaf whose weight changes many times between two
+ * selections is propagated only once.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class ArrayBinarySelectionTree
+{
+	/**
+	 * Value for marking that an object is not contained in any tree.
+	 */
+	public static final int INVALID_HANDLE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private RandomProvider random;
+
+	private int size;
+
+	// indexed by slot
+	private Weightable[] elements;
+	private double[] weights;
+	private double[] accumulatedWeights;
+	private int[] handleOfSlot;
+
+	// indexed by handle
+	private int[] slotOfHandle;
+	private int[] freeHandles;
+	private int freeHandleCount;
+	private int handleCount;
+
+	private boolean deferredPropagation;
+	// indexed by slot
+	private boolean[] dirty;
+	// max-heap of dirty slots
+	private int[] dirtySlots;
+	private int dirtySlotCount;
+
+	public ArrayBinarySelectionTree()
+	{
+		this(new XoroshiroRandomProvider());
+	}
+
+	/**
+	 * Creates an empty tree which draws its selections from the given
+	 * random provider.
+	 *
+	 * @param random
+	 *            the source of randomness
+	 */
+	public ArrayBinarySelectionTree(final RandomProvider random)
+	{
+		this.random = random;
+		this.size = 0;
+		this.elements = new Weightable[INITIAL_CAPACITY];
+		this.weights = new double[INITIAL_CAPACITY];
+		this.accumulatedWeights = new double[INITIAL_CAPACITY];
+		this.handleOfSlot = new int[INITIAL_CAPACITY];
+
+		this.slotOfHandle = new int[INITIAL_CAPACITY];
+		this.freeHandles = new int[INITIAL_CAPACITY];
+		this.freeHandleCount = 0;
+		this.handleCount = 0;
+
+		this.deferredPropagation = false;
+		this.dirty = new boolean[INITIAL_CAPACITY];
+		this.dirtySlots = new int[INITIAL_CAPACITY];
+		this.dirtySlotCount = 0;
+	}
+
+	/**
+	 * Switches the deferred propagation of weight changes on or off.
+	 * Switching it off propagates all pending changes immediately.
+	 *
+	 * @param deferred
+	 *            whether weight changes shall be propagated lazily
+	 */
+	public void setDeferredPropagation(final boolean deferred)
+	{
+		if (!deferred)
+		{
+			this.flush();
+		}
+		this.deferredPropagation = deferred;
+	}
+
+	public boolean isUsingDeferredPropagation()
+	{
+		return this.deferredPropagation;
+	}
+
+	/**
+	 * Replaces the source of randomness, e.g., for reproducing a sequence
+	 * of selections.
+	 *
+	 * @param random
+	 *            the new random provider
+	 */
+	void setRandomProvider(final RandomProvider random)
+	{
+		this.random = random;
+	}
+
+	/**
+	 * Returns the sum of the weights of all elements.
+	 *
+	 * @return the total weight
+	 */
+	public double getWeight()
+	{
+		this.flush();
+		return this.size > 0 ? this.accumulatedWeights[0] : 0;
+	}
+
+	/**
+	 * Performs a weighted selection and returns the handle of the selected
+	 * element.
+	 *
+	 * All elements have a probability to be selected which is proportional
+	 * to their weight.
+	 *
+	 * The tree shall not be empty!
+	 *
+	 * @return the handle of the selected element
+	 */
+	public int select()
+	{
+		if (this.isEmpty())
+		{
+			throw new IllegalStateException("Tree is empty!");
+		}
+		this.flush();
+
+		double delta = random.nextDouble();
+
+		// normalize value to [0,root.accWeight)
+		delta *= this.accumulatedWeights[0];
+
+		int slot = 0;
+		int left = 1;
+		while (left < this.size
+			&& (delta < this.accumulatedWeights[left] || delta >= this.accumulatedWeights[left]
+				+ this.weights[slot]))
+		{
+			if (delta < this.accumulatedWeights[left])
+			{
+				slot = left;
+			}
+			else
+			{
+				assert left + 1 < this.size : "Broken invariant: Expected a right child";
+
+				delta -= this.accumulatedWeights[left] + this.weights[slot];
+				slot = left + 1;
+			}
+			left = 2 * slot + 1;
+		}
+
+		return this.handleOfSlot[slot];
+	}
+
+	/**
+	 * Inserts a new object into the tree and returns its handle.
+	 *
+	 * @param element
+	 *            the new element
+	 * @return the handle of the new element
+	 */
+	public int insert(final Weightable element)
+	{
+		if (null == element)
+		{
+			throw new IllegalArgumentException("Element must not be null!");
+		}
+
+		this.flush();
+
+		if (this.size == this.elements.length)
+		{
+			final int capacity = 2 * this.elements.length;
+			this.elements = Arrays.copyOf(this.elements, capacity);
+			this.weights = Arrays.copyOf(this.weights, capacity);
+			this.accumulatedWeights = Arrays.copyOf(this.accumulatedWeights, capacity);
+			this.handleOfSlot = Arrays.copyOf(this.handleOfSlot, capacity);
+			this.dirty = Arrays.copyOf(this.dirty, capacity);
+		}
+
+		final int handle = this.allocateHandle();
+		final int slot = this.size;
+		++this.size;
+
+		this.elements[slot] = element;
+		this.handleOfSlot[slot] = handle;
+		this.slotOfHandle[handle] = slot;
+
+		this.weights[slot] = element.getWeight();
+		this.propagate(slot);
+		return handle;
+	}
+
+	/**
+	 * Convenience method which calls {@link #select()} and removes the
+	 * resulting element.
+	 *
+	 * The same preconditions as for {@link #select()} apply.
+	 *
+	 * @return the removed element
+	 */
+	public Weightable delete()
+	{
+		final int handle = this.select();
+		final Weightable result = this.getElement(handle);
+		this.delete(handle);
+		return result;
+	}
+
+	/**
+	 * Deletes the element with the given handle.
+	 *
+	 * The handle has to be contained in the tree! Afterwards, the handle
+	 * becomes invalid.
+	 *
+	 * @param handle
+	 *            the handle of the element to be deleted
+	 */
+	public void delete(final int handle)
+	{
+		if (!this.contains(handle))
+		{
+			throw new IllegalArgumentException("Handle is not contained in tree: " + handle);
+		}
+		this.flush();
+
+		/*
+		 * The last element takes the place of the element to be deleted.
+		 * Afterwards, the accumulated weights on two paths have to be
+		 * updated:
+		 * 1. the path starting at the slot of the deleted element
+		 * 2. the path starting at the former parent of the last element
+		 */
+		final int slot = this.slotOfHandle[handle];
+		final int lastSlot = this.size - 1;
+		final int parentOfLastSlot = (lastSlot - 1) / 2;
+
+		if (slot != lastSlot)
+		{
+			final int lastHandle = this.handleOfSlot[lastSlot];
+			this.elements[slot] = this.elements[lastSlot];
+			this.weights[slot] = this.weights[lastSlot];
+			this.handleOfSlot[slot] = lastHandle;
+			this.slotOfHandle[lastHandle] = slot;
+		}
+
+		this.elements[lastSlot] = null;
+		--this.size;
+		this.releaseHandle(handle);
+
+		if (slot != lastSlot)
+		{
+			this.propagate(slot);
+		}
+
+		if (lastSlot > 0 && parentOfLastSlot != slot)
+		{
+			this.propagate(parentOfLastSlot);
+		}
+	}
+
+	/**
+	 * Notification method for stating that the weight of the element with
+	 * the given handle has changed.
+	 *
+	 * If the weight has not changed since the last time, this call will
+	 * have no effect.
+	 *
+	 * The handle has to be contained in this tree!
+	 *
+	 * @param handle
+	 *            the handle of the element the weight of which has changed
+	 */
+	public void updateWeight(final int handle)
+	{
+		assert this.contains(handle) : "Handle is not contained in tree: " + handle;
+
+		final int slot = this.slotOfHandle[handle];
+		this.weights[slot] = this.elements[slot].getWeight();
+		if (this.deferredPropagation)
+		{
+			this.markDirty(slot);
+		}
+		else
+		{
+			this.propagate(slot);
+		}
+	}
+
+	/**
+	 * Returns the element with the given handle.
+	 *
+	 * @param handle
+	 *            the handle of a contained element
+	 * @return the element
+	 */
+	public Weightable getElement(final int handle)
+	{
+		assert this.contains(handle) : "Handle is not contained in tree: " + handle;
+
+		return this.elements[this.slotOfHandle[handle]];
+	}
+
+	/**
+	 * Returns whether the given handle belongs to an element of this tree.
+	 *
+	 * @param handle
+	 *            the handle to be checked
+	 * @return whether it is contained
+	 */
+	public boolean contains(final int handle)
+	{
+		return 0 <= handle && handle < this.handleCount && this.slotOfHandle[handle] >= 0;
+	}
+
+	/**
+	 * The number of elements in this tree
+	 *
+	 * @return the size of this tree
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	/*
+	 * Recalculates the accumulated weights from the given slot up to the
+	 * root.
+	 */
+	private void propagate(final int startSlot)
+	{
+		int slot = startSlot;
+		while (true)
+		{
+			this.recalculateAccumulatedWeight(slot);
+
+			if (0 == slot)
+			{
+				break;
+			}
+			slot = (slot - 1) / 2;
+		}
+	}
+
+	private void recalculateAccumulatedWeight(final int slot)
+	{
+		double accumulatedWeight = this.weights[slot];
+		final int left = 2 * slot + 1;
+		if (left < this.size)
+		{
+			accumulatedWeight += this.accumulatedWeights[left];
+			if (left + 1 < this.size)
+			{
+				accumulatedWeight += this.accumulatedWeights[left + 1];
+			}
+		}
+		this.accumulatedWeights[slot] = accumulatedWeight;
+	}
+
+	/*
+	 * Recalculates the accumulated weights of all dirty slots and their
+	 * ancestors. As the parent of a slot always has a smaller index,
+	 * taking the largest dirty slot first guarantees that all children of
+	 * a slot are up to date when the slot itself is recalculated.
+	 */
+	private void flush()
+	{
+		while (this.dirtySlotCount > 0)
+		{
+			final int slot = this.popLargestDirtySlot();
+			this.dirty[slot] = false;
+			this.recalculateAccumulatedWeight(slot);
+			if (slot > 0)
+			{
+				this.markDirty((slot - 1) / 2);
+			}
+		}
+	}
+
+	private void markDirty(final int slot)
+	{
+		if (this.dirty[slot])
+		{
+			return;
+		}
+		this.dirty[slot] = true;
+
+		if (this.dirtySlotCount == this.dirtySlots.length)
+		{
+			this.dirtySlots = Arrays.copyOf(this.dirtySlots, 2 * this.dirtySlots.length);
+		}
+
+		// sift up
+		int position = this.dirtySlotCount;
+		++this.dirtySlotCount;
+		while (position > 0)
+		{
+			final int parentPosition = (position - 1) / 2;
+			if (this.dirtySlots[parentPosition] >= slot)
+			{
+				break;
+			}
+			this.dirtySlots[position] = this.dirtySlots[parentPosition];
+			position = parentPosition;
+		}
+		this.dirtySlots[position] = slot;
+	}
+
+	private int popLargestDirtySlot()
+	{
+		final int result = this.dirtySlots[0];
+		--this.dirtySlotCount;
+		final int last = this.dirtySlots[this.dirtySlotCount];
+
+		// sift down
+		int position = 0;
+		while (true)
+		{
+			int child = 2 * position + 1;
+			if (child >= this.dirtySlotCount)
+			{
+				break;
+			}
+			if (child + 1 < this.dirtySlotCount
+				&& this.dirtySlots[child + 1] > this.dirtySlots[child])
+			{
+				++child;
+			}
+			if (this.dirtySlots[child] <= last)
+			{
+				break;
+			}
+			this.dirtySlots[position] = this.dirtySlots[child];
+			position = child;
+		}
+		this.dirtySlots[position] = last;
+
+		return result;
+	}
+
+	private int allocateHandle()
+	{
+		if (this.freeHandleCount > 0)
+		{
+			--this.freeHandleCount;
+			return this.freeHandles[this.freeHandleCount];
+		}
+
+		if (this.handleCount == this.slotOfHandle.length)
+		{
+			this.slotOfHandle = Arrays.copyOf(this.slotOfHandle, 2 * this.slotOfHandle.length);
+		}
+		return this.handleCount++;
+	}
+
+	private void releaseHandle(final int handle)
+	{
+		this.slotOfHandle[handle] = INVALID_HANDLE;
+		if (this.freeHandleCount == this.freeHandles.length)
+		{
+			this.freeHandles = Arrays.copyOf(this.freeHandles, 2 * this.freeHandles.length);
+		}
+		this.freeHandles[this.freeHandleCount] = handle;
+		++this.freeHandleCount;
+	}
+}
@@ -27,6 +27,18 @@ public class BinarySelectionTree
 	private RandomProvider random = new JavaUtilRandomProvider();
 	private ArrayList<TreeNode> binaryTree = new ArrayList<TreeNode>(INITIAL_CAPACITY);
 
+	/**
+	 * Replaces the source of randomness, e.g., for reproducing a sequence
+	 * of selections.
+	 *
+	 * @param random
+	 *            the new random provider
+	 */
+	void setRandomProvider(final RandomProvider random)
+	{
+		this.random = random;
+	}
+
 	public double getWeight()
 	{
 		return this.size() > 0 ? this.getRoot().getAccumulatedWeight() : 0;
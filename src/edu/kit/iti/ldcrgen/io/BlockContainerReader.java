@@ -0,0 +1,335 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import edu.kit.iti.ldcrgen.io.journaling.BlockContainerWriter;
+import edu.kit.iti.ldcrgen.io.journaling.BlockIndexEntry;
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.CompactJournalCodec;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+
+/**
+ * <p>
+ * Reads block containers (see {@link BlockContainerWriter}).
+ * </p>
+ * <p>
+ * The index is read when the container is opened. Afterwards, the blocks
+ * which cover a range of time steps can be located without scanning the
+ * file, and each block is decoded independently on a pool of threads.
+ * </p>
+ * <p>
+ * A journal which is read for a range of time steps consists of all blocks
+ * which overlap with the range, so it may start before and end after the
+ * range. The first time step of the journal is the one of the first
+ * block, see {@link #findBlocks(CompactJournalCodec.Layout, int, int)}.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class BlockContainerReader implements Closeable
+{
+	private static final int ENTRY_SIZE = 1 + 8 + 8 + 4 * 4;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final List<BlockIndexEntry> blocks;
+	private final ExecutorService executor;
+
+	public BlockContainerReader(final File file) throws IOException
+	{
+		this(file, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Opens the container and reads its index.
+	 *
+	 * @param file
+	 *            the container
+	 * @param threads
+	 *            the number of threads which decode blocks
+	 * @throws IOException
+	 *             if the file is no valid container
+	 */
+	public BlockContainerReader(final File file, final int threads) throws IOException
+	{
+		if (threads <= 0)
+		{
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		try
+		{
+			this.blocks = Collections.unmodifiableList(this.readIndex());
+		}
+		catch (final IOException ex)
+		{
+			this.file.close();
+			throw ex;
+		}
+
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(final Runnable runnable)
+			{
+				final Thread thread = new Thread(runnable, "ldcrgen-decoder");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Returns whether the given file starts like a block container.
+	 */
+	public static boolean isContainer(final File file) throws IOException
+	{
+		final RandomAccessFile candidate = new RandomAccessFile(file, "r");
+		try
+		{
+			return candidate.length() >= 4 && BlockContainerWriter.MAGIC == candidate.readInt();
+		}
+		finally
+		{
+			candidate.close();
+		}
+	}
+
+	/**
+	 * Returns all blocks in the order of the file.
+	 */
+	public List<BlockIndexEntry> getBlocks()
+	{
+		return this.blocks;
+	}
+
+	/**
+	 * Returns the blocks of the given journal which overlap with the given
+	 * range of time steps, in order.
+	 *
+	 * @param layout
+	 *            the journal
+	 * @param fromStep
+	 *            the first time step (inclusive)
+	 * @param toStep
+	 *            the last time step (inclusive)
+	 */
+	public List<BlockIndexEntry> findBlocks(final CompactJournalCodec.Layout layout,
+		final int fromStep, final int toStep)
+	{
+		final List<BlockIndexEntry> result = new ArrayList<BlockIndexEntry>();
+		for (final BlockIndexEntry entry : this.blocks)
+		{
+			if (entry.layout == layout && entry.overlaps(fromStep, toStep))
+			{
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	public GraphJournal readGraphJournal() throws IOException
+	{
+		return this.readGraphJournal(0, Integer.MAX_VALUE);
+	}
+
+	public GraphJournal readGraphJournal(final int fromStep, final int toStep)
+		throws IOException
+	{
+		final GraphJournal result = new GraphJournal();
+		this.decode(this.findBlocks(CompactJournalCodec.Layout.GRAPH, fromStep, toStep),
+			result.opCodes, result.arguments);
+		return result;
+	}
+
+	public ClusteringJournal readClusteringJournal() throws IOException
+	{
+		return this.readClusteringJournal(0, Integer.MAX_VALUE);
+	}
+
+	public ClusteringJournal readClusteringJournal(final int fromStep, final int toStep)
+		throws IOException
+	{
+		final ClusteringJournal result = new ClusteringJournal();
+		this.decode(this.findBlocks(CompactJournalCodec.Layout.CLUSTERING, fromStep, toStep),
+			result.opCodes, result.intArgs);
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.executor.shutdownNow();
+		this.file.close();
+	}
+
+	/*
+	 * Decodes the blocks in parallel and appends them in order to the given
+	 * lists.
+	 */
+	private void decode(final List<BlockIndexEntry> entries, final ByteChunkList opCodes,
+		final IntChunkList arguments) throws IOException
+	{
+		final List<Future<DecodedBlock>> futures = new ArrayList<Future<DecodedBlock>>();
+		for (final BlockIndexEntry entry : entries)
+		{
+			futures.add(this.executor.submit(new Callable<DecodedBlock>()
+			{
+				@Override
+				public DecodedBlock call() throws IOException
+				{
+					return decodeBlock(entry);
+				}
+			}));
+		}
+
+		for (final Future<DecodedBlock> future : futures)
+		{
+			final DecodedBlock block;
+			try
+			{
+				block = future.get();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while decoding blocks.");
+			}
+			catch (final ExecutionException ex)
+			{
+				if (ex.getCause() instanceof IOException)
+				{
+					throw (IOException) ex.getCause();
+				}
+				throw new IllegalStateException("Decoding a block failed.", ex.getCause());
+			}
+			opCodes.addAll(block.opCodes);
+			arguments.addAll(block.arguments);
+		}
+	}
+
+	private DecodedBlock decodeBlock(final BlockIndexEntry entry) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate((int) entry.length);
+		this.readFully(buffer, entry.offset);
+
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+		if (CompactJournalCodec.MAGIC != in.readInt())
+		{
+			throw new IOException("Invalid block at position " + entry.offset);
+		}
+
+		final DecodedBlock result = new DecodedBlock();
+		CompactJournalCodec.read(in, result.opCodes, result.arguments, entry.layout);
+		if (result.opCodes.size() != entry.opCount || result.arguments.size() != entry.argCount)
+		{
+			throw new IOException("Block at position " + entry.offset
+				+ " does not match the index.");
+		}
+		return result;
+	}
+
+	private List<BlockIndexEntry> readIndex() throws IOException
+	{
+		final long size = this.channel.size();
+		if (size < 8 + BlockContainerWriter.FOOTER_SIZE)
+		{
+			throw new IOException("File is too small for a block container.");
+		}
+
+		final ByteBuffer header = ByteBuffer.allocate(8);
+		this.readFully(header, 0);
+		if (BlockContainerWriter.MAGIC != header.getInt(0))
+		{
+			throw new IOException("File is no block container.");
+		}
+		if (BlockContainerWriter.VERSION != header.getInt(4))
+		{
+			throw new IOException("Unsupported container version: " + header.getInt(4));
+		}
+
+		final ByteBuffer footer = ByteBuffer.allocate(BlockContainerWriter.FOOTER_SIZE);
+		this.readFully(footer, size - BlockContainerWriter.FOOTER_SIZE);
+		final long indexOffset = footer.getLong(0);
+		if (BlockContainerWriter.MAGIC != footer.getInt(8) || indexOffset < 8
+			|| indexOffset + 4 > size - BlockContainerWriter.FOOTER_SIZE)
+		{
+			throw new IOException("Container is truncated or has no index.");
+		}
+
+		final ByteBuffer countBuffer = ByteBuffer.allocate(4);
+		this.readFully(countBuffer, indexOffset);
+		final int count = countBuffer.getInt(0);
+		if (count < 0
+			|| indexOffset + 4 + (long) count * ENTRY_SIZE != size - BlockContainerWriter.FOOTER_SIZE)
+		{
+			throw new IOException("Invalid index size: " + count);
+		}
+
+		final ByteBuffer entries = ByteBuffer.allocate(count * ENTRY_SIZE);
+		this.readFully(entries, indexOffset + 4);
+		entries.flip();
+
+		final CompactJournalCodec.Layout[] layouts = CompactJournalCodec.Layout.values();
+		final List<BlockIndexEntry> result = new ArrayList<BlockIndexEntry>(count);
+		for (int i = 0; i < count; ++i)
+		{
+			final int layout = entries.get();
+			final long offset = entries.getLong();
+			final long length = entries.getLong();
+			if (layout < 0 || layout >= layouts.length || offset < 8 || length <= 0
+				|| length > Integer.MAX_VALUE || offset + length > indexOffset)
+			{
+				throw new IOException("Invalid index entry " + i);
+			}
+			result.add(new BlockIndexEntry(layouts[layout], offset, length, entries.getInt(),
+				entries.getInt(), entries.getInt(), entries.getInt()));
+		}
+		return result;
+	}
+
+	/*
+	 * Positional reads, so that several threads can read concurrently.
+	 */
+	private void readFully(final ByteBuffer buffer, final long position) throws IOException
+	{
+		long current = position;
+		while (buffer.hasRemaining())
+		{
+			final int read = this.channel.read(buffer, current);
+			if (read < 0)
+			{
+				throw new EOFException("Unexpected end of container.");
+			}
+			current += read;
+		}
+	}
+
+	private static final class DecodedBlock
+	{
+		final ByteChunkList opCodes = new ByteChunkList();
+		final IntChunkList arguments = new IntChunkList();
+	}
+}
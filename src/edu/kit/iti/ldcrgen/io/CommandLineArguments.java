@@ -15,6 +15,8 @@ import java.util.regex.Pattern;
 
 import edu.kit.iti.ldcrgen.Main;
 import edu.kit.iti.ldcrgen.data_structures.PInSampler;
+import edu.kit.iti.ldcrgen.data_structures.ShuffleMapType;
+import edu.kit.iti.ldcrgen.data_structures.XoroshiroRandomProvider;
 import edu.kit.iti.ldcrgen.util.ListUtils;
 import edu.kit.iti.ldcrgen.util.MathUtils;
 
@@ -49,7 +51,58 @@ public class CommandLineArguments
 
 	public String timingsOutputFile;
 
-	public boolean useTreeMapInsteadOfHashMap;
+	public ShuffleMapType shuffleMapType;
+
+	public long seed;
+
+	// whether the seed has been given explicitly, see getSeedOfRun
+	public boolean seedGiven;
+
+	/*
+	 * Number of journaled opcodes after which the journals are spilled to
+	 * disk at the end of a time step. 0 keeps the journals in memory.
+	 */
+	public int spillThreshold;
+
+	// whether the output file is written on a background thread
+	public boolean asyncWrite;
+
+	// whether each time step of the graph journal is reduced to its net effect
+	public boolean netDelta;
+
+	// whether the output file is written in the compact format (GraphJ v2)
+	public boolean compact;
+
+	// whether the compact format is additionally compressed
+	public boolean deflate;
+
+	/*
+	 * Number of time steps per block of the block container. 0 writes a
+	 * plain file.
+	 */
+	public int stepsPerBlock;
+
+	/*
+	 * Number of time steps and size in megabytes after which the output is
+	 * continued in a new segment file. 0 disables the respective limit.
+	 */
+	public int rolloverSteps;
+	public int rolloverMegabytes;
+
+	/*
+	 * Number of threads which sample the edges of the initial instance. 0
+	 * samples them sequentially.
+	 */
+	public int initThreads;
+
+	/*
+	 * Number of threads which perform the intra-cluster edge operations of
+	 * a time step. 0 performs all operations one by one.
+	 */
+	public int stepThreads;
+
+	// whether the runs of edge operations are planned (see TimeStepPlanner)
+	public boolean planSteps;
 
 	private CommandLineArguments()
 	{
@@ -76,6 +129,20 @@ public class CommandLineArguments
 		this.eta = 1;
 		this.beta = 1;
 		this.numRuns = 1;
+		this.shuffleMapType = ShuffleMapType.PRIMITIVE;
+		this.seed = System.currentTimeMillis();
+		this.seedGiven = false;
+		this.spillThreshold = 0;
+		this.asyncWrite = true;
+		this.netDelta = false;
+		this.compact = false;
+		this.deflate = false;
+		this.stepsPerBlock = 0;
+		this.rolloverSteps = 0;
+		this.rolloverMegabytes = 0;
+		this.initThreads = 0;
+		this.stepThreads = 0;
+		this.planSteps = false;
 	}
 
 	private static Map<String, String> extractArguments(final String[] args)
@@ -524,26 +591,140 @@ public class CommandLineArguments
 	{
 		if (args.containsKey("map_type"))
 		{
-			String map_type = args.get("map_type");
-			if ("hashmap".equals(map_type))
+			final String mapTypeCandidate = args.get("map_type");
+			final ShuffleMapType mapType = parseShuffleMapType(mapTypeCandidate);
+			if (null == mapType)
 			{
-				result.useTreeMapInsteadOfHashMap = false;
+				Main.logAndPrintErr("Unknown map type: " + mapTypeCandidate);
 			}
-			else if ("treemap".equals(map_type))
+			else
 			{
-				result.useTreeMapInsteadOfHashMap = true;
+				result.shuffleMapType = mapType;
 			}
-			else
+		}
+
+		if (args.containsKey("seed"))
+		{
+			try
+			{
+				result.seed = Long.parseLong(args.get("seed"));
+				result.seedGiven = true;
+			}
+			catch (final NumberFormatException nfex)
 			{
-				Main.logAndPrintErr("Unknown map type: " + map_type);
-				result.useTreeMapInsteadOfHashMap = false;
+				throw new ParseException("Error parsing seed: '" + nfex.getMessage() + "'.");
 			}
 		}
-		else
+
+		if (args.containsKey("spill"))
 		{
-			result.useTreeMapInsteadOfHashMap = false;
+			try
+			{
+				result.spillThreshold = Integer.parseInt(args.get("spill"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing spill: '" + nfex.getMessage() + "'.");
+			}
+			verify(result.spillThreshold >= 0, "spill must not be negative");
+		}
+
+		if (args.containsKey("async_write"))
+		{
+			result.asyncWrite = Boolean.parseBoolean(args.get("async_write"));
+		}
+
+		if (args.containsKey("net_delta"))
+		{
+			result.netDelta = Boolean.parseBoolean(args.get("net_delta"));
+		}
+
+		if (args.containsKey("compact"))
+		{
+			result.compact = Boolean.parseBoolean(args.get("compact"));
+		}
+
+		if (args.containsKey("deflate"))
+		{
+			result.deflate = Boolean.parseBoolean(args.get("deflate"));
 		}
 
+		if (args.containsKey("blocks"))
+		{
+			try
+			{
+				result.stepsPerBlock = Integer.parseInt(args.get("blocks"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing blocks: '" + nfex.getMessage() + "'.");
+			}
+			verify(result.stepsPerBlock >= 0, "blocks must not be negative");
+		}
+
+		if (args.containsKey("rollover"))
+		{
+			try
+			{
+				result.rolloverSteps = Integer.parseInt(args.get("rollover"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing rollover: '" + nfex.getMessage() + "'.");
+			}
+			verify(result.rolloverSteps >= 0, "rollover must not be negative");
+		}
+
+		if (args.containsKey("rollover_mb"))
+		{
+			try
+			{
+				result.rolloverMegabytes = Integer.parseInt(args.get("rollover_mb"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing rollover_mb: '" + nfex.getMessage()
+					+ "'.");
+			}
+			verify(result.rolloverMegabytes >= 0, "rollover_mb must not be negative");
+		}
+
+		if (args.containsKey("init_threads"))
+		{
+			try
+			{
+				result.initThreads = Integer.parseInt(args.get("init_threads"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing init_threads: '" + nfex.getMessage()
+					+ "'.");
+			}
+			verify(result.initThreads >= 0, "init_threads must not be negative");
+		}
+
+		if (args.containsKey("step_threads"))
+		{
+			try
+			{
+				result.stepThreads = Integer.parseInt(args.get("step_threads"));
+			}
+			catch (final NumberFormatException nfex)
+			{
+				throw new ParseException("Error parsing step_threads: '" + nfex.getMessage()
+					+ "'.");
+			}
+			verify(result.stepThreads >= 0, "step_threads must not be negative");
+		}
+
+		if (args.containsKey("plan_steps"))
+		{
+			result.planSteps = Boolean.parseBoolean(args.get("plan_steps"));
+		}
+
+		verify(!result.deflate || result.compact || result.stepsPerBlock > 0,
+			"deflate requires compact=true or blocks > 0");
+
 		if (args.containsKey("r"))
 		{
 			try
@@ -562,13 +743,14 @@ public class CommandLineArguments
 
 				if (splitParameters.length > 2)
 				{
-					if ("treemap".equals(splitParameters[2]))
+					final ShuffleMapType mapType = parseShuffleMapType(splitParameters[2]);
+					if (null == mapType)
 					{
-						result.useTreeMapInsteadOfHashMap = true;
+						Main.logAndPrintErr("Unknown map type: " + splitParameters[2]);
 					}
 					else
 					{
-						result.useTreeMapInsteadOfHashMap = false;
+						result.shuffleMapType = mapType;
 					}
 				}
 			}
@@ -586,6 +768,21 @@ public class CommandLineArguments
 		}
 	}
 
+	/*
+	 * Returns the map type with the given name or null if there is none.
+	 */
+	private static ShuffleMapType parseShuffleMapType(final String candidate)
+	{
+		for (final ShuffleMapType mapType : ShuffleMapType.values())
+		{
+			if (mapType.toString().equals(candidate))
+			{
+				return mapType;
+			}
+		}
+		return null;
+	}
+
 	private static ArrayList<Double> parseDoubleList(final String str) throws ParseException
 	{
 		final String list = str.substring(1, str.length() - 1); // skip '['
@@ -661,6 +858,33 @@ public class CommandLineArguments
 		}
 	}
 
+	/**
+	 * Returns whether the output is split into segment files.
+	 */
+	public boolean isRolloverEnabled()
+	{
+		return this.rolloverSteps > 0 || this.rolloverMegabytes > 0;
+	}
+
+	/**
+	 * Returns the seed of the given repetition (see r). An explicitly given
+	 * seed is used for every repetition. Otherwise, the first repetition
+	 * uses the time-based default seed and every further repetition a seed
+	 * derived from it, so that each repetition generates a new instance.
+	 *
+	 * @param run
+	 *            the index of the repetition, starting with 0
+	 * @return the seed of the repetition
+	 */
+	public long getSeedOfRun(final int run)
+	{
+		if (this.seedGiven || 0 == run)
+		{
+			return this.seed;
+		}
+		return XoroshiroRandomProvider.deriveSeed(this.seed, run);
+	}
+
 	public void printHelpMessage()
 	{
 		Scanner scanner = new Scanner(
@@ -697,7 +921,19 @@ public class CommandLineArguments
 			"\tdirectory=" + directory + "\n" + //
 			"\toutput=" + output + "\n" + //
 			"\tbinary=" + binary + "\n" + //
-			"\tuseTreemapInsteadOfHashmap=" + useTreeMapInsteadOfHashMap;
+			"\tmap_type=" + shuffleMapType + "\n" + //
+			"\tseed=" + seed + "\n" + //
+			"\tspill=" + spillThreshold + "\n" + //
+			"\tasync_write=" + asyncWrite + "\n" + //
+			"\tnet_delta=" + netDelta + "\n" + //
+			"\tcompact=" + compact + "\n" + //
+			"\tdeflate=" + deflate + "\n" + //
+			"\tblocks=" + stepsPerBlock + "\n" + //
+			"\trollover=" + rolloverSteps + "\n" + //
+			"\trollover_mb=" + rolloverMegabytes + "\n" + //
+			"\tinit_threads=" + initThreads + "\n" + //
+			"\tstep_threads=" + stepThreads + "\n" + //
+			"\tplan_steps=" + planSteps;
 	}
 
 }
@@ -3,15 +3,30 @@ package edu.kit.iti.ldcrgen.io;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ChannelUtils;
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.CompactJournalCodec;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+import edu.kit.iti.ldcrgen.util.ChannelInputStream;
 
 
 /**
  * Reads journals from files.
  *
+ * The variants which take a FileChannel read the journal in large blocks
+ * into a direct buffer and copy them into the chunks of the journal. Both
+ * variants consume exactly the bytes of one journal, so that the
+ * clustering journal can be read right after the graph journal.
+ *
+ * Each journal may be stored in the original format or in the compact
+ * format (see {@link CompactJournalCodec}), which is detected by means of
+ * its first int.
+ *
  * @author Roland Kluge
  *
  */
@@ -21,42 +36,80 @@ public class GraphJReader
 	public static GraphJournal readGraphJournal(final InputStream fstream)
 	{
 		final GraphJournal result = new GraphJournal();
-		parseInto(fstream, result.opCodes, result.arguments);
+		parseInto(fstream, result.opCodes, result.arguments, CompactJournalCodec.Layout.GRAPH);
 		return result;
 	}
 
 	public static ClusteringJournal readClusteringJournal(final InputStream fstream)
 	{
 		final ClusteringJournal result = new ClusteringJournal();
-		parseInto(fstream, result.opCodes, result.intArgs);
+		parseInto(fstream, result.opCodes, result.intArgs,
+			CompactJournalCodec.Layout.CLUSTERING);
+		return result;
+	}
+
+	public static GraphJournal readGraphJournal(final FileChannel channel)
+	{
+		final GraphJournal result = new GraphJournal();
+		parseInto(channel, result.opCodes, result.arguments, CompactJournalCodec.Layout.GRAPH);
+		return result;
+	}
+
+	public static ClusteringJournal readClusteringJournal(final FileChannel channel)
+	{
+		final ClusteringJournal result = new ClusteringJournal();
+		parseInto(channel, result.opCodes, result.intArgs,
+			CompactJournalCodec.Layout.CLUSTERING);
 		return result;
 	}
 
 	/*
-	 * Parses the journal into the two given arrays.
+	 * Parses the journal into the two given lists.
 	 */
-	private static void parseInto(final InputStream fstream, final ArrayList<Byte> opcodes,
-		final ArrayList<Integer> args)
+	private static void parseInto(final FileChannel channel, final ByteChunkList opcodes,
+		final IntChunkList args, final CompactJournalCodec.Layout layout)
 	{
-		final DataInputStream dStream = new DataInputStream(fstream);
 		try
 		{
-			final int opLength = dStream.readInt();
-			final int argsLength = dStream.readInt();
-
-			opcodes.ensureCapacity(opLength);
-			args.ensureCapacity(argsLength);
-
-			for (int i = 0; i < opLength; ++i)
+			final ByteBuffer buffer = ByteBuffer.allocateDirect(ChannelUtils.BUFFER_SIZE);
+			final int opLength = ChannelUtils.readInt(channel, buffer);
+			if (CompactJournalCodec.MAGIC == opLength)
 			{
-				opcodes.add(dStream.readByte());
+				final ChannelInputStream stream = new ChannelInputStream(channel);
+				CompactJournalCodec.read(stream, opcodes, args, layout);
+				stream.release();
+				return;
 			}
+			final int argsLength = ChannelUtils.readInt(channel, buffer);
+
+			opcodes.readFrom(channel, buffer, opLength);
+			args.readFrom(channel, buffer, argsLength);
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
 
-			for (int i = 0; i < argsLength; ++i)
+	/*
+	 * Parses the journal into the two given lists.
+	 */
+	private static void parseInto(final InputStream fstream, final ByteChunkList opcodes,
+		final IntChunkList args, final CompactJournalCodec.Layout layout)
+	{
+		final DataInputStream dStream = new DataInputStream(fstream);
+		try
+		{
+			final int opLength = dStream.readInt();
+			if (CompactJournalCodec.MAGIC == opLength)
 			{
-				args.add(dStream.readInt());
+				CompactJournalCodec.read(dStream, opcodes, args, layout);
+				return;
 			}
+			final int argsLength = dStream.readInt();
 
+			opcodes.readFrom(dStream, opLength);
+			args.readFrom(dStream, argsLength);
 		}
 		catch (final IOException ex)
 		{
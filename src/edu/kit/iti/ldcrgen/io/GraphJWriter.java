@@ -1,48 +1,162 @@
 package edu.kit.iti.ldcrgen.io;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.kit.iti.ldcrgen.io.journaling.BlockContainerWriter;
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ChannelUtils;
 
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.CompactJournalCodec;
 import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+import edu.kit.iti.ldcrgen.util.AsyncChannelOutputStream;
 
 
 /***
  * Writes a GraphJournal to a binary file using DataOutputStream.
  *
+ * If the journal has spilled parts of itself to disk, the remaining
+ * operations are spilled as well and the spill is copied to the file.
+ *
+ * The variants which take a FileChannel copy the chunks of the journal
+ * into a large direct buffer and write it with bulk writes. The resulting
+ * file is byte-identical to the one written via a stream.
+ *
+ * The compact variants write the journals in the GraphJ v2 format (see
+ * {@link CompactJournalCodec}), the block container variant writes both
+ * journals into a container of independently decodable blocks (see
+ * {@link BlockContainerWriter}).
+ *
  * * @author Christian Staudt
  *
  */
 public class GraphJWriter
 {
 
+	/**
+	 * Writes both journals to the given file in the format which is
+	 * selected by the given arguments (<code>blocks</code>,
+	 * <code>compact</code>, <code>deflate</code> and
+	 * <code>async_write</code>).
+	 *
+	 * @param gJournal
+	 *            the graph journal
+	 * @param clJournal
+	 *            the clustering journal
+	 * @param file
+	 *            the target file, which is overwritten
+	 * @param args
+	 *            the arguments which select the format
+	 * @throws IOException
+	 *             if the file cannot be opened or closed
+	 */
+	public static void writeFile(final GraphJournal gJournal, final ClusteringJournal clJournal,
+		final File file, final CommandLineArguments args) throws IOException
+	{
+		if (args.stepsPerBlock > 0 || args.compact || args.asyncWrite)
+		{
+			final OutputStream stream;
+			if (args.asyncWrite)
+			{
+				stream = new AsyncChannelOutputStream(new FileOutputStream(file).getChannel());
+			}
+			else
+			{
+				stream = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+			}
+			try
+			{
+				if (args.stepsPerBlock > 0)
+				{
+					writeBlockContainer(gJournal, clJournal, stream, args.stepsPerBlock,
+						args.deflate);
+				}
+				else if (args.compact)
+				{
+					writeCompactGraph(gJournal, stream, args.deflate);
+					writeCompactClustering(clJournal, stream, args.deflate);
+				}
+				else
+				{
+					writeGraph(gJournal, stream);
+					writeClustering(clJournal, stream);
+				}
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+		else
+		{
+			final FileChannel channel = new FileOutputStream(file).getChannel();
+			try
+			{
+				writeGraph(gJournal, channel);
+				writeClustering(clJournal, channel);
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+	}
+
 	public static void writeGraph(final GraphJournal journal, final OutputStream fStream)
 	{
 		final DataOutputStream dStream = new DataOutputStream(fStream);
 		try
 		{
-			final int opLength = journal.opCodes.size();
-			final int argLength = journal.arguments.size();
+			if (journal.isSpilling())
+			{
+				journal.spill();
+				journal.getSpill().transferTo(dStream);
+			}
+			else
+			{
+				final int opLength = journal.opCodes.size();
+				final int argLength = journal.arguments.size();
 
-			dStream.writeInt(opLength);
-			dStream.writeInt(argLength);
+				dStream.writeInt(opLength);
+				dStream.writeInt(argLength);
 
-			for (final Byte b : journal.opCodes)
-			{
-				dStream.writeByte(b);
+				journal.opCodes.writeTo(dStream);
+				journal.arguments.writeTo(dStream);
 			}
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+
+	}
 
-			for (final Integer i : journal.arguments)
+	public static void writeGraph(final GraphJournal journal, final FileChannel channel)
+	{
+		try
+		{
+			if (journal.isSpilling())
 			{
-				dStream.writeInt(i);
+				journal.spill();
+				journal.getSpill().transferTo(channel);
+			}
+			else
+			{
+				writeJournal(journal.opCodes, journal.arguments, channel);
 			}
 		}
 		catch (final IOException ex)
 		{
 			ex.printStackTrace();
 		}
-
 	}
 
 	public static void writeClustering(final ClusteringJournal journal,
@@ -51,22 +165,84 @@ public class GraphJWriter
 		final DataOutputStream dStream = new DataOutputStream(fstream);
 		try
 		{
-			final int opLength = journal.opCodes.size();
-			final int intArgLength = journal.intArgs.size();
+			if (journal.isSpilling())
+			{
+				journal.spill();
+				journal.getSpill().transferTo(dStream);
+			}
+			else
+			{
+				final int opLength = journal.opCodes.size();
+				final int intArgLength = journal.intArgs.size();
 
-			dStream.writeInt(opLength);
-			dStream.writeInt(intArgLength);
+				dStream.writeInt(opLength);
+				dStream.writeInt(intArgLength);
 
-			for (final Byte b : journal.opCodes)
-			{
-				dStream.writeByte(b);
+				journal.opCodes.writeTo(dStream);
+				journal.intArgs.writeTo(dStream);
 			}
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
 
-			for (final Integer i : journal.intArgs)
+	public static void writeClustering(final ClusteringJournal journal,
+		final FileChannel channel)
+	{
+		try
+		{
+			if (journal.isSpilling())
+			{
+				journal.spill();
+				journal.getSpill().transferTo(channel);
+			}
+			else
 			{
-				dStream.writeInt(i);
+				writeJournal(journal.opCodes, journal.intArgs, channel);
 			}
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
+
+	public static void writeCompactGraph(final GraphJournal journal, final OutputStream fstream,
+		final boolean deflate)
+	{
+		try
+		{
+			CompactJournalCodec.write(journal, fstream, deflate);
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
+
+	public static void writeCompactClustering(final ClusteringJournal journal,
+		final OutputStream fstream, final boolean deflate)
+	{
+		try
+		{
+			CompactJournalCodec.write(journal, fstream, deflate);
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+	}
 
+	public static void writeBlockContainer(final GraphJournal graphJournal,
+		final ClusteringJournal clusteringJournal, final OutputStream fstream,
+		final int stepsPerBlock, final boolean deflate)
+	{
+		try
+		{
+			BlockContainerWriter.write(graphJournal, clusteringJournal, fstream, stepsPerBlock,
+				deflate);
 		}
 		catch (final IOException ex)
 		{
@@ -74,5 +250,22 @@ public class GraphJWriter
 		}
 	}
 
+	/*
+	 * Writes the header and the contents of both lists.
+	 */
+	private static void writeJournal(final ByteChunkList opcodes, final IntChunkList args,
+		final FileChannel channel) throws IOException
+	{
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(ChannelUtils.BUFFER_SIZE);
+		buffer.putInt(opcodes.size());
+		buffer.putInt(args.size());
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
 
+		opcodes.writeTo(channel, buffer);
+		args.writeTo(channel, buffer);
+	}
 }
@@ -0,0 +1,363 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.kit.iti.ldcrgen.io.journaling.BlockContainerWriter;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.CompactJournalCodec;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+
+/**
+ * <p>
+ * Reads GraphJ files without materializing the journals.
+ * </p>
+ * <p>
+ * The file is mapped into memory and the operations are visited by means
+ * of reusable cursors, which read the opcodes and arguments straight from
+ * the mapping. Advancing a cursor does not allocate any objects, so that
+ * files with billions of operations can be processed in constant memory.
+ * </p>
+ * <p>
+ * As a single mapping is limited to 2 GB, the file is mapped in segments.
+ * Neighboring segments overlap by a few bytes so that each argument can be
+ * read from a single segment.
+ * </p>
+ * <p>
+ * The mappings are released by the garbage collector only, therefore the
+ * cursors must not be used after {@link #close()}.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class MappedGraphJReader implements Closeable
+{
+	private static final int DEFAULT_SEGMENT_BITS = 30;
+	// an int starting in one segment has to end in the same mapping
+	private static final int SEGMENT_OVERLAP = 8;
+	private static final int HEADER_SIZE = 8;
+
+	private final RandomAccessFile file;
+	private final int segmentBits;
+	private final long segmentMask;
+	private MappedByteBuffer[] segments;
+
+	private final long graphJournalStart;
+	private final long clusteringJournalStart;
+
+	public MappedGraphJReader(final File file) throws IOException
+	{
+		this(file, DEFAULT_SEGMENT_BITS);
+	}
+
+	/**
+	 * Maps the given file.
+	 *
+	 * @param file
+	 *            the GraphJ file
+	 * @param segmentBits
+	 *            the binary logarithm of the size of the segments
+	 * @throws IOException
+	 *             if the file cannot be mapped or is truncated
+	 */
+	MappedGraphJReader(final File file, final int segmentBits) throws IOException
+	{
+		assert 4 <= segmentBits && segmentBits <= DEFAULT_SEGMENT_BITS;
+
+		this.file = new RandomAccessFile(file, "r");
+		this.segmentBits = segmentBits;
+		this.segmentMask = (1L << segmentBits) - 1;
+		try
+		{
+			final FileChannel channel = this.file.getChannel();
+			final long size = channel.size();
+			final long segmentSize = 1L << segmentBits;
+			final int segmentCount = (int) Math.max(1, (size + segmentSize - 1) >>> segmentBits);
+
+			this.segments = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; ++i)
+			{
+				final long start = (long) i << segmentBits;
+				final long length = Math.min(segmentSize + SEGMENT_OVERLAP, size - start);
+				this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			}
+
+			this.graphJournalStart = 0;
+			this.clusteringJournalStart = this.getJournalEnd(this.graphJournalStart, size);
+			final long end = this.getJournalEnd(this.clusteringJournalStart, size);
+			if (end != size)
+			{
+				throw new IOException("Unexpected trailing data after the clustering journal.");
+			}
+		}
+		catch (final IOException ex)
+		{
+			this.file.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns a new cursor which is positioned before the first operation of
+	 * the graph journal.
+	 */
+	public GraphCursor getGraphCursor()
+	{
+		return new GraphCursor();
+	}
+
+	/**
+	 * Returns a new cursor which is positioned before the first operation of
+	 * the clustering journal.
+	 */
+	public ClusteringCursor getClusteringCursor()
+	{
+		return new ClusteringCursor();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.segments = null;
+		this.file.close();
+	}
+
+	/*
+	 * Validates the header of the journal at the given position and
+	 * returns the position behind the journal.
+	 */
+	private long getJournalEnd(final long start, final long size) throws IOException
+	{
+		if (start + HEADER_SIZE > size)
+		{
+			throw new IOException("GraphJ file is truncated.");
+		}
+		final int opLength = this.getInt(start);
+		if (CompactJournalCodec.MAGIC == opLength)
+		{
+			throw new IOException("Journals in the compact format cannot be mapped.");
+		}
+		if (BlockContainerWriter.MAGIC == opLength)
+		{
+			throw new IOException("Block containers cannot be mapped, use BlockContainerReader.");
+		}
+		final int argLength = this.getInt(start + 4);
+		if (opLength < 0 || argLength < 0)
+		{
+			throw new IOException("Invalid journal header at position " + start);
+		}
+
+		final long end = start + HEADER_SIZE + opLength + 4L * argLength;
+		if (end > size)
+		{
+			throw new IOException("GraphJ file is truncated.");
+		}
+		return end;
+	}
+
+	private byte getByte(final long position)
+	{
+		return this.segments[(int) (position >>> this.segmentBits)]
+			.get((int) (position & this.segmentMask));
+	}
+
+	private int getInt(final long position)
+	{
+		return this.segments[(int) (position >>> this.segmentBits)]
+			.getInt((int) (position & this.segmentMask));
+	}
+
+	/*
+	 * Common state of the cursors: the positions of the next opcode and the
+	 * next argument within the file.
+	 */
+	abstract class Cursor
+	{
+		private final long opStart;
+		private final long opEnd;
+		private final long argStart;
+		private final long argEnd;
+
+		private long opPosition;
+		private long argPosition;
+		private byte opCode;
+
+		Cursor(final long journalStart)
+		{
+			final int opLength = getInt(journalStart);
+			final int argLength = getInt(journalStart + 4);
+			this.opStart = journalStart + HEADER_SIZE;
+			this.opEnd = this.opStart + opLength;
+			this.argStart = this.opEnd;
+			this.argEnd = this.argStart + 4L * argLength;
+			this.reset();
+		}
+
+		/**
+		 * Moves the cursor before the first operation.
+		 */
+		public void reset()
+		{
+			this.opPosition = this.opStart;
+			this.argPosition = this.argStart;
+			this.opCode = -1;
+		}
+
+		public boolean hasNext()
+		{
+			return this.opPosition < this.opEnd;
+		}
+
+		/**
+		 * Moves the cursor to the next operation.
+		 *
+		 * @return whether there has been a next operation
+		 * @throws IllegalStateException
+		 *             if the journal is corrupt
+		 */
+		public boolean next()
+		{
+			if (!this.hasNext())
+			{
+				return false;
+			}
+
+			this.opCode = getByte(this.opPosition++);
+			final int argumentCount = this.getArgumentCount(this.opCode);
+			if (argumentCount < 0)
+			{
+				throw new IllegalStateException("Invalid opcode " + this.opCode + " at position "
+					+ (this.opPosition - 1));
+			}
+			if (this.argPosition + 4L * argumentCount > this.argEnd)
+			{
+				throw new IllegalStateException("Journal contains too few arguments.");
+			}
+
+			this.setArguments(argumentCount);
+			return true;
+		}
+
+		/**
+		 * Returns the opcode of the current operation.
+		 */
+		public byte opCode()
+		{
+			return this.opCode;
+		}
+
+		int nextArgument()
+		{
+			final int result = getInt(this.argPosition);
+			this.argPosition += 4;
+			return result;
+		}
+
+		/*
+		 * Returns the number of arguments for the opcode or -1 if the opcode
+		 * is invalid.
+		 */
+		abstract int getArgumentCount(byte code);
+
+		abstract void setArguments(int argumentCount);
+	}
+
+	/**
+	 * Cursor over the graph journal. Arguments which the current operation
+	 * does not have are 0.
+	 */
+	public final class GraphCursor extends Cursor
+	{
+		private int arg0;
+		private int arg1;
+
+		GraphCursor()
+		{
+			super(MappedGraphJReader.this.graphJournalStart);
+		}
+
+		public GraphOperation.OpType opType()
+		{
+			return GraphOperation.OpType.forOpCode(this.opCode());
+		}
+
+		public int arg0()
+		{
+			return this.arg0;
+		}
+
+		public int arg1()
+		{
+			return this.arg1;
+		}
+
+		@Override
+		int getArgumentCount(final byte code)
+		{
+			final GraphOperation.OpType type = GraphOperation.OpType.forOpCode(code);
+			return null == type ? -1 : type.argumentCount;
+		}
+
+		@Override
+		void setArguments(final int argumentCount)
+		{
+			this.arg0 = argumentCount > 0 ? this.nextArgument() : 0;
+			this.arg1 = argumentCount > 1 ? this.nextArgument() : 0;
+		}
+	}
+
+	/**
+	 * Cursor over the clustering journal. Arguments which the current
+	 * operation does not have are 0.
+	 */
+	public final class ClusteringCursor extends Cursor
+	{
+		private int arg0;
+		private int arg1;
+		private int arg2;
+
+		ClusteringCursor()
+		{
+			super(MappedGraphJReader.this.clusteringJournalStart);
+		}
+
+		public ClusteringOperation.OpType opType()
+		{
+			return ClusteringOperation.OpType.forOpCode(this.opCode());
+		}
+
+		public int arg0()
+		{
+			return this.arg0;
+		}
+
+		public int arg1()
+		{
+			return this.arg1;
+		}
+
+		public int arg2()
+		{
+			return this.arg2;
+		}
+
+		@Override
+		int getArgumentCount(final byte code)
+		{
+			final ClusteringOperation.OpType type = ClusteringOperation.OpType.forOpCode(code);
+			return null == type ? -1 : type.argumentCount;
+		}
+
+		@Override
+		void setArguments(final int argumentCount)
+		{
+			this.arg0 = argumentCount > 0 ? this.nextArgument() : 0;
+			this.arg1 = argumentCount > 1 ? this.nextArgument() : 0;
+			this.arg2 = argumentCount > 2 ? this.nextArgument() : 0;
+		}
+	}
+}
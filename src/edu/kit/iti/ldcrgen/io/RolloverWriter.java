@@ -0,0 +1,341 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+import edu.kit.iti.ldcrgen.replay.GraphState;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
+
+/**
+ * <p>
+ * Splits the output of a generation run into segment files, each covering
+ * a range of time steps.
+ * </p>
+ * <p>
+ * Whenever a time step begins and the current segment covers the requested
+ * number of time steps or the journals exceed the requested size, both
+ * journals are written to a new segment file and cleared. Each segment is
+ * a complete GraphJ file in the format selected by the arguments (see
+ * {@link GraphJWriter#writeFile(GraphJournal, ClusteringJournal, File,
+ * CommandLineArguments)}). Segment files are written under a temporary
+ * name and renamed when they are complete; afterwards they are listed in
+ * the manifest (see {@link SegmentManifest}), so that consumers may process
+ * them while the generation is still running.
+ * </p>
+ * <p>
+ * Every segment but the first starts with a prologue which restores the
+ * state at the end of the previous segment, so that each segment can be
+ * replayed on its own. The state is obtained by replaying each segment
+ * after it has been written; thus, the prologue refers to the node ids of
+ * the journal, which differ from the ones of the graph if the journal is
+ * compacted.
+ * </p>
+ * <p>
+ * The segments of the output file <code>name.graphj</code> are called
+ * <code>name_00000.graphj</code>, <code>name_00001.graphj</code>, ... and
+ * the manifest <code>name.graphj.manifest</code>.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class RolloverWriter
+{
+	private static final String SUFFIX = ".graphj";
+	// cluster of the placeholders of removed nodes in the prologue
+	private static final int PLACEHOLDER_CLUSTER = 0;
+
+	private final CommandLineArguments args;
+	private final File directory;
+	private final String baseName;
+	private final File manifestFile;
+	private final long maxBytes;
+
+	private int segmentCount;
+	private int firstStep;
+	private int nextNodeId;
+
+	// state at the end of the last segment, null before the first one
+	private GraphState state;
+	// started but unfinished cluster operations: opcode and arguments
+	private final List<int[]> runningClusterOperations;
+	// size of the prologue of the current segment, see estimateSize
+	private long prologueSize;
+
+	/**
+	 * Creates the manifest for the output file of the given arguments.
+	 *
+	 * @param args
+	 *            the arguments which determine the output file, the limits
+	 *            of the segments and their format
+	 * @throws IOException
+	 *             if the manifest cannot be created
+	 */
+	public RolloverWriter(final CommandLineArguments args) throws IOException
+	{
+		if (!args.isRolloverEnabled())
+		{
+			throw new IllegalArgumentException("Rollover is not enabled.");
+		}
+
+		this.args = args;
+		this.directory = args.output.getAbsoluteFile().getParentFile();
+		final String name = args.output.getName();
+		this.baseName = name.endsWith(SUFFIX) ? name.substring(0,
+			name.length() - SUFFIX.length()) : name;
+		this.manifestFile = new File(this.directory, name + SegmentManifest.FILE_SUFFIX);
+		this.maxBytes = (long) args.rolloverMegabytes << 20;
+
+		this.segmentCount = 0;
+		this.firstStep = 0;
+		this.nextNodeId = 1;
+		this.state = null;
+		this.runningClusterOperations = new ArrayList<int[]>();
+		this.prologueSize = 0;
+
+		final Writer writer = new FileWriter(this.manifestFile);
+		try
+		{
+			writer.write(SegmentManifest.HEADER);
+			writer.write('\n');
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	public File getManifestFile()
+	{
+		return this.manifestFile;
+	}
+
+	public int getSegmentCount()
+	{
+		return this.segmentCount;
+	}
+
+	/**
+	 * Writes the current segment if it is complete and starts the next one
+	 * with its prologue. Has to be called right after the graph has started
+	 * a new time step, before the operations of the time step.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @throws IOException
+	 *             if writing the segment or the manifest fails
+	 */
+	public void rollIfNecessary(final DCRGraph graph) throws IOException
+	{
+		final int currentStep = graph.getCurrentTime();
+		final boolean enoughSteps = this.args.rolloverSteps > 0
+			&& currentStep - this.firstStep >= this.args.rolloverSteps;
+		final boolean enoughBytes = this.maxBytes > 0
+			&& estimateSize(graph.getGraphJournal(), graph.getClusteringJournal())
+				- this.prologueSize >= this.maxBytes;
+		if (enoughSteps || enoughBytes)
+		{
+			this.writeSegment(graph, currentStep - 1);
+			this.firstStep = currentStep;
+			this.writePrologue(graph.getGraphJournal(), graph.getClusteringJournal());
+		}
+	}
+
+	/**
+	 * Writes the last segment and marks the manifest as complete.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @throws IOException
+	 *             if writing the segment or the manifest fails
+	 */
+	public void finish(final DCRGraph graph) throws IOException
+	{
+		this.writeSegment(graph, graph.getCurrentTime());
+		this.appendToManifest(SegmentManifest.COMPLETE_MARKER);
+	}
+
+	private void writeSegment(final DCRGraph graph, final int lastStep) throws IOException
+	{
+		final GraphJournal gJournal = graph.getGraphJournal();
+		final ClusteringJournal clJournal = graph.getClusteringJournal();
+
+		final String fileName = String.format("%s_%05d%s", this.baseName, this.segmentCount,
+			SUFFIX);
+		final File file = new File(this.directory, fileName);
+		final File partFile = new File(this.directory, fileName + ".part");
+		GraphJWriter.writeFile(gJournal, clJournal, partFile, this.args);
+		if (file.exists() && !file.delete() || !partFile.renameTo(file))
+		{
+			throw new IOException("Cannot rename '" + partFile + "' to '" + file + "'");
+		}
+
+		final int firstNodeId = this.nextNodeId;
+		this.replaySegment(gJournal, clJournal);
+		this.nextNodeId = this.state.getMaxNodeId() + 1;
+		final SegmentManifest.Segment segment = new SegmentManifest.Segment(fileName,
+			this.firstStep, lastStep, this.segmentCount > 0 ? 1 : 0, firstNodeId,
+			this.nextNodeId, graph.getNodeCount(), graph.getEdgeCount(),
+			graph.getClusterCount(), gJournal.opCodes.size(), clJournal.opCodes.size());
+		gJournal.clear();
+		clJournal.clear();
+
+		this.appendToManifest(segment.toLine());
+		++this.segmentCount;
+	}
+
+	/*
+	 * Determines the state at the end of the given journals of a segment,
+	 * which start with the prologue of the segment.
+	 */
+	private void replaySegment(final GraphJournal gJournal, final ClusteringJournal clJournal)
+		throws IOException
+	{
+		final ReplayEngine engine = new ReplayEngine(gJournal, clJournal);
+		try
+		{
+			this.state = engine.seek(engine.getLastTimeStep());
+		}
+		finally
+		{
+			engine.close();
+		}
+		this.trackClusterOperations(clJournal.opCodes, clJournal.intArgs);
+	}
+
+	/*
+	 * A cluster operation is finished by an operation with the same
+	 * arguments, see MergeOperation and SplitOperation. The prologue of a
+	 * segment restarts all running operations, so each segment is scanned
+	 * from scratch.
+	 */
+	private void trackClusterOperations(final ByteChunkList opCodes, final IntChunkList args)
+	{
+		this.runningClusterOperations.clear();
+		int arg = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			final ClusteringOperation.OpType type = ClusteringOperation.OpType
+				.forOpCode(opCodes.get(op));
+			switch (type)
+			{
+			case Merge:
+			case Split:
+				this.runningClusterOperations.add(new int[] { type.opcode, args.get(arg),
+					args.get(arg + 1), args.get(arg + 2) });
+				break;
+			case MergeDone:
+			case SplitDone:
+				final byte startOpcode = ClusteringOperation.OpType.MergeDone == type //
+					? ClusteringOperation.OpType.Merge.opcode
+					: ClusteringOperation.OpType.Split.opcode;
+				this.finishClusterOperation(startOpcode, args.get(arg), args.get(arg + 1),
+					args.get(arg + 2));
+				break;
+			case NextStep:
+				break;
+			}
+			arg += type.argumentCount;
+		}
+	}
+
+	private void finishClusterOperation(final byte startOpcode, final int c1, final int c2,
+		final int c3)
+	{
+		final Iterator<int[]> iterator = this.runningClusterOperations.iterator();
+		while (iterator.hasNext())
+		{
+			final int[] operation = iterator.next();
+			if (startOpcode == operation[0] && c1 == operation[1] && c2 == operation[2]
+				&& c3 == operation[3])
+			{
+				iterator.remove();
+				return;
+			}
+		}
+		throw new IllegalStateException("Cluster operation (" + c1 + ", " + c2 + ", " + c3
+			+ ") has been finished without being started.");
+	}
+
+	/*
+	 * Writes the prologue, which restores the state at the end of the last
+	 * segment, to the empty journals. The placeholders of removed nodes
+	 * keep the ids of the living nodes unchanged.
+	 */
+	private void writePrologue(final GraphJournal gJournal, final ClusteringJournal clJournal)
+	{
+		assert 0 == gJournal.opCodes.size() && 0 == clJournal.opCodes.size();
+
+		final GraphState current = this.state;
+		for (int node = 1; node <= current.getMaxNodeId(); ++node)
+		{
+			if (current.isAlive(node))
+			{
+				gJournal.createNodeOp(current.getCluster(node),
+					current.getReferenceCluster(node));
+			}
+			else
+			{
+				gJournal.createNodeOp(PLACEHOLDER_CLUSTER, PLACEHOLDER_CLUSTER);
+				gJournal.removeNodeOp(node);
+			}
+		}
+		for (final long edge : current.getEdges())
+		{
+			gJournal.createEdgeOp(GraphState.edgeSource(edge), GraphState.edgeTarget(edge));
+		}
+		gJournal.nextStepOpVerbatim();
+
+		for (final int[] operation : this.runningClusterOperations)
+		{
+			if (ClusteringOperation.OpType.Merge.opcode == operation[0])
+			{
+				clJournal.mergeOp(operation[1], operation[2], operation[3]);
+			}
+			else
+			{
+				clJournal.splitOp(operation[1], operation[2], operation[3]);
+			}
+		}
+		clJournal.nextStepOp();
+
+		this.prologueSize = estimateSize(gJournal, clJournal);
+	}
+
+	/*
+	 * The manifest is reopened for each line, so that consumers always see
+	 * complete lines.
+	 */
+	private void appendToManifest(final String line) throws IOException
+	{
+		final Writer writer = new FileWriter(this.manifestFile, true);
+		try
+		{
+			writer.write(line + "\n");
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/*
+	 * Size of both journals in the plain GraphJ format.
+	 */
+	private static long estimateSize(final GraphJournal gJournal,
+		final ClusteringJournal clJournal)
+	{
+		return 16 + gJournal.opCodes.size() + 4L * gJournal.arguments.size()
+			+ clJournal.opCodes.size() + 4L * clJournal.intArgs.size();
+	}
+}
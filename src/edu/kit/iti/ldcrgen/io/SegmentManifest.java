@@ -0,0 +1,227 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * The manifest of an output which has been split into segment files (see
+ * {@link RolloverWriter}).
+ * </p>
+ * <p>
+ * The manifest is a text file with one tab-separated line per segment,
+ * which is appended as soon as the segment file is complete. Lines starting
+ * with '#' are comments; the line {@value #COMPLETE_MARKER} marks the end
+ * of the generation. Example:
+ * </p>
+ *
+ * <pre>
+ * # file first_step last_step prologue_steps first_node_id next_node_id nodes edges clusters graph_ops clustering_ops
+ * out_00000.graphj 0 99 0 1 5101 5050 130210 5 250331 312
+ * out_00001.graphj 100 199 1 5101 5188 5093 131012 6 408279 214
+ * # complete
+ * </pre>
+ * <p>
+ * Each segment file can be processed on its own. Every segment but the
+ * first starts with a prologue, which rebuilds the graph and the
+ * clusterings at the end of time step first_step - 1 and is terminated by
+ * a NEXT_STEP operation. The prologue is not a real time step of the
+ * series: It creates the nodes with the ids 1 to first_node_id - 1 in
+ * their current clusters, where each id of a node which has already been
+ * removed is created in cluster 0 and removed right away, inserts all
+ * edges and restarts the running cluster operations. Consumers of the
+ * single time steps should skip it; its operations only restore the
+ * state.
+ * </p>
+ * <p>
+ * In general, time step i of a segment file (counting from the operations
+ * before the first NEXT_STEP as time step 0) is time step first_step + i -
+ * prologue_steps of the whole series, where prologue_steps is 1 if the
+ * segment starts with a prologue and 0 otherwise. Each segment but the
+ * last ends with the NEXT_STEP operation which starts the first time step
+ * of the next segment; the empty time step after last_step belongs to the
+ * next segment.
+ * </p>
+ * <p>
+ * Node ids are not restarted: The first node which is created after the
+ * prologue of a segment has the id first_node_id, the first one of the
+ * next segment the id next_node_id. Cluster ids are global as well. The
+ * numbers of nodes, edges and clusters describe the graph at the end of
+ * the segment; the numbers of operations include the prologue.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class SegmentManifest
+{
+	public static final String FILE_SUFFIX = ".manifest";
+	public static final String COMPLETE_MARKER = "# complete";
+
+	static final String HEADER = "# file\tfirst_step\tlast_step\tprologue_steps"
+		+ "\tfirst_node_id\tnext_node_id\tnodes\tedges\tclusters\tgraph_ops\tclustering_ops";
+
+	private final File directory;
+	private final List<Segment> segments;
+	private final boolean complete;
+
+	private SegmentManifest(final File directory, final List<Segment> segments,
+		final boolean complete)
+	{
+		this.directory = directory;
+		this.segments = Collections.unmodifiableList(segments);
+		this.complete = complete;
+	}
+
+	/**
+	 * Reads the given manifest. The manifest may be read while segments are
+	 * still being added.
+	 *
+	 * @param file
+	 *            the manifest file
+	 * @return the manifest
+	 * @throws IOException
+	 *             if reading fails or the manifest is malformed
+	 */
+	public static SegmentManifest read(final File file) throws IOException
+	{
+		final List<Segment> segments = new ArrayList<Segment>();
+		boolean complete = false;
+		final BufferedReader reader = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			while (null != (line = reader.readLine()))
+			{
+				if (COMPLETE_MARKER.equals(line))
+				{
+					complete = true;
+				}
+				else if (!line.startsWith("#") && line.length() > 0)
+				{
+					segments.add(Segment.parse(line));
+				}
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return new SegmentManifest(file.getAbsoluteFile().getParentFile(), segments, complete);
+	}
+
+	/**
+	 * Returns the segments in the order of their time steps.
+	 */
+	public List<Segment> getSegments()
+	{
+		return this.segments;
+	}
+
+	/**
+	 * Returns whether the generation has finished, i.e. whether all
+	 * segments are listed.
+	 */
+	public boolean isComplete()
+	{
+		return this.complete;
+	}
+
+	/**
+	 * Returns the file of the given segment, which is located next to the
+	 * manifest.
+	 */
+	public File getFile(final Segment segment)
+	{
+		return new File(this.directory, segment.fileName);
+	}
+
+	/**
+	 * Describes a single segment file.
+	 */
+	public static class Segment
+	{
+		// name of the segment file, relative to the manifest
+		public final String fileName;
+		public final int firstStep;
+		public final int lastStep;
+		// 1 if the file starts with a prologue, which is no real time step
+		public final int prologueSteps;
+		public final int firstNodeId;
+		public final int nextNodeId;
+		public final int nodeCount;
+		public final int edgeCount;
+		public final int clusterCount;
+		public final int graphOpCount;
+		public final int clusteringOpCount;
+
+		public Segment(final String fileName, final int firstStep, final int lastStep,
+			final int prologueSteps, final int firstNodeId, final int nextNodeId,
+			final int nodeCount, final int edgeCount, final int clusterCount,
+			final int graphOpCount, final int clusteringOpCount)
+		{
+			this.fileName = fileName;
+			this.firstStep = firstStep;
+			this.lastStep = lastStep;
+			this.prologueSteps = prologueSteps;
+			this.firstNodeId = firstNodeId;
+			this.nextNodeId = nextNodeId;
+			this.nodeCount = nodeCount;
+			this.edgeCount = edgeCount;
+			this.clusterCount = clusterCount;
+			this.graphOpCount = graphOpCount;
+			this.clusteringOpCount = clusteringOpCount;
+		}
+
+		/**
+		 * Returns the time step of the series which corresponds to the
+		 * given time step of the segment file. For the prologue, this is
+		 * the time step whose end state it restores.
+		 */
+		public int getSeriesStep(final int fileStep)
+		{
+			return this.firstStep + fileStep - this.prologueSteps;
+		}
+
+		String toLine()
+		{
+			return this.fileName + "\t" + this.firstStep + "\t" + this.lastStep + "\t"
+				+ this.prologueSteps + "\t" + this.firstNodeId + "\t" + this.nextNodeId + "\t" + this.nodeCount + "\t"
+				+ this.edgeCount + "\t" + this.clusterCount + "\t" + this.graphOpCount + "\t"
+				+ this.clusteringOpCount;
+		}
+
+		static Segment parse(final String line) throws IOException
+		{
+			final String[] fields = line.split("\t");
+			if (11 != fields.length)
+			{
+				throw new IOException("Malformed manifest line: '" + line + "'");
+			}
+			try
+			{
+				return new Segment(fields[0], Integer.parseInt(fields[1]),
+					Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+					Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+					Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+					Integer.parseInt(fields[8]), Integer.parseInt(fields[9]),
+					Integer.parseInt(fields[10]));
+			}
+			catch (final NumberFormatException ex)
+			{
+				throw new IOException("Malformed manifest line: '" + line + "'");
+			}
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.fileName + " [" + this.firstStep + ", " + this.lastStep + "] nodes ["
+				+ this.firstNodeId + ", " + this.nextNodeId + ")";
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Writes both journals into a container of independent blocks (GraphJ
+ * block container).
+ * </p>
+ * <p>
+ * Each block covers a range of time steps of one journal and is a
+ * complete compact journal (see {@link CompactJournalCodec}), so that it
+ * can be decoded on its own. A block ends right before a NEXT_STEP
+ * operation; concatenating the blocks of a journal in order yields the
+ * original journal. Operations before the first NEXT_STEP belong to time
+ * step 0; if there are none, the first block starts with time step 1.
+ * </p>
+ * <p>
+ * Layout of the file:
+ * </p>
+ *
+ * <pre>
+ * int     MAGIC
+ * int     VERSION
+ * byte[]  blocks of the graph journal, blocks of the clustering journal
+ * int     number of blocks
+ * entries per block: byte journal (0: graph, 1: clustering),
+ *                    long offset, long length, int first step,
+ *                    int last step, int opcodes, int arguments
+ * long    offset of the index
+ * int     MAGIC
+ * </pre>
+ *
+ * @author Roland Kluge
+ */
+public final class BlockContainerWriter
+{
+	/**
+	 * "\x89GJC"
+	 */
+	public static final int MAGIC = 0x89474A43;
+	public static final int VERSION = 1;
+	// offset of the index and magic number
+	public static final int FOOTER_SIZE = 12;
+
+	private BlockContainerWriter()
+	{
+		// utility class -> hidden constructor
+	}
+
+	/**
+	 * Writes both journals. Spilling journals are spilled completely and
+	 * read back block by block.
+	 *
+	 * @param graphJournal
+	 *            the graph journal
+	 * @param clusteringJournal
+	 *            the clustering journal
+	 * @param out
+	 *            the target, which has to be positioned at the start of the
+	 *            file. It is neither flushed nor closed.
+	 * @param stepsPerBlock
+	 *            the number of time steps after which a new block is
+	 *            started
+	 * @param deflate
+	 *            whether the blocks are compressed
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void write(final GraphJournal graphJournal,
+		final ClusteringJournal clusteringJournal, final OutputStream out,
+		final int stepsPerBlock, final boolean deflate) throws IOException
+	{
+		if (stepsPerBlock <= 0)
+		{
+			throw new IllegalArgumentException("Steps per block must be positive: "
+				+ stepsPerBlock);
+		}
+
+		final CountingOutputStream counter = new CountingOutputStream(out);
+		final DataOutputStream dStream = new DataOutputStream(counter);
+		dStream.writeInt(MAGIC);
+		dStream.writeInt(VERSION);
+
+		final List<BlockIndexEntry> index = new ArrayList<BlockIndexEntry>();
+
+		final BlockCutter graphCutter = new BlockCutter(CompactJournalCodec.Layout.GRAPH,
+			counter, stepsPerBlock, deflate, index);
+		if (graphJournal.isSpilling())
+		{
+			graphJournal.spill();
+			graphJournal.getSpill().replay(CompactJournalCodec.Layout.GRAPH, graphCutter);
+		}
+		else
+		{
+			graphCutter.accept(graphJournal.opCodes, graphJournal.arguments);
+		}
+		graphCutter.finish();
+
+		final BlockCutter clusteringCutter = new BlockCutter(
+			CompactJournalCodec.Layout.CLUSTERING, counter, stepsPerBlock, deflate, index);
+		if (clusteringJournal.isSpilling())
+		{
+			clusteringJournal.spill();
+			clusteringJournal.getSpill().replay(CompactJournalCodec.Layout.CLUSTERING,
+				clusteringCutter);
+		}
+		else
+		{
+			clusteringCutter.accept(clusteringJournal.opCodes, clusteringJournal.intArgs);
+		}
+		clusteringCutter.finish();
+
+		final long indexOffset = counter.getCount();
+		dStream.writeInt(index.size());
+		for (final BlockIndexEntry entry : index)
+		{
+			dStream.writeByte(entry.layout.ordinal());
+			dStream.writeLong(entry.offset);
+			dStream.writeLong(entry.length);
+			dStream.writeInt(entry.firstStep);
+			dStream.writeInt(entry.lastStep);
+			dStream.writeInt(entry.opCount);
+			dStream.writeInt(entry.argCount);
+		}
+		dStream.writeLong(indexOffset);
+		dStream.writeInt(MAGIC);
+	}
+
+	/*
+	 * Collects the operations of a journal segment by segment and writes a
+	 * block as soon as it covers the requested number of time steps.
+	 */
+	private static final class BlockCutter implements JournalSpill.SegmentConsumer
+	{
+		private final CompactJournalCodec.Layout layout;
+		private final CountingOutputStream out;
+		private final int stepsPerBlock;
+		private final boolean deflate;
+		private final List<BlockIndexEntry> index;
+
+		private final ByteChunkList pendingOpCodes;
+		private final IntChunkList pendingArguments;
+		private int currentStep;
+		private int blockFirstStep;
+
+		BlockCutter(final CompactJournalCodec.Layout layout, final CountingOutputStream out,
+			final int stepsPerBlock, final boolean deflate, final List<BlockIndexEntry> index)
+		{
+			this.layout = layout;
+			this.out = out;
+			this.stepsPerBlock = stepsPerBlock;
+			this.deflate = deflate;
+			this.index = index;
+
+			this.pendingOpCodes = new ByteChunkList();
+			this.pendingArguments = new IntChunkList();
+			this.currentStep = 0;
+			this.blockFirstStep = 0;
+		}
+
+		@Override
+		public void accept(final ByteChunkList opCodes, final IntChunkList arguments)
+			throws IOException
+		{
+			int opFrom = 0;
+			int argFrom = 0;
+			int argIndex = 0;
+			for (int i = 0; i < opCodes.size(); ++i)
+			{
+				final byte opCode = opCodes.get(i);
+				if (opCode == this.layout.nextStep)
+				{
+					if (this.currentStep - this.blockFirstStep + 1 >= this.stepsPerBlock)
+					{
+						this.pendingOpCodes.addAll(opCodes, opFrom, i);
+						this.pendingArguments.addAll(arguments, argFrom, argIndex);
+						// only time step 0 may be empty
+						if (this.pendingOpCodes.size() > 0)
+						{
+							this.writeBlock();
+						}
+						opFrom = i;
+						argFrom = argIndex;
+						this.blockFirstStep = this.currentStep + 1;
+					}
+					++this.currentStep;
+				}
+				argIndex += this.layout.getArgumentCount(opCode);
+			}
+
+			this.pendingOpCodes.addAll(opCodes, opFrom, opCodes.size());
+			this.pendingArguments.addAll(arguments, argFrom, argIndex);
+		}
+
+		void finish() throws IOException
+		{
+			if (this.pendingOpCodes.size() > 0)
+			{
+				this.writeBlock();
+			}
+		}
+
+		private void writeBlock() throws IOException
+		{
+			final long offset = this.out.getCount();
+			CompactJournalCodec.writeRange(this.pendingOpCodes, this.pendingArguments, 0,
+				this.pendingOpCodes.size(), 0, this.pendingArguments.size(), this.layout,
+				this.out, this.deflate);
+			this.index.add(new BlockIndexEntry(this.layout, offset, this.out.getCount() - offset,
+				this.blockFirstStep, this.currentStep, this.pendingOpCodes.size(),
+				this.pendingArguments.size()));
+
+			this.pendingOpCodes.clear();
+			this.pendingArguments.clear();
+		}
+	}
+
+	private static final class CountingOutputStream extends OutputStream
+	{
+		private final OutputStream out;
+		private long count;
+
+		CountingOutputStream(final OutputStream out)
+		{
+			this.out = out;
+			this.count = 0;
+		}
+
+		long getCount()
+		{
+			return this.count;
+		}
+
+		@Override
+		public void write(final int b) throws IOException
+		{
+			this.out.write(b);
+			++this.count;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException
+		{
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+}
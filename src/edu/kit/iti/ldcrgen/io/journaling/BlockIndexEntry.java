@@ -0,0 +1,56 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+/**
+ * Entry of the index of a block container (see
+ * {@link BlockContainerWriter}), which describes a single block.
+ *
+ * @author Roland Kluge
+ */
+public class BlockIndexEntry
+{
+	// the journal to which the block belongs
+	public final CompactJournalCodec.Layout layout;
+	// position of the block relative to the start of the container
+	public final long offset;
+	public final long length;
+	// the time steps of the first and the last operation of the block
+	public final int firstStep;
+	public final int lastStep;
+	public final int opCount;
+	public final int argCount;
+
+	public BlockIndexEntry(final CompactJournalCodec.Layout layout, final long offset,
+		final long length, final int firstStep, final int lastStep, final int opCount,
+		final int argCount)
+	{
+		this.layout = layout;
+		this.offset = offset;
+		this.length = length;
+		this.firstStep = firstStep;
+		this.lastStep = lastStep;
+		this.opCount = opCount;
+		this.argCount = argCount;
+	}
+
+	/**
+	 * Returns whether the block contains operations of at least one of the
+	 * given time steps.
+	 *
+	 * @param fromStep
+	 *            the first time step (inclusive)
+	 * @param toStep
+	 *            the last time step (inclusive)
+	 */
+	public boolean overlaps(final int fromStep, final int toStep)
+	{
+		return this.firstStep <= toStep && fromStep <= this.lastStep;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.layout + " [" + this.firstStep + ", " + this.lastStep + "] @" + this.offset
+			+ " (" + this.length + " bytes, " + this.opCount + " ops, " + this.argCount
+			+ " args)";
+	}
+}
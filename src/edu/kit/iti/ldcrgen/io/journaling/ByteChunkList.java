@@ -0,0 +1,275 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Growable list of bytes which is stored in chunks of fixed size.
+ * </p>
+ * <p>
+ * In contrast to an ArrayList&lt;Byte&gt;, no object or reference is
+ * needed per element and growing the list never copies the elements
+ * which have already been stored - only a new chunk is allocated.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class ByteChunkList
+{
+	static final int CHUNK_BITS = 16;
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int INITIAL_CHUNK_SLOTS = 4;
+
+	private byte[][] chunks;
+	private int size;
+
+	public ByteChunkList()
+	{
+		this.chunks = new byte[INITIAL_CHUNK_SLOTS][];
+		this.size = 0;
+	}
+
+	public void add(final byte value)
+	{
+		if ((this.size & CHUNK_MASK) == 0)
+		{
+			this.allocateChunk();
+		}
+		this.chunks[this.size >>> CHUNK_BITS][this.size & CHUNK_MASK] = value;
+		++this.size;
+	}
+
+	public byte get(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + " size: " + this.size);
+		}
+		return this.chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Appends all elements of the given list.
+	 *
+	 * @param other
+	 *            the source, which must not be this list
+	 */
+	public void addAll(final ByteChunkList other)
+	{
+		this.addAll(other, 0, other.size);
+	}
+
+	/**
+	 * Appends the elements of the given list in the given range.
+	 *
+	 * @param other
+	 *            the source, which must not be this list
+	 * @param from
+	 *            the first index (inclusive)
+	 * @param to
+	 *            the last index (exclusive)
+	 */
+	public void addAll(final ByteChunkList other, final int from, final int to)
+	{
+		if (from < 0 || to > other.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("Invalid range: " + from + " to " + to);
+		}
+		assert other != this;
+
+		int copied = from;
+		while (copied < to)
+		{
+			if ((this.size & CHUNK_MASK) == 0)
+			{
+				this.allocateChunk();
+			}
+			final int sourceOffset = copied & CHUNK_MASK;
+			final int targetOffset = this.size & CHUNK_MASK;
+			final int length = Math.min(to - copied,
+				Math.min(CHUNK_SIZE - sourceOffset, CHUNK_SIZE - targetOffset));
+			System.arraycopy(other.chunks[copied >>> CHUNK_BITS], sourceOffset,
+				this.chunks[this.size >>> CHUNK_BITS], targetOffset, length);
+			copied += length;
+			this.size += length;
+		}
+	}
+
+	/**
+	 * Removes all elements from the given index on and releases the chunks
+	 * which are no longer used.
+	 *
+	 * @param newSize
+	 *            the new size, which must not exceed the current one
+	 */
+	public void truncate(final int newSize)
+	{
+		if (newSize < 0 || newSize > this.size)
+		{
+			throw new IndexOutOfBoundsException("Invalid size: " + newSize + " size: "
+				+ this.size);
+		}
+
+		final int usedChunks = (newSize + CHUNK_MASK) >>> CHUNK_BITS;
+		for (int chunk = usedChunks; chunk < this.chunks.length && null != this.chunks[chunk];
+			++chunk)
+		{
+			this.chunks[chunk] = null;
+		}
+		this.size = newSize;
+	}
+
+	/**
+	 * Removes all elements and releases the chunks.
+	 */
+	public void clear()
+	{
+		this.chunks = new byte[INITIAL_CHUNK_SLOTS][];
+		this.size = 0;
+	}
+
+	/**
+	 * Writes all elements in order, one byte each.
+	 *
+	 * @param out
+	 *            the target
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(final DataOutput out) throws IOException
+	{
+		for (int c = 0; c * CHUNK_SIZE < this.size; ++c)
+		{
+			out.write(this.chunks[c], 0, Math.min(CHUNK_SIZE, this.size - c * CHUNK_SIZE));
+		}
+	}
+
+	/**
+	 * Writes all elements in order to the channel. The chunks are
+	 * transferred by means of the given buffer, whose content is
+	 * overwritten.
+	 *
+	 * @param channel
+	 *            the target
+	 * @param buffer
+	 *            the transfer buffer, preferably a direct one
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(final WritableByteChannel channel, final ByteBuffer buffer)
+		throws IOException
+	{
+		int written = 0;
+		while (written < this.size)
+		{
+			buffer.clear();
+			while (buffer.hasRemaining() && written < this.size)
+			{
+				final int offset = written & CHUNK_MASK;
+				final int length = Math.min(buffer.remaining(),
+					Math.min(CHUNK_SIZE - offset, this.size - written));
+				buffer.put(this.chunks[written >>> CHUNK_BITS], offset, length);
+				written += length;
+			}
+			buffer.flip();
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Appends the given number of bytes which are read from the channel.
+	 * The bytes are transferred by means of the given buffer, whose content
+	 * is overwritten.
+	 *
+	 * @param channel
+	 *            the source
+	 * @param buffer
+	 *            the transfer buffer, preferably a direct one
+	 * @param count
+	 *            the number of bytes to be read
+	 * @throws IOException
+	 *             if reading fails or the channel ends prematurely
+	 */
+	public void readFrom(final ReadableByteChannel channel, final ByteBuffer buffer,
+		final int count) throws IOException
+	{
+		int remaining = count;
+		while (remaining > 0)
+		{
+			buffer.clear();
+			buffer.limit(Math.min(buffer.capacity(), remaining));
+			ChannelUtils.readFully(channel, buffer);
+			buffer.flip();
+			while (buffer.hasRemaining())
+			{
+				if ((this.size & CHUNK_MASK) == 0)
+				{
+					this.allocateChunk();
+				}
+				final int offset = this.size & CHUNK_MASK;
+				final int length = Math.min(buffer.remaining(), CHUNK_SIZE - offset);
+				buffer.get(this.chunks[this.size >>> CHUNK_BITS], offset, length);
+				this.size += length;
+				remaining -= length;
+			}
+		}
+	}
+
+	/**
+	 * Appends the given number of bytes which are read from the input.
+	 *
+	 * @param in
+	 *            the source
+	 * @param count
+	 *            the number of bytes to be read
+	 * @throws IOException
+	 *             if reading fails
+	 */
+	public void readFrom(final DataInput in, final int count) throws IOException
+	{
+		int remaining = count;
+		while (remaining > 0)
+		{
+			if ((this.size & CHUNK_MASK) == 0)
+			{
+				this.allocateChunk();
+			}
+			final int offset = this.size & CHUNK_MASK;
+			final int length = Math.min(remaining, CHUNK_SIZE - offset);
+			in.readFully(this.chunks[this.size >>> CHUNK_BITS], offset, length);
+			this.size += length;
+			remaining -= length;
+		}
+	}
+
+	private void allocateChunk()
+	{
+		if (this.size == Integer.MAX_VALUE - CHUNK_MASK)
+		{
+			throw new IllegalStateException("List exceeds maximum size.");
+		}
+
+		final int chunk = this.size >>> CHUNK_BITS;
+		if (chunk == this.chunks.length)
+		{
+			final byte[][] newChunks = new byte[this.chunks.length << 1][];
+			System.arraycopy(this.chunks, 0, newChunks, 0, this.chunks.length);
+			this.chunks = newChunks;
+		}
+		this.chunks[chunk] = new byte[CHUNK_SIZE];
+	}
+}
@@ -0,0 +1,93 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Helper methods for transferring the journals via channels.
+ *
+ * @author Roland Kluge
+ */
+public final class ChannelUtils
+{
+	/**
+	 * Default size of the transfer buffers.
+	 */
+	public static final int BUFFER_SIZE = 1 << 20;
+
+	private ChannelUtils()
+	{
+		// utility class -> hidden constructor
+	}
+
+	/**
+	 * Reads from the channel until the buffer has no remaining space.
+	 *
+	 * @param channel
+	 *            the source
+	 * @param buffer
+	 *            the target
+	 * @throws EOFException
+	 *             if the channel ends before the buffer is full
+	 * @throws IOException
+	 *             if reading fails
+	 */
+	public static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer)
+		throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) < 0)
+			{
+				throw new EOFException("Unexpected end of journal.");
+			}
+		}
+	}
+
+	/**
+	 * Reads a big-endian int from the channel.
+	 *
+	 * @param channel
+	 *            the source
+	 * @param buffer
+	 *            the transfer buffer
+	 * @return the int
+	 * @throws IOException
+	 *             if reading fails
+	 */
+	public static int readInt(final ReadableByteChannel channel, final ByteBuffer buffer)
+		throws IOException
+	{
+		buffer.clear();
+		buffer.limit(4);
+		readFully(channel, buffer);
+		return buffer.getInt(0);
+	}
+
+	/**
+	 * Writes a big-endian int to the channel.
+	 *
+	 * @param channel
+	 *            the target
+	 * @param buffer
+	 *            the transfer buffer
+	 * @param value
+	 *            the int to be written
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void writeInt(final WritableByteChannel channel, final ByteBuffer buffer,
+		final int value) throws IOException
+	{
+		buffer.clear();
+		buffer.putInt(value);
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+}
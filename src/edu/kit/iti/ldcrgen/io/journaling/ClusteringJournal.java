@@ -1,23 +1,27 @@
 package edu.kit.iti.ldcrgen.io.journaling;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Iterator;
 
 import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation.OpType;
 
 public class ClusteringJournal implements Iterable<ClusteringOperation>
 {
-	public ArrayList<Byte> opCodes;
-	public ArrayList<Integer> intArgs;
+	public final ByteChunkList opCodes;
+	public final IntChunkList intArgs;
+
+	private JournalSpill spill;
+	private int spillThreshold;
 
 	public ClusteringJournal()
 	{
-		this.opCodes = new ArrayList<Byte>();
-		this.intArgs = new ArrayList<Integer>();
+		this.opCodes = new ByteChunkList();
+		this.intArgs = new IntChunkList();
 	}
 
 	public void nextStepOp()
 	{
+		this.spillIfNecessary();
 		this.opCodes.add(OpType.NextStep.getOpCode());
 	}
 
@@ -75,6 +79,73 @@ public class ClusteringJournal implements Iterable<ClusteringOperation>
 		this.intArgs.add(c3);
 	}
 
+	/**
+	 * Enables the bounded-memory mode: Whenever a time step is completed
+	 * and at least the given number of opcodes is stored in memory, all
+	 * stored operations are moved to the given spill.
+	 *
+	 * The iterator of this journal only covers the operations which have
+	 * not been spilled yet.
+	 *
+	 * @param spill
+	 *            the target of the completed segments
+	 * @param threshold
+	 *            the minimum number of opcodes which triggers spilling
+	 */
+	public void enableSpilling(final JournalSpill spill, final int threshold)
+	{
+		this.spill = spill;
+		this.spillThreshold = threshold;
+	}
+
+	public boolean isSpilling()
+	{
+		return null != this.spill;
+	}
+
+	public JournalSpill getSpill()
+	{
+		return this.spill;
+	}
+
+	/**
+	 * Moves all operations which are stored in memory to the spill.
+	 *
+	 * @throws IOException
+	 *             if writing to the spill fails
+	 */
+	public void spill() throws IOException
+	{
+		this.spill.append(this.opCodes, this.intArgs);
+		this.opCodes.clear();
+		this.intArgs.clear();
+	}
+
+	/**
+	 * Removes all operations which are stored in memory, e.g. after they
+	 * have been written to a segment file.
+	 */
+	public void clear()
+	{
+		this.opCodes.clear();
+		this.intArgs.clear();
+	}
+
+	private void spillIfNecessary()
+	{
+		if (null != this.spill && this.opCodes.size() >= this.spillThreshold)
+		{
+			try
+			{
+				this.spill();
+			}
+			catch (final IOException ex)
+			{
+				throw new IllegalStateException("Spilling the journal failed.", ex);
+			}
+		}
+	}
+
 	@Override
 	public Iterator<ClusteringOperation> iterator()
 	{
@@ -84,8 +155,8 @@ public class ClusteringJournal implements Iterable<ClusteringOperation>
 
 			int opIndex;
 			int argIndex;
-			ArrayList<Byte> opCodes;
-			ArrayList<Integer> intArgs;
+			ByteChunkList opCodes;
+			IntChunkList intArgs;
 
 			public ClusteringJournalIterator(final ClusteringJournal journal)
 			{
@@ -5,19 +5,31 @@ public class ClusteringOperation
 
 	public static enum OpType
 	{
-		NextStep(0, "NEXT_STEP", "-"), //
-		Merge(1, "MERGE", "Arg0/1: old clusters C1/C2; Arg2: new cluster C3"), //
-		Split(2, "SPLIT", "Arg0: old cluster C1; Arg1/2: new clusters C2/C3"), //
-		MergeDone(3, "MERGE_DONE", "Arg0/1: old clusters C1/C2; Arg2: new cluster C3"), //
-		SplitDone(4, "SPLIT_DONE", "Arg0: old cluster C1; Arg1/2: new clusters C2/C3");
+		NextStep(0, 0, "NEXT_STEP", "-"), //
+		Merge(1, 3, "MERGE", "Arg0/1: old clusters C1/C2; Arg2: new cluster C3"), //
+		Split(2, 3, "SPLIT", "Arg0: old cluster C1; Arg1/2: new clusters C2/C3"), //
+		MergeDone(3, 3, "MERGE_DONE", "Arg0/1: old clusters C1/C2; Arg2: new cluster C3"), //
+		SplitDone(4, 3, "SPLIT_DONE", "Arg0: old cluster C1; Arg1/2: new clusters C2/C3");
+
+		private static final OpType[] BY_OPCODE = new OpType[5];
+		static
+		{
+			for (final OpType type : values())
+			{
+				BY_OPCODE[type.opcode] = type;
+			}
+		}
 
 		public final byte opcode;
+		public final int argumentCount;
 		public final String label;
 		public final String documentation;
 
-		private OpType(final int opcode, final String label, final String documentation)
+		private OpType(final int opcode, final int argumentCount, final String label,
+			final String documentation)
 		{
 			this.opcode = (byte)opcode;
+			this.argumentCount = argumentCount;
 			this.label = label;
 			this.documentation = documentation;
 		}
@@ -27,6 +39,22 @@ public class ClusteringOperation
 			return this.opcode;
 		}
 
+		/**
+		 * Returns the type with the given opcode.
+		 *
+		 * @param opcode
+		 *            the opcode as stored in the journal
+		 * @return the type or <code>null</code> if the opcode is invalid
+		 */
+		public static OpType forOpCode(final byte opcode)
+		{
+			if (opcode < 0 || opcode >= BY_OPCODE.length)
+			{
+				return null;
+			}
+			return BY_OPCODE[opcode];
+		}
+
 		@Override
 		public String toString()
 		{
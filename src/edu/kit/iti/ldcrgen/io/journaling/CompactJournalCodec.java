@@ -0,0 +1,472 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * Compact encoding of a journal (GraphJ v2).
+ * </p>
+ * <p>
+ * A v2 journal starts with {@link #MAGIC}, which is a negative int and can
+ * therefore never be the opcode length of a v1 journal, followed by a
+ * flags byte. The body consists of the number of opcodes and arguments
+ * and the operations, each being its opcode followed by its arguments:
+ * </p>
+ * <ul>
+ * <li>All numbers are unsigned LEB128 varints.</li>
+ * <li>Arguments are zig-zag encoded deltas: node ids relative to the
+ * previous node id, cluster ids relative to the previous cluster id.
+ * Therefore, both endpoints of an edge and the nodes of consecutive
+ * operations mostly take a single byte.</li>
+ * <li>A run of NEXT_STEP operations is stored as a single opcode followed
+ * by the length of the run.</li>
+ * </ul>
+ * <p>
+ * If {@link #FLAG_DEFLATE} is set, the body is split into blocks which are
+ * compressed independently (see {@link DeflaterBlockOutputStream}).
+ * </p>
+ * <p>
+ * Each journal is self-contained, so a v2 graph journal and a v2
+ * clustering journal are written one after another just like in a v1
+ * file, and readers can detect the version per journal.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public final class CompactJournalCodec
+{
+	/**
+	 * "\x89GJ2"
+	 */
+	public static final int MAGIC = 0x89474A32;
+
+	public static final int FLAG_DEFLATE = 1;
+
+	private static final byte NODE = 0;
+	private static final byte CLUSTER = 1;
+
+	/**
+	 * The meaning of the arguments of the opcodes of a journal.
+	 */
+	public static enum Layout
+	{
+		GRAPH(GraphOperation.OpType.NextStep.opcode, new byte[][] { //
+			null, //
+				{ CLUSTER, CLUSTER }, // CreateNode
+				{ NODE }, // RemoveNode
+				{ NODE, NODE }, // CreateEdge
+				{ NODE, NODE }, // RemoveEdge
+				{ NODE, CLUSTER }, // SetCluster
+				{ NODE, CLUSTER }, // SetRefCluster
+				{} // NextStep
+			}), //
+		CLUSTERING(ClusteringOperation.OpType.NextStep.opcode, new byte[][] { //
+			{}, // NextStep
+				{ CLUSTER, CLUSTER, CLUSTER }, // Merge
+				{ CLUSTER, CLUSTER, CLUSTER }, // Split
+				{ CLUSTER, CLUSTER, CLUSTER }, // MergeDone
+				{ CLUSTER, CLUSTER, CLUSTER } // SplitDone
+			});
+
+		final byte nextStep;
+		// argument kinds by opcode, null for invalid opcodes
+		final byte[][] kinds;
+
+		private Layout(final byte nextStep, final byte[][] kinds)
+		{
+			this.nextStep = nextStep;
+			this.kinds = kinds;
+		}
+
+		byte[] getKinds(final byte opCode)
+		{
+			if (opCode < 0 || opCode >= this.kinds.length)
+			{
+				return null;
+			}
+			return this.kinds[opCode];
+		}
+
+		/**
+		 * Returns the number of arguments of the given opcode.
+		 *
+		 * @throws IllegalStateException
+		 *             if the opcode is invalid
+		 */
+		int getArgumentCount(final byte opCode)
+		{
+			final byte[] opKinds = this.getKinds(opCode);
+			if (null == opKinds)
+			{
+				throw new IllegalStateException("Invalid opcode: " + opCode);
+			}
+			return opKinds.length;
+		}
+	}
+
+	private CompactJournalCodec()
+	{
+		// utility class -> hidden constructor
+	}
+
+	/**
+	 * Writes the graph journal in the compact format. If the journal is
+	 * spilling, the remaining operations are spilled, too, and the spill is
+	 * encoded and deleted afterwards.
+	 *
+	 * @param journal
+	 *            the journal
+	 * @param out
+	 *            the target, which is neither flushed nor closed
+	 * @param deflate
+	 *            whether the body is compressed
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void write(final GraphJournal journal, final OutputStream out,
+		final boolean deflate) throws IOException
+	{
+		if (journal.isSpilling())
+		{
+			journal.spill();
+		}
+		write(journal.opCodes, journal.arguments, journal.getSpill(), Layout.GRAPH, out, deflate);
+	}
+
+	/**
+	 * Writes the clustering journal in the compact format.
+	 *
+	 * @see #write(GraphJournal, OutputStream, boolean)
+	 */
+	public static void write(final ClusteringJournal journal, final OutputStream out,
+		final boolean deflate) throws IOException
+	{
+		if (journal.isSpilling())
+		{
+			journal.spill();
+		}
+		write(journal.opCodes, journal.intArgs, journal.getSpill(), Layout.CLUSTERING, out,
+			deflate);
+	}
+
+	/**
+	 * Reads a compact journal into the given lists. The magic number must
+	 * already have been consumed. Exactly the bytes of the journal are
+	 * consumed if the input does not read ahead.
+	 *
+	 * @param in
+	 *            the source
+	 * @param opCodes
+	 *            the target of the opcodes
+	 * @param arguments
+	 *            the target of the arguments
+	 * @param layout
+	 *            the type of the journal
+	 * @throws IOException
+	 *             if reading fails or the journal is corrupt
+	 */
+	public static void read(final InputStream in, final ByteChunkList opCodes,
+		final IntChunkList arguments, final Layout layout) throws IOException
+	{
+		final int flags = in.read();
+		if (flags < 0)
+		{
+			throw new EOFException("Unexpected end of journal.");
+		}
+
+		if ((flags & FLAG_DEFLATE) != 0)
+		{
+			final InflaterBlockInputStream body = new InflaterBlockInputStream(in);
+			new Decoder(body, layout).decode(opCodes, arguments);
+			body.finish();
+		}
+		else
+		{
+			new Decoder(in, layout).decode(opCodes, arguments);
+		}
+	}
+
+	/**
+	 * Writes the operations in the given range as a compact journal.
+	 *
+	 * @param opFrom
+	 *            the index of the first opcode (inclusive)
+	 * @param opTo
+	 *            the index of the last opcode (exclusive)
+	 * @param argFrom
+	 *            the index of the first argument of the range
+	 */
+	static void writeRange(final ByteChunkList opCodes, final IntChunkList arguments,
+		final int opFrom, final int opTo, final int argFrom, final int argTo,
+		final Layout layout, final OutputStream out, final boolean deflate) throws IOException
+	{
+		final DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(deflate ? FLAG_DEFLATE : 0);
+
+		final DeflaterBlockOutputStream deflater = deflate ? new DeflaterBlockOutputStream(out)
+			: null;
+		final Encoder encoder = new Encoder(deflate ? deflater : out, layout);
+		encoder.begin(opTo - opFrom, argTo - argFrom);
+		encoder.encode(opCodes, arguments, opFrom, opTo, argFrom);
+		encoder.finish();
+
+		if (deflate)
+		{
+			deflater.finish();
+		}
+	}
+
+	private static void write(final ByteChunkList opCodes, final IntChunkList arguments,
+		final JournalSpill spill, final Layout layout, final OutputStream out,
+		final boolean deflate) throws IOException
+	{
+		if (null == spill)
+		{
+			writeRange(opCodes, arguments, 0, opCodes.size(), 0, arguments.size(), layout, out,
+				deflate);
+			return;
+		}
+
+		final DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(deflate ? FLAG_DEFLATE : 0);
+
+		final DeflaterBlockOutputStream deflater = deflate ? new DeflaterBlockOutputStream(out)
+			: null;
+		final Encoder encoder = new Encoder(deflate ? deflater : out, layout);
+		// the in-memory lists are empty after spilling
+		encoder.begin(spill.getOpCodeCount(), spill.getArgumentCount());
+		spill.replay(layout, encoder);
+		encoder.finish();
+
+		if (deflate)
+		{
+			deflater.finish();
+		}
+	}
+
+	/*
+	 * Stateful encoder, so that a journal can be encoded in segments.
+	 */
+	static final class Encoder implements JournalSpill.SegmentConsumer
+	{
+		private static final int BUFFER_SIZE = 1 << 13;
+		// maximum number of bytes of an operation: opcode + 3 varints
+		private static final int MAX_OPERATION_SIZE = 16;
+
+		private final OutputStream out;
+		private final Layout layout;
+		private final byte[] buffer;
+		private int position;
+
+		private final int[] last;
+		private int pendingSteps;
+
+		Encoder(final OutputStream out, final Layout layout)
+		{
+			this.out = out;
+			this.layout = layout;
+			this.buffer = new byte[BUFFER_SIZE];
+			this.position = 0;
+			this.last = new int[2];
+			this.pendingSteps = 0;
+		}
+
+		void begin(final long opCount, final long argCount) throws IOException
+		{
+			assert opCount <= Integer.MAX_VALUE && argCount <= Integer.MAX_VALUE;
+
+			this.putVarint((int) opCount);
+			this.putVarint((int) argCount);
+		}
+
+		@Override
+		public void accept(final ByteChunkList opCodes, final IntChunkList arguments)
+			throws IOException
+		{
+			this.encode(opCodes, arguments, 0, opCodes.size(), 0);
+		}
+
+		void encode(final ByteChunkList opCodes, final IntChunkList arguments, final int opFrom,
+			final int opTo, final int argFrom) throws IOException
+		{
+			int argIndex = argFrom;
+			for (int i = opFrom; i < opTo; ++i)
+			{
+				final byte opCode = opCodes.get(i);
+				if (opCode == this.layout.nextStep)
+				{
+					++this.pendingSteps;
+					continue;
+				}
+
+				this.flushSteps();
+				final byte[] kinds = this.getKinds(opCode);
+				this.ensureSpace();
+				this.buffer[this.position++] = opCode;
+				for (final byte kind : kinds)
+				{
+					final int value = arguments.get(argIndex++);
+					this.putVarint(zigZag(value - this.last[kind]));
+					this.last[kind] = value;
+				}
+			}
+		}
+
+		void finish() throws IOException
+		{
+			this.flushSteps();
+			this.out.write(this.buffer, 0, this.position);
+			this.position = 0;
+		}
+
+		private byte[] getKinds(final byte opCode)
+		{
+			final byte[] kinds = this.layout.getKinds(opCode);
+			if (null == kinds)
+			{
+				throw new IllegalStateException("Invalid opcode: " + opCode);
+			}
+			return kinds;
+		}
+
+		private void flushSteps() throws IOException
+		{
+			if (this.pendingSteps > 0)
+			{
+				this.ensureSpace();
+				this.buffer[this.position++] = this.layout.nextStep;
+				this.putVarint(this.pendingSteps);
+				this.pendingSteps = 0;
+			}
+		}
+
+		private void ensureSpace() throws IOException
+		{
+			if (this.position > BUFFER_SIZE - MAX_OPERATION_SIZE)
+			{
+				this.out.write(this.buffer, 0, this.position);
+				this.position = 0;
+			}
+		}
+
+		private void putVarint(final int value) throws IOException
+		{
+			this.ensureSpace();
+			int remaining = value;
+			while ((remaining & ~0x7F) != 0)
+			{
+				this.buffer[this.position++] = (byte) ((remaining & 0x7F) | 0x80);
+				remaining >>>= 7;
+			}
+			this.buffer[this.position++] = (byte) remaining;
+		}
+	}
+
+	private static final class Decoder
+	{
+		private final InputStream in;
+		private final Layout layout;
+		private final int[] last;
+
+		Decoder(final InputStream in, final Layout layout)
+		{
+			this.in = in;
+			this.layout = layout;
+			this.last = new int[2];
+		}
+
+		void decode(final ByteChunkList opCodes, final IntChunkList arguments)
+			throws IOException
+		{
+			final int opCount = this.getVarint();
+			final int argCount = this.getVarint();
+			if (opCount < 0 || argCount < 0)
+			{
+				throw new IOException("Invalid journal header.");
+			}
+
+			final int argStart = arguments.size();
+			int decoded = 0;
+			while (decoded < opCount)
+			{
+				final byte opCode = this.getByte();
+				if (opCode == this.layout.nextStep)
+				{
+					final int run = this.getVarint();
+					if (run <= 0 || run > opCount - decoded)
+					{
+						throw new IOException("Invalid run length: " + run);
+					}
+					for (int i = 0; i < run; ++i)
+					{
+						opCodes.add(opCode);
+					}
+					decoded += run;
+					continue;
+				}
+
+				final byte[] kinds = this.layout.getKinds(opCode);
+				if (null == kinds)
+				{
+					throw new IOException("Invalid opcode: " + opCode);
+				}
+				opCodes.add(opCode);
+				for (final byte kind : kinds)
+				{
+					final int value = this.last[kind] + unZigZag(this.getVarint());
+					arguments.add(value);
+					this.last[kind] = value;
+				}
+				++decoded;
+			}
+
+			if (arguments.size() - argStart != argCount)
+			{
+				throw new IOException("Journal contains " + (arguments.size() - argStart)
+					+ " instead of " + argCount + " arguments.");
+			}
+		}
+
+		private byte getByte() throws IOException
+		{
+			final int result = this.in.read();
+			if (result < 0)
+			{
+				throw new EOFException("Unexpected end of journal.");
+			}
+			return (byte) result;
+		}
+
+		private int getVarint() throws IOException
+		{
+			int result = 0;
+			for (int shift = 0; shift < 35; shift += 7)
+			{
+				final byte b = this.getByte();
+				result |= (b & 0x7F) << shift;
+				if (b >= 0)
+				{
+					return result;
+				}
+			}
+			throw new IOException("Malformed varint.");
+		}
+	}
+
+	static int zigZag(final int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unZigZag(final int value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
@@ -0,0 +1,127 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * Output stream which compresses its data in independent Deflate blocks.
+ * </p>
+ * <p>
+ * Each block is stored as its uncompressed length, its compressed length
+ * (both ints) and the compressed bytes. A block with uncompressed length 0
+ * terminates the sequence. As the lengths are known in advance, the reader
+ * never consumes bytes behind the terminator, so that further data can
+ * follow in the same file.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+class DeflaterBlockOutputStream extends OutputStream
+{
+	static final int BLOCK_SIZE = 1 << 20;
+
+	private final DataOutputStream out;
+	private final Deflater deflater;
+	private final byte[] block;
+	private byte[] compressed;
+	private int position;
+	private boolean finished;
+
+	/**
+	 * @param out
+	 *            the target, which is neither flushed nor closed
+	 */
+	DeflaterBlockOutputStream(final OutputStream out)
+	{
+		this.out = new DataOutputStream(out);
+		this.deflater = new Deflater(Deflater.BEST_SPEED);
+		this.block = new byte[BLOCK_SIZE];
+		this.compressed = new byte[BLOCK_SIZE];
+		this.position = 0;
+		this.finished = false;
+	}
+
+	@Override
+	public void write(final int b) throws IOException
+	{
+		if (this.position == BLOCK_SIZE)
+		{
+			this.writeBlock();
+		}
+		this.block[this.position++] = (byte) b;
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException
+	{
+		int offset = off;
+		int remaining = len;
+		while (remaining > 0)
+		{
+			if (this.position == BLOCK_SIZE)
+			{
+				this.writeBlock();
+			}
+			final int length = Math.min(remaining, BLOCK_SIZE - this.position);
+			System.arraycopy(b, offset, this.block, this.position, length);
+			this.position += length;
+			offset += length;
+			remaining -= length;
+		}
+	}
+
+	/**
+	 * Writes the pending block and the terminator. The underlying stream is
+	 * not closed.
+	 */
+	void finish() throws IOException
+	{
+		if (this.finished)
+		{
+			return;
+		}
+
+		if (this.position > 0)
+		{
+			this.writeBlock();
+		}
+		this.out.writeInt(0);
+		this.deflater.end();
+		this.finished = true;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.finish();
+	}
+
+	private void writeBlock() throws IOException
+	{
+		this.deflater.reset();
+		this.deflater.setInput(this.block, 0, this.position);
+		this.deflater.finish();
+
+		int length = 0;
+		while (!this.deflater.finished())
+		{
+			if (length == this.compressed.length)
+			{
+				// incompressible data
+				final byte[] larger = new byte[this.compressed.length << 1];
+				System.arraycopy(this.compressed, 0, larger, 0, length);
+				this.compressed = larger;
+			}
+			length += this.deflater.deflate(this.compressed, length, this.compressed.length
+				- length);
+		}
+
+		this.out.writeInt(this.position);
+		this.out.writeInt(length);
+		this.out.write(this.compressed, 0, length);
+		this.position = 0;
+	}
+}
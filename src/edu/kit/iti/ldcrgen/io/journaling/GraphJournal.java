@@ -1,6 +1,6 @@
 package edu.kit.iti.ldcrgen.io.journaling;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Iterator;
 
 import edu.kit.iti.ldcrgen.io.journaling.GraphOperation.OpType;
@@ -8,14 +8,22 @@ import edu.kit.iti.ldcrgen.io.journaling.GraphOperation.OpType;
 public class GraphJournal implements Iterable<GraphOperation>
 {
 
-	public ArrayList<Byte> opCodes;
-	public ArrayList<Integer> arguments;
+	public final ByteChunkList opCodes;
+	public final IntChunkList arguments;
+
+	private JournalSpill spill;
+	private int spillThreshold;
+
+	private NetDeltaCompactor compactor;
+	// position of the first operation which has not been compacted yet
+	private int compactedOps;
+	private int compactedArgs;
 
 
 	public GraphJournal()
 	{
-		this.opCodes = new ArrayList<Byte>();
-		this.arguments = new ArrayList<Integer>();
+		this.opCodes = new ByteChunkList();
+		this.arguments = new IntChunkList();
 	}
 
 	// write
@@ -62,8 +70,137 @@ public class GraphJournal implements Iterable<GraphOperation>
 	}
 
 	public void nextStepOp()
+	{
+		this.compactCurrentStep();
+		this.spillIfNecessary();
+		this.opCodes.add(OpType.NextStep.getOpCode());
+		this.compactedOps = this.opCodes.size();
+		this.compactedArgs = this.arguments.size();
+	}
+
+	/**
+	 * Ends the current time step like {@link #nextStepOp()}, but neither
+	 * compacts nor spills its operations. Their node ids have to be the
+	 * ids of the journal already, as in the prologue of a segment file.
+	 */
+	public void nextStepOpVerbatim()
 	{
 		this.opCodes.add(OpType.NextStep.getOpCode());
+		this.compactedOps = this.opCodes.size();
+		this.compactedArgs = this.arguments.size();
+	}
+
+	/**
+	 * Enables the net delta compaction: Whenever a time step is completed,
+	 * its operations are reduced to their net effect (see
+	 * {@link NetDeltaCompactor}). This changes the node ids of the journal,
+	 * not the ones which are passed to the journal.
+	 *
+	 * @param compactor
+	 *            the compactor, which also collects the statistics
+	 * @throws IllegalStateException
+	 *             if the journal is not empty
+	 */
+	public void enableNetDeltaCompaction(final NetDeltaCompactor compactor)
+	{
+		if (this.opCodes.size() > 0 || (null != this.spill && this.spill.getOpCodeCount() > 0))
+		{
+			throw new IllegalStateException("Compaction must be enabled on an empty journal.");
+		}
+		this.compactor = compactor;
+	}
+
+	public NetDeltaCompactor getNetDeltaCompactor()
+	{
+		return this.compactor;
+	}
+
+	/**
+	 * Compacts the operations since the last NEXT_STEP if net delta
+	 * compaction is enabled. This happens automatically at the end of each
+	 * time step; the last time step has to be compacted explicitly before
+	 * the journal is written.
+	 */
+	public void compactCurrentStep()
+	{
+		if (null != this.compactor)
+		{
+			this.compactor.compactTail(this.opCodes, this.arguments, this.compactedOps,
+				this.compactedArgs);
+			this.compactedOps = this.opCodes.size();
+			this.compactedArgs = this.arguments.size();
+		}
+	}
+
+	/**
+	 * Enables the bounded-memory mode: Whenever a time step is completed
+	 * and at least the given number of opcodes is stored in memory, all
+	 * stored operations are moved to the given spill.
+	 *
+	 * The iterator of this journal only covers the operations which have
+	 * not been spilled yet.
+	 *
+	 * @param spill
+	 *            the target of the completed segments
+	 * @param threshold
+	 *            the minimum number of opcodes which triggers spilling
+	 */
+	public void enableSpilling(final JournalSpill spill, final int threshold)
+	{
+		this.spill = spill;
+		this.spillThreshold = threshold;
+	}
+
+	public boolean isSpilling()
+	{
+		return null != this.spill;
+	}
+
+	public JournalSpill getSpill()
+	{
+		return this.spill;
+	}
+
+	/**
+	 * Moves all operations which are stored in memory to the spill.
+	 *
+	 * @throws IOException
+	 *             if writing to the spill fails
+	 */
+	public void spill() throws IOException
+	{
+		this.spill.append(this.opCodes, this.arguments);
+		this.opCodes.clear();
+		this.arguments.clear();
+		this.compactedOps = 0;
+		this.compactedArgs = 0;
+	}
+
+	/**
+	 * Removes all operations which are stored in memory, e.g. after they
+	 * have been written to a segment file.
+	 */
+	public void clear()
+	{
+		this.opCodes.clear();
+		this.arguments.clear();
+		this.compactedOps = 0;
+		this.compactedArgs = 0;
+	}
+
+	private void spillIfNecessary()
+	{
+		if (null != this.spill && this.opCodes.size() >= this.spillThreshold)
+		{
+			try
+			{
+				this.spill();
+			}
+			catch (final IOException ex)
+			{
+				throw new IllegalStateException("Spilling the journal failed.", ex);
+			}
+		}
 	}
 
 
@@ -77,8 +214,8 @@ public class GraphJournal implements Iterable<GraphOperation>
 
 			int opIndex;
 			int argIndex;
-			ArrayList<Byte> opCodes;
-			ArrayList<Integer> arguments;
+			ByteChunkList opCodes;
+			IntChunkList arguments;
 
 			public JournalIterator(final GraphJournal journal)
 			{
@@ -4,22 +4,33 @@ public class GraphOperation
 {
 	public static enum OpType
 	{
-		CreateNode(1, "CREATE_NODE", "Arg0: cluster C, Arg1: cluster Cref"), //
-		RemoveNode(2, "REMOVE_NODE", "Arg0: node index"), //
-		CreateEdge(3, "CREATE_EDGE", "Arg0: node u; Arg1: node v"),  //
-		RemoveEdge(4, "REMOVE_EDGE", "Arg0: node u; Arg1: node v"), //
-		SetCluster(5, "SET_CLUSTER", "Arg0: node u; Arg1: cluster C"),
-		SetRefCluster(6, "SET_REF_CLUSTER", "Arg0: node u; Arg1: cluster C"), //
-		NextStep(7, "NEXT_STEP", "");
-
+		CreateNode(1, 2, "CREATE_NODE", "Arg0: cluster C, Arg1: cluster Cref"), //
+		RemoveNode(2, 1, "REMOVE_NODE", "Arg0: node index"), //
+		CreateEdge(3, 2, "CREATE_EDGE", "Arg0: node u; Arg1: node v"),  //
+		RemoveEdge(4, 2, "REMOVE_EDGE", "Arg0: node u; Arg1: node v"), //
+		SetCluster(5, 2, "SET_CLUSTER", "Arg0: node u; Arg1: cluster C"),
+		SetRefCluster(6, 2, "SET_REF_CLUSTER", "Arg0: node u; Arg1: cluster C"), //
+		NextStep(7, 0, "NEXT_STEP", "");
+
+		private static final OpType[] BY_OPCODE = new OpType[8];
+		static
+		{
+			for (final OpType type : values())
+			{
+				BY_OPCODE[type.opcode] = type;
+			}
+		}
 
 		public final byte opcode;
+		public final int argumentCount;
 		public final String label;
 		public final String documentation;
 
-		private OpType(final int opcode, final String label, final String documentation)
+		private OpType(final int opcode, final int argumentCount, final String label,
+			final String documentation)
 		{
 			this.opcode = (byte) opcode;
+			this.argumentCount = argumentCount;
 			this.label = label;
 			this.documentation = documentation;
 		}
@@ -29,6 +40,22 @@ public class GraphOperation
 			return this.opcode;
 		}
 
+		/**
+		 * Returns the type with the given opcode.
+		 *
+		 * @param opcode
+		 *            the opcode as stored in the journal
+		 * @return the type or <code>null</code> if the opcode is invalid
+		 */
+		public static OpType forOpCode(final byte opcode)
+		{
+			if (opcode < 0 || opcode >= BY_OPCODE.length)
+			{
+				return null;
+			}
+			return BY_OPCODE[opcode];
+		}
+
 		@Override
 		public String toString()
 		{
@@ -87,7 +114,7 @@ public class GraphOperation
 
 	public static GraphOperation newSetRefClusterOp(final int arg0, final int arg1)
 	{
-		return new GraphOperation(OpType.SetRefCluster, arg0);
+		return new GraphOperation(OpType.SetRefCluster, arg0, arg1);
 	}
 
 	public static GraphOperation newNextStepOp()
@@ -0,0 +1,142 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream which decompresses the blocks written by
+ * {@link DeflaterBlockOutputStream}.
+ *
+ * @author Roland Kluge
+ */
+class InflaterBlockInputStream extends InputStream
+{
+	// guards against allocating huge buffers for corrupt files
+	private static final int MAX_BLOCK_SIZE = DeflaterBlockOutputStream.BLOCK_SIZE << 4;
+
+	private final DataInputStream in;
+	private final Inflater inflater;
+	private byte[] block;
+	private byte[] compressed;
+	private int position;
+	private int limit;
+	private boolean endOfBlocks;
+
+	InflaterBlockInputStream(final InputStream in)
+	{
+		this.in = new DataInputStream(in);
+		this.inflater = new Inflater();
+		this.block = new byte[0];
+		this.compressed = new byte[0];
+		this.position = 0;
+		this.limit = 0;
+		this.endOfBlocks = false;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (this.position == this.limit && !this.readBlock())
+		{
+			return -1;
+		}
+		return this.block[this.position++] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException
+	{
+		if (0 == len)
+		{
+			return 0;
+		}
+		if (this.position == this.limit && !this.readBlock())
+		{
+			return -1;
+		}
+		final int length = Math.min(len, this.limit - this.position);
+		System.arraycopy(this.block, this.position, b, off, length);
+		this.position += length;
+		return length;
+	}
+
+	/**
+	 * Consumes the terminator and releases the inflater.
+	 *
+	 * @throws IOException
+	 *             if there is unread data before the terminator
+	 */
+	void finish() throws IOException
+	{
+		if (this.position != this.limit || this.readBlock())
+		{
+			throw new IOException("Unexpected data at the end of the compressed journal.");
+		}
+		this.inflater.end();
+	}
+
+	/*
+	 * Returns false if the terminator has been reached.
+	 */
+	private boolean readBlock() throws IOException
+	{
+		if (this.endOfBlocks)
+		{
+			return false;
+		}
+
+		final int blockLength = this.in.readInt();
+		if (0 == blockLength)
+		{
+			this.endOfBlocks = true;
+			return false;
+		}
+		final int compressedLength = this.in.readInt();
+		if (blockLength < 0 || blockLength > MAX_BLOCK_SIZE || compressedLength <= 0)
+		{
+			throw new IOException("Invalid block header.");
+		}
+
+		if (this.compressed.length < compressedLength)
+		{
+			this.compressed = new byte[compressedLength];
+		}
+		this.in.readFully(this.compressed, 0, compressedLength);
+		if (this.block.length < blockLength)
+		{
+			this.block = new byte[blockLength];
+		}
+
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, compressedLength);
+		try
+		{
+			int length = 0;
+			while (length < blockLength && !this.inflater.finished())
+			{
+				final int inflated = this.inflater.inflate(this.block, length, blockLength - length);
+				if (0 == inflated
+					&& (this.inflater.needsInput() || this.inflater.needsDictionary()))
+				{
+					break;
+				}
+				length += inflated;
+			}
+			if (length != blockLength)
+			{
+				throw new IOException("Block is shorter than announced.");
+			}
+		}
+		catch (final DataFormatException ex)
+		{
+			throw new IOException("Corrupt compressed block: " + ex.getMessage());
+		}
+
+		this.position = 0;
+		this.limit = blockLength;
+		return true;
+	}
+}
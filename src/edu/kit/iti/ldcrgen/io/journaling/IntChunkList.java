@@ -0,0 +1,310 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Growable list of ints which is stored in chunks of fixed size.
+ * </p>
+ * <p>
+ * The int counterpart of {@link ByteChunkList}. When written or read,
+ * each chunk is converted to its big-endian byte representation at once
+ * so that the stream is accessed once per chunk instead of once per
+ * element. The byte format is the same as the one of
+ * {@link DataOutput#writeInt(int)}.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class IntChunkList
+{
+	static final int CHUNK_BITS = 14;
+	static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int INITIAL_CHUNK_SLOTS = 4;
+
+	private int[][] chunks;
+	private int size;
+
+	public IntChunkList()
+	{
+		this.chunks = new int[INITIAL_CHUNK_SLOTS][];
+		this.size = 0;
+	}
+
+	public void add(final int value)
+	{
+		if ((this.size & CHUNK_MASK) == 0)
+		{
+			this.allocateChunk();
+		}
+		this.chunks[this.size >>> CHUNK_BITS][this.size & CHUNK_MASK] = value;
+		++this.size;
+	}
+
+	public int get(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + " size: " + this.size);
+		}
+		return this.chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Appends all elements of the given list.
+	 *
+	 * @param other
+	 *            the source, which must not be this list
+	 */
+	public void addAll(final IntChunkList other)
+	{
+		this.addAll(other, 0, other.size);
+	}
+
+	/**
+	 * Appends the elements of the given list in the given range.
+	 *
+	 * @param other
+	 *            the source, which must not be this list
+	 * @param from
+	 *            the first index (inclusive)
+	 * @param to
+	 *            the last index (exclusive)
+	 */
+	public void addAll(final IntChunkList other, final int from, final int to)
+	{
+		if (from < 0 || to > other.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("Invalid range: " + from + " to " + to);
+		}
+		assert other != this;
+
+		int copied = from;
+		while (copied < to)
+		{
+			if ((this.size & CHUNK_MASK) == 0)
+			{
+				this.allocateChunk();
+			}
+			final int sourceOffset = copied & CHUNK_MASK;
+			final int targetOffset = this.size & CHUNK_MASK;
+			final int length = Math.min(to - copied,
+				Math.min(CHUNK_SIZE - sourceOffset, CHUNK_SIZE - targetOffset));
+			System.arraycopy(other.chunks[copied >>> CHUNK_BITS], sourceOffset,
+				this.chunks[this.size >>> CHUNK_BITS], targetOffset, length);
+			copied += length;
+			this.size += length;
+		}
+	}
+
+	/**
+	 * Removes all elements from the given index on and releases the chunks
+	 * which are no longer used.
+	 *
+	 * @param newSize
+	 *            the new size, which must not exceed the current one
+	 */
+	public void truncate(final int newSize)
+	{
+		if (newSize < 0 || newSize > this.size)
+		{
+			throw new IndexOutOfBoundsException("Invalid size: " + newSize + " size: "
+				+ this.size);
+		}
+
+		final int usedChunks = (newSize + CHUNK_MASK) >>> CHUNK_BITS;
+		for (int chunk = usedChunks; chunk < this.chunks.length && null != this.chunks[chunk];
+			++chunk)
+		{
+			this.chunks[chunk] = null;
+		}
+		this.size = newSize;
+	}
+
+	/**
+	 * Removes all elements and releases the chunks.
+	 */
+	public void clear()
+	{
+		this.chunks = new int[INITIAL_CHUNK_SLOTS][];
+		this.size = 0;
+	}
+
+	/**
+	 * Writes all elements in order, four big-endian bytes each.
+	 *
+	 * @param out
+	 *            the target
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(final DataOutput out) throws IOException
+	{
+		final byte[] buffer = new byte[CHUNK_SIZE << 2];
+		for (int c = 0; c * CHUNK_SIZE < this.size; ++c)
+		{
+			final int[] chunk = this.chunks[c];
+			final int length = Math.min(CHUNK_SIZE, this.size - c * CHUNK_SIZE);
+			for (int i = 0, b = 0; i < length; ++i, b += 4)
+			{
+				final int value = chunk[i];
+				buffer[b] = (byte) (value >>> 24);
+				buffer[b + 1] = (byte) (value >>> 16);
+				buffer[b + 2] = (byte) (value >>> 8);
+				buffer[b + 3] = (byte) value;
+			}
+			out.write(buffer, 0, length << 2);
+		}
+	}
+
+	/**
+	 * Writes all elements in order to the channel, four big-endian bytes
+	 * each. The chunks are copied into the given buffer by means of an
+	 * int view, whose content is overwritten.
+	 *
+	 * @param channel
+	 *            the target
+	 * @param buffer
+	 *            the transfer buffer, preferably a direct one. Its
+	 *            capacity has to be a multiple of 4.
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(final WritableByteChannel channel, final ByteBuffer buffer)
+		throws IOException
+	{
+		assert buffer.capacity() % 4 == 0 && buffer.capacity() > 0;
+
+		buffer.clear();
+		final IntBuffer view = buffer.asIntBuffer();
+		int written = 0;
+		while (written < this.size)
+		{
+			view.clear();
+			while (view.hasRemaining() && written < this.size)
+			{
+				final int offset = written & CHUNK_MASK;
+				final int length = Math.min(view.remaining(),
+					Math.min(CHUNK_SIZE - offset, this.size - written));
+				view.put(this.chunks[written >>> CHUNK_BITS], offset, length);
+				written += length;
+			}
+			buffer.clear();
+			buffer.limit(view.position() << 2);
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Appends the given number of ints which are read from the channel.
+	 * The ints are copied out of the given buffer by means of an int view,
+	 * whose content is overwritten.
+	 *
+	 * @param channel
+	 *            the source
+	 * @param buffer
+	 *            the transfer buffer, preferably a direct one. Its
+	 *            capacity has to be a multiple of 4.
+	 * @param count
+	 *            the number of ints to be read
+	 * @throws IOException
+	 *             if reading fails or the channel ends prematurely
+	 */
+	public void readFrom(final ReadableByteChannel channel, final ByteBuffer buffer,
+		final int count) throws IOException
+	{
+		assert buffer.capacity() % 4 == 0 && buffer.capacity() > 0;
+
+		buffer.clear();
+		final IntBuffer view = buffer.asIntBuffer();
+		int remaining = count;
+		while (remaining > 0)
+		{
+			final int ints = Math.min(view.capacity(), remaining);
+			buffer.clear();
+			buffer.limit(ints << 2);
+			ChannelUtils.readFully(channel, buffer);
+
+			view.clear();
+			view.limit(ints);
+			while (view.hasRemaining())
+			{
+				if ((this.size & CHUNK_MASK) == 0)
+				{
+					this.allocateChunk();
+				}
+				final int offset = this.size & CHUNK_MASK;
+				final int length = Math.min(view.remaining(), CHUNK_SIZE - offset);
+				view.get(this.chunks[this.size >>> CHUNK_BITS], offset, length);
+				this.size += length;
+			}
+			remaining -= ints;
+		}
+	}
+
+	/**
+	 * Appends the given number of ints which are read from the input.
+	 *
+	 * @param in
+	 *            the source
+	 * @param count
+	 *            the number of ints to be read
+	 * @throws IOException
+	 *             if reading fails
+	 */
+	public void readFrom(final DataInput in, final int count) throws IOException
+	{
+		final byte[] buffer = new byte[CHUNK_SIZE << 2];
+		int remaining = count;
+		while (remaining > 0)
+		{
+			if ((this.size & CHUNK_MASK) == 0)
+			{
+				this.allocateChunk();
+			}
+			final int[] chunk = this.chunks[this.size >>> CHUNK_BITS];
+			final int offset = this.size & CHUNK_MASK;
+			final int length = Math.min(remaining, CHUNK_SIZE - offset);
+			in.readFully(buffer, 0, length << 2);
+			for (int i = 0, b = 0; i < length; ++i, b += 4)
+			{
+				chunk[offset + i] = ((buffer[b] & 0xFF) << 24) | ((buffer[b + 1] & 0xFF) << 16)
+					| ((buffer[b + 2] & 0xFF) << 8) | (buffer[b + 3] & 0xFF);
+			}
+			this.size += length;
+			remaining -= length;
+		}
+	}
+
+	private void allocateChunk()
+	{
+		if (this.size == Integer.MAX_VALUE - CHUNK_MASK)
+		{
+			throw new IllegalStateException("List exceeds maximum size.");
+		}
+
+		final int chunk = this.size >>> CHUNK_BITS;
+		if (chunk == this.chunks.length)
+		{
+			final int[][] newChunks = new int[this.chunks.length << 1][];
+			System.arraycopy(this.chunks, 0, newChunks, 0, this.chunks.length);
+			this.chunks = newChunks;
+		}
+		this.chunks[chunk] = new int[CHUNK_SIZE];
+	}
+}
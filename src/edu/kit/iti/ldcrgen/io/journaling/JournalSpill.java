@@ -0,0 +1,315 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.kit.iti.ldcrgen.util.AsyncChannelOutputStream;
+
+/**
+ * <p>
+ * Temporary on-disk storage for the completed segments of a journal.
+ * </p>
+ * <p>
+ * A journal file stores all opcodes before all arguments. Therefore, the
+ * opcodes and the arguments of the spilled segments are appended to two
+ * separate temporary files. When the journal is finally written, the
+ * header is written with the total lengths and both files are copied
+ * behind it - so the result is exactly the file which would have been
+ * written from memory.
+ * </p>
+ * <p>
+ * The temporary files may be written on background threads so that the
+ * generation does not wait for the disk.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class JournalSpill
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+	// opcodes per segment when reading the spill back
+	private static final int SEGMENT_SIZE = 1 << 16;
+
+	private final File opCodeFile;
+	private final File argumentFile;
+	private DataOutputStream opCodeStream;
+	private DataOutputStream argumentStream;
+
+	private long opCodeCount;
+	private long argumentCount;
+
+	/**
+	 * Creates the temporary files in the given directory.
+	 *
+	 * @param directory
+	 *            the directory for the temporary files, the default
+	 *            temporary directory is used if it is <code>null</code>
+	 * @param prefix
+	 *            the prefix of the names of the temporary files
+	 * @param asynchronous
+	 *            whether the files are written on background threads
+	 * @throws IOException
+	 *             if the files cannot be created
+	 */
+	public JournalSpill(final File directory, final String prefix, final boolean asynchronous)
+		throws IOException
+	{
+		this.opCodeFile = File.createTempFile(prefix, ".ops", directory);
+		this.opCodeFile.deleteOnExit();
+		this.argumentFile = File.createTempFile(prefix, ".args", directory);
+		this.argumentFile.deleteOnExit();
+
+		this.opCodeStream = new DataOutputStream(openStream(this.opCodeFile, asynchronous));
+		this.argumentStream = new DataOutputStream(openStream(this.argumentFile, asynchronous));
+
+		this.opCodeCount = 0;
+		this.argumentCount = 0;
+	}
+
+	/**
+	 * Appends the given segment.
+	 *
+	 * @param opCodes
+	 *            the opcodes of the segment
+	 * @param arguments
+	 *            the arguments of the segment
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	void append(final ByteChunkList opCodes, final IntChunkList arguments) throws IOException
+	{
+		if (null == this.opCodeStream)
+		{
+			throw new IllegalStateException("Spill has already been transferred.");
+		}
+		if (this.opCodeCount + opCodes.size() > Integer.MAX_VALUE
+			|| this.argumentCount + arguments.size() > Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("Journal exceeds the maximum length of the file format.");
+		}
+
+		opCodes.writeTo(this.opCodeStream);
+		arguments.writeTo(this.argumentStream);
+
+		this.opCodeCount += opCodes.size();
+		this.argumentCount += arguments.size();
+	}
+
+	/**
+	 * Writes the header and all spilled segments to the given stream and
+	 * deletes the temporary files afterwards.
+	 *
+	 * @param out
+	 *            the target
+	 * @throws IOException
+	 *             if reading or writing fails
+	 */
+	public void transferTo(final DataOutputStream out) throws IOException
+	{
+		this.close();
+
+		out.writeInt((int) this.opCodeCount);
+		out.writeInt((int) this.argumentCount);
+		copy(this.opCodeFile, out);
+		copy(this.argumentFile, out);
+
+		this.delete();
+	}
+
+	/**
+	 * Writes the header and all spilled segments to the given channel and
+	 * deletes the temporary files afterwards. The temporary files are
+	 * copied by means of {@link FileChannel#transferTo(long, long,
+	 * java.nio.channels.WritableByteChannel)}, which allows the operating
+	 * system to avoid copying them through the heap.
+	 *
+	 * @param out
+	 *            the target
+	 * @throws IOException
+	 *             if reading or writing fails
+	 */
+	public void transferTo(final FileChannel out) throws IOException
+	{
+		this.close();
+
+		final ByteBuffer header = ByteBuffer.allocate(8);
+		header.putInt((int) this.opCodeCount);
+		header.putInt((int) this.argumentCount);
+		header.flip();
+		while (header.hasRemaining())
+		{
+			out.write(header);
+		}
+		copy(this.opCodeFile, out);
+		copy(this.argumentFile, out);
+
+		this.delete();
+	}
+
+	/**
+	 * Receives the segments of a spill which is read back.
+	 */
+	interface SegmentConsumer
+	{
+		void accept(ByteChunkList opCodes, IntChunkList arguments) throws IOException;
+	}
+
+	long getOpCodeCount()
+	{
+		return this.opCodeCount;
+	}
+
+	long getArgumentCount()
+	{
+		return this.argumentCount;
+	}
+
+	/**
+	 * Reads the spilled operations back in segments, hands them to the
+	 * given consumer and deletes the temporary files afterwards.
+	 *
+	 * @param layout
+	 *            the type of the journal, which determines the number of
+	 *            arguments of each opcode
+	 * @param consumer
+	 *            the target
+	 * @throws IOException
+	 *             if reading or writing fails
+	 */
+	void replay(final CompactJournalCodec.Layout layout, final SegmentConsumer consumer)
+		throws IOException
+	{
+		this.close();
+
+		final DataInputStream opCodeIn = new DataInputStream(new BufferedInputStream(
+			new FileInputStream(this.opCodeFile), BUFFER_SIZE));
+		final DataInputStream argumentIn = new DataInputStream(new BufferedInputStream(
+			new FileInputStream(this.argumentFile), BUFFER_SIZE));
+		try
+		{
+			final ByteChunkList opCodes = new ByteChunkList();
+			final IntChunkList arguments = new IntChunkList();
+			long remaining = this.opCodeCount;
+			while (remaining > 0)
+			{
+				opCodes.clear();
+				opCodes.readFrom(opCodeIn, (int) Math.min(SEGMENT_SIZE, remaining));
+				int argumentCount = 0;
+				for (int i = 0; i < opCodes.size(); ++i)
+				{
+					argumentCount += layout.getArgumentCount(opCodes.get(i));
+				}
+				arguments.clear();
+				arguments.readFrom(argumentIn, argumentCount);
+
+				consumer.accept(opCodes, arguments);
+				remaining -= opCodes.size();
+			}
+		}
+		finally
+		{
+			opCodeIn.close();
+			argumentIn.close();
+		}
+
+		this.delete();
+	}
+
+	/**
+	 * Discards all spilled segments.
+	 */
+	public void discard()
+	{
+		try
+		{
+			this.close();
+		}
+		catch (final IOException ex)
+		{
+			ex.printStackTrace();
+		}
+		this.delete();
+	}
+
+	private void close() throws IOException
+	{
+		if (null != this.opCodeStream)
+		{
+			try
+			{
+				this.opCodeStream.close();
+			}
+			finally
+			{
+				this.opCodeStream = null;
+				this.argumentStream.close();
+				this.argumentStream = null;
+			}
+		}
+	}
+
+	private void delete()
+	{
+		this.opCodeFile.delete();
+		this.argumentFile.delete();
+	}
+
+	private static OutputStream openStream(final File file, final boolean asynchronous)
+		throws IOException
+	{
+		if (asynchronous)
+		{
+			return new AsyncChannelOutputStream(new FileOutputStream(file).getChannel());
+		}
+		else
+		{
+			return new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+		}
+	}
+
+	private static void copy(final File file, final FileChannel out) throws IOException
+	{
+		final FileChannel in = new FileInputStream(file).getChannel();
+		try
+		{
+			final long size = in.size();
+			long position = 0;
+			while (position < size)
+			{
+				position += in.transferTo(position, size - position, out);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static void copy(final File file, final OutputStream out) throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try
+		{
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) > 0)
+			{
+				out.write(buffer, 0, read);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
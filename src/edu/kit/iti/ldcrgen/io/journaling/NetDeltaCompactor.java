@@ -0,0 +1,629 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.util.Arrays;
+
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation.OpType;
+
+/**
+ * <p>
+ * Reduces the operations of each time step of a graph journal to their net
+ * effect at the end of the step:
+ * </p>
+ * <ul>
+ * <li>If an edge is created and removed (or removed and created) within a
+ * step, both operations are cancelled. Of an odd number of operations on
+ * the same edge, only the last one is kept.</li>
+ * <li>A node which is created and removed within a step is dropped together
+ * with all operations which refer to it.</li>
+ * <li>Of several cluster assignments of the same node, only the last one is
+ * kept. Assignments to a node which is created in the same step are folded
+ * into its CREATE_NODE operation.</li>
+ * </ul>
+ * <p>
+ * As node ids are implicit (the k-th CREATE_NODE creates node k, counting
+ * from the id of the first node), dropping
+ * a node shifts the ids of all later nodes. The compactor keeps track of
+ * this renumbering, so all time steps of a journal must be passed to the
+ * same instance in order. The state of the graph at the end of each time
+ * step is preserved up to the renumbering of nodes.
+ * </p>
+ * <p>
+ * The compactor can be applied to a complete journal
+ * ({@link #compact(GraphJournal)}) or, while the journal is being written,
+ * to each completed step (see
+ * {@link GraphJournal#enableNetDeltaCompaction(NetDeltaCompactor)}).
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class NetDeltaCompactor
+{
+	private static final byte CREATE_NODE = OpType.CreateNode.getOpCode();
+	private static final byte REMOVE_NODE = OpType.RemoveNode.getOpCode();
+	private static final byte CREATE_EDGE = OpType.CreateEdge.getOpCode();
+	private static final byte REMOVE_EDGE = OpType.RemoveEdge.getOpCode();
+	private static final byte SET_CLUSTER = OpType.SetCluster.getOpCode();
+	private static final byte SET_REF_CLUSTER = OpType.SetRefCluster.getOpCode();
+	private static final byte NEXT_STEP = OpType.NextStep.getOpCode();
+
+	private static final int[] ARGUMENT_COUNTS = new int[8];
+	static
+	{
+		for (final OpType type : OpType.values())
+		{
+			ARGUMENT_COUNTS[type.getOpCode()] = type.argumentCount;
+		}
+	}
+
+	// maps old node ids (index) to new ones, 0 for dropped nodes
+	private int[] newIds;
+	private int oldNodeCount;
+	private int newNodeCount;
+
+	// scratch space of the current step
+	private byte[] stepOps;
+	private int[] stepArgs;
+	private int[] argOffsets;
+	private boolean[] isKept;
+	private int[] createIndices;
+	private boolean[] isTransient;
+	private final LastIndexMap lastIndices;
+
+	private long inputOperations;
+	private long outputOperations;
+	private long droppedNodes;
+	private long cancelledEdgeOperations;
+	private long mergedClusterAssignments;
+
+	public NetDeltaCompactor()
+	{
+		this(1);
+	}
+
+	/**
+	 * Creates a compactor for a journal whose first node has the given id.
+	 * The compacted journal starts with the same id.
+	 */
+	public NetDeltaCompactor(final int firstNodeId)
+	{
+		if (firstNodeId <= 0)
+		{
+			throw new IllegalArgumentException("Node ids must be positive: " + firstNodeId);
+		}
+		this.oldNodeCount = firstNodeId - 1;
+		this.newNodeCount = firstNodeId - 1;
+		this.newIds = new int[firstNodeId + 1024];
+		this.stepOps = new byte[1024];
+		this.stepArgs = new int[2048];
+		this.argOffsets = new int[1025];
+		this.isKept = new boolean[1024];
+		this.createIndices = new int[1024];
+		this.isTransient = new boolean[1024];
+		this.lastIndices = new LastIndexMap();
+	}
+
+	/**
+	 * Returns a compacted copy of the given journal.
+	 *
+	 * @param journal
+	 *            the complete journal, which is not modified
+	 * @return the compacted journal
+	 */
+	public GraphJournal compact(final GraphJournal journal)
+	{
+		final GraphJournal result = new GraphJournal();
+		final ByteChunkList opCodes = journal.opCodes;
+		int stepStart = 0;
+		int stepArgStart = 0;
+		int arg = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			final byte opCode = opCodes.get(op);
+			checkOpCode(opCode, op);
+			if (NEXT_STEP == opCode)
+			{
+				this.compactStep(opCodes, journal.arguments, stepStart, op, stepArgStart,
+					result.opCodes, result.arguments);
+				result.opCodes.add(NEXT_STEP);
+				stepStart = op + 1;
+				stepArgStart = arg;
+			}
+			arg += ARGUMENT_COUNTS[opCode];
+		}
+		this.compactStep(opCodes, journal.arguments, stepStart, opCodes.size(), stepArgStart,
+			result.opCodes, result.arguments);
+		return result;
+	}
+
+	/**
+	 * Compacts the operations at the end of the given lists, from the given
+	 * positions on, in place. The operations must neither contain a
+	 * NEXT_STEP nor have been compacted before.
+	 */
+	void compactTail(final ByteChunkList opCodes, final IntChunkList arguments,
+		final int opFrom, final int argFrom)
+	{
+		final int opTo = opCodes.size();
+		this.load(opCodes, arguments, opFrom, opTo, argFrom);
+		opCodes.truncate(opFrom);
+		arguments.truncate(argFrom);
+		this.process(opTo - opFrom, opCodes, arguments);
+	}
+
+	/*
+	 * Compacts one time step of the input and appends it to the output.
+	 */
+	private void compactStep(final ByteChunkList opCodes, final IntChunkList arguments,
+		final int opFrom, final int opTo, final int argFrom, final ByteChunkList outOpCodes,
+		final IntChunkList outArguments)
+	{
+		this.load(opCodes, arguments, opFrom, opTo, argFrom);
+		this.process(opTo - opFrom, outOpCodes, outArguments);
+	}
+
+	/**
+	 * Returns the number of operations (excluding NEXT_STEP) which have been
+	 * compacted so far.
+	 */
+	public long getInputOperationCount()
+	{
+		return this.inputOperations;
+	}
+
+	/**
+	 * Returns the number of operations (excluding NEXT_STEP) which remained
+	 * after compaction.
+	 */
+	public long getOutputOperationCount()
+	{
+		return this.outputOperations;
+	}
+
+	/**
+	 * Returns the number of nodes which have been created and removed within
+	 * the same time step.
+	 */
+	public long getDroppedNodeCount()
+	{
+		return this.droppedNodes;
+	}
+
+	/**
+	 * Returns the number of edge operations which have cancelled each other
+	 * out.
+	 */
+	public long getCancelledEdgeOperationCount()
+	{
+		return this.cancelledEdgeOperations;
+	}
+
+	/**
+	 * Returns the number of cluster assignments which have been superseded
+	 * or folded into CREATE_NODE operations.
+	 */
+	public long getMergedClusterAssignmentCount()
+	{
+		return this.mergedClusterAssignments;
+	}
+
+	@Override
+	public String toString()
+	{
+		final double ratio = 0 == this.inputOperations ? 1.0
+			: (double) this.outputOperations / this.inputOperations;
+		return String.format("Net delta compaction: %d of %d operations remain (%.1f%%); "
+			+ "dropped nodes: %d, cancelled edge operations: %d, "
+			+ "merged cluster assignments: %d", this.outputOperations, this.inputOperations,
+			100 * ratio, this.droppedNodes, this.cancelledEdgeOperations,
+			this.mergedClusterAssignments);
+	}
+
+	/*
+	 * Copies the operations of the step into the scratch arrays.
+	 */
+	private void load(final ByteChunkList opCodes, final IntChunkList arguments,
+		final int opFrom, final int opTo, final int argFrom)
+	{
+		final int count = opTo - opFrom;
+		if (count > this.stepOps.length)
+		{
+			final int capacity = Math.max(count, this.stepOps.length << 1);
+			this.stepOps = new byte[capacity];
+			this.argOffsets = new int[capacity + 1];
+			this.isKept = new boolean[capacity];
+		}
+
+		int arg = argFrom;
+		for (int i = 0; i < count; ++i)
+		{
+			final byte opCode = opCodes.get(opFrom + i);
+			checkOpCode(opCode, opFrom + i);
+			if (NEXT_STEP == opCode)
+			{
+				throw new IllegalArgumentException("Unexpected NEXT_STEP at position "
+					+ (opFrom + i));
+			}
+			this.stepOps[i] = opCode;
+			this.argOffsets[i] = arg - argFrom;
+			arg += ARGUMENT_COUNTS[opCode];
+		}
+		this.argOffsets[count] = arg - argFrom;
+
+		final int argCount = arg - argFrom;
+		if (argCount > this.stepArgs.length)
+		{
+			this.stepArgs = new int[Math.max(argCount, this.stepArgs.length << 1)];
+		}
+		for (int i = 0; i < argCount; ++i)
+		{
+			this.stepArgs[i] = arguments.get(argFrom + i);
+		}
+	}
+
+	private void process(final int count, final ByteChunkList outOpCodes,
+		final IntChunkList outArguments)
+	{
+		final byte[] ops = this.stepOps;
+		final int[] args = this.stepArgs;
+		final int[] offsets = this.argOffsets;
+		final boolean[] kept = this.isKept;
+		final LastIndexMap last = this.lastIndices;
+
+		/*
+		 * Pass 1: The nodes which are created in this step get the old ids
+		 * from firstOldId on. Those which are also removed are transient.
+		 */
+		int created = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			if (CREATE_NODE == ops[i])
+			{
+				++created;
+			}
+		}
+		if (created > this.createIndices.length)
+		{
+			this.createIndices = new int[Math.max(created, this.createIndices.length << 1)];
+			this.isTransient = new boolean[this.createIndices.length];
+		}
+		final int firstOldId = this.oldNodeCount + 1;
+		final int lastOldId = this.oldNodeCount + created;
+		this.ensureIdCapacity(lastOldId);
+
+		created = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			final byte opCode = ops[i];
+			if (CREATE_NODE == opCode)
+			{
+				this.createIndices[created] = i;
+				this.isTransient[created] = false;
+				this.newIds[firstOldId + created] = 0;
+				++created;
+			}
+			else
+			{
+				final int u = args[offsets[i]];
+				if (u <= 0 || u > lastOldId)
+				{
+					throw new IllegalStateException("Journal refers to unknown node " + u);
+				}
+				if (REMOVE_NODE == opCode && u >= firstOldId)
+				{
+					this.isTransient[u - firstOldId] = true;
+				}
+			}
+		}
+
+		/*
+		 * Pass 2: Drop the operations of transient nodes and find the last
+		 * operation per edge and per cluster assignment.
+		 */
+		last.clear();
+		created = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			final byte opCode = ops[i];
+			final int u = args[offsets[i]];
+			kept[i] = true;
+			if (CREATE_NODE == opCode)
+			{
+				if (this.isTransient[created++])
+				{
+					kept[i] = false;
+					++this.droppedNodes;
+				}
+			}
+			else if (REMOVE_NODE == opCode)
+			{
+				kept[i] = !this.isTransient(u, firstOldId);
+			}
+			else if (CREATE_EDGE == opCode || REMOVE_EDGE == opCode)
+			{
+				final int v = args[offsets[i] + 1];
+				if (v <= 0 || v > lastOldId)
+				{
+					throw new IllegalStateException("Journal refers to unknown node " + v);
+				}
+				if (this.isTransient(u, firstOldId) || this.isTransient(v, firstOldId))
+				{
+					kept[i] = false;
+					++this.cancelledEdgeOperations;
+				}
+				else
+				{
+					last.record(edgeKey(u, v), i);
+				}
+			}
+			else if (this.isTransient(u, firstOldId))
+			{
+				kept[i] = false;
+				++this.mergedClusterAssignments;
+			}
+			else
+			{
+				last.record(assignmentKey(u, SET_REF_CLUSTER == opCode), i);
+			}
+		}
+
+		/*
+		 * Pass 3: Of the operations on an edge, keep the last one if their
+		 * number is odd. Keep the last cluster assignment per node and fold
+		 * it into the creation of the node, if possible.
+		 */
+		for (int i = 0; i < count; ++i)
+		{
+			final byte opCode = ops[i];
+			if (!kept[i] || CREATE_NODE == opCode || REMOVE_NODE == opCode)
+			{
+				continue;
+			}
+
+			final int u = args[offsets[i]];
+			if (CREATE_EDGE == opCode || REMOVE_EDGE == opCode)
+			{
+				final int slot = last.find(edgeKey(u, args[offsets[i] + 1]));
+				if (last.lastIndexAt(slot) != i || (last.countAt(slot) & 1) == 0)
+				{
+					kept[i] = false;
+					++this.cancelledEdgeOperations;
+				}
+				continue;
+			}
+
+			final boolean isReference = SET_REF_CLUSTER == opCode;
+			if (last.lastIndexAt(last.find(assignmentKey(u, isReference))) != i)
+			{
+				kept[i] = false;
+				++this.mergedClusterAssignments;
+			}
+			else if (u >= firstOldId)
+			{
+				final int createArgs = offsets[this.createIndices[u - firstOldId]];
+				args[createArgs + (isReference ? 1 : 0)] = args[offsets[i] + 1];
+				kept[i] = false;
+				++this.mergedClusterAssignments;
+			}
+		}
+
+		/*
+		 * Pass 4: Assign the new ids and emit the remaining operations.
+		 */
+		created = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			final byte opCode = ops[i];
+			final int offset = offsets[i];
+			if (CREATE_NODE == opCode)
+			{
+				final int oldId = firstOldId + created++;
+				if (kept[i])
+				{
+					this.newIds[oldId] = ++this.newNodeCount;
+				}
+			}
+			if (!kept[i])
+			{
+				continue;
+			}
+
+			outOpCodes.add(opCode);
+			if (CREATE_NODE == opCode)
+			{
+				outArguments.add(args[offset]);
+				outArguments.add(args[offset + 1]);
+			}
+			else if (REMOVE_NODE == opCode)
+			{
+				outArguments.add(this.newId(args[offset]));
+			}
+			else if (SET_CLUSTER == opCode || SET_REF_CLUSTER == opCode)
+			{
+				outArguments.add(this.newId(args[offset]));
+				outArguments.add(args[offset + 1]);
+			}
+			else
+			{
+				outArguments.add(this.newId(args[offset]));
+				outArguments.add(this.newId(args[offset + 1]));
+			}
+			++this.outputOperations;
+		}
+		this.oldNodeCount = lastOldId;
+		this.inputOperations += count;
+	}
+
+	/**
+	 * Returns the new id of the node with the given old id, 0 if the node
+	 * has been dropped or has not been created yet.
+	 */
+	int newIdOf(final int oldId)
+	{
+		return oldId < this.newIds.length ? this.newIds[oldId] : 0;
+	}
+
+	private boolean isTransient(final int node, final int firstOldId)
+	{
+		return node >= firstOldId && this.isTransient[node - firstOldId];
+	}
+
+	private int newId(final int oldId)
+	{
+		final int result = this.newIds[oldId];
+		if (0 == result)
+		{
+			throw new IllegalStateException("Journal refers to unknown or removed node "
+				+ oldId);
+		}
+		return result;
+	}
+
+	private void ensureIdCapacity(final int oldId)
+	{
+		if (oldId >= this.newIds.length)
+		{
+			this.newIds = Arrays.copyOf(this.newIds,
+				Math.max(oldId + 1, this.newIds.length << 1));
+		}
+	}
+
+	/*
+	 * The keys of edges have an upper half of at least 1.
+	 */
+	private static long edgeKey(final int u, final int v)
+	{
+		return u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+	}
+
+	/*
+	 * The keys of cluster assignments are below 2^32, so that they cannot
+	 * collide with edges.
+	 */
+	private static long assignmentKey(final int u, final boolean isReference)
+	{
+		return isReference ? u | (1L << 31) : u;
+	}
+
+	private static void checkOpCode(final byte opCode, final int position)
+	{
+		if (opCode <= 0 || opCode >= ARGUMENT_COUNTS.length)
+		{
+			throw new IllegalArgumentException("Invalid opcode " + opCode + " at position "
+				+ position);
+		}
+	}
+
+	/**
+	 * Open addressing map from non-negative keys to the index of the last
+	 * operation with this key and the number of such operations.
+	 */
+	private static final class LastIndexMap
+	{
+		private static final long FREE = -1L;
+		private static final int MIN_CAPACITY = 64;
+
+		private long[] keys;
+		private int[] lastIndices;
+		private int[] counts;
+		private int mask;
+		private int size;
+
+		LastIndexMap()
+		{
+			this.allocate(MIN_CAPACITY);
+		}
+
+		void clear()
+		{
+			if (this.size > 0)
+			{
+				Arrays.fill(this.keys, FREE);
+				this.size = 0;
+			}
+		}
+
+		void record(final long key, final int index)
+		{
+			int slot = this.idealSlot(key);
+			while (this.keys[slot] != FREE && this.keys[slot] != key)
+			{
+				slot = (slot + 1) & this.mask;
+			}
+			if (this.keys[slot] == FREE)
+			{
+				this.keys[slot] = key;
+				this.counts[slot] = 0;
+				++this.size;
+			}
+			this.lastIndices[slot] = index;
+			++this.counts[slot];
+
+			if (this.size > (this.mask + 1) >> 1)
+			{
+				this.rehash();
+			}
+		}
+
+		/*
+		 * Returns the slot of the given key, which must have been recorded.
+		 */
+		int find(final long key)
+		{
+			int slot = this.idealSlot(key);
+			while (this.keys[slot] != key)
+			{
+				assert this.keys[slot] != FREE : "Key has not been recorded: " + key;
+				slot = (slot + 1) & this.mask;
+			}
+			return slot;
+		}
+
+		int lastIndexAt(final int slot)
+		{
+			return this.lastIndices[slot];
+		}
+
+		int countAt(final int slot)
+		{
+			return this.counts[slot];
+		}
+
+		private int idealSlot(final long key)
+		{
+			long hash = key * 0x9E3779B97F4A7C15L;
+			hash ^= hash >>> 32;
+			return (int) hash & this.mask;
+		}
+
+		private void rehash()
+		{
+			final long[] oldKeys = this.keys;
+			final int[] oldLastIndices = this.lastIndices;
+			final int[] oldCounts = this.counts;
+			this.allocate(oldKeys.length << 1);
+			for (int i = 0; i < oldKeys.length; ++i)
+			{
+				if (oldKeys[i] != FREE)
+				{
+					int slot = this.idealSlot(oldKeys[i]);
+					while (this.keys[slot] != FREE)
+					{
+						slot = (slot + 1) & this.mask;
+					}
+					this.keys[slot] = oldKeys[i];
+					this.lastIndices[slot] = oldLastIndices[i];
+					this.counts[slot] = oldCounts[i];
+				}
+			}
+		}
+
+		private void allocate(final int capacity)
+		{
+			this.keys = new long[capacity];
+			Arrays.fill(this.keys, FREE);
+			this.lastIndices = new int[capacity];
+			this.counts = new int[capacity];
+			this.mask = capacity - 1;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import edu.kit.iti.ldcrgen.io.journaling.ChannelUtils;
+
+/**
+ * Reads the checkpoint files which are written by {@link CheckpointWriter}.
+ * The index is read when the file is opened; each snapshot is loaded on
+ * demand.
+ *
+ * @author Roland Kluge
+ */
+final class CheckpointReader implements Closeable
+{
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int interval;
+	private final int[] steps;
+	private final long[] offsets;
+	private long position;
+
+	/**
+	 * Opens the checkpoint file and checks that it belongs to journals with
+	 * the given numbers of operations.
+	 *
+	 * @throws IOException
+	 *             if the file is no valid checkpoint file or belongs to
+	 *             other journals
+	 */
+	CheckpointReader(final File file, final int graphOpCount, final int clusteringOpCount)
+		throws IOException
+	{
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(ChannelUtils.BUFFER_SIZE);
+		try
+		{
+			final long size = this.channel.size();
+			if (size < CheckpointWriter.HEADER_SIZE + 4 + CheckpointWriter.FOOTER_SIZE)
+			{
+				throw new IOException("File is too small for a checkpoint file.");
+			}
+
+			this.seek(0);
+			this.ensureAvailable(CheckpointWriter.HEADER_SIZE);
+			if (CheckpointWriter.MAGIC != this.buffer.getInt())
+			{
+				throw new IOException("File is no checkpoint file.");
+			}
+			final int version = this.buffer.getInt();
+			if (CheckpointWriter.VERSION != version)
+			{
+				throw new IOException("Unsupported checkpoint version: " + version);
+			}
+			this.interval = this.buffer.getInt();
+			if (graphOpCount != this.buffer.getInt() || clusteringOpCount != this.buffer.getInt())
+			{
+				throw new IOException("Checkpoints have been created from other journals.");
+			}
+
+			this.seek(size - CheckpointWriter.FOOTER_SIZE);
+			this.ensureAvailable(CheckpointWriter.FOOTER_SIZE);
+			final long indexOffset = this.buffer.getLong();
+			if (CheckpointWriter.MAGIC != this.buffer.getInt()
+				|| indexOffset < CheckpointWriter.HEADER_SIZE
+				|| indexOffset + 4 > size - CheckpointWriter.FOOTER_SIZE)
+			{
+				throw new IOException("Checkpoint file is truncated or has no index.");
+			}
+
+			this.seek(indexOffset);
+			this.ensureAvailable(4);
+			final int count = this.buffer.getInt();
+			if (count <= 0
+				|| indexOffset + 4 + (long) count * CheckpointWriter.INDEX_ENTRY_SIZE != size
+					- CheckpointWriter.FOOTER_SIZE)
+			{
+				throw new IOException("Invalid index size: " + count);
+			}
+
+			this.steps = new int[count];
+			this.offsets = new long[count];
+			for (int i = 0; i < count; ++i)
+			{
+				this.ensureAvailable(CheckpointWriter.INDEX_ENTRY_SIZE);
+				this.steps[i] = this.buffer.getInt();
+				this.offsets[i] = this.buffer.getLong();
+				if (i > 0 && this.steps[i] <= this.steps[i - 1] || this.offsets[i] < 0
+					|| this.offsets[i] >= indexOffset)
+				{
+					throw new IOException("Invalid index entry " + i);
+				}
+			}
+		}
+		catch (final IOException ex)
+		{
+			this.file.close();
+			throw ex;
+		}
+	}
+
+	int getInterval()
+	{
+		return this.interval;
+	}
+
+	/**
+	 * Returns the latest checkpointed time step which is not after the
+	 * given one or -1 if there is no such step.
+	 */
+	int floorStep(final int timeStep)
+	{
+		final int index = Arrays.binarySearch(this.steps, timeStep);
+		if (index >= 0)
+		{
+			return timeStep;
+		}
+		final int insertionPoint = -index - 1;
+		return insertionPoint > 0 ? this.steps[insertionPoint - 1] : -1;
+	}
+
+	/**
+	 * Replaces the content of the given state with the snapshot of the
+	 * given (checkpointed) time step.
+	 */
+	void load(final int timeStep, final GraphState state) throws IOException
+	{
+		final int index = Arrays.binarySearch(this.steps, timeStep);
+		if (index < 0)
+		{
+			throw new IllegalArgumentException("No checkpoint for time step " + timeStep);
+		}
+
+		this.seek(this.offsets[index]);
+		this.ensureAvailable(CheckpointWriter.SNAPSHOT_HEADER_SIZE);
+		final int snapshotStep = this.buffer.getInt();
+		final int maxNodeId = this.buffer.getInt();
+		final int nodeCount = this.buffer.getInt();
+		final int ongoingMerges = this.buffer.getInt();
+		final int ongoingSplits = this.buffer.getInt();
+		final int edgeCount = this.buffer.getInt();
+		if (snapshotStep != timeStep || maxNodeId < 0 || nodeCount < 0 || nodeCount > maxNodeId
+			|| edgeCount < 0)
+		{
+			throw new IOException("Invalid snapshot for time step " + timeStep);
+		}
+
+		state.clear();
+		state.ensureCapacity(maxNodeId + 1);
+		state.timeStep = snapshotStep;
+		state.maxNodeId = maxNodeId;
+		state.nodeCount = nodeCount;
+		state.ongoingMerges = ongoingMerges;
+		state.ongoingSplits = ongoingSplits;
+
+		for (int node = 1; node <= maxNodeId; ++node)
+		{
+			this.ensureAvailable(1);
+			state.alive[node] = 0 != this.buffer.get();
+		}
+		for (int node = 1; node <= maxNodeId; ++node)
+		{
+			this.ensureAvailable(4);
+			state.clusters[node] = this.buffer.getInt();
+		}
+		for (int node = 1; node <= maxNodeId; ++node)
+		{
+			this.ensureAvailable(4);
+			state.referenceClusters[node] = this.buffer.getInt();
+		}
+
+		final long[] edges = new long[edgeCount];
+		for (int i = 0; i < edgeCount; ++i)
+		{
+			this.ensureAvailable(8);
+			edges[i] = this.buffer.getLong();
+		}
+		state.edges.setAll(edges);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.file.close();
+	}
+
+	/*
+	 * Discards the buffered bytes and continues reading at the given
+	 * position.
+	 */
+	private void seek(final long newPosition)
+	{
+		this.position = newPosition;
+		this.buffer.clear();
+		this.buffer.limit(0);
+	}
+
+	private void ensureAvailable(final int length) throws IOException
+	{
+		if (this.buffer.remaining() >= length)
+		{
+			return;
+		}
+
+		this.buffer.compact();
+		while (this.buffer.position() < length)
+		{
+			final int read = this.channel.read(this.buffer, this.position);
+			if (read < 0)
+			{
+				throw new EOFException("Unexpected end of checkpoint file.");
+			}
+			this.position += read;
+		}
+		this.buffer.flip();
+	}
+}
@@ -0,0 +1,171 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import edu.kit.iti.ldcrgen.io.journaling.ChannelUtils;
+
+/**
+ * <p>
+ * Writes checkpoint files, which hold snapshots of the replayed state at
+ * regular time steps.
+ * </p>
+ * <p>
+ * Layout (all values are big-endian):
+ * </p>
+ *
+ * <pre>
+ * header:   int MAGIC, int VERSION, int interval,
+ *           int #graph operations, int #clustering operations
+ * snapshot: int timeStep, int maxNodeId, int nodeCount,
+ *           int ongoingMerges, int ongoingSplits, int edgeCount,
+ *           maxNodeId * byte alive, maxNodeId * int cluster,
+ *           maxNodeId * int reference cluster, edgeCount * long edge
+ * index:    int count, count * (int timeStep, long offset)
+ * footer:   long index offset, int MAGIC
+ * </pre>
+ *
+ * <p>
+ * The operation counts identify the journals from which the snapshots have
+ * been created.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class CheckpointWriter
+{
+	static final int MAGIC = 0x89474A53;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 5 * 4;
+	static final int SNAPSHOT_HEADER_SIZE = 6 * 4;
+	static final int INDEX_ENTRY_SIZE = 4 + 8;
+	static final int FOOTER_SIZE = 8 + 4;
+
+	private final FileOutputStream out;
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private int[] steps;
+	private long[] offsets;
+	private int count;
+
+	CheckpointWriter(final File file, final int interval, final int graphOpCount,
+		final int clusteringOpCount) throws IOException
+	{
+		this.out = new FileOutputStream(file);
+		this.channel = this.out.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(ChannelUtils.BUFFER_SIZE);
+		this.steps = new int[16];
+		this.offsets = new long[16];
+
+		this.buffer.putInt(MAGIC);
+		this.buffer.putInt(VERSION);
+		this.buffer.putInt(interval);
+		this.buffer.putInt(graphOpCount);
+		this.buffer.putInt(clusteringOpCount);
+	}
+
+	void writeSnapshot(final GraphState state) throws IOException
+	{
+		if (this.count == this.steps.length)
+		{
+			this.steps = Arrays.copyOf(this.steps, this.count << 1);
+			this.offsets = Arrays.copyOf(this.offsets, this.count << 1);
+		}
+		this.steps[this.count] = state.timeStep;
+		this.offsets[this.count] = this.channel.position() + this.buffer.position();
+		++this.count;
+
+		this.ensureRemaining(SNAPSHOT_HEADER_SIZE);
+		this.buffer.putInt(state.timeStep);
+		this.buffer.putInt(state.maxNodeId);
+		this.buffer.putInt(state.nodeCount);
+		this.buffer.putInt(state.ongoingMerges);
+		this.buffer.putInt(state.ongoingSplits);
+		this.buffer.putInt(state.edges.size());
+
+		for (int node = 1; node <= state.maxNodeId; ++node)
+		{
+			this.ensureRemaining(1);
+			this.buffer.put(state.alive[node] ? (byte) 1 : (byte) 0);
+		}
+		for (int node = 1; node <= state.maxNodeId; ++node)
+		{
+			this.ensureRemaining(4);
+			this.buffer.putInt(state.clusters[node]);
+		}
+		for (int node = 1; node <= state.maxNodeId; ++node)
+		{
+			this.ensureRemaining(4);
+			this.buffer.putInt(state.referenceClusters[node]);
+		}
+		for (final long edge : state.edges.toSortedArray())
+		{
+			this.ensureRemaining(8);
+			this.buffer.putLong(edge);
+		}
+	}
+
+	/**
+	 * Writes the index and closes the file.
+	 */
+	void finish() throws IOException
+	{
+		try
+		{
+			final long indexOffset = this.channel.position() + this.buffer.position();
+			this.ensureRemaining(4);
+			this.buffer.putInt(this.count);
+			for (int i = 0; i < this.count; ++i)
+			{
+				this.ensureRemaining(INDEX_ENTRY_SIZE);
+				this.buffer.putInt(this.steps[i]);
+				this.buffer.putLong(this.offsets[i]);
+			}
+			this.ensureRemaining(FOOTER_SIZE);
+			this.buffer.putLong(indexOffset);
+			this.buffer.putInt(MAGIC);
+			this.flush();
+		}
+		finally
+		{
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Closes the file without writing the index.
+	 */
+	void abort()
+	{
+		try
+		{
+			this.out.close();
+		}
+		catch (final IOException ex)
+		{
+			// the file is incomplete anyway
+		}
+	}
+
+	private void ensureRemaining(final int length) throws IOException
+	{
+		if (this.buffer.remaining() < length)
+		{
+			this.flush();
+		}
+	}
+
+	private void flush() throws IOException
+	{
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+		{
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+}
@@ -0,0 +1,217 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Open addressing hash set of undirected edges.
+ * </p>
+ * <p>
+ * An edge is stored as a single non-negative long which holds the smaller
+ * node id in the upper and the larger node id in the lower 32 bits, so
+ * that both directions of an edge map to the same key. Collisions are
+ * resolved by linear probing; removal uses backward shift deletion, so
+ * that the table never contains tombstones.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+final class EdgeSet
+{
+	private static final long FREE = -1L;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] table;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+
+	EdgeSet()
+	{
+		this.allocate(MIN_CAPACITY);
+	}
+
+	EdgeSet(final EdgeSet other)
+	{
+		this.table = other.table.clone();
+		this.mask = other.mask;
+		this.size = other.size;
+		this.resizeThreshold = other.resizeThreshold;
+	}
+
+	/**
+	 * Returns the key of the edge between the two given (positive) nodes.
+	 */
+	static long key(final int u, final int v)
+	{
+		assert u > 0 && v > 0 : "Invalid edge: " + u + " " + v;
+		return u < v ? ((long) u << 32) | v : ((long) v << 32) | u;
+	}
+
+	boolean add(final long key)
+	{
+		assert key >= 0 : "Key must be non-negative: " + key;
+
+		int slot = this.idealSlot(key);
+		while (true)
+		{
+			final long current = this.table[slot];
+			if (current == key)
+			{
+				return false;
+			}
+			else if (current == FREE)
+			{
+				this.table[slot] = key;
+				++this.size;
+				if (this.size > this.resizeThreshold)
+				{
+					this.rehash((this.mask + 1) << 1);
+				}
+				return true;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	boolean contains(final long key)
+	{
+		return this.findSlot(key) >= 0;
+	}
+
+	boolean remove(final long key)
+	{
+		int hole = this.findSlot(key);
+		if (hole < 0)
+		{
+			return false;
+		}
+
+		int slot = hole;
+		while (true)
+		{
+			slot = (slot + 1) & this.mask;
+			final long current = this.table[slot];
+			if (current == FREE)
+			{
+				break;
+			}
+
+			final int ideal = this.idealSlot(current);
+			if (((slot - ideal) & this.mask) >= ((slot - hole) & this.mask))
+			{
+				this.table[hole] = current;
+				hole = slot;
+			}
+		}
+
+		this.table[hole] = FREE;
+		--this.size;
+		return true;
+	}
+
+	void clear()
+	{
+		if (this.mask + 1 > MIN_CAPACITY)
+		{
+			this.allocate(MIN_CAPACITY);
+		}
+		else
+		{
+			Arrays.fill(this.table, FREE);
+		}
+		this.size = 0;
+	}
+
+	int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Returns all keys in ascending order.
+	 */
+	long[] toSortedArray()
+	{
+		final long[] result = new long[this.size];
+		int index = 0;
+		for (final long key : this.table)
+		{
+			if (key != FREE)
+			{
+				result[index++] = key;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Replaces the content of this set with the given keys.
+	 */
+	void setAll(final long[] keys)
+	{
+		int capacity = MIN_CAPACITY;
+		while (keys.length > (capacity >> 1) + (capacity >> 2))
+		{
+			capacity <<= 1;
+		}
+		this.allocate(capacity);
+		this.size = 0;
+		for (final long key : keys)
+		{
+			this.add(key);
+		}
+	}
+
+	private int findSlot(final long key)
+	{
+		int slot = this.idealSlot(key);
+		while (true)
+		{
+			final long current = this.table[slot];
+			if (current == key)
+			{
+				return slot;
+			}
+			else if (current == FREE)
+			{
+				return -1;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	private int idealSlot(final long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 32;
+		return (int) hash & this.mask;
+	}
+
+	private void rehash(final int capacity)
+	{
+		final long[] oldTable = this.table;
+		this.allocate(capacity);
+		for (final long key : oldTable)
+		{
+			if (key != FREE)
+			{
+				int slot = this.idealSlot(key);
+				while (this.table[slot] != FREE)
+				{
+					slot = (slot + 1) & this.mask;
+				}
+				this.table[slot] = key;
+			}
+		}
+	}
+
+	private void allocate(final int capacity)
+	{
+		this.table = new long[capacity];
+		Arrays.fill(this.table, FREE);
+		this.mask = capacity - 1;
+		this.resizeThreshold = (capacity >> 1) + (capacity >> 2);
+	}
+}
@@ -0,0 +1,291 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The graph and both clusterings at the end of a time step, as
+ * reconstructed from the journals.
+ * </p>
+ * <p>
+ * Nodes are identified by their journal ids, i.e. the k-th created node
+ * has the id k. The ids of removed nodes are not reused. For each living
+ * node, the state holds its ground truth and its reference cluster; edges
+ * are undirected and encoded as longs (see {@link #getEdges()}).
+ * </p>
+ * <p>
+ * Instances which are returned by {@link ReplayEngine} are updated in
+ * place when the engine moves on; use {@link #copy()} to retain a state.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class GraphState
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	int timeStep;
+	int maxNodeId;
+	int nodeCount;
+	boolean[] alive;
+	int[] clusters;
+	int[] referenceClusters;
+	final EdgeSet edges;
+	int ongoingMerges;
+	int ongoingSplits;
+
+	GraphState()
+	{
+		this.alive = new boolean[INITIAL_CAPACITY];
+		this.clusters = new int[INITIAL_CAPACITY];
+		this.referenceClusters = new int[INITIAL_CAPACITY];
+		this.edges = new EdgeSet();
+	}
+
+	private GraphState(final GraphState other)
+	{
+		this.timeStep = other.timeStep;
+		this.maxNodeId = other.maxNodeId;
+		this.nodeCount = other.nodeCount;
+		this.alive = other.alive.clone();
+		this.clusters = other.clusters.clone();
+		this.referenceClusters = other.referenceClusters.clone();
+		this.edges = new EdgeSet(other.edges);
+		this.ongoingMerges = other.ongoingMerges;
+		this.ongoingSplits = other.ongoingSplits;
+	}
+
+	/**
+	 * Returns an independent copy of this state.
+	 */
+	public GraphState copy()
+	{
+		return new GraphState(this);
+	}
+
+	public int getTimeStep()
+	{
+		return this.timeStep;
+	}
+
+	/**
+	 * Returns the largest node id which has been assigned so far, including
+	 * the ids of removed nodes.
+	 */
+	public int getMaxNodeId()
+	{
+		return this.maxNodeId;
+	}
+
+	/**
+	 * Returns the number of living nodes.
+	 */
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	public boolean isAlive(final int node)
+	{
+		return node > 0 && node <= this.maxNodeId && this.alive[node];
+	}
+
+	/**
+	 * Returns the ground truth cluster of the given living node.
+	 */
+	public int getCluster(final int node)
+	{
+		this.checkAlive(node);
+		return this.clusters[node];
+	}
+
+	/**
+	 * Returns the reference cluster of the given living node.
+	 */
+	public int getReferenceCluster(final int node)
+	{
+		this.checkAlive(node);
+		return this.referenceClusters[node];
+	}
+
+	public int getEdgeCount()
+	{
+		return this.edges.size();
+	}
+
+	public boolean containsEdge(final int u, final int v)
+	{
+		return u > 0 && v > 0 && this.edges.contains(EdgeSet.key(u, v));
+	}
+
+	/**
+	 * Returns all edges in ascending order. The nodes of an edge can be
+	 * extracted with {@link #edgeSource(long)} and
+	 * {@link #edgeTarget(long)}.
+	 */
+	public long[] getEdges()
+	{
+		return this.edges.toSortedArray();
+	}
+
+	/**
+	 * Returns the smaller node of the given edge.
+	 */
+	public static int edgeSource(final long edge)
+	{
+		return (int) (edge >>> 32);
+	}
+
+	/**
+	 * Returns the larger node of the given edge.
+	 */
+	public static int edgeTarget(final long edge)
+	{
+		return (int) edge;
+	}
+
+	/**
+	 * Returns the number of merge operations which have been started but
+	 * not finished yet.
+	 */
+	public int getOngoingMergeCount()
+	{
+		return this.ongoingMerges;
+	}
+
+	/**
+	 * Returns the number of split operations which have been started but
+	 * not finished yet.
+	 */
+	public int getOngoingSplitCount()
+	{
+		return this.ongoingSplits;
+	}
+
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof GraphState))
+		{
+			return false;
+		}
+
+		final GraphState other = (GraphState) obj;
+		if (this.timeStep != other.timeStep || this.maxNodeId != other.maxNodeId
+			|| this.nodeCount != other.nodeCount || this.ongoingMerges != other.ongoingMerges
+			|| this.ongoingSplits != other.ongoingSplits
+			|| this.edges.size() != other.edges.size())
+		{
+			return false;
+		}
+		for (int node = 1; node <= this.maxNodeId; ++node)
+		{
+			if (this.alive[node] != other.alive[node]
+				|| this.alive[node]
+				&& (this.clusters[node] != other.clusters[node] || this.referenceClusters[node] != other.referenceClusters[node]))
+			{
+				return false;
+			}
+		}
+		return Arrays.equals(this.getEdges(), other.getEdges());
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * (31 * this.timeStep + this.nodeCount) + this.edges.size();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "GraphState [timeStep=" + this.timeStep + ", nodes=" + this.nodeCount
+			+ ", edges=" + this.edges.size() + "]";
+	}
+
+	/*
+	 * Mutators, used while replaying
+	 */
+
+	void clear()
+	{
+		this.timeStep = 0;
+		Arrays.fill(this.alive, 0, this.maxNodeId + 1, false);
+		this.maxNodeId = 0;
+		this.nodeCount = 0;
+		this.edges.clear();
+		this.ongoingMerges = 0;
+		this.ongoingSplits = 0;
+	}
+
+	void createNode(final int cluster, final int referenceCluster)
+	{
+		final int node = this.maxNodeId + 1;
+		this.ensureCapacity(node + 1);
+		this.maxNodeId = node;
+		this.alive[node] = true;
+		this.clusters[node] = cluster;
+		this.referenceClusters[node] = referenceCluster;
+		++this.nodeCount;
+	}
+
+	void removeNode(final int node)
+	{
+		this.checkAlive(node);
+		this.alive[node] = false;
+		--this.nodeCount;
+	}
+
+	void createEdge(final int u, final int v)
+	{
+		this.checkAlive(u);
+		this.checkAlive(v);
+		this.edges.add(EdgeSet.key(u, v));
+	}
+
+	void removeEdge(final int u, final int v)
+	{
+		this.checkAlive(u);
+		this.checkAlive(v);
+		this.edges.remove(EdgeSet.key(u, v));
+	}
+
+	void setCluster(final int node, final int cluster)
+	{
+		this.checkAlive(node);
+		this.clusters[node] = cluster;
+	}
+
+	void setReferenceCluster(final int node, final int cluster)
+	{
+		this.checkAlive(node);
+		this.referenceClusters[node] = cluster;
+	}
+
+	/*
+	 * Makes room for node ids smaller than the given capacity.
+	 */
+	void ensureCapacity(final int capacity)
+	{
+		if (capacity > this.alive.length)
+		{
+			final int newCapacity = Math.max(capacity, this.alive.length << 1);
+			this.alive = Arrays.copyOf(this.alive, newCapacity);
+			this.clusters = Arrays.copyOf(this.clusters, newCapacity);
+			this.referenceClusters = Arrays.copyOf(this.referenceClusters, newCapacity);
+		}
+	}
+
+	private void checkAlive(final int node)
+	{
+		if (!this.isAlive(node))
+		{
+			throw new IllegalStateException("Node " + node + " does not exist at time step "
+				+ this.timeStep);
+		}
+	}
+}
@@ -0,0 +1,456 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import edu.kit.iti.ldcrgen.io.BlockContainerReader;
+import edu.kit.iti.ldcrgen.io.GraphJReader;
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+
+/**
+ * <p>
+ * Reconstructs the graph and both clusterings at arbitrary time steps by
+ * replaying the journals.
+ * </p>
+ * <p>
+ * The state at time step t is the state after all operations which
+ * precede the (t+1)-th NEXT_STEP operation of the journals. When the
+ * engine is created, the positions of all NEXT_STEP operations are
+ * indexed, so that it can move from one time step to any later one by
+ * replaying only the operations in between. Moving backwards requires to
+ * start over.
+ * </p>
+ * <p>
+ * To bound the cost of arbitrary accesses, the engine can write snapshots
+ * of the state at every k-th time step into a checkpoint file (see
+ * {@link #writeCheckpoints(File, int)}). If checkpoints are used, a state
+ * is materialized by loading the closest preceding snapshot and replaying
+ * at most k time steps.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class ReplayEngine implements Closeable
+{
+	private final GraphJournal gJournal;
+	private final ClusteringJournal clJournal;
+	private final GraphState state;
+
+	/*
+	 * Operation and argument index at which each time step ends, i.e. of
+	 * the following NEXT_STEP or the end of the journal.
+	 */
+	private final int[] graphOpEnds;
+	private final int[] graphArgEnds;
+	private final int[] clusteringOpEnds;
+	private final int[] clusteringArgEnds;
+	private final int lastTimeStep;
+
+	private int graphOp;
+	private int graphArg;
+	private int clusteringOp;
+	private int clusteringArg;
+
+	private CheckpointReader checkpoints;
+
+	public ReplayEngine(final GraphJournal gJournal, final ClusteringJournal clJournal)
+	{
+		this.gJournal = gJournal;
+		this.clJournal = clJournal;
+		this.state = new GraphState();
+
+		final int graphSteps = countNextSteps(gJournal.opCodes,
+			GraphOperation.OpType.NextStep.opcode);
+		final int clusteringSteps = countNextSteps(clJournal.opCodes,
+			ClusteringOperation.OpType.NextStep.opcode);
+		this.lastTimeStep = Math.max(graphSteps, clusteringSteps);
+
+		this.graphOpEnds = new int[this.lastTimeStep + 1];
+		this.graphArgEnds = new int[this.lastTimeStep + 1];
+		this.indexGraphJournal();
+
+		this.clusteringOpEnds = new int[this.lastTimeStep + 1];
+		this.clusteringArgEnds = new int[this.lastTimeStep + 1];
+		this.indexClusteringJournal();
+	}
+
+	/**
+	 * Creates an engine for the journals in the given file. Plain and
+	 * compact GraphJ files as well as block containers are supported.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static ReplayEngine open(final File file) throws IOException
+	{
+		if (BlockContainerReader.isContainer(file))
+		{
+			final BlockContainerReader reader = new BlockContainerReader(file);
+			try
+			{
+				return new ReplayEngine(reader.readGraphJournal(), reader.readClusteringJournal());
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+
+		final InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try
+		{
+			return new ReplayEngine(GraphJReader.readGraphJournal(in),
+				GraphJReader.readClusteringJournal(in));
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the last time step, i.e. the number of NEXT_STEP operations.
+	 */
+	public int getLastTimeStep()
+	{
+		return this.lastTimeStep;
+	}
+
+	/**
+	 * Returns the current state. It is updated in place whenever the engine
+	 * moves to another time step.
+	 */
+	public GraphState getState()
+	{
+		return this.state;
+	}
+
+	/**
+	 * Moves to the end of the given time step.
+	 *
+	 * @param timeStep
+	 *            a time step between 0 and {@link #getLastTimeStep()}
+	 * @return the current state
+	 * @throws IOException
+	 *             if a checkpoint cannot be loaded
+	 */
+	public GraphState seek(final int timeStep) throws IOException
+	{
+		if (timeStep < 0 || timeStep > this.lastTimeStep)
+		{
+			throw new IllegalArgumentException("Time step must be between 0 and "
+				+ this.lastTimeStep + ": " + timeStep);
+		}
+
+		final boolean isBehind = timeStep < this.state.timeStep;
+		if (null != this.checkpoints)
+		{
+			final int checkpoint = this.checkpoints.floorStep(timeStep);
+			if (checkpoint >= 0 && (isBehind || checkpoint > this.state.timeStep))
+			{
+				this.checkpoints.load(checkpoint, this.state);
+				this.moveTo(checkpoint);
+			}
+			else if (isBehind)
+			{
+				this.reset();
+			}
+		}
+		else if (isBehind)
+		{
+			this.reset();
+		}
+
+		this.replayTo(timeStep);
+		return this.state;
+	}
+
+	/**
+	 * Replays the whole journals and writes a snapshot of every k-th time
+	 * step (including step 0) into the given file. Afterwards, the engine
+	 * is located at the last time step.
+	 *
+	 * @param file
+	 *            the checkpoint file, which is overwritten
+	 * @param interval
+	 *            the number of time steps k between two snapshots
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeCheckpoints(final File file, final int interval) throws IOException
+	{
+		if (interval <= 0)
+		{
+			throw new IllegalArgumentException("Interval must be positive: " + interval);
+		}
+
+		final CheckpointWriter writer = new CheckpointWriter(file, interval,
+			this.gJournal.opCodes.size(), this.clJournal.opCodes.size());
+		boolean isComplete = false;
+		try
+		{
+			this.reset();
+			for (int timeStep = 0; timeStep <= this.lastTimeStep; timeStep += interval)
+			{
+				this.replayTo(timeStep);
+				writer.writeSnapshot(this.state);
+			}
+			this.replayTo(this.lastTimeStep);
+			writer.finish();
+			isComplete = true;
+		}
+		finally
+		{
+			if (!isComplete)
+			{
+				writer.abort();
+			}
+		}
+	}
+
+	/**
+	 * Uses the snapshots in the given checkpoint file for all following
+	 * calls of {@link #seek(int)}.
+	 *
+	 * @throws IOException
+	 *             if the file is invalid or has been created from other
+	 *             journals
+	 */
+	public void useCheckpoints(final File file) throws IOException
+	{
+		final CheckpointReader reader = new CheckpointReader(file, this.gJournal.opCodes.size(),
+			this.clJournal.opCodes.size());
+		this.closeCheckpoints();
+		this.checkpoints = reader;
+	}
+
+	/**
+	 * Returns the interval of the checkpoints in use or 0 if no checkpoints
+	 * are used.
+	 */
+	public int getCheckpointInterval()
+	{
+		return null == this.checkpoints ? 0 : this.checkpoints.getInterval();
+	}
+
+	/**
+	 * Closes the checkpoint file, if any.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.closeCheckpoints();
+	}
+
+	private void closeCheckpoints() throws IOException
+	{
+		if (null != this.checkpoints)
+		{
+			this.checkpoints.close();
+			this.checkpoints = null;
+		}
+	}
+
+	private void reset()
+	{
+		this.state.clear();
+		this.graphOp = 0;
+		this.graphArg = 0;
+		this.clusteringOp = 0;
+		this.clusteringArg = 0;
+	}
+
+	/*
+	 * Moves the journal positions to the end of the given time step.
+	 */
+	private void moveTo(final int timeStep)
+	{
+		this.graphOp = this.graphOpEnds[timeStep];
+		this.graphArg = this.graphArgEnds[timeStep];
+		this.clusteringOp = this.clusteringOpEnds[timeStep];
+		this.clusteringArg = this.clusteringArgEnds[timeStep];
+	}
+
+	/*
+	 * Applies all operations up to the end of the given time step, which
+	 * must not be before the current one.
+	 */
+	private void replayTo(final int timeStep)
+	{
+		assert timeStep >= this.state.timeStep : "Cannot replay backwards";
+
+		this.replayGraphJournal(this.graphOpEnds[timeStep]);
+		this.replayClusteringJournal(this.clusteringOpEnds[timeStep]);
+		this.state.timeStep = timeStep;
+	}
+
+	private void replayGraphJournal(final int opEnd)
+	{
+		final ByteChunkList opCodes = this.gJournal.opCodes;
+		final IntChunkList args = this.gJournal.arguments;
+		final GraphState current = this.state;
+
+		int arg = this.graphArg;
+		for (int op = this.graphOp; op < opEnd; ++op)
+		{
+			final GraphOperation.OpType type = GraphOperation.OpType.forOpCode(opCodes.get(op));
+			switch (type)
+			{
+			case CreateNode:
+				current.createNode(args.get(arg), args.get(arg + 1));
+				break;
+			case RemoveNode:
+				current.removeNode(args.get(arg));
+				break;
+			case CreateEdge:
+				current.createEdge(args.get(arg), args.get(arg + 1));
+				break;
+			case RemoveEdge:
+				current.removeEdge(args.get(arg), args.get(arg + 1));
+				break;
+			case SetCluster:
+				current.setCluster(args.get(arg), args.get(arg + 1));
+				break;
+			case SetRefCluster:
+				current.setReferenceCluster(args.get(arg), args.get(arg + 1));
+				break;
+			case NextStep:
+				++current.timeStep;
+				break;
+			}
+			arg += type.argumentCount;
+		}
+		this.graphOp = opEnd;
+		this.graphArg = arg;
+	}
+
+	private void replayClusteringJournal(final int opEnd)
+	{
+		final ByteChunkList opCodes = this.clJournal.opCodes;
+		final GraphState current = this.state;
+
+		int arg = this.clusteringArg;
+		for (int op = this.clusteringOp; op < opEnd; ++op)
+		{
+			final ClusteringOperation.OpType type = ClusteringOperation.OpType
+				.forOpCode(opCodes.get(op));
+			switch (type)
+			{
+			case Merge:
+				++current.ongoingMerges;
+				break;
+			case Split:
+				++current.ongoingSplits;
+				break;
+			case MergeDone:
+				--current.ongoingMerges;
+				break;
+			case SplitDone:
+				--current.ongoingSplits;
+				break;
+			case NextStep:
+				break;
+			}
+			arg += type.argumentCount;
+		}
+		this.clusteringOp = opEnd;
+		this.clusteringArg = arg;
+	}
+
+	private void indexGraphJournal()
+	{
+		final ByteChunkList opCodes = this.gJournal.opCodes;
+		int timeStep = 0;
+		int arg = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			final GraphOperation.OpType type = GraphOperation.OpType.forOpCode(opCodes.get(op));
+			if (null == type)
+			{
+				throw new IllegalArgumentException("Invalid opcode " + opCodes.get(op)
+					+ " in graph journal at position " + op);
+			}
+			if (GraphOperation.OpType.NextStep == type)
+			{
+				this.graphOpEnds[timeStep] = op;
+				this.graphArgEnds[timeStep] = arg;
+				++timeStep;
+			}
+			arg += type.argumentCount;
+		}
+		checkArgumentCount(arg, this.gJournal.arguments.size(), "graph");
+		fillRemaining(this.graphOpEnds, this.graphArgEnds, timeStep, opCodes.size(), arg);
+	}
+
+	private void indexClusteringJournal()
+	{
+		final ByteChunkList opCodes = this.clJournal.opCodes;
+		int timeStep = 0;
+		int arg = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			final ClusteringOperation.OpType type = ClusteringOperation.OpType
+				.forOpCode(opCodes.get(op));
+			if (null == type)
+			{
+				throw new IllegalArgumentException("Invalid opcode " + opCodes.get(op)
+					+ " in clustering journal at position " + op);
+			}
+			if (ClusteringOperation.OpType.NextStep == type)
+			{
+				this.clusteringOpEnds[timeStep] = op;
+				this.clusteringArgEnds[timeStep] = arg;
+				++timeStep;
+			}
+			arg += type.argumentCount;
+		}
+		checkArgumentCount(arg, this.clJournal.intArgs.size(), "clustering");
+		fillRemaining(this.clusteringOpEnds, this.clusteringArgEnds, timeStep, opCodes.size(),
+			arg);
+	}
+
+	private static int countNextSteps(final ByteChunkList opCodes, final byte nextStep)
+	{
+		int result = 0;
+		for (int op = 0; op < opCodes.size(); ++op)
+		{
+			if (nextStep == opCodes.get(op))
+			{
+				++result;
+			}
+		}
+		return result;
+	}
+
+	private static void checkArgumentCount(final int expected, final int actual,
+		final String journal)
+	{
+		if (expected != actual)
+		{
+			throw new IllegalArgumentException("The " + journal + " journal has " + actual
+				+ " arguments, but its operations require " + expected);
+		}
+	}
+
+	/*
+	 * Time steps after the last NEXT_STEP of a journal end with the journal.
+	 */
+	private static void fillRemaining(final int[] opEnds, final int[] argEnds,
+		final int fromStep, final int opCount, final int argCount)
+	{
+		for (int timeStep = fromStep; timeStep < opEnds.length; ++timeStep)
+		{
+			opEnds[timeStep] = opCount;
+			argEnds[timeStep] = argCount;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package edu.kit.iti.ldcrgen.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * Output stream which writes to a file channel on a background thread.
+ * </p>
+ * <p>
+ * The calling thread fills a buffer. As soon as the buffer is full, it is
+ * handed to the writer thread, which drains it to the channel with bulk
+ * writes, while the calling thread continues with the next free buffer.
+ * As the number of buffers is fixed, the calling thread blocks if the
+ * disk cannot keep up (backpressure) and the memory consumption is
+ * bounded.
+ * </p>
+ * <p>
+ * Errors of the writer thread are reported by the next call to
+ * {@link #write(int)}, {@link #flush()} or {@link #close()}. The stream
+ * must only be used by a single thread.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class AsyncChannelOutputStream extends OutputStream
+{
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	public static final int DEFAULT_BUFFER_COUNT = 3;
+
+	// marks the end of the stream for the writer thread
+	private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+	private final FileChannel channel;
+	private final BlockingQueue<ByteBuffer> fullBuffers;
+	private final BlockingQueue<ByteBuffer> freeBuffers;
+	private final Thread writerThread;
+	private volatile IOException failure;
+
+	private ByteBuffer current;
+	private boolean closed;
+
+	public AsyncChannelOutputStream(final FileChannel channel)
+	{
+		this(channel, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+	}
+
+	/**
+	 * Creates the stream and starts the writer thread.
+	 *
+	 * @param channel
+	 *            the target channel, which is closed together with this
+	 *            stream
+	 * @param bufferSize
+	 *            the size of each buffer in bytes
+	 * @param bufferCount
+	 *            the number of buffers, at least 2
+	 */
+	public AsyncChannelOutputStream(final FileChannel channel, final int bufferSize,
+		final int bufferCount)
+	{
+		if (bufferSize <= 0)
+		{
+			throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+		}
+		if (bufferCount < 2)
+		{
+			throw new IllegalArgumentException("At least two buffers are needed: " + bufferCount);
+		}
+
+		this.channel = channel;
+		this.fullBuffers = new ArrayBlockingQueue<ByteBuffer>(bufferCount);
+		this.freeBuffers = new ArrayBlockingQueue<ByteBuffer>(bufferCount);
+		for (int i = 1; i < bufferCount; ++i)
+		{
+			this.freeBuffers.add(ByteBuffer.allocateDirect(bufferSize));
+		}
+		this.current = ByteBuffer.allocateDirect(bufferSize);
+		this.closed = false;
+		this.failure = null;
+
+		this.writerThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				drain();
+			}
+		}, "ldcrgen-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	@Override
+	public void write(final int b) throws IOException
+	{
+		this.ensureOpen();
+		if (!this.current.hasRemaining())
+		{
+			this.handOff();
+		}
+		this.current.put((byte) b);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException
+	{
+		this.ensureOpen();
+		int offset = off;
+		int remaining = len;
+		while (remaining > 0)
+		{
+			if (!this.current.hasRemaining())
+			{
+				this.handOff();
+			}
+			final int length = Math.min(remaining, this.current.remaining());
+			this.current.put(b, offset, length);
+			offset += length;
+			remaining -= length;
+		}
+	}
+
+	/**
+	 * Hands the current buffer to the writer thread. Does not wait for the
+	 * data to reach the channel.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		this.ensureOpen();
+		if (this.current.position() > 0)
+		{
+			this.handOff();
+		}
+	}
+
+	/**
+	 * Writes all pending buffers, stops the writer thread and closes the
+	 * channel.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.closed)
+		{
+			return;
+		}
+
+		try
+		{
+			this.flush();
+		}
+		finally
+		{
+			// the writer thread has to be stopped in any case
+			this.closed = true;
+			try
+			{
+				this.fullBuffers.put(END_OF_STREAM);
+				this.writerThread.join();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the writer thread.");
+			}
+			finally
+			{
+				this.channel.close();
+			}
+		}
+		this.checkFailure();
+	}
+
+	private void handOff() throws IOException
+	{
+		this.checkFailure();
+		try
+		{
+			this.current.flip();
+			this.fullBuffers.put(this.current);
+			this.current = this.freeBuffers.take();
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a free buffer.");
+		}
+	}
+
+	/*
+	 * Executed by the writer thread. After a failure, the buffers are still
+	 * recycled so that the calling thread never blocks forever.
+	 */
+	private void drain()
+	{
+		try
+		{
+			while (true)
+			{
+				final ByteBuffer buffer = this.fullBuffers.take();
+				if (END_OF_STREAM == buffer)
+				{
+					return;
+				}
+
+				if (null == this.failure)
+				{
+					try
+					{
+						while (buffer.hasRemaining())
+						{
+							this.channel.write(buffer);
+						}
+					}
+					catch (final IOException ex)
+					{
+						this.failure = ex;
+					}
+				}
+
+				buffer.clear();
+				this.freeBuffers.put(buffer);
+			}
+		}
+		catch (final InterruptedException ex)
+		{
+			this.failure = new InterruptedIOException("Writer thread has been interrupted.");
+		}
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (this.closed)
+		{
+			throw new IOException("Stream has already been closed.");
+		}
+	}
+
+	private void checkFailure() throws IOException
+	{
+		if (null != this.failure)
+		{
+			throw this.failure;
+		}
+	}
+}
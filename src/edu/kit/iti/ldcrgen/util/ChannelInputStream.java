@@ -0,0 +1,108 @@
+package edu.kit.iti.ldcrgen.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * Buffered input stream on top of a file channel which can give back the
+ * bytes it has read ahead.
+ * </p>
+ * <p>
+ * After {@link #release()}, the position of the channel is right behind
+ * the last byte which has been read from this stream. This allows to parse
+ * a variable-length part of a file through a stream and to continue with
+ * the channel afterwards.
+ * </p>
+ *
+ * @author Roland Kluge
+ */
+public class ChannelInputStream extends InputStream
+{
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+
+	public ChannelInputStream(final FileChannel channel)
+	{
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	public ChannelInputStream(final FileChannel channel, final int bufferSize)
+	{
+		if (bufferSize <= 0)
+		{
+			throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+		}
+
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.buffer.limit(0);
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (!this.buffer.hasRemaining() && !this.fill())
+		{
+			return -1;
+		}
+		return this.buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException
+	{
+		if (0 == len)
+		{
+			return 0;
+		}
+		if (!this.buffer.hasRemaining() && !this.fill())
+		{
+			return -1;
+		}
+		final int length = Math.min(len, this.buffer.remaining());
+		this.buffer.get(b, off, length);
+		return length;
+	}
+
+	@Override
+	public int available()
+	{
+		return this.buffer.remaining();
+	}
+
+	/**
+	 * Moves the position of the channel back by the number of bytes which
+	 * have been read ahead and discards them.
+	 *
+	 * @throws IOException
+	 *             if the position cannot be set
+	 */
+	public void release() throws IOException
+	{
+		this.channel.position(this.channel.position() - this.buffer.remaining());
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * Releases the bytes which have been read ahead. The channel is not
+	 * closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.release();
+	}
+
+	private boolean fill() throws IOException
+	{
+		this.buffer.clear();
+		final int read = this.channel.read(this.buffer);
+		this.buffer.flip();
+		return read > 0;
+	}
+}
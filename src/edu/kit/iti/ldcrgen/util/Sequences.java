@@ -4,9 +4,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
 
+import edu.kit.iti.ldcrgen.data_structures.RandomProvider;
+import edu.kit.iti.ldcrgen.data_structures.XoroshiroRandomProvider;
+
 public final class Sequences
 {
 	private Sequences()
@@ -83,11 +85,16 @@ public final class Sequences
 	}
 
 	public static List<Long> binomialSequence(final double prob, final long max)
+	{
+		return binomialSequence(prob, max, new XoroshiroRandomProvider());
+	}
+
+	public static List<Long> binomialSequence(final double prob, final long max,
+		final RandomProvider random)
 	{
 		final List<Long> result = new ArrayList<Long>();
 		if (prob > 0 && prob < 1.01 && max >= 0)
 		{
-			final Random random = new Random();
 			final double logQ = Math.log(1 - prob);
 			long current = -1;
 
@@ -0,0 +1,114 @@
+package edu.kit.iti.ldcrgen.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
+import edu.kit.iti.ldcrgen.io.CommandLineArguments;
+import edu.kit.iti.ldcrgen.io.ParseException;
+
+public class GeneratorTest
+{
+	private static final String[] ARGUMENTS = { "n=300", "cl_sizes=[100,100,100]",
+		"p_in_list=[0.1,0.1,0.1]", "p_out=0.01", "t_max=40", "p_omega=0.2", "seed=11",
+		"binary=false" };
+
+	@Test
+	public void testSequentialRunsAreIdentical() throws ParseException
+	{
+		final DCRGraph first = run();
+		final DCRGraph second = run();
+		assertSameJournals(first, second);
+	}
+
+	@Test
+	public void testConcurrentRunsAreIdentical() throws Exception
+	{
+		final DCRGraph expected = run();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			final List<Future<DCRGraph>> results = new ArrayList<Future<DCRGraph>>();
+			for (int i = 0; i < 4; ++i)
+			{
+				results.add(executor.submit(new Callable<DCRGraph>()
+				{
+					@Override
+					public DCRGraph call() throws ParseException
+					{
+						return run();
+					}
+				}));
+			}
+			for (final Future<DCRGraph> result : results)
+			{
+				assertSameJournals(expected, result.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * The batched execution has to yield the same instance as the one-by-one
+	 * execution, for any number of threads.
+	 */
+	@Test
+	public void testBatchedStepsEqualSequentialLoop() throws ParseException
+	{
+		final DCRGraph expected = run("eta=200");
+		Assert.assertTrue(expected.getSmallScaleOpCount() > 40 * 100);
+
+		for (final String threads : new String[] { "step_threads=1", "step_threads=2",
+			"step_threads=5" })
+		{
+			final DCRGraph actual = run("eta=200", threads);
+			Assert.assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+			Assert.assertEquals(expected.getInterClusterEdgeCount(),
+				actual.getInterClusterEdgeCount());
+			Assert.assertEquals(expected.getSmallScaleOpCount(), actual.getSmallScaleOpCount());
+			assertSameJournals(expected, actual);
+		}
+	}
+
+	private static DCRGraph run(final String... extraArguments) throws ParseException
+	{
+		final String[] arguments = new String[ARGUMENTS.length + extraArguments.length];
+		System.arraycopy(ARGUMENTS, 0, arguments, 0, ARGUMENTS.length);
+		System.arraycopy(extraArguments, 0, arguments, ARGUMENTS.length, extraArguments.length);
+
+		final Generator generator = new Generator(CommandLineArguments.parse(arguments));
+		generator.run();
+		return generator.getGraph();
+	}
+
+	private static void assertSameJournals(final DCRGraph expected, final DCRGraph actual)
+	{
+		Assert.assertEquals(expected.getGraphJournal().opCodes.size(),
+			actual.getGraphJournal().opCodes.size());
+		Assert.assertEquals(expected.getGraphJournal().arguments.size(),
+			actual.getGraphJournal().arguments.size());
+		for (int i = 0; i < expected.getGraphJournal().arguments.size(); ++i)
+		{
+			Assert.assertEquals(expected.getGraphJournal().arguments.get(i),
+				actual.getGraphJournal().arguments.get(i));
+		}
+		Assert.assertEquals(expected.getClusteringJournal().intArgs.size(),
+			actual.getClusteringJournal().intArgs.size());
+		for (int i = 0; i < expected.getClusteringJournal().intArgs.size(); ++i)
+		{
+			Assert.assertEquals(expected.getClusteringJournal().intArgs.get(i),
+				actual.getClusteringJournal().intArgs.get(i));
+		}
+	}
+}
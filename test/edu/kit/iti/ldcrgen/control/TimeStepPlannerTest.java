@@ -0,0 +1,79 @@
+package edu.kit.iti.ldcrgen.control;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
+import edu.kit.iti.ldcrgen.data_structures.XoroshiroRandomProvider;
+import edu.kit.iti.ldcrgen.io.CommandLineArguments;
+import edu.kit.iti.ldcrgen.io.ParseException;
+
+public class TimeStepPlannerTest
+{
+	@Test
+	public void testEdgeRunLength()
+	{
+		final int numSamples = 200000;
+		final TimeStepPlanner planner = new TimeStepPlanner(0.75, 0.5,
+			new XoroshiroRandomProvider(42));
+		double sum = 0.0;
+		int zeros = 0;
+		for (int i = 0; i < numSamples; ++i)
+		{
+			final long length = planner.nextEdgeRunLength();
+			Assert.assertTrue(length >= 0);
+			sum += length;
+			if (0 == length)
+			{
+				++zeros;
+			}
+		}
+		// geometric distribution: P(0) = 1 - p_chi, mean = p_chi / (1 - p_chi)
+		Assert.assertEquals(0.25, zeros / (double) numSamples, 0.01);
+		Assert.assertEquals(3.0, sum / numSamples, 0.05);
+
+		Assert.assertEquals(Long.MAX_VALUE, new TimeStepPlanner(1.0, 0.5,
+			new XoroshiroRandomProvider(42)).nextEdgeRunLength());
+		Assert.assertEquals(0, new TimeStepPlanner(0.0, 0.5, new XoroshiroRandomProvider(42))
+			.nextEdgeRunLength());
+	}
+
+	/*
+	 * Compares the averages of several runs with the sequential loop.
+	 */
+	@Test
+	public void testAgainstSequentialLoop() throws ParseException
+	{
+		final int numRuns = 40;
+		final double[] sequential = new double[3];
+		final double[] planned = new double[3];
+		for (int seed = 1; seed <= numRuns; ++seed)
+		{
+			accumulate(sequential, run(seed, false));
+			accumulate(planned, run(seed, true));
+		}
+		for (int i = 0; i < sequential.length; ++i)
+		{
+			Assert.assertEquals("statistic " + i, sequential[i] / numRuns, planned[i] / numRuns,
+				0.04 * sequential[i] / numRuns);
+		}
+	}
+
+	private static DCRGraph run(final long seed, final boolean planSteps)
+		throws ParseException
+	{
+		final Generator generator = new Generator(CommandLineArguments.parse(new String[] {
+			"n=300", "cl_sizes=[100,100,100]", "p_in_list=[0.2,0.3,0.4]", "p_out=0.01",
+			"t_max=30", "eta=300", "p_chi=0.9", "p_nu=0.6", "p_omega=0", "binary=false",
+			"seed=" + seed, "plan_steps=" + planSteps }));
+		generator.run();
+		return generator.getGraph();
+	}
+
+	private static void accumulate(final double[] statistics, final DCRGraph graph)
+	{
+		statistics[0] += graph.getNodeCount();
+		statistics[1] += graph.getEdgeCount();
+		statistics[2] += graph.getSmallScaleOpCount();
+	}
+}
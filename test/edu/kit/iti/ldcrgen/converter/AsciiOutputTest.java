@@ -0,0 +1,50 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsciiOutputTest
+{
+	@Test
+	public void testIntFormatting() throws IOException
+	{
+		final int[] values = { 0, 7, -7, 10, 99, 100, 123456789, 1000000000, -1000000000,
+			Integer.MAX_VALUE, Integer.MIN_VALUE };
+		final StringBuilder expected = new StringBuilder();
+		final AsciiOutput out = new AsciiOutput(1);
+		for (final int value : values)
+		{
+			expected.append(value).append(' ');
+			out.write(value).write(' ');
+		}
+
+		Assert.assertEquals(expected.toString(), new String(out.toByteArray(), "US-ASCII"));
+	}
+
+	@Test
+	public void testStreamIsWrittenInOrder() throws IOException
+	{
+		final ByteArrayOutputStream target = new ByteArrayOutputStream();
+		final AsciiOutput out = new AsciiOutput(target);
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 300000; ++i)
+		{
+			out.write("line ").write(i).newLine();
+			expected.append("line ").append(i).append('\n');
+			if (i % 100000 == 0)
+			{
+				final byte[] block = new byte[AsciiOutput.DEFAULT_BUFFER_SIZE];
+				Arrays.fill(block, (byte) 'x');
+				out.write(block);
+				expected.append(new String(block, "US-ASCII"));
+			}
+		}
+		out.flush();
+
+		Assert.assertEquals(expected.toString(), new String(target.toByteArray(), "US-ASCII"));
+	}
+}
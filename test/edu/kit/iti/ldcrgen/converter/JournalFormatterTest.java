@@ -0,0 +1,135 @@
+package edu.kit.iti.ldcrgen.converter;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.GraphJReader;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
+
+public class JournalFormatterTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testOperationsMatchIterator() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		final StringBuilder expectedGraph = new StringBuilder();
+		int counter = 1;
+		for (final GraphOperation op : gJournal)
+		{
+			expectedGraph.append("#" + counter + ": " + op.type + " " + op.arg0 + " " + op.arg1
+				+ " " + op.arg2 + "\t\t" + op.type.documentation + "\n");
+			++counter;
+		}
+		final StringBuilder expectedClustering = new StringBuilder();
+		counter = 1;
+		for (final ClusteringOperation op : clJournal)
+		{
+			expectedClustering.append("#" + counter + ": " + op.type + " " + op.arg0 + " "
+				+ op.arg1 + " " + op.arg2 + "\t\t" + op.type.documentation + "\n");
+			++counter;
+		}
+
+		// the chunking must not influence the output
+		for (final int chunkSize : new int[] { 1, 7, 1 << 20 })
+		{
+			final AsciiOutput graphOut = new AsciiOutput(16);
+			for (final JournalFormatter.Chunk chunk : JournalFormatter.splitGraphJournal(
+				gJournal.opCodes, chunkSize))
+			{
+				JournalFormatter.formatGraphOperations(gJournal.opCodes, gJournal.arguments,
+					chunk, graphOut);
+			}
+			Assert.assertEquals(expectedGraph.toString(), toString(graphOut));
+
+			final AsciiOutput clusteringOut = new AsciiOutput(16);
+			for (final JournalFormatter.Chunk chunk : JournalFormatter.splitClusteringJournal(
+				clJournal.opCodes, chunkSize))
+			{
+				JournalFormatter.formatClusteringOperations(clJournal.opCodes,
+					clJournal.intArgs, chunk, clusteringOut);
+			}
+			Assert.assertEquals(expectedClustering.toString(), toString(clusteringOut));
+		}
+	}
+
+	@Test
+	public void testEdgeDeltas() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1);
+		journal.createNodeOp(1, 1);
+		journal.createEdgeOp(1, 2);
+		journal.nextStepOp();
+		journal.nextStepOp();
+		journal.createNodeOp(2, 2);
+		journal.removeEdgeOp(2, 1);
+		journal.createEdgeOp(3, 1);
+
+		for (final int chunkSize : new int[] { 1, 3, 100 })
+		{
+			final AsciiOutput out = new AsciiOutput(16);
+			for (final JournalFormatter.Chunk chunk : JournalFormatter.splitGraphJournal(
+				journal.opCodes, chunkSize))
+			{
+				JournalFormatter.formatEdgeDeltas(journal.opCodes, journal.arguments, chunk, out);
+			}
+			Assert.assertEquals("0 + 1 2\n2 - 2 1\n2 + 3 1\n", toString(out));
+		}
+	}
+
+	@Test
+	public void testMetisAndMembership() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1);
+		journal.createNodeOp(1, 2);
+		journal.createNodeOp(2, 2);
+		journal.createNodeOp(2, 2);
+		journal.createEdgeOp(1, 4);
+		journal.createEdgeOp(2, 4);
+		journal.createEdgeOp(1, 2);
+		journal.removeEdgeOp(2, 4);
+		journal.removeEdgeOp(1, 2);
+		journal.removeNodeOp(2);
+
+		final ReplayEngine engine = new ReplayEngine(journal, new ClusteringJournal());
+
+		final AsciiOutput metis = new AsciiOutput(16);
+		StateFormatter.formatMetis(engine.seek(0), metis);
+		Assert.assertEquals("% time step 0\n3 1\n3\n\n1\n", toString(metis));
+
+		final AsciiOutput membership = new AsciiOutput(16);
+		StateFormatter.formatMembership(engine.seek(0), membership);
+		Assert.assertEquals("0,1,1,1\n0,3,2,2\n0,4,2,2\n", toString(membership));
+	}
+
+	private static String toString(final AsciiOutput out) throws IOException
+	{
+		return new String(out.toByteArray(), "US-ASCII");
+	}
+}
@@ -0,0 +1,73 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AliasTableTest
+{
+
+	@Test(
+			expected = IllegalArgumentException.class)
+	public void testAllWeightsZero()
+	{
+		new AliasTable(new double[] { 0.0, 0.0 });
+	}
+
+	@Test(
+			expected = IllegalArgumentException.class)
+	public void testNegativeWeight()
+	{
+		new AliasTable(new double[] { 1.0, -1.0 });
+	}
+
+	@Test
+	public void testSingleElement()
+	{
+		final AliasTable table = new AliasTable(new double[] { 3.0 });
+		final RandomProvider random = new JavaUtilRandomProvider(1);
+		Assert.assertEquals(1, table.size());
+		for (int i = 0; i < 100; ++i)
+		{
+			Assert.assertEquals(0, table.sample(random));
+		}
+	}
+
+	@Test
+	public void testZeroWeightIsNeverDrawn()
+	{
+		final AliasTable table = new AliasTable(new double[] { 1.0, 0.0, 2.0, 0.0 });
+		final RandomProvider random = new JavaUtilRandomProvider(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			final int index = table.sample(random);
+			Assert.assertTrue("index: " + index, index == 0 || index == 2);
+		}
+	}
+
+	@Test
+	public void testDistribution()
+	{
+		final double[] weights = { 1.0, 5.0, 10.0, 0.5, 3.5, 20.0, 60.0 };
+		final AliasTable table = new AliasTable(weights);
+		final RandomProvider random = new JavaUtilRandomProvider(4711);
+		final int numSamples = (int) 1e6;
+
+		double totalWeight = 0.0;
+		for (final double weight : weights)
+		{
+			totalWeight += weight;
+		}
+
+		final int[] counts = new int[weights.length];
+		for (int i = 0; i < numSamples; ++i)
+		{
+			++counts[table.sample(random)];
+		}
+
+		for (int i = 0; i < weights.length; ++i)
+		{
+			final double expected = weights[i] / totalWeight;
+			Assert.assertEquals("index: " + i, expected, counts[i] / (double) numSamples, 0.002);
+		}
+	}
+}
@@ -16,6 +16,7 @@ public class ClusterAdjacencyListPerformanceTest
 	@Test(expected=OutOfMemoryError.class)
 	public void testMaximumSize() throws FileNotFoundException
 	{
+		final DCRGraph graph = new DCRGraph();
 		final OrdinaryCluster cl = new OrdinaryCluster(null, 0.5);
 		cl.setGroundTruthIndex(0);
 		final int maxSize = (int) 1e5;
@@ -39,7 +40,7 @@ public class ClusterAdjacencyListPerformanceTest
 				final ClusterAdjacencyList list = new ClusterAdjacencyList(cl);
 				for (int i = 0; i < size; ++i)
 				{
-					list.addNode(new Node());
+					list.addNode(new Node(graph));
 				}
 
 				for (int i = 0; i < size; ++i)
@@ -60,6 +61,7 @@ public class ClusterAdjacencyListPerformanceTest
 	@Test
 	public void testPerformanceEdgeCount() throws FileNotFoundException
 	{
+		final DCRGraph graph = new DCRGraph();
 		final OrdinaryCluster cl = new OrdinaryCluster(null, 0.5);
 		cl.setGroundTruthIndex(0);
 		final Random random = new Random();
@@ -87,7 +89,7 @@ public class ClusterAdjacencyListPerformanceTest
 				final ClusterAdjacencyList list = new ClusterAdjacencyList(cl);
 				for (int i = 0; i < size; ++i)
 				{
-					list.addNode(new Node());
+					list.addNode(new Node(graph));
 				}
 				for (int i = 0; i < size; ++i)
 				{
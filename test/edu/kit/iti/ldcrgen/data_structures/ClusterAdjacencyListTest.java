@@ -31,7 +31,8 @@ public class ClusterAdjacencyListTest
 	@Test
 	public void testOnlyNodes()
 	{
-		final OrdinaryCluster cl = new OrdinaryCluster(DCRGraphTest.emptyGraph(), 0.5);
+		final DCRGraph graph = DCRGraphTest.emptyGraph();
+		final OrdinaryCluster cl = new OrdinaryCluster(graph, 0.5);
 		cl.setGroundTruthIndex(0);
 
 		Assert.assertTrue(cl.isInGroundTruth());
@@ -44,7 +45,7 @@ public class ClusterAdjacencyListTest
 		final List<Node> expectedNodes = new ArrayList<Node>(100);
 		for (int i = 0; i < 100; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			list.addNode(node);
 			expectedNodes.add(node);
 		}
@@ -82,7 +83,7 @@ public class ClusterAdjacencyListTest
 		final ClusterAdjacencyList list = new ClusterAdjacencyList(fstCl);
 		for (int i = 0; i < 100; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			node.setGtCluster(fstCl);
 			list.addNode(node);
 			nodes.add(node);
@@ -118,7 +119,7 @@ public class ClusterAdjacencyListTest
 		parent.setGroundTruthIndex(0);
 		final ClusterAdjacencyList list = new ClusterAdjacencyList(parent);
 
-		final Node[] nodes = { new Node(), new Node(), new Node(), new Node(), new Node() };
+		final Node[] nodes = { new Node(graph), new Node(graph), new Node(graph), new Node(graph), new Node(graph) };
 		for (final Node node : nodes)
 		{
 			list.addNode(node);
@@ -263,7 +264,7 @@ public class ClusterAdjacencyListTest
 
 		for (int i = 0; i < nodeCount; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			list.addNode(node);
 			nodes.add(node);
 			node.setGtCluster(cluster);
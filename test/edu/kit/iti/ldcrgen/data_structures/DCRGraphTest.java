@@ -11,6 +11,7 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
 import edu.kit.iti.ldcrgen.util.BooleanUtils;
 import edu.kit.iti.ldcrgen.util.ListUtils;
 import edu.kit.iti.ldcrgen.util.Pair;
@@ -72,7 +73,7 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, cluster);
 		}
@@ -123,18 +124,18 @@ public class DCRGraphTest
 		graph.addCluster(fothCl);
 		graph.addCluster(ffthCl);
 
-		graph.addNode(new Node(), fstCl);
-		graph.addNode(new Node(), sndCl);
-		graph.addNode(new Node(), thdCl);
-		graph.addNode(new Node(), fothCl);
-		graph.addNode(new Node(), ffthCl);
+		graph.addNode(new Node(graph), fstCl);
+		graph.addNode(new Node(graph), sndCl);
+		graph.addNode(new Node(graph), thdCl);
+		graph.addNode(new Node(graph), fothCl);
+		graph.addNode(new Node(graph), ffthCl);
 
 		// cannot remove a node because this would leave one cluster empty
 		Assert.assertEquals(graph.getClusterCount(), graph.getNodeCount());
 		graph.removeNode();
 		Assert.assertEquals(graph.getClusterCount(), graph.getNodeCount());
 
-		graph.addNode(new Node(), ffthCl);
+		graph.addNode(new Node(graph), ffthCl);
 
 		Assert.assertEquals(graph.getClusterCount() + 1, graph.getNodeCount());
 		graph.removeNode();
@@ -157,7 +158,7 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 100; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, cluster);
 		}
@@ -191,21 +192,21 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, fstCl);
 		}
 
 		for (int i = 10; i < 20; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, sndCl);
 		}
 
 		for (int i = 20; i < 30; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, sndCl);
 		}
@@ -284,21 +285,21 @@ public class DCRGraphTest
 
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, fstCl);
 		}
 
 		for (int i = 10; i < 20; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, sndCl);
 		}
 
 		for (int i = 20; i < 30; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, thdCl);
 		}
@@ -478,14 +479,14 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 7; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, fstCluster);
 		}
 
 		for (int i = 7; i < 20; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, sndCluster);
 		}
@@ -594,9 +595,9 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node1 = new Node();
+			final Node node1 = new Node(graph);
 			graph.addNode(node1, fstCl);
-			final Node node2 = new Node();
+			final Node node2 = new Node(graph);
 			graph.addNode(node2, sndCl);
 			nodes.addAll(Arrays.asList(node1, node2));
 		}
@@ -643,11 +644,11 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 40; ++i)
 		{
-			final Node node1 = new Node();
+			final Node node1 = new Node(graph);
 			graph.addNode(node1, fstCl);
-			final Node node2 = new Node();
+			final Node node2 = new Node(graph);
 			graph.addNode(node2, sndCl);
-			final Node node3 = new Node();
+			final Node node3 = new Node(graph);
 			graph.addNode(node3, thdCl);
 			nodes.addAll(Arrays.asList(node1, node2, node3));
 		}
@@ -691,7 +692,7 @@ public class DCRGraphTest
 		final List<Node> nodes = new ArrayList<Node>();
 		for (int i = 0; i < 5; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			nodes.add(node);
 			graph.addNode(node, cl);
 		}
@@ -954,8 +955,8 @@ public class DCRGraphTest
 		graph.addCluster(fstOrig);
 		graph.addCluster(sndOrig);
 
-		graph.addNode(new Node(), fstOrig);
-		graph.addNode(new Node(), sndOrig);
+		graph.addNode(new Node(graph), fstOrig);
+		graph.addNode(new Node(graph), sndOrig);
 		for (int i = 2; i < 20; ++i)
 		{
 			graph.addNode();
@@ -1480,12 +1481,93 @@ public class DCRGraphTest
 
 	}
 
+	@Test
+	public void testReproducibleGivenSeed()
+	{
+		final List<Integer> sizes = Arrays.asList(30, 40, 50);
+		final List<Double> pins = Arrays.asList(0.3, 0.5, 0.7);
+
+		final List<Integer> firstTrace = evolveSeeded(sizes, pins, 4711);
+		final List<Integer> secondTrace = evolveSeeded(sizes, pins, 4711);
+
+		Assert.assertEquals(firstTrace, secondTrace);
+	}
+
+	@Test
+	public void testParallelInitIndependentOfThreadCount()
+	{
+		final List<Integer> sizes = Arrays.asList(120, 80, 60, 40, 1);
+		final List<Double> pins = Arrays.asList(0.3, 0.5, 0.7, 0.9, 0.5);
+
+		final DCRGraph expected = initSeeded(sizes, pins, 1);
+		Assert.assertEquals(301, expected.getNodeCount());
+		Assert.assertTrue(expected.getInterClusterEdgeCount() > 0);
+
+		for (final int threads : new int[] { 0, 2, 3, 8 })
+		{
+			final DCRGraph actual = initSeeded(sizes, pins, threads);
+			Assert.assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+			Assert.assertEquals(expected.getInterClusterEdgeCount(),
+				actual.getInterClusterEdgeCount());
+
+			final GraphJournal expectedJournal = expected.getGraphJournal();
+			final GraphJournal actualJournal = actual.getGraphJournal();
+			Assert.assertEquals(expectedJournal.opCodes.size(), actualJournal.opCodes.size());
+			Assert.assertEquals(expectedJournal.arguments.size(), actualJournal.arguments.size());
+			for (int i = 0; i < expectedJournal.arguments.size(); ++i)
+			{
+				Assert.assertEquals(expectedJournal.arguments.get(i),
+					actualJournal.arguments.get(i));
+			}
+		}
+	}
+
+	private static DCRGraph initSeeded(final List<Integer> sizes, final List<Double> pins,
+		final int threads)
+	{
+		final DCRGraph graph = new DCRGraph(0.05, 0.5, PInSampler.MEAN,
+			ShuffleMapType.PRIMITIVE, new XoroshiroRandomProvider(4711));
+		graph.initAsErdosRenyi(sizes, pins, 0.05, threads);
+		return graph;
+	}
+
+	private static List<Integer> evolveSeeded(final List<Integer> sizes, final List<Double> pins,
+		final long seed)
+	{
+		final DCRGraph graph = new DCRGraph(0.05, 0.5, PInSampler.GAUSSIAN,
+			ShuffleMapType.PRIMITIVE, new XoroshiroRandomProvider(seed));
+		graph.initAsErdosRenyi(sizes, pins, 0.05);
+
+		final List<Integer> trace = new ArrayList<Integer>();
+		for (int t = 0; t < 200; ++t)
+		{
+			graph.nextTimeStep();
+			if (t % 20 == 0)
+			{
+				graph.split();
+			}
+			else if (t % 20 == 10)
+			{
+				graph.merge();
+			}
+			graph.addNode();
+			graph.addEdge();
+			graph.removeEdge();
+
+			trace.add(graph.getNodeCount());
+			trace.add(graph.getEdgeCount());
+			trace.add(graph.getClusterCount());
+			trace.add(graph.getInterClusterEdgeCount());
+		}
+		return trace;
+	}
+
 	private static DCRGraph generateErdosRenyi(
 		final List<Integer> sizes,
 		final List<Double> pins, final double pOut,
 		final PInSampler mean, final double theta)
 	{
-		final DCRGraph graph = new DCRGraph(pOut, 0.5, mean, false);
+		final DCRGraph graph = new DCRGraph(pOut, 0.5, mean, ShuffleMapType.PRIMITIVE);
 		graph.initAsErdosRenyi(sizes, pins, pOut);
 		return graph;
 	}
@@ -21,7 +21,7 @@ public class EdgeTest
 		final Random random = new Random();
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			node.setGtCluster(new OrdinaryCluster(graph, random.nextDouble()));
 			node.setGtClIndex(random.nextInt());
 			node.setPsClIndex(random.nextInt());
@@ -0,0 +1,95 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.util.ListUtils;
+
+public class FenwickTreeTest
+{
+
+	@Test
+	public void testPrefixSums()
+	{
+		final FenwickTree tree = new FenwickTree();
+		for (int i = 0; i < 100; ++i)
+		{
+			tree.add(i);
+		}
+
+		Assert.assertEquals(100, tree.size());
+		long expected = 0;
+		for (int i = 0; i <= 100; ++i)
+		{
+			Assert.assertEquals(expected, tree.prefixSum(i));
+			expected += i;
+		}
+		Assert.assertEquals(4950, tree.total());
+	}
+
+	@Test
+	public void testFindIndexSkipsEmptyIntervals()
+	{
+		final FenwickTree tree = new FenwickTree();
+		tree.add(0);
+		tree.add(2);
+		tree.add(0);
+		tree.add(0);
+		tree.add(1);
+
+		Assert.assertEquals(1, tree.findIndex(0));
+		Assert.assertEquals(1, tree.findIndex(1));
+		Assert.assertEquals(4, tree.findIndex(2));
+	}
+
+	@Test
+	public void testAgainstList()
+	{
+		final Random random = new Random(42);
+		final FenwickTree tree = new FenwickTree();
+		final List<Long> list = new ArrayList<Long>();
+
+		for (int round = 0; round < 10000; ++round)
+		{
+			final int op = random.nextInt(3);
+			if (op == 0 || list.isEmpty())
+			{
+				final long value = random.nextInt(10);
+				tree.add(value);
+				list.add(value);
+			}
+			else if (op == 1)
+			{
+				final int index = random.nextInt(list.size());
+				final long value = random.nextInt(10);
+				tree.set(index, value);
+				list.set(index, value);
+			}
+			else
+			{
+				final int index = random.nextInt(list.size());
+				tree.moveLastTo(index);
+				ListUtils.moveLastTo(list, index);
+			}
+
+			Assert.assertEquals(list.size(), tree.size());
+
+			long sum = 0;
+			for (int i = 0; i < list.size(); ++i)
+			{
+				Assert.assertEquals(list.get(i).longValue(), tree.get(i));
+				Assert.assertEquals(sum, tree.prefixSum(i));
+				for (long p = sum; p < sum + list.get(i); ++p)
+				{
+					Assert.assertEquals(i, tree.findIndex(p));
+				}
+				sum += list.get(i);
+			}
+			Assert.assertEquals(sum, tree.total());
+		}
+	}
+}
@@ -157,4 +157,88 @@ public class FisherYatesShufflePerformanceTest
 
 		System.out.println(timer.elapsed()/(double)numRuns + "ms");
 	}
+
+	/**
+	 * Compares the map types of the shuffle with respect to throughput of
+	 * a mixed select/delete workload and memory consumption per replace
+	 * pointer. The last rows show the shuffle with dense mode enabled,
+	 * which it enters as half of the elements are selected.
+	 */
+	@Ignore
+	@Test
+	public void testPerformanceMapTypes() throws FileNotFoundException
+	{
+		final int maxSize = (int) 1e6;
+		final List<Integer> sizes = Sequences.decadeSequence((int) Math.log10(maxSize), 1);
+		final PrintStream writer = new PrintStream(
+				"./test/measurements/fy_shuffle_map_types.data");
+
+		writer.println("# First column: map type");
+		writer.println("# Second column: number of selected elements");
+		writer.println("# Third column: million operations per second");
+		writer.println("# Fourth column: bytes per replace pointer");
+		writer.println("map size mops bytes");
+		for (final ShuffleMapType mapType : ShuffleMapType.values())
+		{
+			for (final int size : sizes)
+			{
+				writer.println(mapType + " " + size + " " + measureMapType(mapType, false, size));
+			}
+		}
+		for (final int size : sizes)
+		{
+			writer.println("dense " + size + " " + measureMapType(ShuffleMapType.PRIMITIVE, true, size));
+		}
+		writer.close();
+	}
+
+	private static String measureMapType(final ShuffleMapType mapType,
+		final boolean denseModeAllowed, final int size)
+	{
+		final int numRuns = 3;
+		final int numQueries = (int) 5e6;
+		final Random random = new Random(size);
+		double bytesPerPointer = 0.0;
+		long elapsed = 0;
+		for (int r = 0; r < numRuns; ++r)
+		{
+			final long memoryBefore = usedMemory();
+			final FisherYatesShuffle shuffle = new FisherYatesShuffle(2 * size, mapType,
+				denseModeAllowed);
+			for (int i = 0; i < size; ++i)
+			{
+				shuffle.select();
+			}
+			// every selection at an index != the border creates two pointers
+			bytesPerPointer += (usedMemory() - memoryBefore) / (2.0 * size);
+
+			final long startTime = System.nanoTime();
+			for (int i = 0; i < numQueries; ++i)
+			{
+				final double probabilityOfDeletion = shuffle.getSelectionCount()
+					/ (double) shuffle.getMaxNum();
+
+				if (random.nextDouble() < probabilityOfDeletion)
+				{
+					shuffle.delete();
+				}
+				else
+				{
+					shuffle.select();
+				}
+			}
+			elapsed += System.nanoTime() - startTime;
+		}
+		return numQueries * numRuns * 1e3 / elapsed + " " + bytesPerPointer / numRuns;
+	}
+
+	private static long usedMemory()
+	{
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; ++i)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
 }
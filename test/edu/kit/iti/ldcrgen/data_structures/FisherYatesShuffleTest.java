@@ -1,9 +1,11 @@
 package edu.kit.iti.ldcrgen.data_structures;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -269,6 +271,133 @@ public class FisherYatesShuffleTest
 		}
 	}
 
+	/**
+	 * Runs the same sequence of deterministic operations on shuffles with
+	 * all available map types and compares them with a reference set.
+	 */
+	@Test
+	public void testAllMapTypes()
+	{
+		final int maxNum = 2000;
+		final int numTestOperations = (int) 2e4;
+		for (final ShuffleMapType mapType : ShuffleMapType.values())
+		{
+			final FisherYatesShuffle shuffle = new FisherYatesShuffle(maxNum, mapType);
+			final Random random = new Random(42);
+			final Set<Long> expectedElements = new HashSet<Long>();
+
+			for (int i = 0; i < numTestOperations; ++i)
+			{
+				final long element = random.nextInt(maxNum);
+				Assert.assertEquals(mapType.toString(), expectedElements.contains(element),
+					shuffle.contains(element));
+				if (expectedElements.contains(element))
+				{
+					shuffle.delete(element);
+					expectedElements.remove(element);
+				}
+				else
+				{
+					shuffle.select(element);
+					expectedElements.add(element);
+				}
+				Assert.assertEquals(expectedElements.size(), shuffle.getSelectionCount());
+			}
+
+			Assert.assertEquals(expectedElements, new HashSet<Long>(shuffle.getSelectedElements()));
+
+			shuffle.resize(maxNum / 2);
+			for (final Long element : expectedElements)
+			{
+				Assert.assertEquals(element < maxNum / 2, shuffle.contains(element));
+			}
+		}
+	}
+
+	@Test
+	public void testDenseMode()
+	{
+		final long maxNum = 1L << 20;
+		final FisherYatesShuffle shuffle = new FisherYatesShuffle(maxNum);
+		final Random random = new Random(42);
+		final Set<Long> expectedElements = new HashSet<Long>();
+		Assert.assertFalse(shuffle.isDense());
+
+		// fill up to a quarter of the shuffle => dense
+		while (expectedElements.size() < maxNum / 4)
+		{
+			final long element = random.nextInt((int) maxNum);
+			if (!expectedElements.contains(element))
+			{
+				shuffle.select(element);
+				expectedElements.add(element);
+			}
+		}
+		Assert.assertTrue(shuffle.isDense());
+		Assert.assertEquals(expectedElements, new HashSet<Long>(shuffle.getSelectedElements()));
+
+		// remove down to a sixteenth => still dense (hysteresis)
+		final List<Long> elements = new ArrayList<Long>(expectedElements);
+		while (expectedElements.size() > maxNum / 16)
+		{
+			final long element = elements.remove(elements.size() - 1);
+			shuffle.delete(element);
+			expectedElements.remove(element);
+		}
+		Assert.assertTrue(shuffle.isDense());
+
+		// remove down to a sixty-fourth => sparse
+		while (expectedElements.size() > maxNum / 64)
+		{
+			final long element = elements.remove(elements.size() - 1);
+			shuffle.delete(element);
+			expectedElements.remove(element);
+		}
+		Assert.assertFalse(shuffle.isDense());
+		Assert.assertEquals(expectedElements, new HashSet<Long>(shuffle.getSelectedElements()));
+		for (final Long element : expectedElements)
+		{
+			Assert.assertTrue(shuffle.contains(element));
+		}
+	}
+
+	@Test
+	public void testDenseModeResize()
+	{
+		final FisherYatesShuffle shuffle = new FisherYatesShuffle(0);
+		Assert.assertTrue(shuffle.isDense());
+
+		// grow in small steps as when adding nodes to a cluster
+		final Random random = new Random(42);
+		final Set<Long> expectedElements = new HashSet<Long>();
+		for (long size = 1000; size <= 1000000; size += 1000)
+		{
+			shuffle.fastResize(size);
+			for (int i = 0; i < 100; ++i)
+			{
+				expectedElements.add(shuffle.select());
+			}
+			Assert.assertEquals(expectedElements.size(), shuffle.getSelectionCount());
+		}
+		// 10% are selected: not enough for entering, but for staying in dense mode
+		Assert.assertTrue(shuffle.isDense());
+
+		shuffle.fastResize(10000000);
+		Assert.assertFalse(shuffle.isDense());
+		Assert.assertEquals(expectedElements, new HashSet<Long>(shuffle.getSelectedElements()));
+
+		shuffle.resize(50000);
+		Assert.assertTrue(shuffle.isDense());
+		for (final Long element : expectedElements)
+		{
+			Assert.assertEquals(element < 50000, shuffle.contains(element));
+		}
+
+		shuffle.clear();
+		Assert.assertTrue(shuffle.isDense());
+		Assert.assertTrue(shuffle.getSelectedElements().isEmpty());
+	}
+
 	private void fill(final FisherYatesShuffle shuffle)
 	{
 		for (long i = 0; i < shuffle.getMaxNum(); ++i)
@@ -0,0 +1,94 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeometricSkipSamplerTest
+{
+
+	@Test
+	public void testInitiallyExhausted()
+	{
+		final GeometricSkipSampler sampler = new GeometricSkipSampler(new JavaUtilRandomProvider(1));
+		Assert.assertFalse(sampler.hasNext());
+	}
+
+	@Test(
+			expected = NoSuchElementException.class)
+	public void testNextWhenExhausted()
+	{
+		final GeometricSkipSampler sampler = new GeometricSkipSampler(new JavaUtilRandomProvider(1));
+		sampler.reset(GeometricSkipSampler.logQ(0.0), 100);
+		sampler.next();
+	}
+
+	@Test(
+			expected = IllegalArgumentException.class)
+	public void testInvalidProbability()
+	{
+		GeometricSkipSampler.logQ(1.01);
+	}
+
+	@Test
+	public void testExtremeProbabilities()
+	{
+		final GeometricSkipSampler sampler = new GeometricSkipSampler(new JavaUtilRandomProvider(1));
+
+		sampler.reset(GeometricSkipSampler.logQ(0.0), 1000);
+		Assert.assertFalse(sampler.hasNext());
+
+		sampler.reset(GeometricSkipSampler.logQ(1.0), 1000);
+		for (long i = 0; i < 1000; ++i)
+		{
+			Assert.assertTrue(sampler.hasNext());
+			Assert.assertEquals(i, sampler.next());
+		}
+		Assert.assertFalse(sampler.hasNext());
+
+		sampler.reset(GeometricSkipSampler.logQ(0.5), 0);
+		Assert.assertFalse(sampler.hasNext());
+
+		// must not overflow for huge ranges and tiny probabilities
+		sampler.reset(GeometricSkipSampler.logQ(1e-300), Long.MAX_VALUE);
+		while (sampler.hasNext())
+		{
+			Assert.assertTrue(sampler.next() >= 0);
+		}
+	}
+
+	@Test
+	public void testExpectedSize()
+	{
+		final GeometricSkipSampler sampler = new GeometricSkipSampler(new JavaUtilRandomProvider(4711));
+		final int numRuns = (int) 1e4;
+		final int max = 500;
+		final double prob = 0.05;
+		final double logQ = GeometricSkipSampler.logQ(prob);
+
+		final int[] hits = new int[max];
+		long totalCount = 0;
+		for (int r = 0; r < numRuns; ++r)
+		{
+			long previous = -1;
+			sampler.reset(logQ, max);
+			while (sampler.hasNext())
+			{
+				final long index = sampler.next();
+				Assert.assertTrue(previous < index && index < max);
+				++hits[(int) index];
+				++totalCount;
+				previous = index;
+			}
+		}
+
+		Assert.assertEquals(prob * max, totalCount / (double) numRuns, 0.1);
+
+		// every index is equally likely
+		for (int i = 0; i < max; ++i)
+		{
+			Assert.assertEquals("index: " + i, prob, hits[i] / (double) numRuns, 0.015);
+		}
+	}
+}
@@ -16,7 +16,7 @@ public class NodeTest
 	@Test
 	public void testToString()
 	{
-		new Node().toString();
+		new Node(new DCRGraph()).toString();
 	}
 
 	@Test
@@ -27,7 +27,7 @@ public class NodeTest
 		final Random random = new Random();
 		for (int i = 0; i < 10; ++i)
 		{
-			final Node node = new Node();
+			final Node node = new Node(graph);
 			node.setGtCluster(new OrdinaryCluster(graph, random.nextDouble()));
 			node.setGtClIndex(random.nextInt());
 			node.setPsClIndex(random.nextInt());
@@ -0,0 +1,105 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OpenAddressingLongLongMapTest
+{
+
+	@Test
+	public void testEmpty()
+	{
+		final OpenAddressingLongLongMap map = new OpenAddressingLongLongMap();
+		Assert.assertEquals(0, map.size());
+		Assert.assertFalse(map.containsKey(0));
+		Assert.assertEquals(7, map.get(0, 7));
+
+		map.remove(0);
+		Assert.assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testPutGetRemove()
+	{
+		final OpenAddressingLongLongMap map = new OpenAddressingLongLongMap();
+		map.put(0, 10);
+		map.put(Long.MAX_VALUE - 1, 20);
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(10, map.get(0, -1));
+		Assert.assertEquals(20, map.get(Long.MAX_VALUE - 1, -1));
+
+		map.put(0, 11);
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(11, map.get(0, -1));
+
+		map.remove(0);
+		Assert.assertFalse(map.containsKey(0));
+		Assert.assertTrue(map.containsKey(Long.MAX_VALUE - 1));
+		Assert.assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testGrowAndClear()
+	{
+		final OpenAddressingLongLongMap map = new OpenAddressingLongLongMap();
+		final int count = 100000;
+		for (int i = 0; i < count; ++i)
+		{
+			map.put(i, -i);
+		}
+		Assert.assertEquals(count, map.size());
+		Assert.assertTrue(map.capacity() >= count);
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(-i, map.get(i, 1));
+		}
+
+		map.clear();
+		Assert.assertEquals(0, map.size());
+		Assert.assertFalse(map.containsKey(count / 2));
+	}
+
+	/**
+	 * Compares a random sequence of operations on a small key range (many
+	 * collisions and backward shifts) with {@link HashMap}.
+	 */
+	@Test
+	public void testRandomOperations()
+	{
+		final OpenAddressingLongLongMap map = new OpenAddressingLongLongMap();
+		final Map<Long, Long> expected = new HashMap<Long, Long>();
+		final Random random = new Random(4711);
+		final int numTestOperations = (int) 1e5;
+		final int keyRange = 500;
+
+		for (int i = 0; i < numTestOperations; ++i)
+		{
+			final long key = random.nextInt(keyRange);
+			if (random.nextInt(3) == 0)
+			{
+				map.remove(key);
+				expected.remove(key);
+			}
+			else
+			{
+				final long value = random.nextLong();
+				map.put(key, value);
+				expected.put(key, value);
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+
+		for (long key = 0; key < keyRange; ++key)
+		{
+			Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+			if (expected.containsKey(key))
+			{
+				Assert.assertEquals(expected.get(key).longValue(), map.get(key, -1));
+			}
+		}
+	}
+}
@@ -46,9 +46,10 @@ public class PairTest
 			pairs.add(new Pair<Object>(new Object(), new Object()));
 		}
 
+		final DCRGraph graph = new DCRGraph();
 		for (int i = 0; i < 10; ++i)
 		{
-			pairs.add(new Pair<Node>(new Node(), new Node()));
+			pairs.add(new Pair<Node>(new Node(graph), new Node(graph)));
 		}
 
 		pairs.add(null);
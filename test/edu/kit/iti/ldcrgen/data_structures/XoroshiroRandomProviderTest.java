@@ -0,0 +1,106 @@
+package edu.kit.iti.ldcrgen.data_structures;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.util.Pair;
+
+public class XoroshiroRandomProviderTest
+{
+
+	@Test
+	public void testSameSeedSameSequence()
+	{
+		final RandomProvider first = new XoroshiroRandomProvider(4711);
+		final RandomProvider second = new XoroshiroRandomProvider(4711);
+		for (int i = 0; i < 1000; ++i)
+		{
+			Assert.assertEquals(first.nextLong(), second.nextLong());
+			Assert.assertEquals(first.nextGaussian(), second.nextGaussian(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSetSeedRestartsSequence()
+	{
+		final RandomProvider random = new XoroshiroRandomProvider(1);
+		final long firstValue = random.nextLong();
+		random.nextGaussian();
+		random.setSeed(1);
+		Assert.assertEquals(firstValue, random.nextLong());
+	}
+
+	@Test
+	public void testSplitIsReproducibleAndDiffers()
+	{
+		final RandomProvider first = new XoroshiroRandomProvider(42);
+		final RandomProvider second = new XoroshiroRandomProvider(42);
+
+		final RandomProvider firstChild = first.split();
+		final RandomProvider secondChild = second.split();
+
+		int equalCount = 0;
+		for (int i = 0; i < 1000; ++i)
+		{
+			final long childValue = firstChild.nextLong();
+			Assert.assertEquals(childValue, secondChild.nextLong());
+			if (childValue == first.nextLong())
+			{
+				++equalCount;
+			}
+		}
+		Assert.assertEquals(0, equalCount);
+	}
+
+	@Test
+	public void testNextIntIsUniform()
+	{
+		final RandomProvider random = new XoroshiroRandomProvider(7);
+		final int max = 10;
+		final int draws = 100000;
+		final int[] counts = new int[max];
+		for (int i = 0; i < draws; ++i)
+		{
+			final int value = random.nextInt(max);
+			Assert.assertTrue(0 <= value && value < max);
+			++counts[value];
+		}
+		for (final int count : counts)
+		{
+			Assert.assertEquals(draws / max, count, draws / max * 0.05);
+		}
+	}
+
+	@Test
+	public void testNextDoubleInUnitRange()
+	{
+		final RandomProvider random = new XoroshiroRandomProvider(3);
+		double sum = 0.0;
+		for (int i = 0; i < 100000; ++i)
+		{
+			final double value = random.nextDouble();
+			Assert.assertTrue(0.0 <= value && value < 1.0);
+			sum += value;
+		}
+		Assert.assertEquals(0.5, sum / 100000, 0.01);
+	}
+
+	@Test
+	public void testNextUnequalInts()
+	{
+		final RandomProvider random = new XoroshiroRandomProvider(5);
+		for (int i = 0; i < 1000; ++i)
+		{
+			final Pair<Integer> pair = random.nextUnequalInts(2 + i % 5);
+			Assert.assertFalse(pair.getFirst().equals(pair.getSecond()));
+			Assert.assertTrue(pair.getSecond() < 2 + i % 5);
+		}
+	}
+
+	@Test(
+			expected = IllegalArgumentException.class)
+	public void testNonPositiveMaximum()
+	{
+		new XoroshiroRandomProvider(1).nextInt(0);
+	}
+}
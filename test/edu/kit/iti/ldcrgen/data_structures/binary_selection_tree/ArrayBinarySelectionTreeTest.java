@@ -0,0 +1,261 @@
+package edu.kit.iti.ldcrgen.data_structures.binary_selection_tree;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.data_structures.JavaUtilRandomProvider;
+
+/**
+ *
+ * @author roland
+ * @see ArrayBinarySelectionTree
+ */
+public class ArrayBinarySelectionTreeTest
+{
+	@Test
+	public void testInitialState()
+	{
+		final ArrayBinarySelectionTree tree = new ArrayBinarySelectionTree();
+		Assert.assertEquals(0, tree.size());
+		Assert.assertTrue(tree.isEmpty());
+		Assert.assertFalse(tree.contains(ArrayBinarySelectionTree.INVALID_HANDLE));
+		Assert.assertFalse(tree.contains(0));
+		Assert.assertEquals(0.0, tree.getWeight());
+	}
+
+	@Test(
+			expected = IllegalStateException.class)
+	public void testSelectFromEmptyTree()
+	{
+		new ArrayBinarySelectionTree().select();
+	}
+
+	@Test
+	public void testOneElementRetrieval()
+	{
+		final WeightDummy weight1 = new WeightDummy(1.0);
+		final ArrayBinarySelectionTree tree = new ArrayBinarySelectionTree();
+
+		final int handle1 = tree.insert(weight1);
+		Assert.assertEquals(1, tree.size());
+		Assert.assertTrue(tree.contains(handle1));
+		Assert.assertEquals(weight1, tree.getElement(handle1));
+		Assert.assertEquals(weight1.getWeight(), tree.getWeight());
+		Assert.assertEquals(handle1, tree.select());
+
+		tree.delete(handle1);
+		Assert.assertFalse(tree.contains(handle1));
+		Assert.assertEquals(0, tree.size());
+		Assert.assertEquals(0.0, tree.getWeight());
+	}
+
+	@Test
+	public void testStableHandles()
+	{
+		final int num = (int) 1e3;
+		final ArrayBinarySelectionTree tree = new ArrayBinarySelectionTree();
+		final List<Integer> handles = new ArrayList<Integer>(num);
+		final List<WeightDummy> elements = new ArrayList<WeightDummy>(num);
+
+		double expectedWeight = 0.0;
+		for (int i = 0; i < num; ++i)
+		{
+			final WeightDummy dummy = new WeightDummy(i);
+			handles.add(tree.insert(dummy));
+			elements.add(dummy);
+			expectedWeight += dummy.getWeight();
+		}
+		Assert.assertEquals(num, new HashSet<Integer>(handles).size());
+		Assert.assertEquals(expectedWeight, tree.getWeight(), 1e-7);
+
+		// delete every second element; the others keep their handles
+		for (int i = 0; i < num; i += 2)
+		{
+			tree.delete(handles.get(i));
+			expectedWeight -= elements.get(i).getWeight();
+			Assert.assertEquals(expectedWeight, tree.getWeight(), 1e-7);
+		}
+		for (int i = 0; i < num; ++i)
+		{
+			Assert.assertEquals(i % 2 == 1, tree.contains(handles.get(i)));
+			if (i % 2 == 1)
+			{
+				Assert.assertSame(elements.get(i), tree.getElement(handles.get(i)));
+			}
+		}
+
+		// odd elements only: never select an even one
+		for (int i = 0; i < 1000; ++i)
+		{
+			final int selected = tree.select();
+			Assert.assertEquals(1, ((int) tree.getElement(selected).getWeight()) % 2);
+		}
+	}
+
+	@Test
+	public void testUpdateWeight()
+	{
+		final ArrayBinarySelectionTree tree = new ArrayBinarySelectionTree();
+		final MutableWeight first = new MutableWeight(1.0);
+		final MutableWeight second = new MutableWeight(1.0);
+		final int firstHandle = tree.insert(first);
+		final int secondHandle = tree.insert(second);
+		Assert.assertEquals(2.0, tree.getWeight());
+
+		first.weight = 0.0;
+		tree.updateWeight(firstHandle);
+		Assert.assertEquals(1.0, tree.getWeight());
+		for (int i = 0; i < 100; ++i)
+		{
+			Assert.assertEquals(secondHandle, tree.select());
+		}
+	}
+
+	/**
+	 * Given the same random numbers, the array-based tree has to behave
+	 * exactly as the original tree.
+	 */
+	@Test
+	public void testSameSelectionsAsBinarySelectionTree()
+	{
+		final int maxSize = (int) 1e3;
+		final int numOps = (int) 1e5;
+		final Random random = new Random(1);
+
+		final BinarySelectionTree tree = new BinarySelectionTree();
+		final ArrayBinarySelectionTree arrayTree = new ArrayBinarySelectionTree();
+		tree.setRandomProvider(new JavaUtilRandomProvider(42));
+		arrayTree.setRandomProvider(new JavaUtilRandomProvider(42));
+
+		final List<TreeNode> nodes = new ArrayList<TreeNode>();
+		final List<Integer> handles = new ArrayList<Integer>();
+		final List<MutableWeight> weights = new ArrayList<MutableWeight>();
+		for (int i = 0; i < numOps; ++i)
+		{
+			final int operation = random.nextInt(4);
+			if (operation == 0 && nodes.size() < maxSize || nodes.isEmpty())
+			{
+				final MutableWeight weight = new MutableWeight(random.nextDouble());
+				nodes.add(tree.insert(weight));
+				handles.add(arrayTree.insert(weight));
+				weights.add(weight);
+			}
+			else if (operation == 1)
+			{
+				final int index = random.nextInt(nodes.size());
+				tree.delete(nodes.remove(index));
+				arrayTree.delete(handles.remove(index));
+				weights.remove(index);
+			}
+			else if (operation == 2)
+			{
+				final int index = random.nextInt(nodes.size());
+				weights.get(index).weight = random.nextDouble();
+				tree.updateWeight(nodes.get(index));
+				arrayTree.updateWeight(handles.get(index));
+			}
+			else
+			{
+				Assert.assertSame(tree.select().getElement(),
+					arrayTree.getElement(arrayTree.select()));
+			}
+
+			Assert.assertEquals(tree.size(), arrayTree.size());
+			Assert.assertEquals(tree.getWeight(), arrayTree.getWeight());
+		}
+
+		final Set<Integer> distinctHandles = new HashSet<Integer>(handles);
+		Assert.assertEquals(handles.size(), distinctHandles.size());
+	}
+
+	/**
+	 * Deferred propagation must yield bit-identical weights and therefore
+	 * the same selections as immediate propagation.
+	 */
+	@Test
+	public void testDeferredPropagation()
+	{
+		final int maxSize = 500;
+		final int numOps = (int) 1e5;
+		final Random random = new Random(2);
+
+		final ArrayBinarySelectionTree eagerTree = new ArrayBinarySelectionTree();
+		final ArrayBinarySelectionTree deferredTree = new ArrayBinarySelectionTree();
+		deferredTree.setDeferredPropagation(true);
+		Assert.assertTrue(deferredTree.isUsingDeferredPropagation());
+		eagerTree.setRandomProvider(new JavaUtilRandomProvider(42));
+		deferredTree.setRandomProvider(new JavaUtilRandomProvider(42));
+
+		final List<Integer> eagerHandles = new ArrayList<Integer>();
+		final List<Integer> deferredHandles = new ArrayList<Integer>();
+		final List<MutableWeight> weights = new ArrayList<MutableWeight>();
+		for (int i = 0; i < numOps; ++i)
+		{
+			final int operation = random.nextInt(8);
+			if (operation == 0 && weights.size() < maxSize || weights.isEmpty())
+			{
+				final MutableWeight weight = new MutableWeight(random.nextDouble());
+				eagerHandles.add(eagerTree.insert(weight));
+				deferredHandles.add(deferredTree.insert(weight));
+				weights.add(weight);
+			}
+			else if (operation == 1)
+			{
+				final int index = random.nextInt(weights.size());
+				eagerTree.delete(eagerHandles.remove(index));
+				deferredTree.delete(deferredHandles.remove(index));
+				weights.remove(index);
+			}
+			else if (operation == 2)
+			{
+				Assert.assertSame(eagerTree.getElement(eagerTree.select()),
+					deferredTree.getElement(deferredTree.select()));
+				Assert.assertEquals(eagerTree.getWeight(), deferredTree.getWeight(), 0.0);
+			}
+			else
+			{
+				// bursts of updates as caused by inserting a node with many edges
+				for (int u = 0; u < 10; ++u)
+				{
+					final int index = random.nextInt(Math.min(3, weights.size()));
+					weights.get(index).weight = random.nextDouble();
+					eagerTree.updateWeight(eagerHandles.get(index));
+					deferredTree.updateWeight(deferredHandles.get(index));
+				}
+			}
+		}
+
+		Assert.assertEquals(eagerTree.getWeight(), deferredTree.getWeight(), 0.0);
+		deferredTree.setDeferredPropagation(false);
+		Assert.assertFalse(deferredTree.isUsingDeferredPropagation());
+	}
+
+	private static class MutableWeight implements Weightable
+	{
+		double weight;
+
+		MutableWeight(final double weight)
+		{
+			this.weight = weight;
+		}
+
+		@Override
+		public double getWeight()
+		{
+			return this.weight;
+		}
+
+		@Override
+		public Object getObject()
+		{
+			return this;
+		}
+	}
+}
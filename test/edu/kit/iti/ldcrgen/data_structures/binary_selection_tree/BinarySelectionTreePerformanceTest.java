@@ -49,4 +49,128 @@ public class BinarySelectionTreePerformanceTest
 		}
 		writer.close();
 	}
+
+	/**
+	 * Compares the original tree with the {@link ArrayBinarySelectionTree}
+	 * for a mix of weight updates and selections, which is the access
+	 * pattern of the insertion and deletion trees of the graph.
+	 */
+	@Ignore
+	@Test
+	public void testPerformanceOfArrayTree() throws IOException
+	{
+		final int numQueries = (int) 2e6;
+		final List<Integer> sizes = Sequences.decadeSequence(6, 1);
+		final PrintStream writer = new PrintStream(
+				"./test/measurements/binary_selection_tree_array.data");
+
+		writer.println("# Number of 'updateWeight'+'select' queries: " + numQueries);
+		writer.println("size" + "\t" + "objects_ns" + "\t" + "array_ns");
+		for (final int size : sizes.subList(2, sizes.size()))
+		{
+			final Random random = new Random(size);
+			final WeightDummy[] dummies = new WeightDummy[size];
+			final TreeNode[] nodes = new TreeNode[size];
+			final int[] handles = new int[size];
+			final BinarySelectionTree tree = new BinarySelectionTree();
+			final ArrayBinarySelectionTree arrayTree = new ArrayBinarySelectionTree();
+			for (int i = 0; i < size; ++i)
+			{
+				dummies[i] = new WeightDummy(random.nextDouble() * 1000);
+				nodes[i] = tree.insert(dummies[i]);
+				handles[i] = arrayTree.insert(dummies[i]);
+			}
+
+			final int[] updates = new int[numQueries];
+			for (int i = 0; i < numQueries; ++i)
+			{
+				updates[i] = random.nextInt(size);
+			}
+
+			long startTime = System.nanoTime();
+			for (int i = 0; i < numQueries; ++i)
+			{
+				tree.updateWeight(nodes[updates[i]]);
+				tree.select();
+			}
+			final long objectsTime = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			for (int i = 0; i < numQueries; ++i)
+			{
+				arrayTree.updateWeight(handles[updates[i]]);
+				arrayTree.select();
+			}
+			final long arrayTime = System.nanoTime() - startTime;
+
+			writer.println(size + "\t" + objectsTime / (double) numQueries + "\t" + arrayTime
+				/ (double) numQueries);
+		}
+		writer.close();
+	}
+
+	/**
+	 * Compares immediate and deferred propagation for bursts of weight
+	 * updates between two selections, as they occur when a node with many
+	 * incident edges is inserted.
+	 */
+	@Ignore
+	@Test
+	public void testPerformanceOfDeferredPropagation() throws IOException
+	{
+		final int numSelections = (int) 2e5;
+		final int updatesPerSelection = 100;
+		final int clustersPerBurst = 5;
+		final List<Integer> sizes = Sequences.decadeSequence(6, 1);
+		final PrintStream writer = new PrintStream(
+				"./test/measurements/binary_selection_tree_deferred.data");
+
+		writer.println("# Number of selections: " + numSelections);
+		writer.println("# Updates per selection: " + updatesPerSelection);
+		writer.println("size" + "\t" + "eager_ns" + "\t" + "deferred_ns");
+		for (final int size : sizes.subList(2, sizes.size()))
+		{
+			final Random random = new Random(size);
+			final ArrayBinarySelectionTree eagerTree = new ArrayBinarySelectionTree();
+			final ArrayBinarySelectionTree deferredTree = new ArrayBinarySelectionTree();
+			deferredTree.setDeferredPropagation(true);
+			final int[] handles = new int[size];
+			for (int i = 0; i < size; ++i)
+			{
+				final WeightDummy dummy = new WeightDummy(random.nextDouble() * 1000);
+				handles[i] = eagerTree.insert(dummy);
+				deferredTree.insert(dummy);
+			}
+
+			final int[] updates = new int[numSelections * clustersPerBurst];
+			for (int i = 0; i < updates.length; ++i)
+			{
+				updates[i] = handles[random.nextInt(size)];
+			}
+
+			final long eagerTime = measureBursts(eagerTree, updates, clustersPerBurst,
+				updatesPerSelection);
+			final long deferredTime = measureBursts(deferredTree, updates, clustersPerBurst,
+				updatesPerSelection);
+
+			writer.println(size + "\t" + eagerTime / (double) numSelections + "\t" + deferredTime
+				/ (double) numSelections);
+		}
+		writer.close();
+	}
+
+	private static long measureBursts(final ArrayBinarySelectionTree tree, final int[] updates,
+		final int clustersPerBurst, final int updatesPerSelection)
+	{
+		final long startTime = System.nanoTime();
+		for (int b = 0; b < updates.length; b += clustersPerBurst)
+		{
+			for (int u = 0; u < updatesPerSelection; ++u)
+			{
+				tree.updateWeight(updates[b + u % clustersPerBurst]);
+			}
+			tree.select();
+		}
+		return System.nanoTime() - startTime;
+	}
 }
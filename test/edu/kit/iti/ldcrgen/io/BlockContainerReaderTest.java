@@ -0,0 +1,232 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.journaling.BlockContainerWriter;
+import edu.kit.iti.ldcrgen.io.journaling.BlockIndexEntry;
+import edu.kit.iti.ldcrgen.io.journaling.ByteChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.CompactJournalCodec;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.IntChunkList;
+import edu.kit.iti.ldcrgen.io.journaling.JournalSpill;
+
+public class BlockContainerReaderTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testRoundTripOfReferenceFile() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		for (final int stepsPerBlock : new int[] { 1, 7, 100000 })
+		{
+			for (final boolean deflate : new boolean[] { false, true })
+			{
+				final File file = writeContainer(gJournal, clJournal, stepsPerBlock, deflate);
+				Assert.assertTrue(BlockContainerReader.isContainer(file));
+				Assert.assertFalse(BlockContainerReader.isContainer(REFERENCE_FILE));
+
+				final BlockContainerReader reader = new BlockContainerReader(file, 3);
+				try
+				{
+					assertListsEqual(gJournal.opCodes, reader.readGraphJournal().opCodes);
+					assertListsEqual(gJournal.arguments, reader.readGraphJournal().arguments);
+					assertListsEqual(clJournal.opCodes, reader.readClusteringJournal().opCodes);
+					assertListsEqual(clJournal.intArgs, reader.readClusteringJournal().intArgs);
+
+					assertStepsAreContiguous(reader, CompactJournalCodec.Layout.GRAPH,
+						stepsPerBlock);
+					assertStepsAreContiguous(reader, CompactJournalCodec.Layout.CLUSTERING,
+						stepsPerBlock);
+				}
+				finally
+				{
+					reader.close();
+					file.delete();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testReadTimeRange() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		for (int step = 0; step < 100; ++step)
+		{
+			journal.createEdgeOp(step, step + 1);
+			journal.nextStepOp();
+		}
+
+		final File file = writeContainer(journal, new ClusteringJournal(), 10, false);
+		final BlockContainerReader reader = new BlockContainerReader(file);
+		try
+		{
+			final List<BlockIndexEntry> blocks = reader.findBlocks(
+				CompactJournalCodec.Layout.GRAPH, 25, 41);
+			Assert.assertEquals(3, blocks.size());
+			Assert.assertEquals(20, blocks.get(0).firstStep);
+			Assert.assertEquals(49, blocks.get(2).lastStep);
+			Assert.assertTrue(reader.findBlocks(CompactJournalCodec.Layout.CLUSTERING, 0,
+				Integer.MAX_VALUE).isEmpty());
+
+			// steps 20 to 49: each block starts with the NEXT_STEP of its first
+			// step
+			final GraphJournal range = reader.readGraphJournal(25, 41);
+			Assert.assertEquals(30 * 2, range.opCodes.size());
+			Assert.assertEquals(journal.opCodes.get(39), range.opCodes.get(0));
+			Assert.assertEquals(20, range.arguments.get(0));
+			Assert.assertEquals(49, range.arguments.get(range.arguments.size() - 2));
+
+			Assert.assertEquals(0, reader.readClusteringJournal().opCodes.size());
+		}
+		finally
+		{
+			reader.close();
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testSpilledJournalsAreWrittenIdentically() throws IOException
+	{
+		final GraphJournal inMemory = new GraphJournal();
+		final GraphJournal spilling = new GraphJournal();
+		spilling.enableSpilling(new JournalSpill(null, "ldcr_test_", false), 5);
+		final ClusteringJournal clInMemory = new ClusteringJournal();
+		final ClusteringJournal clSpilling = new ClusteringJournal();
+		clSpilling.enableSpilling(new JournalSpill(null, "ldcr_test_", false), 3);
+
+		for (int step = 0; step < 300; ++step)
+		{
+			for (final GraphJournal journal : new GraphJournal[] { inMemory, spilling })
+			{
+				journal.createNodeOp(step % 3, step % 4);
+				journal.createEdgeOp(step, step * 7);
+				journal.nextStepOp();
+			}
+			for (final ClusteringJournal journal : new ClusteringJournal[] { clInMemory,
+				clSpilling })
+			{
+				if (step % 11 == 0)
+				{
+					journal.mergeOp(step, step + 1, step + 2);
+				}
+				journal.nextStepOp();
+			}
+		}
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		BlockContainerWriter.write(inMemory, clInMemory, expected, 13, true);
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		BlockContainerWriter.write(spilling, clSpilling, actual, 13, true);
+
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+
+	@Test(
+			expected = IOException.class)
+	public void testMissingFooter() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createEdgeOp(1, 2);
+		final File file = writeContainer(journal, new ClusteringJournal(), 1, false);
+
+		final RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+		try
+		{
+			truncated.setLength(truncated.length() - 1);
+		}
+		finally
+		{
+			truncated.close();
+		}
+
+		try
+		{
+			new BlockContainerReader(file).close();
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	private static File writeContainer(final GraphJournal gJournal,
+		final ClusteringJournal clJournal, final int stepsPerBlock, final boolean deflate)
+		throws IOException
+	{
+		final File file = File.createTempFile("ldcr_test_", ".graphj");
+		file.deleteOnExit();
+		final FileOutputStream out = new FileOutputStream(file);
+		try
+		{
+			BlockContainerWriter.write(gJournal, clJournal, out, stepsPerBlock, deflate);
+		}
+		finally
+		{
+			out.close();
+		}
+		return file;
+	}
+
+	private static void assertStepsAreContiguous(final BlockContainerReader reader,
+		final CompactJournalCodec.Layout layout, final int stepsPerBlock)
+	{
+		final List<BlockIndexEntry> blocks = reader.findBlocks(layout, 0, Integer.MAX_VALUE);
+		Assert.assertFalse(blocks.isEmpty());
+		Assert.assertTrue(blocks.get(0).firstStep <= 1);
+		for (int i = 0; i < blocks.size(); ++i)
+		{
+			final BlockIndexEntry block = blocks.get(i);
+			Assert.assertTrue(block.lastStep - block.firstStep < stepsPerBlock);
+			if (i > 0)
+			{
+				Assert.assertEquals(blocks.get(i - 1).lastStep + 1, block.firstStep);
+			}
+		}
+	}
+
+	private static void assertListsEqual(final ByteChunkList expected, final ByteChunkList actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+		{
+			Assert.assertEquals(expected.get(i), actual.get(i));
+		}
+	}
+
+	private static void assertListsEqual(final IntChunkList expected, final IntChunkList actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+		{
+			Assert.assertEquals(expected.get(i), actual.get(i));
+		}
+	}
+}
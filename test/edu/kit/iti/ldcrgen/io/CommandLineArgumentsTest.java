@@ -45,4 +45,23 @@ public class CommandLineArgumentsTest
 		}
 //		System.out.println(matchList);
 	}
+
+	@Test
+	public void testSeedOfRun() throws ParseException
+	{
+		final CommandLineArguments defaultSeed = CommandLineArguments.parse(new String[] {
+			"n=60", "r=3" });
+		Assert.assertEquals(defaultSeed.seed, defaultSeed.getSeedOfRun(0));
+		Assert.assertTrue(defaultSeed.getSeedOfRun(0) != defaultSeed.getSeedOfRun(1));
+		Assert.assertTrue(defaultSeed.getSeedOfRun(1) != defaultSeed.getSeedOfRun(2));
+		Assert.assertTrue(defaultSeed.getSeedOfRun(0) != defaultSeed.getSeedOfRun(2));
+		Assert.assertEquals(defaultSeed.getSeedOfRun(2), defaultSeed.getSeedOfRun(2));
+
+		final CommandLineArguments givenSeed = CommandLineArguments.parse(new String[] {
+			"n=60", "r=3", "seed=7" });
+		for (int run = 0; run < 3; ++run)
+		{
+			Assert.assertEquals(7L, givenSeed.getSeedOfRun(run));
+		}
+	}
 }
@@ -0,0 +1,99 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+
+public class GraphJWriterTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testChannelRoundTripIsByteIdentical() throws IOException
+	{
+		final FileChannel in = new FileInputStream(REFERENCE_FILE).getChannel();
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+			Assert.assertEquals(in.size(), in.position());
+		}
+		finally
+		{
+			in.close();
+		}
+
+		final File copy = File.createTempFile("ldcr_test_", ".graphj");
+		copy.deleteOnExit();
+		final FileChannel out = new FileOutputStream(copy).getChannel();
+		try
+		{
+			GraphJWriter.writeGraph(gJournal, out);
+			GraphJWriter.writeClustering(clJournal, out);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		Assert.assertArrayEquals(readAll(REFERENCE_FILE), readAll(copy));
+		copy.delete();
+	}
+
+	@Test
+	public void testStreamAndChannelWriteIdentically() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GraphJWriter.writeGraph(gJournal, out);
+		GraphJWriter.writeClustering(clJournal, out);
+
+		Assert.assertArrayEquals(readAll(REFERENCE_FILE), out.toByteArray());
+	}
+
+	private static byte[] readAll(final File file) throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0)
+			{
+				bytes.write(buffer, 0, read);
+			}
+			return bytes.toByteArray();
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringOperation;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+
+public class MappedGraphJReaderTest
+{
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testCursorsMatchJournals() throws IOException
+	{
+		final FileChannel in = new FileInputStream(REFERENCE_FILE).getChannel();
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		// tiny segments, so that many arguments cross segment boundaries
+		for (final int segmentBits : new int[] { 4, 7, 30 })
+		{
+			final MappedGraphJReader reader = new MappedGraphJReader(REFERENCE_FILE, segmentBits);
+			try
+			{
+				assertGraphCursorMatches(gJournal, reader.getGraphCursor());
+				assertClusteringCursorMatches(clJournal, reader.getClusteringCursor());
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+	}
+
+	@Test
+	public void testReset() throws IOException
+	{
+		final MappedGraphJReader reader = new MappedGraphJReader(REFERENCE_FILE);
+		try
+		{
+			final MappedGraphJReader.GraphCursor cursor = reader.getGraphCursor();
+			int count = 0;
+			while (cursor.next())
+			{
+				++count;
+			}
+			Assert.assertFalse(cursor.hasNext());
+
+			cursor.reset();
+			int countAfterReset = 0;
+			while (cursor.next())
+			{
+				++countAfterReset;
+			}
+			Assert.assertEquals(count, countAfterReset);
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	@Test(
+			expected = IOException.class)
+	public void testTruncatedFile() throws IOException
+	{
+		final File truncated = File.createTempFile("ldcr_test_", ".graphj");
+		truncated.deleteOnExit();
+		final FileChannel in = new FileInputStream(REFERENCE_FILE).getChannel();
+		final FileChannel out = new FileOutputStream(truncated).getChannel();
+		try
+		{
+			in.transferTo(0, in.size() - 1, out);
+		}
+		finally
+		{
+			in.close();
+			out.close();
+		}
+
+		try
+		{
+			new MappedGraphJReader(truncated).close();
+		}
+		finally
+		{
+			truncated.delete();
+		}
+	}
+
+	@Test(
+			expected = IllegalStateException.class)
+	public void testInvalidOpcode() throws IOException
+	{
+		final File corrupt = File.createTempFile("ldcr_test_", ".graphj");
+		corrupt.deleteOnExit();
+		final RandomAccessFile out = new RandomAccessFile(corrupt, "rw");
+		try
+		{
+			// graph journal with a single invalid opcode, empty clustering
+			// journal
+			out.writeInt(1);
+			out.writeInt(0);
+			out.writeByte(42);
+			out.writeInt(0);
+			out.writeInt(0);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		final MappedGraphJReader reader = new MappedGraphJReader(corrupt);
+		try
+		{
+			reader.getGraphCursor().next();
+		}
+		finally
+		{
+			reader.close();
+			corrupt.delete();
+		}
+	}
+
+	private static void assertGraphCursorMatches(final GraphJournal journal,
+		final MappedGraphJReader.GraphCursor cursor)
+	{
+		int argIndex = 0;
+		for (int opIndex = 0; opIndex < journal.opCodes.size(); ++opIndex)
+		{
+			Assert.assertTrue(cursor.next());
+			Assert.assertEquals(journal.opCodes.get(opIndex), cursor.opCode());
+
+			final GraphOperation.OpType type = cursor.opType();
+			Assert.assertEquals(cursor.opCode(), type.opcode);
+			if (type.argumentCount > 0)
+			{
+				Assert.assertEquals(journal.arguments.get(argIndex++), cursor.arg0());
+			}
+			if (type.argumentCount > 1)
+			{
+				Assert.assertEquals(journal.arguments.get(argIndex++), cursor.arg1());
+			}
+		}
+		Assert.assertEquals(journal.arguments.size(), argIndex);
+		Assert.assertFalse(cursor.next());
+	}
+
+	private static void assertClusteringCursorMatches(final ClusteringJournal journal,
+		final MappedGraphJReader.ClusteringCursor cursor)
+	{
+		int argIndex = 0;
+		for (int opIndex = 0; opIndex < journal.opCodes.size(); ++opIndex)
+		{
+			Assert.assertTrue(cursor.next());
+			Assert.assertEquals(journal.opCodes.get(opIndex), cursor.opCode());
+
+			final ClusteringOperation.OpType type = cursor.opType();
+			Assert.assertEquals(cursor.opCode(), type.opcode);
+			if (type.argumentCount > 0)
+			{
+				Assert.assertEquals(journal.intArgs.get(argIndex++), cursor.arg0());
+				Assert.assertEquals(journal.intArgs.get(argIndex++), cursor.arg1());
+				Assert.assertEquals(journal.intArgs.get(argIndex++), cursor.arg2());
+			}
+		}
+		Assert.assertEquals(journal.intArgs.size(), argIndex);
+		Assert.assertFalse(cursor.next());
+	}
+}
@@ -0,0 +1,246 @@
+package edu.kit.iti.ldcrgen.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.control.Generator;
+import edu.kit.iti.ldcrgen.data_structures.DCRGraph;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphOperation;
+import edu.kit.iti.ldcrgen.replay.GraphState;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
+
+public class RolloverWriterTest
+{
+	private static final String[] ARGUMENTS = { "n=300", "cl_sizes=[100,100,100]",
+		"p_in_list=[0.1,0.1,0.1]", "p_out=0.01", "t_max=25", "seed=5", "async_write=false" };
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this.directory = File.createTempFile("ldcr_test_", "");
+		Assert.assertTrue(this.directory.delete());
+		Assert.assertTrue(this.directory.mkdir());
+	}
+
+	@After
+	public void tearDown()
+	{
+		for (final File file : this.directory.listFiles())
+		{
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Test
+	public void testSegmentsConcatenateToSingleOutput() throws Exception
+	{
+		final Generator plain = new Generator(this.parse("output=plain"));
+		plain.run();
+		Assert.assertNull(plain.getRolloverWriter());
+		final GraphJournal expected = plain.getGraph().getGraphJournal();
+
+		final Generator rolled = new Generator(this.parse("output=rolled", "rollover=10",
+			"compact=true"));
+		rolled.run();
+		Assert.assertEquals(3, rolled.getRolloverWriter().getSegmentCount());
+		Assert.assertEquals(0, rolled.getGraph().getGraphJournal().opCodes.size());
+
+		final SegmentManifest manifest = SegmentManifest.read(new File(this.directory,
+			"rolled.graphj.manifest"));
+		Assert.assertTrue(manifest.isComplete());
+		final List<SegmentManifest.Segment> segments = manifest.getSegments();
+		Assert.assertEquals(3, segments.size());
+		Assert.assertEquals("rolled_00000.graphj", segments.get(0).fileName);
+		Assert.assertEquals(1, segments.get(0).firstNodeId);
+		Assert.assertEquals(0, segments.get(0).prologueSteps);
+		for (int i = 0; i < segments.size(); ++i)
+		{
+			final SegmentManifest.Segment segment = segments.get(i);
+			Assert.assertEquals(10 * i, segment.firstStep);
+			Assert.assertEquals(Math.min(10 * i + 9, 25), segment.lastStep);
+			if (i > 0)
+			{
+				Assert.assertEquals(segments.get(i - 1).nextNodeId, segment.firstNodeId);
+				Assert.assertEquals(1, segment.prologueSteps);
+			}
+		}
+		final DCRGraph graph = rolled.getGraph();
+		final SegmentManifest.Segment last = segments.get(segments.size() - 1);
+		Assert.assertEquals(graph.getNodeCount(), last.nodeCount);
+		Assert.assertEquals(graph.getEdgeCount(), last.edgeCount);
+		Assert.assertEquals(graph.getClusterCount(), last.clusterCount);
+
+		/*
+		 * Each segment is a complete file. Without their prologues, the
+		 * segments form the whole output.
+		 */
+		final GraphJournal actual = new GraphJournal();
+		for (final SegmentManifest.Segment segment : segments)
+		{
+			final InputStream in = new BufferedInputStream(new FileInputStream(
+				manifest.getFile(segment)));
+			try
+			{
+				final GraphJournal journal = GraphJReader.readGraphJournal(in);
+				Assert.assertEquals(segment.graphOpCount, journal.opCodes.size());
+				Assert.assertEquals(segment.clusteringOpCount,
+					GraphJReader.readClusteringJournal(in).opCodes.size());
+
+				int op = 0;
+				int arg = 0;
+				if (segment.prologueSteps > 0)
+				{
+					GraphOperation.OpType type;
+					do
+					{
+						type = GraphOperation.OpType.forOpCode(journal.opCodes.get(op++));
+						arg += type.argumentCount;
+					}
+					while (GraphOperation.OpType.NextStep != type);
+				}
+				for (; op < journal.opCodes.size(); ++op)
+				{
+					actual.opCodes.add(journal.opCodes.get(op));
+				}
+				for (; arg < journal.arguments.size(); ++arg)
+				{
+					actual.arguments.add(journal.arguments.get(arg));
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		Assert.assertFalse(new File(this.directory, "rolled.graphj").exists());
+
+		Assert.assertEquals(expected.opCodes.size(), actual.opCodes.size());
+		for (int i = 0; i < expected.opCodes.size(); ++i)
+		{
+			Assert.assertEquals(expected.opCodes.get(i), actual.opCodes.get(i));
+		}
+		Assert.assertEquals(expected.arguments.size(), actual.arguments.size());
+		for (int i = 0; i < expected.arguments.size(); ++i)
+		{
+			Assert.assertEquals(expected.arguments.get(i), actual.arguments.get(i));
+		}
+	}
+
+	@Test
+	public void testSegmentsCanBeReplayedOnTheirOwn() throws Exception
+	{
+		this.checkSegmentsAgainstSingleOutput("compact=true");
+	}
+
+	@Test
+	public void testCompactedSegmentsCanBeReplayedOnTheirOwn() throws Exception
+	{
+		this.checkSegmentsAgainstSingleOutput("net_delta=true");
+	}
+
+	@Test
+	public void testRolloverBySize() throws Exception
+	{
+		final Generator rolled = new Generator(this.parse("output=sized",
+			"rollover_mb=1", "eta=20000"));
+		rolled.run();
+
+		final SegmentManifest manifest = SegmentManifest.read(rolled.getRolloverWriter()
+			.getManifestFile());
+		Assert.assertTrue(manifest.isComplete());
+		Assert.assertTrue(manifest.getSegments().size() > 1);
+		for (final SegmentManifest.Segment segment : manifest.getSegments())
+		{
+			Assert.assertTrue(manifest.getFile(segment).isFile());
+		}
+		Assert.assertEquals(25, manifest.getSegments().get(manifest.getSegments().size() - 1)
+			.lastStep);
+	}
+
+	/*
+	 * Replays each segment by itself and compares every time step with the
+	 * corresponding one of a run without rollover. The frequent cluster
+	 * operations make sure that some of them are running at the end of a
+	 * segment.
+	 */
+	private void checkSegmentsAgainstSingleOutput(final String format) throws Exception
+	{
+		final Generator plain = new Generator(this.parse("output=plain", "p_omega=0.5", format));
+		plain.run();
+		final ReplayEngine expected = new ReplayEngine(plain.getGraph().getGraphJournal(),
+			plain.getGraph().getClusteringJournal());
+
+		final Generator rolled = new Generator(this.parse("output=rolled", "p_omega=0.5",
+			"rollover=7", format));
+		rolled.run();
+		final SegmentManifest manifest = SegmentManifest.read(rolled.getRolloverWriter()
+			.getManifestFile());
+		Assert.assertEquals(4, manifest.getSegments().size());
+
+		int runningAtStart = 0;
+		for (int i = manifest.getSegments().size() - 1; i >= 0; --i)
+		{
+			final SegmentManifest.Segment segment = manifest.getSegments().get(i);
+			final ReplayEngine actual = ReplayEngine.open(manifest.getFile(segment));
+			try
+			{
+				// the empty time step after the last one belongs to the next segment
+				int fileStep = 0;
+				while (segment.getSeriesStep(fileStep) <= segment.lastStep)
+				{
+					assertSameState(expected.seek(segment.getSeriesStep(fileStep)),
+						actual.seek(fileStep));
+					++fileStep;
+				}
+				runningAtStart += actual.seek(0).getOngoingMergeCount()
+					+ actual.seek(0).getOngoingSplitCount();
+			}
+			finally
+			{
+				actual.close();
+			}
+		}
+		Assert.assertTrue(runningAtStart > 0);
+	}
+
+	private static void assertSameState(final GraphState expected, final GraphState actual)
+	{
+		Assert.assertEquals(expected.getMaxNodeId(), actual.getMaxNodeId());
+		Assert.assertEquals(expected.getNodeCount(), actual.getNodeCount());
+		for (int node = 1; node <= expected.getMaxNodeId(); ++node)
+		{
+			Assert.assertEquals(expected.isAlive(node), actual.isAlive(node));
+			if (expected.isAlive(node))
+			{
+				Assert.assertEquals(expected.getCluster(node), actual.getCluster(node));
+				Assert.assertEquals(expected.getReferenceCluster(node),
+					actual.getReferenceCluster(node));
+			}
+		}
+		Assert.assertArrayEquals(expected.getEdges(), actual.getEdges());
+		Assert.assertEquals(expected.getOngoingMergeCount(), actual.getOngoingMergeCount());
+		Assert.assertEquals(expected.getOngoingSplitCount(), actual.getOngoingSplitCount());
+	}
+
+	private CommandLineArguments parse(final String... extraArguments) throws ParseException
+	{
+		final String[] arguments = new String[ARGUMENTS.length + extraArguments.length + 1];
+		System.arraycopy(ARGUMENTS, 0, arguments, 0, ARGUMENTS.length);
+		System.arraycopy(extraArguments, 0, arguments, ARGUMENTS.length, extraArguments.length);
+		arguments[arguments.length - 1] = "dir=" + this.directory.getAbsolutePath();
+		return CommandLineArguments.parse(arguments);
+	}
+}
@@ -0,0 +1,179 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteChunkListTest
+{
+
+	@Test
+	public void testAddAndGetAcrossChunks()
+	{
+		final ByteChunkList list = new ByteChunkList();
+		final int count = 3 * ByteChunkList.CHUNK_SIZE + 17;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add((byte) i);
+		}
+
+		Assert.assertEquals(count, list.size());
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals((byte) i, list.get(i));
+		}
+	}
+
+	@Test(
+			expected = IndexOutOfBoundsException.class)
+	public void testGetBeyondSize()
+	{
+		final ByteChunkList list = new ByteChunkList();
+		list.add((byte) 1);
+		list.get(1);
+	}
+
+	@Test
+	public void testClear()
+	{
+		final ByteChunkList list = new ByteChunkList();
+		list.add((byte) 1);
+		list.clear();
+		Assert.assertEquals(0, list.size());
+		list.add((byte) 2);
+		Assert.assertEquals(2, list.get(0));
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException
+	{
+		final ByteChunkList list = new ByteChunkList();
+		final int count = 2 * ByteChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add((byte) (i * 7));
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		list.writeTo(new DataOutputStream(bytes));
+
+		final byte[] written = bytes.toByteArray();
+		Assert.assertEquals(count, written.length);
+
+		// start in the middle of a chunk
+		final ByteChunkList readList = new ByteChunkList();
+		readList.add((byte) -1);
+		readList.readFrom(new DataInputStream(new ByteArrayInputStream(written)), count);
+
+		Assert.assertEquals(count + 1, readList.size());
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(list.get(i), readList.get(i + 1));
+		}
+	}
+
+	@Test
+	public void testWriteAndReadViaChannel() throws IOException
+	{
+		final ByteChunkList list = new ByteChunkList();
+		final int count = 2 * ByteChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add((byte) i);
+		}
+
+		// the buffer is smaller than a chunk and not aligned with it
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(1000);
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		list.writeTo(new DataOutputStream(expected));
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		list.writeTo(Channels.newChannel(actual), buffer);
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+		final ByteChunkList readList = new ByteChunkList();
+		readList.add((byte) 42);
+		readList.readFrom(Channels.newChannel(new ByteArrayInputStream(actual.toByteArray())),
+			buffer, count);
+
+		Assert.assertEquals(count + 1, readList.size());
+		Assert.assertEquals((byte) 42, readList.get(0));
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(list.get(i), readList.get(i + 1));
+		}
+	}
+
+	@Test
+	public void testAddAllRange()
+	{
+		final ByteChunkList source = new ByteChunkList();
+		final int count = 3 * ByteChunkList.CHUNK_SIZE;
+		for (int i = 0; i < count; ++i)
+		{
+			source.add((byte) i);
+		}
+
+		// unaligned source and target offsets
+		final ByteChunkList target = new ByteChunkList();
+		target.add(source.get(0));
+		target.addAll(source, 17, count - 5);
+		target.addAll(source);
+
+		Assert.assertEquals(1 + (count - 22) + count, target.size());
+		for (int i = 17; i < count - 5; ++i)
+		{
+			Assert.assertEquals(source.get(i), target.get(i - 16));
+		}
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(source.get(i), target.get(count - 21 + i));
+		}
+	}
+
+	@Test
+	public void testTruncate()
+	{
+		final ByteChunkList list = new ByteChunkList();
+		final int count = 2 * ByteChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add((byte) i);
+		}
+
+		list.truncate(count);
+		Assert.assertEquals(count, list.size());
+		list.truncate(ByteChunkList.CHUNK_SIZE + 3);
+		Assert.assertEquals(ByteChunkList.CHUNK_SIZE + 3, list.size());
+		list.truncate(ByteChunkList.CHUNK_SIZE);
+		for (int i = 0; i < ByteChunkList.CHUNK_SIZE; ++i)
+		{
+			Assert.assertEquals((byte) i, list.get(i));
+		}
+
+		// the released chunk is allocated again
+		list.add((byte) 7);
+		list.add((byte) 8);
+		Assert.assertEquals(ByteChunkList.CHUNK_SIZE + 2, list.size());
+		Assert.assertEquals((byte) 8, list.get(ByteChunkList.CHUNK_SIZE + 1));
+
+		list.truncate(0);
+		Assert.assertEquals(0, list.size());
+	}
+
+	@Test(
+			expected = IndexOutOfBoundsException.class)
+	public void testTruncateBeyondSize()
+	{
+		final ByteChunkList list = new ByteChunkList();
+		list.add((byte) 1);
+		list.truncate(2);
+	}
+}
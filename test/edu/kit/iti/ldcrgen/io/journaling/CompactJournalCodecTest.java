@@ -0,0 +1,179 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.GraphJReader;
+
+public class CompactJournalCodecTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testZigZag()
+	{
+		final int[] values = { 0, 1, -1, 2, -2, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		final int[] expected = { 0, 2, 1, 4, 3, -2, -1 };
+		for (int i = 0; i < values.length; ++i)
+		{
+			Assert.assertEquals(expected[i], CompactJournalCodec.zigZag(values[i]));
+			Assert.assertEquals(values[i],
+				CompactJournalCodec.unZigZag(CompactJournalCodec.zigZag(values[i])));
+		}
+	}
+
+	@Test
+	public void testRoundTripOfReferenceFile() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		for (final boolean deflate : new boolean[] { false, true })
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			CompactJournalCodec.write(gJournal, out, deflate);
+			CompactJournalCodec.write(clJournal, out, deflate);
+			Assert.assertTrue(out.size() < REFERENCE_FILE.length());
+
+			final InputStream compactIn = new ByteArrayInputStream(out.toByteArray());
+			assertJournalsEqual(gJournal, GraphJReader.readGraphJournal(compactIn));
+			assertJournalsEqual(clJournal, GraphJReader.readClusteringJournal(compactIn));
+			Assert.assertEquals(-1, compactIn.read());
+
+			final File file = File.createTempFile("ldcr_test_", ".graphj");
+			file.deleteOnExit();
+			final FileOutputStream fileOut = new FileOutputStream(file);
+			try
+			{
+				out.writeTo(fileOut);
+			}
+			finally
+			{
+				fileOut.close();
+			}
+
+			final FileChannel channel = new FileInputStream(file).getChannel();
+			try
+			{
+				assertJournalsEqual(gJournal, GraphJReader.readGraphJournal(channel));
+				assertJournalsEqual(clJournal, GraphJReader.readClusteringJournal(channel));
+				Assert.assertEquals(channel.size(), channel.position());
+			}
+			finally
+			{
+				channel.close();
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testExtremeArguments() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createEdgeOp(Integer.MAX_VALUE, Integer.MIN_VALUE);
+		journal.removeNodeOp(0);
+		journal.nextStepOp();
+		journal.nextStepOp();
+		journal.setClusterOp(-1, Integer.MIN_VALUE);
+		journal.createNodeOp(Integer.MAX_VALUE, -7);
+		journal.nextStepOp();
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompactJournalCodec.write(journal, out, false);
+
+		assertJournalsEqual(journal,
+			GraphJReader.readGraphJournal(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testSpilledJournalIsEncodedIdentically() throws IOException
+	{
+		final GraphJournal inMemory = new GraphJournal();
+		final GraphJournal spilling = new GraphJournal();
+		spilling.enableSpilling(new JournalSpill(null, "ldcr_test_", false), 7);
+
+		for (int step = 0; step < 200; ++step)
+		{
+			for (final GraphJournal journal : new GraphJournal[] { inMemory, spilling })
+			{
+				journal.nextStepOp();
+				if (step % 3 == 0)
+				{
+					journal.createNodeOp(step % 5, step % 7);
+					journal.createEdgeOp(step, step + 1);
+					journal.removeEdgeOp(step + 1, step);
+				}
+			}
+		}
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		CompactJournalCodec.write(inMemory, expected, true);
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		CompactJournalCodec.write(spilling, actual, true);
+
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+
+	@Test(
+			expected = IllegalStateException.class)
+	public void testInvalidOpcode() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.opCodes.add((byte) 42);
+
+		CompactJournalCodec.write(journal, new ByteArrayOutputStream(), false);
+	}
+
+	private static void assertJournalsEqual(final GraphJournal expected, final GraphJournal actual)
+	{
+		assertListsEqual(expected.opCodes, actual.opCodes);
+		assertListsEqual(expected.arguments, actual.arguments);
+	}
+
+	private static void assertJournalsEqual(final ClusteringJournal expected,
+		final ClusteringJournal actual)
+	{
+		assertListsEqual(expected.opCodes, actual.opCodes);
+		assertListsEqual(expected.intArgs, actual.intArgs);
+	}
+
+	private static void assertListsEqual(final ByteChunkList expected, final ByteChunkList actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+		{
+			Assert.assertEquals(expected.get(i), actual.get(i));
+		}
+	}
+
+	private static void assertListsEqual(final IntChunkList expected, final IntChunkList actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+		{
+			Assert.assertEquals(expected.get(i), actual.get(i));
+		}
+	}
+}
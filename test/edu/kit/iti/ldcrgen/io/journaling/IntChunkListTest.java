@@ -0,0 +1,185 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntChunkListTest
+{
+
+	@Test
+	public void testAddAndGetAcrossChunks()
+	{
+		final IntChunkList list = new IntChunkList();
+		final int count = 3 * IntChunkList.CHUNK_SIZE + 17;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add(i - 1000);
+		}
+
+		Assert.assertEquals(count, list.size());
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(i - 1000, list.get(i));
+		}
+	}
+
+	@Test(
+			expected = IndexOutOfBoundsException.class)
+	public void testGetNegativeIndex()
+	{
+		new IntChunkList().get(-1);
+	}
+
+	@Test
+	public void testWriteIsCompatibleWithWriteInt() throws IOException
+	{
+		final int[] values = { 0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0x01020304 };
+
+		final IntChunkList list = new IntChunkList();
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final DataOutputStream expectedStream = new DataOutputStream(expected);
+		for (final int value : values)
+		{
+			list.add(value);
+			expectedStream.writeInt(value);
+		}
+
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		list.writeTo(new DataOutputStream(actual));
+
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException
+	{
+		final IntChunkList list = new IntChunkList();
+		final int count = 2 * IntChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add(i * 104729);
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		list.writeTo(new DataOutputStream(bytes));
+
+		// start in the middle of a chunk
+		final IntChunkList readList = new IntChunkList();
+		readList.add(42);
+		readList.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+			count);
+
+		Assert.assertEquals(count + 1, readList.size());
+		Assert.assertEquals(42, readList.get(0));
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(list.get(i), readList.get(i + 1));
+		}
+	}
+
+	@Test
+	public void testWriteAndReadViaChannel() throws IOException
+	{
+		final IntChunkList list = new IntChunkList();
+		final int count = 2 * IntChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add(i * 104729);
+		}
+
+		// the buffer is smaller than a chunk and not aligned with it
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(1000);
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		list.writeTo(new DataOutputStream(expected));
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		list.writeTo(Channels.newChannel(actual), buffer);
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+		final IntChunkList readList = new IntChunkList();
+		readList.add(42);
+		readList.readFrom(Channels.newChannel(new ByteArrayInputStream(actual.toByteArray())),
+			buffer, count);
+
+		Assert.assertEquals(count + 1, readList.size());
+		Assert.assertEquals(42, readList.get(0));
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(list.get(i), readList.get(i + 1));
+		}
+	}
+
+	@Test
+	public void testAddAllRange()
+	{
+		final IntChunkList source = new IntChunkList();
+		final int count = 3 * IntChunkList.CHUNK_SIZE;
+		for (int i = 0; i < count; ++i)
+		{
+			source.add(i * 31);
+		}
+
+		// unaligned source and target offsets
+		final IntChunkList target = new IntChunkList();
+		target.add(source.get(0));
+		target.addAll(source, 17, count - 5);
+		target.addAll(source);
+
+		Assert.assertEquals(1 + (count - 22) + count, target.size());
+		for (int i = 17; i < count - 5; ++i)
+		{
+			Assert.assertEquals(source.get(i), target.get(i - 16));
+		}
+		for (int i = 0; i < count; ++i)
+		{
+			Assert.assertEquals(source.get(i), target.get(count - 21 + i));
+		}
+	}
+
+	@Test
+	public void testTruncate()
+	{
+		final IntChunkList list = new IntChunkList();
+		final int count = 2 * IntChunkList.CHUNK_SIZE + 5;
+		for (int i = 0; i < count; ++i)
+		{
+			list.add(i);
+		}
+
+		list.truncate(count);
+		Assert.assertEquals(count, list.size());
+		list.truncate(IntChunkList.CHUNK_SIZE + 3);
+		Assert.assertEquals(IntChunkList.CHUNK_SIZE + 3, list.size());
+		list.truncate(IntChunkList.CHUNK_SIZE);
+		for (int i = 0; i < IntChunkList.CHUNK_SIZE; ++i)
+		{
+			Assert.assertEquals(i, list.get(i));
+		}
+
+		// the released chunk is allocated again
+		list.add(7);
+		list.add(8);
+		Assert.assertEquals(IntChunkList.CHUNK_SIZE + 2, list.size());
+		Assert.assertEquals(8, list.get(IntChunkList.CHUNK_SIZE + 1));
+
+		list.truncate(0);
+		Assert.assertEquals(0, list.size());
+	}
+
+	@Test(
+			expected = IndexOutOfBoundsException.class)
+	public void testTruncateBeyondSize()
+	{
+		final IntChunkList list = new IntChunkList();
+		list.add(1);
+		list.truncate(2);
+	}
+}
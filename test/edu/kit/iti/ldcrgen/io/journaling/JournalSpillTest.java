@@ -0,0 +1,59 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.GraphJWriter;
+
+public class JournalSpillTest
+{
+
+	@Test
+	public void testSpilledJournalIsWrittenIdentically() throws IOException
+	{
+		final GraphJournal inMemory = new GraphJournal();
+		final GraphJournal spilling = new GraphJournal();
+		spilling.enableSpilling(new JournalSpill(null, "ldcr_test_", true), 10);
+
+		final ClusteringJournal clInMemory = new ClusteringJournal();
+		final ClusteringJournal clSpilling = new ClusteringJournal();
+		clSpilling.enableSpilling(new JournalSpill(null, "ldcr_test_", false), 1);
+
+		for (int step = 0; step < 100; ++step)
+		{
+			for (final GraphJournal journal : new GraphJournal[] { inMemory, spilling })
+			{
+				journal.nextStepOp();
+				journal.createNodeOp(step, step + 1);
+				journal.createEdgeOp(step, -step);
+				journal.removeNodeOp(step * 31);
+			}
+			for (final ClusteringJournal journal : new ClusteringJournal[] { clInMemory,
+				clSpilling })
+			{
+				journal.nextStepOp();
+				if (step % 10 == 0)
+				{
+					journal.splitOp(step, step + 1, step + 2);
+				}
+			}
+		}
+
+		// spilling keeps only the current segment in memory
+		Assert.assertTrue(spilling.opCodes.size() < 10 + 4);
+		Assert.assertTrue(clSpilling.opCodes.size() <= 2);
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		GraphJWriter.writeGraph(inMemory, expected);
+		GraphJWriter.writeClustering(clInMemory, expected);
+
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		GraphJWriter.writeGraph(spilling, actual);
+		GraphJWriter.writeClustering(clSpilling, actual);
+
+		Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+	}
+}
@@ -0,0 +1,230 @@
+package edu.kit.iti.ldcrgen.io.journaling;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.GraphJReader;
+import edu.kit.iti.ldcrgen.replay.GraphState;
+import edu.kit.iti.ldcrgen.replay.ReplayEngine;
+
+public class NetDeltaCompactorTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testCancellationWithinStep()
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1); // 1
+		journal.createNodeOp(1, 1); // 2
+		journal.createEdgeOp(1, 2);
+		journal.nextStepOp();
+		// edge 1-2 is removed and re-created, 1-3 and 3-4 are transient
+		journal.removeEdgeOp(2, 1);
+		journal.createNodeOp(2, 2); // 3, transient
+		journal.createEdgeOp(1, 3);
+		journal.createNodeOp(2, 3); // 4 -> 3
+		journal.setClusterOp(1, 5);
+		journal.createEdgeOp(3, 4);
+		journal.createEdgeOp(1, 2);
+		journal.setRefClusterOp(4, 7);
+		journal.setClusterOp(1, 6);
+		journal.removeEdgeOp(3, 4);
+		journal.removeEdgeOp(3, 1);
+		journal.removeNodeOp(3);
+		journal.createEdgeOp(4, 2);
+		journal.nextStepOp();
+		journal.createNodeOp(1, 1); // 5 -> 4
+		journal.createEdgeOp(5, 4);
+
+		final NetDeltaCompactor compactor = new NetDeltaCompactor();
+		final GraphJournal compacted = compactor.compact(journal);
+
+		final GraphJournal expected = new GraphJournal();
+		expected.createNodeOp(1, 1);
+		expected.createNodeOp(1, 1);
+		expected.createEdgeOp(1, 2);
+		expected.nextStepOp();
+		expected.createNodeOp(2, 7);
+		expected.setClusterOp(1, 6);
+		expected.createEdgeOp(3, 2);
+		expected.nextStepOp();
+		expected.createNodeOp(1, 1);
+		expected.createEdgeOp(4, 3);
+		assertJournalsEqual(expected, compacted);
+
+		Assert.assertEquals(18, compactor.getInputOperationCount());
+		Assert.assertEquals(8, compactor.getOutputOperationCount());
+		Assert.assertEquals(1, compactor.getDroppedNodeCount());
+		Assert.assertEquals(6, compactor.getCancelledEdgeOperationCount());
+		Assert.assertEquals(2, compactor.getMergedClusterAssignmentCount());
+	}
+
+	@Test
+	public void testFirstNodeId()
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1); // 10
+		journal.createNodeOp(1, 1); // 11, transient
+		journal.createNodeOp(1, 1); // 12 -> 11
+		journal.removeNodeOp(11);
+		journal.createEdgeOp(12, 10);
+
+		final GraphJournal expected = new GraphJournal();
+		expected.createNodeOp(1, 1);
+		expected.createNodeOp(1, 1);
+		expected.createEdgeOp(11, 10);
+
+		assertJournalsEqual(expected, new NetDeltaCompactor(10).compact(journal));
+	}
+
+	@Test(
+			expected = IllegalStateException.class)
+	public void testUnknownNode()
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1);
+		journal.createEdgeOp(1, 2);
+
+		new NetDeltaCompactor().compact(journal);
+	}
+
+	@Test
+	public void testReferenceFilePreservesStates() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		final ClusteringJournal clJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+			clJournal = GraphJReader.readClusteringJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		final NetDeltaCompactor compactor = new NetDeltaCompactor();
+		final GraphJournal compacted = compactor.compact(gJournal);
+		Assert.assertTrue(compactor.getOutputOperationCount() < compactor.getInputOperationCount());
+		Assert.assertEquals(gJournal.opCodes.size() - compacted.opCodes.size(),
+			compactor.getInputOperationCount() - compactor.getOutputOperationCount());
+
+		final ReplayEngine original = new ReplayEngine(gJournal, clJournal);
+		final ReplayEngine reduced = new ReplayEngine(compacted, clJournal);
+		Assert.assertEquals(original.getLastTimeStep(), reduced.getLastTimeStep());
+		for (int timeStep = 0; timeStep <= original.getLastTimeStep(); ++timeStep)
+		{
+			final GraphState expected = original.seek(timeStep);
+			final GraphState actual = reduced.seek(timeStep);
+			Assert.assertEquals(expected.getNodeCount(), actual.getNodeCount());
+			Assert.assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+			for (int node = 1; node <= expected.getMaxNodeId(); ++node)
+			{
+				if (expected.isAlive(node))
+				{
+					final int newId = compactor.newIdOf(node);
+					Assert.assertTrue(actual.isAlive(newId));
+					Assert.assertEquals(expected.getCluster(node), actual.getCluster(newId));
+					Assert.assertEquals(expected.getReferenceCluster(node),
+						actual.getReferenceCluster(newId));
+				}
+			}
+			for (final long edge : expected.getEdges())
+			{
+				Assert.assertTrue(actual.containsEdge(
+					compactor.newIdOf(GraphState.edgeSource(edge)),
+					compactor.newIdOf(GraphState.edgeTarget(edge))));
+			}
+		}
+	}
+
+	@Test
+	public void testCompactionWhileWriting() throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(REFERENCE_FILE));
+		final GraphJournal gJournal;
+		try
+		{
+			gJournal = GraphJReader.readGraphJournal(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		final NetDeltaCompactor compactor = new NetDeltaCompactor();
+		final GraphJournal journal = new GraphJournal();
+		journal.enableNetDeltaCompaction(compactor);
+		journal.enableSpilling(new JournalSpill(null, "ldcr_test_", false), 100);
+		int arg = 0;
+		for (final GraphOperation op : gJournal)
+		{
+			switch (op.type)
+			{
+			case CreateNode:
+				journal.createNodeOp(op.arg0, op.arg1);
+				break;
+			case RemoveNode:
+				journal.removeNodeOp(op.arg0);
+				break;
+			case CreateEdge:
+				journal.createEdgeOp(op.arg0, op.arg1);
+				break;
+			case RemoveEdge:
+				journal.removeEdgeOp(op.arg0, op.arg1);
+				break;
+			case SetCluster:
+				journal.setClusterOp(op.arg0, op.arg1);
+				break;
+			case SetRefCluster:
+				journal.setRefClusterOp(op.arg0, op.arg1);
+				break;
+			case NextStep:
+				journal.nextStepOp();
+				break;
+			}
+			arg += op.type.argumentCount;
+		}
+		Assert.assertEquals(gJournal.arguments.size(), arg);
+		journal.compactCurrentStep();
+		journal.spill();
+
+		final GraphJournal actual = new GraphJournal();
+		journal.getSpill().replay(CompactJournalCodec.Layout.GRAPH,
+			new JournalSpill.SegmentConsumer()
+			{
+				@Override
+				public void accept(final ByteChunkList opCodes, final IntChunkList arguments)
+				{
+					actual.opCodes.addAll(opCodes);
+					actual.arguments.addAll(arguments);
+				}
+			});
+
+		assertJournalsEqual(new NetDeltaCompactor().compact(gJournal), actual);
+	}
+
+	private static void assertJournalsEqual(final GraphJournal expected, final GraphJournal actual)
+	{
+		Assert.assertEquals(expected.opCodes.size(), actual.opCodes.size());
+		for (int i = 0; i < expected.opCodes.size(); ++i)
+		{
+			Assert.assertEquals("Opcode " + i, expected.opCodes.get(i), actual.opCodes.get(i));
+		}
+		Assert.assertEquals(expected.arguments.size(), actual.arguments.size());
+		for (int i = 0; i < expected.arguments.size(); ++i)
+		{
+			Assert.assertEquals("Argument " + i, expected.arguments.get(i),
+				actual.arguments.get(i));
+		}
+	}
+}
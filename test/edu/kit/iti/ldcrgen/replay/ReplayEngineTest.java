@@ -0,0 +1,160 @@
+package edu.kit.iti.ldcrgen.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.kit.iti.ldcrgen.io.journaling.ClusteringJournal;
+import edu.kit.iti.ldcrgen.io.journaling.GraphJournal;
+
+public class ReplayEngineTest
+{
+	// written by the 2015 version of the generator
+	private static final File REFERENCE_FILE = new File("test/compatibility/comparison1_ldcr.graphj");
+
+	@Test
+	public void testReplayOfSmallJournal() throws IOException
+	{
+		final GraphJournal gJournal = new GraphJournal();
+		final ClusteringJournal clJournal = new ClusteringJournal();
+
+		// step 0
+		gJournal.createNodeOp(1, 1);
+		gJournal.createNodeOp(1, 1);
+		gJournal.createNodeOp(2, 2);
+		gJournal.createEdgeOp(1, 2);
+		gJournal.createEdgeOp(3, 2);
+		// step 1
+		gJournal.nextStepOp();
+		clJournal.nextStepOp();
+		clJournal.mergeOp(1, 2, 3);
+		gJournal.setClusterOp(1, 3);
+		gJournal.removeEdgeOp(2, 1);
+		// step 2
+		gJournal.nextStepOp();
+		clJournal.nextStepOp();
+		clJournal.mergeDone(1, 2, 3);
+		gJournal.removeEdgeOp(2, 3);
+		gJournal.removeNodeOp(2);
+		gJournal.createNodeOp(3, 2);
+		gJournal.createEdgeOp(4, 1);
+
+		final ReplayEngine engine = new ReplayEngine(gJournal, clJournal);
+		Assert.assertEquals(2, engine.getLastTimeStep());
+
+		GraphState state = engine.seek(2);
+		Assert.assertEquals(2, state.getTimeStep());
+		Assert.assertEquals(4, state.getMaxNodeId());
+		Assert.assertEquals(3, state.getNodeCount());
+		Assert.assertFalse(state.isAlive(2));
+		Assert.assertEquals(3, state.getCluster(4));
+		Assert.assertEquals(2, state.getReferenceCluster(4));
+		Assert.assertArrayEquals(new long[] { EdgeSet.key(1, 4) }, state.getEdges());
+		Assert.assertEquals(1, GraphState.edgeSource(state.getEdges()[0]));
+		Assert.assertEquals(4, GraphState.edgeTarget(state.getEdges()[0]));
+		Assert.assertEquals(0, state.getOngoingMergeCount());
+
+		state = engine.seek(0);
+		Assert.assertEquals(3, state.getNodeCount());
+		Assert.assertEquals(1, state.getCluster(1));
+		Assert.assertTrue(state.containsEdge(2, 1));
+		Assert.assertTrue(state.containsEdge(2, 3));
+		Assert.assertEquals(0, state.getOngoingMergeCount());
+
+		state = engine.seek(1);
+		Assert.assertEquals(3, state.getCluster(1));
+		Assert.assertEquals(1, state.getReferenceCluster(1));
+		Assert.assertFalse(state.containsEdge(1, 2));
+		Assert.assertEquals(1, state.getEdgeCount());
+		Assert.assertEquals(1, state.getOngoingMergeCount());
+	}
+
+	@Test
+	public void testCheckpointsMatchFullReplay() throws IOException
+	{
+		final ReplayEngine expectedEngine = ReplayEngine.open(REFERENCE_FILE);
+		final int lastTimeStep = expectedEngine.getLastTimeStep();
+		Assert.assertTrue(lastTimeStep > 0);
+
+		final List<GraphState> expected = new ArrayList<GraphState>();
+		for (int timeStep = 0; timeStep <= lastTimeStep; ++timeStep)
+		{
+			expected.add(expectedEngine.seek(timeStep).copy());
+		}
+
+		final List<Integer> timeSteps = new ArrayList<Integer>();
+		for (int timeStep = 0; timeStep <= lastTimeStep; timeStep += 3)
+		{
+			timeSteps.add(timeStep);
+		}
+		timeSteps.add(lastTimeStep);
+		Collections.shuffle(timeSteps, new Random(42));
+
+		final File checkpointFile = File.createTempFile("ldcr_test_", ".ckpt");
+		checkpointFile.deleteOnExit();
+		final ReplayEngine engine = ReplayEngine.open(REFERENCE_FILE);
+		try
+		{
+			// without checkpoints, backwards moves start over
+			for (final int timeStep : timeSteps.subList(0, 20))
+			{
+				Assert.assertEquals(expected.get(timeStep), engine.seek(timeStep));
+			}
+
+			engine.writeCheckpoints(checkpointFile, 17);
+			Assert.assertEquals(expected.get(lastTimeStep), engine.getState());
+
+			engine.useCheckpoints(checkpointFile);
+			Assert.assertEquals(17, engine.getCheckpointInterval());
+			for (final int timeStep : timeSteps)
+			{
+				Assert.assertEquals(expected.get(timeStep), engine.seek(timeStep));
+			}
+		}
+		finally
+		{
+			engine.close();
+			checkpointFile.delete();
+		}
+	}
+
+	@Test(
+			expected = IOException.class)
+	public void testCheckpointsOfOtherJournalsAreRejected() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1);
+		journal.nextStepOp();
+
+		final File checkpointFile = File.createTempFile("ldcr_test_", ".ckpt");
+		checkpointFile.deleteOnExit();
+		try
+		{
+			new ReplayEngine(journal, new ClusteringJournal()).writeCheckpoints(checkpointFile, 1);
+
+			journal.createNodeOp(1, 1);
+			new ReplayEngine(journal, new ClusteringJournal()).useCheckpoints(checkpointFile);
+		}
+		finally
+		{
+			checkpointFile.delete();
+		}
+	}
+
+	@Test(
+			expected = IllegalStateException.class)
+	public void testEdgeToUnknownNode() throws IOException
+	{
+		final GraphJournal journal = new GraphJournal();
+		journal.createNodeOp(1, 1);
+		journal.createEdgeOp(1, 2);
+
+		new ReplayEngine(journal, new ClusteringJournal()).seek(0);
+	}
+}
@@ -0,0 +1,87 @@
+package edu.kit.iti.ldcrgen.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncChannelOutputStreamTest
+{
+
+	@Test
+	public void testWritesAllBytesInOrder() throws IOException
+	{
+		final File file = File.createTempFile("ldcr_async_", ".bin");
+		file.deleteOnExit();
+
+		final Random random = new Random(42);
+		final byte[] expected = new byte[100000];
+		random.nextBytes(expected);
+
+		// small buffers in order to exercise the hand-off
+		final AsyncChannelOutputStream stream = new AsyncChannelOutputStream(
+			new FileOutputStream(file).getChannel(), 1000, 2);
+		int position = 0;
+		while (position < expected.length)
+		{
+			if (random.nextBoolean())
+			{
+				stream.write(expected[position++]);
+			}
+			else
+			{
+				final int length = Math.min(random.nextInt(3000), expected.length - position);
+				stream.write(expected, position, length);
+				position += length;
+			}
+		}
+		stream.close();
+
+		Assert.assertEquals(expected.length, file.length());
+		final byte[] actual = new byte[expected.length];
+		final InputStream in = new FileInputStream(file);
+		try
+		{
+			int read = 0;
+			while (read < actual.length)
+			{
+				read += in.read(actual, read, actual.length - read);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		Assert.assertArrayEquals(expected, actual);
+		file.delete();
+	}
+
+	@Test(
+			expected = IOException.class)
+	public void testWriteAfterClose() throws IOException
+	{
+		final File file = File.createTempFile("ldcr_async_", ".bin");
+		file.deleteOnExit();
+
+		final AsyncChannelOutputStream stream = new AsyncChannelOutputStream(
+			new FileOutputStream(file).getChannel());
+		stream.close();
+		stream.close();
+		file.delete();
+		stream.write(1);
+	}
+
+	@Test(
+			expected = IllegalArgumentException.class)
+	public void testSingleBuffer() throws IOException
+	{
+		final File file = File.createTempFile("ldcr_async_", ".bin");
+		file.deleteOnExit();
+		new AsyncChannelOutputStream(new FileOutputStream(file).getChannel(), 1000, 1);
+	}
+}
@@ -6,6 +6,8 @@ import java.io.PrintStream;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import edu.kit.iti.ldcrgen.data_structures.GeometricSkipSampler;
+import edu.kit.iti.ldcrgen.data_structures.JavaUtilRandomProvider;
 import edu.kit.iti.ldcrgen.util.Sequences;
 
 public class SequencePerformanceTest
@@ -65,4 +67,51 @@ public class SequencePerformanceTest
 					(double) size);
 		}
 	}
+
+	/**
+	 * Compares the list-based binomial sequence with streaming the same
+	 * indices from a {@link GeometricSkipSampler}.
+	 */
+	@Ignore
+	@Test
+	public void testGeometricSkipSampler() throws FileNotFoundException
+	{
+		final PrintStream writer = new PrintStream(
+				"./test/measurements/geometric_skip_sampler.data");
+		final int numRuns = 5;
+		final long maxSize = (long) 1e9;
+		final double[] probabilities = { 1e-3, 1e-2, 5e-2 };
+		final GeometricSkipSampler sampler = new GeometricSkipSampler(new JavaUtilRandomProvider());
+
+		writer.println("size list_ms sampler_ms");
+		for (final double prob : probabilities)
+		{
+			long checksum = 0;
+			long startTime = System.currentTimeMillis();
+			for (int i = 0; i < numRuns; ++i)
+			{
+				for (final long index : Sequences.binomialSequence(prob, maxSize))
+				{
+					checksum += index;
+				}
+			}
+			final long listTime = System.currentTimeMillis() - startTime;
+
+			startTime = System.currentTimeMillis();
+			final double logQ = GeometricSkipSampler.logQ(prob);
+			for (int i = 0; i < numRuns; ++i)
+			{
+				sampler.reset(logQ, maxSize);
+				while (sampler.hasNext())
+				{
+					checksum += sampler.next();
+				}
+			}
+			final long samplerTime = System.currentTimeMillis() - startTime;
+
+			writer.println(maxSize * prob + " " + listTime / (double) numRuns + " " + samplerTime
+				/ (double) numRuns + " # " + checksum);
+		}
+		writer.close();
+	}
 }